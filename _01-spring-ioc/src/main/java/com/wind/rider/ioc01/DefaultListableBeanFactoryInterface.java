@@ -1,8 +1,14 @@
 package com.wind.rider.ioc01;
 
 import com.wind.rider.ioc01.infrastructure.annotation.MyFlag;
+import com.wind.rider.ioc01.infrastructure.componet.BoundedCacheScope;
+import com.wind.rider.ioc01.infrastructure.componet.CachedEmbeddedValueResolver;
+import com.wind.rider.ioc01.infrastructure.componet.CompilingBeanExpressionResolver;
 import com.wind.rider.ioc01.infrastructure.componet.CustomRequestScope;
+import com.wind.rider.ioc01.infrastructure.componet.DateTimeConverters;
 import com.wind.rider.ioc01.infrastructure.componet.MyCustomDateEditor;
+import com.wind.rider.ioc01.infrastructure.componet.RingBufferApplicationStartup;
+import com.wind.rider.ioc01.infrastructure.factory.BatchBeanDefinitionRegistry;
 import com.wind.rider.ioc01.infrastructure.sample.*;
 import lombok.Data;
 import org.slf4j.Logger;
@@ -20,8 +26,6 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.support.ResourceEditorRegistrar;
-import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
-import org.springframework.context.expression.StandardBeanExpressionResolver;
 import org.springframework.core.AliasRegistry;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ResolvableType;
@@ -30,9 +34,12 @@ import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.util.StringValueResolver;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -114,6 +121,14 @@ public class DefaultListableBeanFactoryInterface {
             boolean isBeanNameUse = beanDefinitionRegistry.isBeanNameInUse("sampleClass02");
             //3.8 BeanDefinitionRegistry接口方法之八：根据Bean的名称获取容器中BeanDefinition
             beanDefinitionRegistry.removeBeanDefinition("sampleClass02");
+            //3.9 批量注册/移除BeanDefinition：容器开始创建Bean之后，逐个registerBeanDefinition每次都要复制一遍BeanName列表并使缓存失效，
+            //    逐个removeBeanDefinition每次还要遍历全部定义查找子定义，成千上万个定义时总耗时按平方增长；
+            //    BatchBeanDefinitionRegistry(OptimizedListableBeanFactory实现)先一遍检查整批的名称、别名冲突，再逐个写入，缓存只失效一次，
+            //    不支持批量的注册表(如这里的DefaultListableBeanFactory)由registerAll/removeAll退回逐个注册
+            BatchBeanDefinitionRegistry.registerAll(beanDefinitionRegistry, List.of(
+                    new BeanDefinitionHolder(BeanDefinitionBuilder.genericBeanDefinition(SampleClass02.class).getBeanDefinition(), "sampleClass06"),
+                    new BeanDefinitionHolder(BeanDefinitionBuilder.genericBeanDefinition(SampleClass05.class).getBeanDefinition(), "sampleClass07")));
+            BatchBeanDefinitionRegistry.removeAll(beanDefinitionRegistry, List.of("sampleClass06", "sampleClass07"));
         }
         /**-------------------------------------------------------------------------------------------------------------------------------------*/
         /* 4. 容器中获取Bean接口 -> BeanFactory，定义了从容器中获取Bean的一系列接口方法
@@ -160,7 +175,9 @@ public class DefaultListableBeanFactoryInterface {
         }
         /**-------------------------------------------------------------------------------------------------------------------------------------*/
         /* 6. 枚举所有Bean实例接口 -> ListableBeanFactory, 定义了一系列可以枚举出所有Bean实例的接口方法，
-         * 其接口能力主要由 StaticListableBeanFactory实现，再由DefaultListableBeanFactory补充实现，实现主要依靠StaticListableBeanFactory成员变量Map<String, Object> beans 完成 */
+         * 其接口能力主要由 StaticListableBeanFactory实现，再由DefaultListableBeanFactory补充实现，实现主要依靠StaticListableBeanFactory成员变量Map<String, Object> beans 完成
+         * 按类型查找在DefaultListableBeanFactory中需要遍历全部BeanDefinition，注册表较大时可使用OptimizedListableBeanFactory的类型索引
+         * 6.4 ~ 6.7 按注解查找会反射读取每个Bean类的注解，OptimizedListableBeanFactory改为读取_03-ioc-processor在编译期生成的注解索引 */
         if (beanFactory instanceof ListableBeanFactory listableBeanFactory) {
             //6.1 ListableBeanFactory接口能力之一：根据指定的类型获取所有Bean的名称数组，参数包含是否包含非单例、是否允许提前初始化BeanProvider、FactoryBean内的Bean，默认都是true
             String[] beanNamesForType = listableBeanFactory.getBeanNamesForType(SampleInterface.class);
@@ -236,25 +253,35 @@ public class DefaultListableBeanFactoryInterface {
             boolean isCacheMetadata = configurableBeanFactory.isCacheBeanMetadata();
             //8.8 ConfigurableBeanFactory接口能力之八： 设置容器的Spel表达式解析器（BeanExpressionResolver接口）
             // -- spring默认提供了 StandardBeanExpressionResolver
-            configurableBeanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
+            // -- CompilingBeanExpressionResolver限制表达式缓存大小，并将执行次数多的表达式编译为字节码，getStats()查看各表达式的执行方式与耗时
+            configurableBeanFactory.setBeanExpressionResolver(new CompilingBeanExpressionResolver());
             //8.9 ConfigurableBeanFactory接口方法之九： 获取容器内SpEL表达式解析器
             BeanExpressionResolver beanExpressionResolver = configurableBeanFactory.getBeanExpressionResolver();
             //8.10 ConfigurableBeanFactory接口方法之十：设置容器内的类型转换器（上层类型转换器接口ConversionService）
-            configurableBeanFactory.setConversionService(new DefaultFormattingConversionService());
+            // -- 注册基于java.time的日期转换器，线程安全、pattern只编译一次，所有BeanWrapper共享同一组转换器实例
+            DefaultFormattingConversionService formattingConversionService = new DefaultFormattingConversionService();
+            DateTimeConverters.registerConverters(formattingConversionService, "yyyy-MM-dd HH:mm:ss");
+            configurableBeanFactory.setConversionService(formattingConversionService);
             //8.11 ConfigurableBeanFactory接口方法之十一： 获取容器内的类型转换器
             ConversionService conversionService = configurableBeanFactory.getConversionService();
             //8.12 ConfigurableBeanFactory接口方法之十二： 添加容器内的属性编辑器（属性绑定）
             configurableBeanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(new DefaultResourceLoader(), null));
             //8.13 ConfigurableBeanFactory接口方法之十三： 注册自定义的属性编辑器到容器中（Spring默认不提供）
-            configurableBeanFactory.registerCustomEditor(Date.class, MyCustomDateEditor.class);
+            // -- 注意：按Class注册的PropertyEditor会在每个BeanWrapper中重新实例化，且优先级高于ConversionService，
+            //    注册到上面的容器会遮蔽8.10中DateTimeConverters的Date转换，所以这里单独用一个容器展示PropertyEditor的写法
+            // -- OptimizedListableBeanFactory按(源类型, 目标类型, 属性)编译缓存转换器(CompiledTypeConverter)，PropertyEditor只在编译时实例化一次
+            ConfigurableBeanFactory editorBeanFactory = new DefaultListableBeanFactory();
+            editorBeanFactory.registerCustomEditor(Date.class, MyCustomDateEditor.class);
             //8.14 ConfigurableBeanFactory接口方法之十四： 将容器中注册的属性编辑器copy到参数的属性编辑器中
-            configurableBeanFactory.copyRegisteredEditorsTo(new SimpleTypeConverter());
+            editorBeanFactory.copyRegisteredEditorsTo(new SimpleTypeConverter());
             //8.15 ConfigurableBeanFactory接口方法之十五： 设置Spring类型转换底层转换器TypeConverter
             configurableBeanFactory.setTypeConverter(new SimpleTypeConverter());
             //8.16 ConfigurableBeanFactory接口方法之十六： 获取Spring类型转换底层转换器TypeConverter
             TypeConverter typeConverter = configurableBeanFactory.getTypeConverter();
             //8.17 ConfigurableBeanFactory接口方法之十七： 添加嵌入值解析器（如解析${}）
-            configurableBeanFactory.addEmbeddedValueResolver(strValue -> new StandardEnvironment().resolvePlaceholders(strValue));
+            // -- 不要每次解析都new StandardEnvironment()：CachedEmbeddedValueResolver共享一个Environment，预编译${}模板并按PropertySource快照缓存结果，8.27复用同一个实例
+            StringValueResolver embeddedValueResolver = new CachedEmbeddedValueResolver(new StandardEnvironment());
+            configurableBeanFactory.addEmbeddedValueResolver(embeddedValueResolver);
             //8.18 ConfigurableBeanFactory接口方法之十八： 判断容器中是否存在嵌入的值解析器
             boolean hasEmbeddedValueResolver = configurableBeanFactory.hasEmbeddedValueResolver();
             //8.19 ConfigurableBeanFactory接口方法之十九： 获取容器中注册的BeanPostProcessor数量
@@ -263,19 +290,26 @@ public class DefaultListableBeanFactoryInterface {
             configurableBeanFactory.addBeanPostProcessor(new AutowiredAnnotationBeanPostProcessor());
             //8.21 ConfigurableBeanFactory接口方法之二十一：向容器中注册一个新的声明周期Scope(默认有Singleton、Prototype、Request、Session、Application)
             configurableBeanFactory.registerScope("custom", new CustomRequestScope());
+            // 创建代价高、可复用一段时间的Bean(解析器、客户端、编译后的模板)使用有界、可过期的缓存Scope，关闭容器时需调用destroy()
+            configurableBeanFactory.registerScope("cached", new BoundedCacheScope(256, Duration.ofMinutes(10)));
             //8.22 ConfigurableBeanFactory接口方法之二十二： 根据ScopeName获取容器中存在的Scope对象
             Scope scope = configurableBeanFactory.getRegisteredScope("custom");
             //8.23 ConfigurableBeanFactory接口方法之二十三： 获取容器中所有ScopeName数组
             String[] registeredScopeNames = configurableBeanFactory.getRegisteredScopeNames();
             //8.24 ConfigurableBeanFactory接口方法之二十四： 设置一个启动步骤追踪对象，可以被ApplicationStartupAware监听，常用于启动性能追踪、为bean提供追踪能力、细粒度步骤追踪
-            configurableBeanFactory.setApplicationStartup(new BufferingApplicationStartup(100));
+            // RingBufferApplicationStartup复用步骤对象、写满后覆盖最旧的记录，配合OptimizedListableBeanFactory可细化到每个BeanPostProcessor，
+            // 通过report()导出CSV或flame graph的折叠栈
+            configurableBeanFactory.setApplicationStartup(new RingBufferApplicationStartup(4096));
             //8.25 ConfigurableBeanFactory接口方法之二十五： 获取容器中启动步骤追踪对象
             ApplicationStartup applicationStartup = configurableBeanFactory.getApplicationStartup();
             //8.26 ConfigurableBeanFactory接口方法之二十六： Ioc容器拷贝
             ((ConfigurableBeanFactory)new DefaultListableBeanFactory()).copyConfigurationFrom(configurableBeanFactory);
             //8.27 ConfigurableBeanFactory接口方法之二十七： 使用StringValueResolver遍历别名和对应的bean名进行解析后放回aliasMap
-            configurableBeanFactory.resolveAliases(strValue -> new StandardEnvironment().resolvePlaceholders(strValue));
+            configurableBeanFactory.resolveAliases(embeddedValueResolver);
             //8.28 ConfigurableBeanFactory接口方法之二十八： 根据BeanName获取父子BeanDefinition合并后的BeanDefinition（加载Bean、初始化Bean后合并的BeanDefinition）
+            // -- 父类为每个BeanName各缓存一份完整的合并结果，大量只有BeanName不同的定义时堆内存大多是重复的副本；
+            //    OptimizedListableBeanFactory默认让形状相同的定义共享同一个合并结果(setSharedMergedDefinitionsEnabled(false)关闭)，
+            //    此时返回的是共享对象，不要逐个修改，应修改注册的BeanDefinition后调用clearMetadataCache()
             BeanDefinition sampleClass04 = configurableBeanFactory.getMergedBeanDefinition("sampleClass04");
             //8.29 ConfigurableBeanFactory接口方法之二十九： 根据BeanName判断一个Bean是否为BeanFactory类型
             boolean isFactoryBean = configurableBeanFactory.isFactoryBean("sampleClass04");
@@ -294,6 +328,8 @@ public class DefaultListableBeanFactoryInterface {
             //8.36 ConfigurableBeanFactory接口方法之三十六： 销毁Scope实例
             //   configurableBeanFactory.destroyScopedBean("sampleClass03");
             //8.37 ConfigurableBeanFactory接口方法之三十七： 销毁所有单例Bean
+            // -- 默认在当前线程按注册顺序的逆序依次销毁；OptimizedListableBeanFactory设置destructionExecutor后按依赖关系并行销毁，
+            //    destructionTimeout限制每个销毁回调(含8.35)的等待时间，getLastDestructionReport()查看每个Bean的销毁耗时
             configurableBeanFactory.destroySingletons();
         }
 
@@ -1,5 +1,7 @@
 package com.wind.rider.ioc01.infrastructure.annotation;
 
+import org.springframework.stereotype.Indexed;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -8,6 +10,8 @@ import java.lang.annotation.Target;
 
 @Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
+// 标记为stereotype，带有@MyFlag的类写入编译期注解索引(bean-annotations.idx)
+@Indexed
 public @interface MyFlag {
     String value();
 }
@@ -0,0 +1,268 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * @apiNote 异步批量写日志的Appender，替代logback.xml中直接在调用线程上写控制台/文件的同步Appender
+ * -- 调用线程只做prepareForDeferredProcessing(格式化消息、固定线程名与MDC)并放入有界环形队列(ArrayBlockingQueue)，不做任何I/O
+ * -- 单个写线程一次取出最多batchSize个事件，依次交给每个 {@link LogSink}：先批量encode到缓冲区，再通过FileChannel写出，
+ *    多个输出目标共用同一个队列与写线程
+ * -- 队列满时按overflowPolicy处理：BLOCK阻塞调用线程(默认，不丢日志)；DISCARD直接丢弃；
+ *    DISCARD_BELOW_WARN在剩余容量不足discardingThreshold时丢弃WARN以下的事件，WARN/ERROR仍阻塞等待
+ * -- stop时(LoggerContext停止，或logback.xml中的shutdownHook在JVM退出时)先拒绝新事件，再把队列中剩余事件写完，最多等待maxFlushTime毫秒；
+ *    入队与isStarted()检查在同一个读锁内，stop在写锁内置为停止，因此不会有事件在写线程最后一次检查队列之后入队而被遗留
+ *    (停止后到达的事件与logback的其他Appender一样直接忽略)
+ * -- 写线程被外部中断(如mvn exec:java结束时清理线程)后，先写完队列中的事件，之后的事件改为在调用线程上同步写出
+ */
+public class BatchingAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public enum OverflowPolicy {
+        BLOCK, DISCARD, DISCARD_BELOW_WARN
+    }
+
+    private final List<LogSink> sinks = new ArrayList<>();
+
+    private int queueSize = 8192;
+
+    private int batchSize = 256;
+
+    private int discardingThreshold = -1;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    private int maxFlushTime = 1000;
+
+    private ArrayBlockingQueue<ILoggingEvent> queue;
+
+    private Thread writer;
+
+    /** 写线程已退出，事件改为在调用线程上同步写出 */
+    private volatile boolean writerExited;
+
+    /** stop()等待超时后放弃剩余事件 */
+    private volatile boolean abandoned;
+
+    private final LongAdder discarded = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    /** append持有读锁完成"检查已启动 + 入队"，stop持有写锁置为停止 */
+    private final StampedLock lifecycleLock = new StampedLock();
+
+    public void addSink(LogSink sink) {
+        this.sinks.add(sink);
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 剩余容量低于该值时开始丢弃WARN以下的事件，默认为队列容量的1/5(与logback的AsyncAppender一致)
+     */
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    /**
+     * 因队列已满被丢弃的事件数
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * 已交给各输出目标的事件数
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public int getQueuedCount() {
+        return (queue != null ? queue.size() : 0);
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (sinks.isEmpty()) {
+            addError("No sink configured for appender " + name);
+            return;
+        }
+        if (queueSize < 1 || batchSize < 1) {
+            addError("queueSize and batchSize must be positive for appender " + name);
+            return;
+        }
+        if (discardingThreshold < 0) {
+            discardingThreshold = queueSize / 5;
+        }
+        for (LogSink sink : sinks) {
+            if (!sink.isStarted()) {
+                sink.setContext(getContext());
+                sink.start();
+            }
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writer = new Thread(this::drainLoop, "logback-batching-writer-" + name);
+        writer.setDaemon(true);
+        super.start();
+        writer.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        long stamp = lifecycleLock.readLock();
+        try {
+            // doAppend检查isStarted()之后、获得读锁之前可能已经stop
+            if (!isStarted()) {
+                return;
+            }
+            if (writerExited) {
+                writeSynchronously(List.of(event));
+                return;
+            }
+            enqueue(event);
+        } finally {
+            lifecycleLock.unlockRead(stamp);
+        }
+        if (writerExited) {
+            // 入队的同时写线程被中断退出
+            drainSynchronously();
+        }
+    }
+
+    private void enqueue(ILoggingEvent event) {
+        try {
+            switch (overflowPolicy) {
+                case BLOCK -> queue.put(event);
+                case DISCARD -> {
+                    if (!queue.offer(event)) {
+                        discarded.increment();
+                    }
+                }
+                case DISCARD_BELOW_WARN -> {
+                    if (queue.remainingCapacity() < discardingThreshold && event.getLevel().toInt() < Level.WARN_INT) {
+                        discarded.increment();
+                    } else {
+                        queue.put(event);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            discarded.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (isStarted() || !queue.isEmpty()) {
+                ILoggingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            }
+        } catch (InterruptedException ex) {
+            writerExited = true;
+            if (!abandoned) {
+                drainSynchronously();
+            }
+        } finally {
+            writerExited = true;
+            if (!isStarted()) {
+                stopSinks();
+            }
+        }
+    }
+
+    private void writeBatch(List<ILoggingEvent> batch) {
+        for (LogSink sink : sinks) {
+            sink.write(batch);
+        }
+        written.add(batch.size());
+        batch.clear();
+    }
+
+    private void writeSynchronously(List<ILoggingEvent> events) {
+        synchronized (sinks) {
+            for (LogSink sink : sinks) {
+                sink.write(events);
+            }
+            written.add(events.size());
+        }
+    }
+
+    private void drainSynchronously() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        synchronized (sinks) {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+            }
+        }
+    }
+
+    private void stopSinks() {
+        synchronized (sinks) {
+            for (LogSink sink : sinks) {
+                sink.stop();
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        // 先置为停止(等正在入队的append完成)，之后不再接收新事件，写线程写完队列中剩余的事件后退出
+        long stamp = lifecycleLock.writeLock();
+        try {
+            super.stop();
+        } finally {
+            lifecycleLock.unlockWrite(stamp);
+        }
+        try {
+            writer.join(maxFlushTime);
+            if (writer.isAlive()) {
+                addWarn("Max flush time (" + maxFlushTime + " ms) reached, " + queue.size() + " queued events discarded");
+                abandoned = true;
+                writer.interrupt();
+                writer.join(maxFlushTime);
+            }
+            if (writerExited) {
+                stopSinks();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            addError("Interrupted while waiting for writer thread to drain", ex);
+        }
+    }
+}
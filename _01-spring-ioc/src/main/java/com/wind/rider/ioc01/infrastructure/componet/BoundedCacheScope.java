@@ -0,0 +1,235 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @apiNote 有界、可过期的缓存Scope，适用于创建代价高、可以在一段时间内复用的Bean(解析器、客户端、编译后的模板等)
+ * -- Bean保存在Guava Cache中：超过maximumSize时按近似LRU淘汰(按segment分别维护访问顺序)，
+ *    设置了timeToLive时自创建起超过该时间即过期，下一次获取时重新创建
+ * -- 防击穿：多个线程同时未命中同一个Bean时只有一个线程调用ObjectFactory创建，其他线程等待并取得同一个实例；
+ *    创建失败不缓存，等待中的线程得到同一个异常
+ * -- 淘汰、过期以及 {@link #destroy()} 时执行registerDestructionCallback注册的销毁回调；
+ *    remove(destroyScopedBean)只移除、不执行回调，由调用方销毁
+ * -- 过期的Bean在之后对本Scope的读写或 {@link #cleanUp()} 时才被清理并销毁，没有后台线程
+ * -- 已被淘汰的实例会被销毁，不要直接注入到单例中长期持有，应通过ObjectProvider或scoped proxy每次获取
+ * -- Scope不是容器中的Bean，容器关闭时不会自动销毁，需要在关闭容器时调用 {@link #destroy()}
+ */
+public class BoundedCacheScope implements Scope, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedCacheScope.class);
+
+    private final Cache<String, CachedBean> cache;
+
+    /** 正在创建的Bean，创建过程中注册的销毁回调先记在这里(同一名称同时只有一个线程在创建) */
+    private final Map<String, CachedBean> creating = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder creations = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maximumSize 最多缓存的Bean数
+     * @param timeToLive  自创建起的存活时间，null或0表示不过期
+     */
+    public BoundedCacheScope(long maximumSize, @Nullable Duration timeToLive) {
+        this(maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker 计算存活时间使用的时钟
+     */
+    public BoundedCacheScope(long maximumSize, @Nullable Duration timeToLive, Ticker ticker) {
+        Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(ticker);
+        if (timeToLive != null && !timeToLive.isZero()) {
+            Assert.isTrue(!timeToLive.isNegative(), "timeToLive must not be negative");
+            builder.expireAfterWrite(timeToLive);
+        }
+        this.cache = builder.removalListener(this::onRemoval).build();
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        CachedBean cached = this.cache.getIfPresent(name);
+        if (cached != null) {
+            this.hits.increment();
+            return cached.bean;
+        }
+        this.misses.increment();
+        try {
+            return this.cache.get(name, () -> create(name, objectFactory)).bean;
+        } catch (UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        } catch (ExecutionError ex) {
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        } catch (ExecutionException ex) {
+            // ObjectFactory只会抛出非受检异常
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private CachedBean create(String name, ObjectFactory<?> objectFactory) {
+        CachedBean cached = new CachedBean();
+        this.creating.put(name, cached);
+        this.creations.increment();
+        try {
+            cached.bean = objectFactory.getObject();
+            return cached;
+        } catch (RuntimeException | Error ex) {
+            this.failures.increment();
+            throw ex;
+        } finally {
+            this.creating.remove(name, cached);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object remove(String name) {
+        CachedBean cached = this.cache.getIfPresent(name);
+        if (cached == null || !cached.detach()) {
+            // 不存在，或已被淘汰并销毁
+            return null;
+        }
+        this.cache.asMap().remove(name, cached);
+        return cached.bean;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        CachedBean cached = this.creating.get(name);
+        if (cached == null) {
+            cached = this.cache.getIfPresent(name);
+        }
+        if (cached != null) {
+            cached.setDestructionCallback(callback);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public String getConversationId() {
+        return null;
+    }
+
+    /**
+     * 清理已过期的Bean并执行其销毁回调
+     */
+    public void cleanUp() {
+        this.cache.cleanUp();
+    }
+
+    /**
+     * 移除并销毁全部Bean，之后仍可继续使用
+     */
+    @Override
+    public void destroy() {
+        this.cache.invalidateAll();
+        this.cache.cleanUp();
+    }
+
+    public CacheScopeStats getStats() {
+        return new CacheScopeStats(this.cache.size(), this.hits.sum(), this.misses.sum(), this.creations.sum(),
+                this.failures.sum(), this.evictions.sum(), this.expirations.sum());
+    }
+
+    private void onRemoval(RemovalNotification<String, CachedBean> notification) {
+        if (notification.getCause() == RemovalCause.SIZE) {
+            this.evictions.increment();
+        } else if (notification.getCause() == RemovalCause.EXPIRED) {
+            this.expirations.increment();
+        }
+        CachedBean cached = notification.getValue();
+        Runnable callback = (cached != null ? cached.release() : null);
+        if (callback != null) {
+            try {
+                callback.run();
+            } catch (Throwable ex) {
+                log.warn("Destruction callback for cached bean '{}' failed", notification.getKey(), ex);
+            }
+        }
+    }
+
+    /**
+     * 缓存中的一个Bean；销毁回调只会被取走一次：淘汰/过期时由removal listener执行，remove时丢弃(由调用方销毁)
+     */
+    private static final class CachedBean {
+
+        private Object bean;
+
+        @Nullable
+        private Runnable destructionCallback;
+
+        private boolean released;
+
+        synchronized void setDestructionCallback(Runnable callback) {
+            if (!this.released) {
+                this.destructionCallback = callback;
+            }
+        }
+
+        /**
+         * 由remove调用，返回false表示已被淘汰并销毁
+         */
+        synchronized boolean detach() {
+            if (this.released) {
+                return false;
+            }
+            this.released = true;
+            this.destructionCallback = null;
+            return true;
+        }
+
+        @Nullable
+        synchronized Runnable release() {
+            if (this.released) {
+                return null;
+            }
+            this.released = true;
+            Runnable callback = this.destructionCallback;
+            this.destructionCallback = null;
+            return callback;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+/**
+ * @apiNote {@link BoundedCacheScope} 的累计统计
+ *
+ * @param size         当前缓存的Bean数(可能包含已过期、尚未清理的Bean)
+ * @param hits         直接从缓存取得Bean的次数
+ * @param misses       缓存中没有、需要创建或等待其他线程创建的次数
+ * @param creations    实际调用ObjectFactory创建Bean的次数，misses与creations之差为并发未命中时合并的等待次数
+ * @param failures     创建Bean抛出异常的次数(失败不缓存)
+ * @param evictions    超出容量被淘汰的Bean数
+ * @param expirations  超过存活时间被清理的Bean数
+ */
+public record CacheScopeStats(long size, long hits, long misses, long creations, long failures, long evictions, long expirations) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return (requests == 0 ? 1.0 : (double) hits / requests);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cached, %d hits (%.1f%%), %d misses, %d created, %d failed, %d evicted, %d expired",
+                size, hits, hitRate() * 100, misses, creations, failures, evictions, expirations);
+    }
+}
@@ -0,0 +1,696 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @apiNote 从 {@link PersistentMetadataReaderFactory} 的缓存文件还原的类元数据，与ASM解析得到的SimpleAnnotationMetadata等价
+ * -- 解析时另外记下注解类型的名称：类上直接声明的注解、每个注解的元注解、方法上出现过的注解(含元注解)；
+ *    组件扫描的过滤、配置类候选判断(isAnnotated、hasMetaAnnotation、hasAnnotatedMethods等)只比较这些名称，不加载任何类
+ * -- 注解属性只保存直接声明的注解(元注解、@AliasFor由Spring按注解类型重新推导)，Class属性保存为类名；
+ *    第一次读取属性(getAnnotations、getAnnotationAttributes)时才加载注解类型、构建MergedAnnotation，
+ *    此时无法加载的注解类型与ASM解析一样跳过。方法在第一次访问时解码，方法上的注解属性同样按方法在第一次读取时才构建
+ * -- 二进制格式：字符串为长度 + UTF-8，每个注解的属性先写总长度，属性值带类型标记，数组先写元素类型；格式变化时须修改缓存文件的格式版本
+ */
+final class CachedAnnotationMetadata implements AnnotationMetadata {
+
+    private static final int INTERFACE = 1;
+    private static final int ANNOTATION = 1 << 1;
+    private static final int ABSTRACT = 1 << 2;
+    private static final int FINAL = 1 << 3;
+    private static final int INDEPENDENT = 1 << 4;
+    private static final int STATIC = 1 << 5;
+    private static final int OVERRIDABLE = 1 << 6;
+
+    private static final byte STRING = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte CHAR = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte ENUM = 9;
+    private static final byte NESTED_ANNOTATION = 10;
+    private static final byte ARRAY = 11;
+
+    private final String className;
+
+    private final int flags;
+
+    @Nullable
+    private final String enclosingClassName;
+
+    @Nullable
+    private final String superClassName;
+
+    private final String[] interfaceNames;
+
+    private final String[] memberClassNames;
+
+    /** 类上直接声明的注解类型 */
+    private final String[] annotationTypes;
+
+    /** 与annotationTypes一一对应：各注解的元注解类型(getMetaAnnotationTypes的结果) */
+    private final String[][] metaAnnotationTypes;
+
+    /** 作为元注解出现的注解类型 */
+    private final String[] metaPresentTypes;
+
+    /** 至少有一个方法带有的注解类型(含元注解) */
+    private final String[] methodAnnotationTypes;
+
+    private final EncodedAnnotations annotations;
+
+    /** 方法部分的编码，首次访问方法时才解码 */
+    private final ByteBuffer encodedMethods;
+
+    @Nullable
+    private final ClassLoader classLoader;
+
+    @Nullable
+    private volatile Set<MethodMetadata> declaredMethods;
+
+    private CachedAnnotationMetadata(String className, int flags, @Nullable String enclosingClassName, @Nullable String superClassName,
+                                     String[] interfaceNames, String[] memberClassNames, String[] annotationTypes,
+                                     String[][] metaAnnotationTypes, String[] metaPresentTypes, String[] methodAnnotationTypes,
+                                     EncodedAnnotations annotations,
+                                     ByteBuffer encodedMethods, @Nullable ClassLoader classLoader) {
+        this.className = className;
+        this.flags = flags;
+        this.enclosingClassName = enclosingClassName;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.memberClassNames = memberClassNames;
+        this.annotationTypes = annotationTypes;
+        this.metaAnnotationTypes = metaAnnotationTypes;
+        this.metaPresentTypes = metaPresentTypes;
+        this.methodAnnotationTypes = methodAnnotationTypes;
+        this.annotations = annotations;
+        this.encodedMethods = encodedMethods;
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public String getClassName() {
+        return this.className;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return (this.flags & INTERFACE) != 0;
+    }
+
+    @Override
+    public boolean isAnnotation() {
+        return (this.flags & ANNOTATION) != 0;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return (this.flags & ABSTRACT) != 0;
+    }
+
+    @Override
+    public boolean isFinal() {
+        return (this.flags & FINAL) != 0;
+    }
+
+    @Override
+    public boolean isIndependent() {
+        return (this.flags & INDEPENDENT) != 0;
+    }
+
+    @Override
+    @Nullable
+    public String getEnclosingClassName() {
+        return this.enclosingClassName;
+    }
+
+    @Override
+    @Nullable
+    public String getSuperClassName() {
+        return this.superClassName;
+    }
+
+    @Override
+    public String[] getInterfaceNames() {
+        return this.interfaceNames.clone();
+    }
+
+    @Override
+    public String[] getMemberClassNames() {
+        return this.memberClassNames.clone();
+    }
+
+    @Override
+    public MergedAnnotations getAnnotations() {
+        return this.annotations.get();
+    }
+
+    //---------------------------------------------------------------------
+    // 只按注解类型名称回答的查询，与AnnotationMetadata的默认实现结果相同
+    //---------------------------------------------------------------------
+
+    @Override
+    public Set<String> getAnnotationTypes() {
+        return new LinkedHashSet<>(Arrays.asList(this.annotationTypes));
+    }
+
+    @Override
+    public Set<String> getMetaAnnotationTypes(String annotationName) {
+        for (int i = 0; i < this.annotationTypes.length; i++) {
+            if (this.annotationTypes[i].equals(annotationName)) {
+                return new LinkedHashSet<>(Arrays.asList(this.metaAnnotationTypes[i]));
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean hasAnnotation(String annotationName) {
+        return contains(this.annotationTypes, annotationName);
+    }
+
+    @Override
+    public boolean hasMetaAnnotation(String metaAnnotationName) {
+        return contains(this.metaPresentTypes, metaAnnotationName);
+    }
+
+    @Override
+    public boolean isAnnotated(String annotationName) {
+        return hasAnnotation(annotationName) || hasMetaAnnotation(annotationName);
+    }
+
+    @Override
+    public boolean hasAnnotatedMethods(String annotationName) {
+        return contains(this.methodAnnotationTypes, annotationName);
+    }
+
+    @Override
+    public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+        if (!hasAnnotatedMethods(annotationName)) {
+            return Collections.emptySet();
+        }
+        Set<MethodMetadata> result = new LinkedHashSet<>(4);
+        for (MethodMetadata method : declaredMethods()) {
+            if (method.isAnnotated(annotationName)) {
+                result.add(method);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public Set<MethodMetadata> getDeclaredMethods() {
+        return Collections.unmodifiableSet(declaredMethods());
+    }
+
+    /**
+     * 组件扫描、配置类候选判断通常只看类上的注解，方法推迟到第一次访问时解码；并发访问时可能重复解码，结果相同
+     */
+    private Set<MethodMetadata> declaredMethods() {
+        Set<MethodMetadata> methods = this.declaredMethods;
+        if (methods == null) {
+            methods = readMethods(this.encodedMethods.duplicate(), this.classLoader);
+            this.declaredMethods = methods;
+        }
+        return methods;
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (String candidate : names) {
+            if (candidate.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+        return (this == other || (other instanceof CachedAnnotationMetadata that && this.className.equals(that.className)));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.className.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.className;
+    }
+
+    //---------------------------------------------------------------------
+    // 编码
+    //---------------------------------------------------------------------
+
+    /**
+     * 编码ASM解析得到的元数据；遇到无法编码的属性值时抛出IllegalArgumentException，由调用方放弃缓存该类
+     */
+    static void encode(AnnotationMetadata metadata, DataOutputStream out) throws IOException {
+        writeString(out, metadata.getClassName());
+        int flags = (metadata.isInterface() ? INTERFACE : 0) | (metadata.isAnnotation() ? ANNOTATION : 0)
+                | (metadata.isAbstract() ? ABSTRACT : 0) | (metadata.isFinal() ? FINAL : 0)
+                | (metadata.isIndependent() ? INDEPENDENT : 0);
+        out.writeByte(flags);
+        writeString(out, metadata.getEnclosingClassName());
+        writeString(out, metadata.getSuperClassName());
+        writeStrings(out, metadata.getInterfaceNames());
+        writeStrings(out, metadata.getMemberClassNames());
+        // 名称部分：解析时注解类型均已加载，按AnnotationMetadata的默认实现算好结果
+        Set<String> annotationTypes = metadata.getAnnotationTypes();
+        writeStrings(out, annotationTypes.toArray(String[]::new));
+        for (String annotationType : annotationTypes) {
+            writeStrings(out, metadata.getMetaAnnotationTypes(annotationType).toArray(String[]::new));
+        }
+        writeStrings(out, typeNames(metadata.getAnnotations(), true));
+        Set<MethodMetadata> methods = metadata.getDeclaredMethods();
+        Set<String> methodAnnotationTypes = new LinkedHashSet<>();
+        for (MethodMetadata method : methods) {
+            Collections.addAll(methodAnnotationTypes, typeNames(method.getAnnotations(), false));
+        }
+        writeStrings(out, methodAnnotationTypes.toArray(String[]::new));
+        writeAnnotations(out, metadata.getAnnotations());
+        // 方法部分先写总长度，还原时整段跳过
+        ByteArrayOutputStream methodBuffer = new ByteArrayOutputStream(256);
+        DataOutputStream methodOut = new DataOutputStream(methodBuffer);
+        methodOut.writeInt(methods.size());
+        for (MethodMetadata method : methods) {
+            writeString(methodOut, method.toString());
+            writeString(methodOut, method.getMethodName());
+            writeString(methodOut, method.getDeclaringClassName());
+            writeString(methodOut, method.getReturnTypeName());
+            int methodFlags = (method.isAbstract() ? ABSTRACT : 0) | (method.isStatic() ? STATIC : 0)
+                    | (method.isFinal() ? FINAL : 0) | (method.isOverridable() ? OVERRIDABLE : 0);
+            methodOut.writeByte(methodFlags);
+            writeStrings(methodOut, typeNames(method.getAnnotations(), false));
+            writeAnnotations(methodOut, method.getAnnotations());
+        }
+        out.writeInt(methodBuffer.size());
+        methodBuffer.writeTo(out);
+    }
+
+    /**
+     * 出现的注解类型名称(直接声明与元注解)，metaOnly为true时只取元注解
+     */
+    private static String[] typeNames(MergedAnnotations annotations, boolean metaOnly) {
+        return annotations.stream()
+                .filter(annotation -> !metaOnly || annotation.getDistance() > 0)
+                .map(annotation -> annotation.getType().getName())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * 先写整段长度(还原时整段保留，读取属性时才解码)；只写直接声明的注解，每个注解的属性先写长度，
+     * 属性中的Class转为类名、嵌套注解转为Map
+     */
+    private static void writeAnnotations(DataOutputStream out, MergedAnnotations annotations) throws IOException {
+        List<MergedAnnotation<Annotation>> roots = annotations.stream().filter(annotation -> annotation.getDistance() == 0).toList();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream annotationOut = new DataOutputStream(buffer);
+        annotationOut.writeInt(roots.size());
+        ByteArrayOutputStream attributeBuffer = new ByteArrayOutputStream(64);
+        DataOutputStream attributeOut = new DataOutputStream(attributeBuffer);
+        for (MergedAnnotation<Annotation> annotation : roots) {
+            writeString(annotationOut, annotation.getType().getName());
+            attributeBuffer.reset();
+            writeAttributes(attributeOut, annotation.asMap(MergedAnnotation.Adapt.CLASS_TO_STRING, MergedAnnotation.Adapt.ANNOTATION_TO_MAP));
+            annotationOut.writeInt(attributeBuffer.size());
+            attributeBuffer.writeTo(annotationOut);
+        }
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+
+    private static void writeAttributes(DataOutputStream out, Map<?, ?> attributes) throws IOException {
+        out.writeInt(attributes.size());
+        for (Map.Entry<?, ?> attribute : attributes.entrySet()) {
+            writeString(out, (String) attribute.getKey());
+            writeValue(out, attribute.getValue());
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value.getClass().isArray()) {
+            Class<?> componentType = value.getClass().getComponentType();
+            int length = Array.getLength(value);
+            out.writeByte(ARRAY);
+            byte componentTag = tagOf(componentType);
+            out.writeByte(componentTag);
+            if (componentTag == ENUM) {
+                writeString(out, componentType.getName());
+            }
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeScalar(out, componentTag, Array.get(value, i));
+            }
+        } else {
+            byte tag = tagOf(value.getClass());
+            out.writeByte(tag);
+            if (tag == ENUM) {
+                writeString(out, ((Enum<?>) value).getDeclaringClass().getName());
+            }
+            writeScalar(out, tag, value);
+        }
+    }
+
+    private static void writeScalar(DataOutputStream out, byte tag, Object value) throws IOException {
+        switch (tag) {
+            case STRING -> writeString(out, (String) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case BYTE -> out.writeByte((Byte) value);
+            case CHAR -> out.writeChar((Character) value);
+            case SHORT -> out.writeShort((Short) value);
+            case INT -> out.writeInt((Integer) value);
+            case LONG -> out.writeLong((Long) value);
+            case FLOAT -> out.writeFloat((Float) value);
+            case DOUBLE -> out.writeDouble((Double) value);
+            case ENUM -> writeString(out, ((Enum<?>) value).name());
+            case NESTED_ANNOTATION -> writeAttributes(out, (Map<?, ?>) value);
+            default -> throw new IllegalArgumentException("Unsupported annotation attribute value " + value);
+        }
+    }
+
+    private static byte tagOf(Class<?> type) {
+        Class<?> wrapper = ClassUtils.resolvePrimitiveIfNecessary(type);
+        if (wrapper == String.class) {
+            return STRING;
+        } else if (wrapper == Boolean.class) {
+            return BOOLEAN;
+        } else if (wrapper == Byte.class) {
+            return BYTE;
+        } else if (wrapper == Character.class) {
+            return CHAR;
+        } else if (wrapper == Short.class) {
+            return SHORT;
+        } else if (wrapper == Integer.class) {
+            return INT;
+        } else if (wrapper == Long.class) {
+            return LONG;
+        } else if (wrapper == Float.class) {
+            return FLOAT;
+        } else if (wrapper == Double.class) {
+            return DOUBLE;
+        } else if (Enum.class.isAssignableFrom(wrapper)) {
+            return ENUM;
+        } else if (Map.class.isAssignableFrom(wrapper)) {
+            return NESTED_ANNOTATION;
+        }
+        throw new IllegalArgumentException("Unsupported annotation attribute type " + type.getName());
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    //---------------------------------------------------------------------
+    // 解码
+    //---------------------------------------------------------------------
+
+    /**
+     * 从缓存文件中的一段还原元数据，只读取名称，不加载任何类。
+     * 注解属性与方法部分只保留in的视图，in须在元数据的整个生命周期内有效(缓存文件的映射区满足这一点)
+     */
+    static CachedAnnotationMetadata decode(ByteBuffer in, @Nullable ClassLoader classLoader) {
+        String className = readString(in);
+        int flags = in.get();
+        String enclosingClassName = readString(in);
+        String superClassName = readString(in);
+        String[] interfaceNames = readStrings(in);
+        String[] memberClassNames = readStrings(in);
+        String[] annotationTypes = readStrings(in);
+        String[][] metaAnnotationTypes = new String[annotationTypes.length][];
+        for (int i = 0; i < annotationTypes.length; i++) {
+            metaAnnotationTypes[i] = readStrings(in);
+        }
+        String[] metaPresentTypes = readStrings(in);
+        String[] methodAnnotationTypes = readStrings(in);
+        EncodedAnnotations annotations = new EncodedAnnotations(slice(in), classLoader);
+        ByteBuffer encodedMethods = slice(in);
+        return new CachedAnnotationMetadata(className, flags, enclosingClassName, superClassName, interfaceNames,
+                memberClassNames, annotationTypes, metaAnnotationTypes, metaPresentTypes, methodAnnotationTypes,
+                annotations, encodedMethods, classLoader);
+    }
+
+    private static Set<MethodMetadata> readMethods(ByteBuffer in, @Nullable ClassLoader classLoader) {
+        int methodCount = in.getInt();
+        Set<MethodMetadata> methods = new LinkedHashSet<>(methodCount * 2);
+        for (int i = 0; i < methodCount; i++) {
+            String key = readString(in);
+            String methodName = readString(in);
+            String declaringClassName = readString(in);
+            String returnTypeName = readString(in);
+            int methodFlags = in.get();
+            String[] annotationTypes = readStrings(in);
+            methods.add(new CachedMethodMetadata(key, methodName, declaringClassName, returnTypeName, methodFlags,
+                    annotationTypes, new EncodedAnnotations(slice(in), classLoader)));
+        }
+        return methods;
+    }
+
+    /**
+     * 读取编码中的类名，用于建立缓存文件的索引
+     */
+    static String readClassName(ByteBuffer in) {
+        return readString(in);
+    }
+
+    /**
+     * 带长度前缀的一段，返回它的视图并跳过
+     */
+    private static ByteBuffer slice(ByteBuffer in) {
+        int length = in.getInt();
+        ByteBuffer slice = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        return slice;
+    }
+
+    /**
+     * 注解类型或属性中的枚举类型无法加载的注解与ASM解析一样跳过
+     */
+    @SuppressWarnings("unchecked")
+    private static MergedAnnotations readAnnotations(ByteBuffer in, @Nullable ClassLoader classLoader) {
+        int count = in.getInt();
+        if (count == 0) {
+            return MergedAnnotations.of(Collections.emptyList());
+        }
+        List<MergedAnnotation<?>> roots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String typeName = readString(in);
+            ByteBuffer attributes = slice(in);
+            try {
+                Class<? extends Annotation> type = (Class<? extends Annotation>) ClassUtils.forName(typeName, classLoader);
+                roots.add(MergedAnnotation.of(classLoader, null, type, readAttributes(attributes, classLoader)));
+            } catch (ClassNotFoundException | LinkageError ex) {
+                // 跳过该注解
+            }
+        }
+        return MergedAnnotations.of(roots);
+    }
+
+    private static Map<String, Object> readAttributes(ByteBuffer in, @Nullable ClassLoader classLoader) throws ClassNotFoundException {
+        int size = in.getInt();
+        Map<String, Object> attributes = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String name = readString(in);
+            attributes.put(name, readValue(in, classLoader));
+        }
+        return attributes;
+    }
+
+    private static Object readValue(ByteBuffer in, @Nullable ClassLoader classLoader) throws ClassNotFoundException {
+        byte tag = in.get();
+        if (tag != ARRAY) {
+            Class<?> enumType = (tag == ENUM ? ClassUtils.forName(readString(in), classLoader) : null);
+            return readScalar(in, tag, enumType, classLoader);
+        }
+        byte componentTag = in.get();
+        Class<?> enumType = (componentTag == ENUM ? ClassUtils.forName(readString(in), classLoader) : null);
+        int length = in.getInt();
+        Object array = Array.newInstance(componentTypeOf(componentTag, enumType), length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, readScalar(in, componentTag, enumType, classLoader));
+        }
+        return array;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readScalar(ByteBuffer in, byte tag, @Nullable Class<?> enumType, @Nullable ClassLoader classLoader)
+            throws ClassNotFoundException {
+        return switch (tag) {
+            case STRING -> readString(in);
+            case BOOLEAN -> in.get() != 0;
+            case BYTE -> in.get();
+            case CHAR -> in.getChar();
+            case SHORT -> in.getShort();
+            case INT -> in.getInt();
+            case LONG -> in.getLong();
+            case FLOAT -> in.getFloat();
+            case DOUBLE -> in.getDouble();
+            case ENUM -> Enum.valueOf((Class<Enum>) enumType, readString(in));
+            case NESTED_ANNOTATION -> readAttributes(in, classLoader);
+            default -> throw new IllegalArgumentException("Unknown attribute tag " + tag);
+        };
+    }
+
+    private static Class<?> componentTypeOf(byte tag, @Nullable Class<?> enumType) {
+        return switch (tag) {
+            case STRING -> String.class;
+            case BOOLEAN -> boolean.class;
+            case BYTE -> byte.class;
+            case CHAR -> char.class;
+            case SHORT -> short.class;
+            case INT -> int.class;
+            case LONG -> long.class;
+            case FLOAT -> float.class;
+            case DOUBLE -> double.class;
+            case ENUM -> enumType;
+            case NESTED_ANNOTATION -> Map.class;
+            default -> throw new IllegalArgumentException("Unknown attribute tag " + tag);
+        };
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 编码的注解属性，第一次读取时构建MergedAnnotations；并发读取时可能重复构建，结果相同
+     */
+    private static final class EncodedAnnotations {
+
+        private final ByteBuffer encoded;
+
+        @Nullable
+        private final ClassLoader classLoader;
+
+        @Nullable
+        private volatile MergedAnnotations annotations;
+
+        EncodedAnnotations(ByteBuffer encoded, @Nullable ClassLoader classLoader) {
+            this.encoded = encoded;
+            this.classLoader = classLoader;
+        }
+
+        MergedAnnotations get() {
+            MergedAnnotations annotations = this.annotations;
+            if (annotations == null) {
+                annotations = readAnnotations(this.encoded.duplicate(), this.classLoader);
+                this.annotations = annotations;
+            }
+            return annotations;
+        }
+    }
+
+    /**
+     * 与SimpleMethodMetadata一样按"声明类.方法名(参数类型)"判断相等，区分重载方法；isAnnotated按名称回答
+     */
+    private record CachedMethodMetadata(String key, String methodName, String declaringClassName, String returnTypeName,
+                                        int flags, String[] annotationTypes, EncodedAnnotations annotations) implements MethodMetadata {
+
+        @Override
+        public String getMethodName() {
+            return this.methodName;
+        }
+
+        @Override
+        public String getDeclaringClassName() {
+            return this.declaringClassName;
+        }
+
+        @Override
+        public String getReturnTypeName() {
+            return this.returnTypeName;
+        }
+
+        @Override
+        public boolean isAbstract() {
+            return (this.flags & ABSTRACT) != 0;
+        }
+
+        @Override
+        public boolean isStatic() {
+            return (this.flags & STATIC) != 0;
+        }
+
+        @Override
+        public boolean isFinal() {
+            return (this.flags & FINAL) != 0;
+        }
+
+        @Override
+        public boolean isOverridable() {
+            return (this.flags & OVERRIDABLE) != 0;
+        }
+
+        @Override
+        public boolean isAnnotated(String annotationName) {
+            return contains(this.annotationTypes, annotationName);
+        }
+
+        @Override
+        public MergedAnnotations getAnnotations() {
+            return this.annotations.get();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object other) {
+            return (this == other || (other instanceof CachedMethodMetadata that && this.key.equals(that.key)));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.key;
+        }
+    }
+}
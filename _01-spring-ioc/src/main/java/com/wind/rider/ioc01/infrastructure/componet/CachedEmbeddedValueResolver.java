@@ -0,0 +1,309 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.util.StringValueResolver;
+import org.springframework.util.SystemPropertyUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote 预编译、带缓存的占位符解析器，替代 strValue -> new StandardEnvironment().resolvePlaceholders(strValue)
+ * 这类每次都新建Environment(重新读取系统属性、环境变量并构建PropertySource)、重新扫描${...}的写法
+ * -- 共享同一个Environment；每个含占位符的字符串只解析一次为文本段 + 占位符段(键与默认值中的嵌套占位符同样预先解析)，
+ *    解析规则与PropertyPlaceholderHelper(6.1)一致：${key}、${key:默认值}、嵌套占位符、属性值中的占位符递归解析、循环引用检测
+ * -- 属性值与整个字符串的解析结果缓存在当前的PropertySource快照中：Environment中增加、移除、替换PropertySource后自动换用新快照；
+ *    PropertySource内部的值变化(如System.setProperty)在refreshInterval(默认1秒)到期或调用refresh()后生效，
+ *    即最多读到1秒前的值；要求立即生效时修改后调用refresh()，或将refreshInterval设为更短
+ * -- ignoreUnresolvablePlaceholders为true(默认)时与Environment#resolvePlaceholders一致保留无法解析的占位符，
+ *    为false时与resolveRequiredPlaceholders一致抛出IllegalArgumentException
+ * -- 同一个实例可同时用于addEmbeddedValueResolver(@Value等)与resolveAliases，线程安全
+ */
+public class CachedEmbeddedValueResolver implements StringValueResolver {
+
+    private static final String PLACEHOLDER_PREFIX = SystemPropertyUtils.PLACEHOLDER_PREFIX;
+
+    private static final String PLACEHOLDER_SUFFIX = SystemPropertyUtils.PLACEHOLDER_SUFFIX;
+
+    private static final String SIMPLE_PREFIX = "{";
+
+    private static final String VALUE_SEPARATOR = SystemPropertyUtils.VALUE_SEPARATOR;
+
+    /** 每类缓存的上限，超过后不再缓存新的条目(如大量动态拼接的字符串) */
+    private static final int MAX_CACHED = 4096;
+
+    /** 默认的快照最长使用时间 */
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    /** 快照中表示属性不存在 */
+    private static final Object MISSING = new Object();
+
+    private final ConfigurableEnvironment environment;
+
+    private final boolean ignoreUnresolvablePlaceholders;
+
+    private final long refreshNanos;
+
+    /** 字符串 -> 解析后的模板，与属性值无关，快照更换后仍然有效 */
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    public CachedEmbeddedValueResolver(ConfigurableEnvironment environment) {
+        this(environment, true, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * @param refreshInterval 快照的最长使用时间；0表示不按时间更换，只在PropertySource增减、替换或调用refresh()时更换，
+     *                        适用于PropertySource内容不会变化的场景
+     */
+    public CachedEmbeddedValueResolver(ConfigurableEnvironment environment, boolean ignoreUnresolvablePlaceholders,
+                                       Duration refreshInterval) {
+        this.environment = environment;
+        this.ignoreUnresolvablePlaceholders = ignoreUnresolvablePlaceholders;
+        this.refreshNanos = refreshInterval.toNanos();
+    }
+
+    @Override
+    @Nullable
+    public String resolveStringValue(String strVal) {
+        if (!strVal.contains(PLACEHOLDER_PREFIX)) {
+            return strVal;
+        }
+        Snapshot snapshot = obtainSnapshot();
+        String result = snapshot.results.get(strVal);
+        if (result == null) {
+            result = resolve(compile(strVal), snapshot, null);
+            if (snapshot.results.size() < MAX_CACHED) {
+                snapshot.results.putIfAbsent(strVal, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 丢弃当前快照，下一次解析时重新读取属性值
+     */
+    public void refresh() {
+        this.snapshot = null;
+    }
+
+    /**
+     * 已解析的模板数
+     */
+    public int getTemplateCount() {
+        return this.templates.size();
+    }
+
+    private Snapshot obtainSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        MutablePropertySources propertySources = this.environment.getPropertySources();
+        if (snapshot == null || !snapshot.isCurrent(propertySources)) {
+            snapshot = new Snapshot(propertySources.stream().toArray(PropertySource[]::new));
+            this.snapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    private Template compile(String text) {
+        Template template = this.templates.get(text);
+        if (template == null) {
+            template = parse(text);
+            if (this.templates.size() < MAX_CACHED) {
+                this.templates.putIfAbsent(text, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 按PropertyPlaceholderHelper#parseStringValue的扫描顺序拆分：占位符无论解析成功与否，都从其结束位置之后继续查找下一个
+     */
+    private static Template parse(String text) {
+        List<Object> parts = new ArrayList<>();
+        int literalStart = 0;
+        int startIndex = text.indexOf(PLACEHOLDER_PREFIX);
+        while (startIndex != -1) {
+            int endIndex = findPlaceholderEndIndex(text, startIndex);
+            if (endIndex == -1) {
+                break;
+            }
+            if (startIndex > literalStart) {
+                parts.add(text.substring(literalStart, startIndex));
+            }
+            String content = text.substring(startIndex + PLACEHOLDER_PREFIX.length(), endIndex);
+            literalStart = endIndex + PLACEHOLDER_SUFFIX.length();
+            parts.add(new Placeholder(content, text.substring(startIndex, literalStart), parse(content)));
+            startIndex = text.indexOf(PLACEHOLDER_PREFIX, literalStart);
+        }
+        if (literalStart < text.length()) {
+            parts.add(text.substring(literalStart));
+        }
+        return new Template(text, parts.toArray());
+    }
+
+    private static int findPlaceholderEndIndex(String text, int startIndex) {
+        int index = startIndex + PLACEHOLDER_PREFIX.length();
+        int withinNestedPlaceholder = 0;
+        while (index < text.length()) {
+            if (StringUtils.substringMatch(text, index, PLACEHOLDER_SUFFIX)) {
+                if (withinNestedPlaceholder > 0) {
+                    withinNestedPlaceholder--;
+                    index += PLACEHOLDER_SUFFIX.length();
+                } else {
+                    return index;
+                }
+            } else if (StringUtils.substringMatch(text, index, SIMPLE_PREFIX)) {
+                withinNestedPlaceholder++;
+                index += SIMPLE_PREFIX.length();
+            } else {
+                index++;
+            }
+        }
+        return -1;
+    }
+
+    private String resolve(Template template, Snapshot snapshot, @Nullable Set<String> visitedPlaceholders) {
+        if (template.literal) {
+            return template.text;
+        }
+        StringBuilder result = new StringBuilder(template.text.length());
+        for (Object part : template.parts) {
+            if (!(part instanceof Placeholder placeholder)) {
+                result.append((String) part);
+                continue;
+            }
+            if (visitedPlaceholders == null) {
+                visitedPlaceholders = new HashSet<>(4);
+            }
+            if (!visitedPlaceholders.add(placeholder.content())) {
+                throw new IllegalArgumentException(
+                        "Circular placeholder reference '" + placeholder.content() + "' in property definitions");
+            }
+            String key = resolve(placeholder.key(), snapshot, visitedPlaceholders);
+            String value = snapshot.getProperty(key);
+            if (value == null) {
+                int separatorIndex = key.indexOf(VALUE_SEPARATOR);
+                if (separatorIndex != -1) {
+                    value = snapshot.getProperty(key.substring(0, separatorIndex));
+                    if (value == null) {
+                        value = key.substring(separatorIndex + VALUE_SEPARATOR.length());
+                    }
+                }
+            }
+            if (value != null) {
+                result.append(resolve(compile(value), snapshot, visitedPlaceholders));
+            } else if (this.ignoreUnresolvablePlaceholders) {
+                result.append(placeholder.text());
+            } else {
+                throw new IllegalArgumentException("Could not resolve placeholder '" + key + "' in value \"" + template.text + "\"");
+            }
+            visitedPlaceholders.remove(placeholder.content());
+        }
+        return result.toString();
+    }
+
+    /**
+     * 解析后的字符串：String为原样输出的文本段，{@link Placeholder}为占位符段
+     */
+    private static final class Template {
+
+        private final String text;
+
+        private final Object[] parts;
+
+        /** 不含完整的占位符 */
+        private final boolean literal;
+
+        Template(String text, Object[] parts) {
+            this.text = text;
+            this.parts = parts;
+            boolean literal = true;
+            for (Object part : parts) {
+                if (part instanceof Placeholder) {
+                    literal = false;
+                    break;
+                }
+            }
+            this.literal = literal;
+        }
+    }
+
+    /**
+     * @param content ${与}之间的内容(键[:默认值])，用于循环引用检测
+     * @param text    含${}的原文，无法解析时原样保留
+     * @param key     content解析后的模板，解析结果先整体作为键查找，找不到再按第一个':'拆分为键与默认值
+     */
+    private record Placeholder(String content, String text, Template key) {
+    }
+
+    /**
+     * 某一时刻Environment中PropertySource的列表，以及基于它解析出的属性值与字符串
+     */
+    private final class Snapshot {
+
+        private final PropertySource<?>[] sources;
+
+        private final long createdAt = System.nanoTime();
+
+        /** 键 -> 属性值(String)或MISSING */
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        /** 原字符串 -> 解析结果 */
+        private final Map<String, String> results = new ConcurrentHashMap<>();
+
+        Snapshot(PropertySource<?>[] sources) {
+            this.sources = sources;
+        }
+
+        boolean isCurrent(MutablePropertySources propertySources) {
+            if (refreshNanos > 0 && System.nanoTime() - this.createdAt > refreshNanos) {
+                return false;
+            }
+            // PropertySource按名称比较相等，这里按实例比较，replace同名的PropertySource也视为变化
+            int index = 0;
+            for (PropertySource<?> source : propertySources) {
+                if (index >= this.sources.length || this.sources[index++] != source) {
+                    return false;
+                }
+            }
+            return index == this.sources.length;
+        }
+
+        @Nullable
+        String getProperty(String key) {
+            Object value = this.values.get(key);
+            if (value == null) {
+                value = lookup(key);
+                if (this.values.size() < MAX_CACHED) {
+                    this.values.putIfAbsent(key, value);
+                }
+            }
+            return (value != MISSING ? (String) value : null);
+        }
+
+        /**
+         * 与PropertySourcesPropertyResolver#getPropertyAsRawString一致：按顺序取第一个非null的值，不解析其中的占位符
+         */
+        private Object lookup(String key) {
+            for (PropertySource<?> source : this.sources) {
+                Object value = source.getProperty(key);
+                if (value != null) {
+                    String text = (value instanceof String string ? string : environment.getConversionService().convert(value, String.class));
+                    return (text != null ? text : MISSING);
+                }
+            }
+            return MISSING;
+        }
+    }
+}
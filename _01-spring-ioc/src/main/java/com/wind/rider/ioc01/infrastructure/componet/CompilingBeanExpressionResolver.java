@@ -0,0 +1,332 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanExpressionException;
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.config.BeanExpressionResolver;
+import org.springframework.context.expression.BeanExpressionContextAccessor;
+import org.springframework.context.expression.BeanFactoryAccessor;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.EnvironmentAccessor;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.support.StandardTypeConverter;
+import org.springframework.expression.spel.support.StandardTypeLocator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @apiNote 带有界表达式缓存、热点表达式编译为字节码的BeanExpressionResolver，可替代StandardBeanExpressionResolver(8.8)
+ * -- Bean定义与@Value中的#{...}解析后缓存在有界的并发缓存中(StandardBeanExpressionResolver的缓存没有上限)，EvaluationContext按BeanExpressionContext复用
+ * -- 表达式以解释模式执行compileThreshold次后尝试编译为字节码(SpelCompiler)：编译失败(如分支尚未执行过、访问了不可编译的属性)
+ *    在再执行compileThreshold次后重试，超过MAX_COMPILE_ATTEMPTS次后不再尝试；编译后的表达式执行失败时回退为解释模式并重新执行
+ * -- 引用Bean的属性访问器替换为可编译的版本，#{someBean.name}这类表达式也可以编译
+ * -- {@link #getStats()}按表达式统计执行方式、执行次数与耗时，{@link #getExpressionCount(Mode)}统计各执行方式的表达式数
+ */
+public class CompilingBeanExpressionResolver implements BeanExpressionResolver {
+
+    public static final int DEFAULT_COMPILE_THRESHOLD = 100;
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /** 编译失败或编译后执行失败累计达到该次数后，表达式固定为解释模式 */
+    private static final int MAX_COMPILE_ATTEMPTS = 3;
+
+    /**
+     * 表达式的执行方式
+     */
+    public enum Mode {
+        /** 不含#{...}，直接返回原字符串 */
+        LITERAL,
+        /** 解释执行，尚未达到编译阈值或等待重试编译 */
+        INTERPRETED,
+        /** 编译为字节码执行 */
+        COMPILED,
+        /** 多次编译失败，固定为解释执行 */
+        NOT_COMPILABLE
+    }
+
+    private final SpelExpressionParser expressionParser;
+
+    private final int compileThreshold;
+
+    private final Cache<String, CachedExpression> expressionCache;
+
+    private final Map<BeanExpressionContext, StandardEvaluationContext> evaluationCache = new ConcurrentHashMap<>(8);
+
+    public CompilingBeanExpressionResolver() {
+        this(null, DEFAULT_MAXIMUM_SIZE, DEFAULT_COMPILE_THRESHOLD);
+    }
+
+    /**
+     * @param beanClassLoader  用于加载编译后的表达式类与表达式中T(...)引用的类
+     * @param maximumSize      缓存的表达式数上限，超过后淘汰最近最少使用的表达式(连同其统计)
+     * @param compileThreshold 解释执行多少次后尝试编译
+     */
+    public CompilingBeanExpressionResolver(@Nullable ClassLoader beanClassLoader, long maximumSize, int compileThreshold) {
+        // 由本类控制编译时机：OFF模式下SpelExpression不会自行编译，编译后的表达式执行失败时抛出异常而不是静默回退
+        SpelParserConfiguration parserConfig = new SpelParserConfiguration(
+                SpelCompilerMode.OFF, beanClassLoader, false, false, Integer.MAX_VALUE, retrieveMaxExpressionLength());
+        this.expressionParser = new SpelExpressionParser(parserConfig);
+        this.compileThreshold = compileThreshold;
+        this.expressionCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    @Override
+    @Nullable
+    public Object evaluate(@Nullable String value, BeanExpressionContext beanExpressionContext) throws BeansException {
+        if (!StringUtils.hasLength(value)) {
+            return value;
+        }
+        try {
+            return obtainExpression(value).getValue(obtainEvaluationContext(beanExpressionContext));
+        } catch (Throwable ex) {
+            throw new BeanExpressionException("Expression parsing failed", ex);
+        }
+    }
+
+    /**
+     * 当前缓存的表达式统计，按执行次数从多到少排列
+     */
+    public List<ExpressionStats> getStats() {
+        List<ExpressionStats> stats = new ArrayList<>();
+        for (CachedExpression expression : this.expressionCache.asMap().values()) {
+            stats.add(expression.toStats());
+        }
+        stats.sort(Comparator.comparingLong(ExpressionStats::evaluations).reversed());
+        return stats;
+    }
+
+    /**
+     * 当前缓存中处于给定执行方式的表达式数
+     */
+    public long getExpressionCount(Mode mode) {
+        return this.expressionCache.asMap().values().stream().filter(expression -> expression.mode == mode).count();
+    }
+
+    /**
+     * 子类可在此添加变量、函数等，与StandardBeanExpressionResolver#customizeEvaluationContext一致
+     */
+    protected void customizeEvaluationContext(StandardEvaluationContext evalContext) {
+    }
+
+    private CachedExpression obtainExpression(String value) {
+        CachedExpression expression = this.expressionCache.getIfPresent(value);
+        if (expression == null) {
+            // 解析异常直接抛出，不经过Cache#get的ExecutionException包装
+            expression = new CachedExpression(value, this.expressionParser.parseExpression(value, ParserContext.TEMPLATE_EXPRESSION));
+            CachedExpression existing = this.expressionCache.asMap().putIfAbsent(value, expression);
+            if (existing != null) {
+                expression = existing;
+            }
+        }
+        return expression;
+    }
+
+    private StandardEvaluationContext obtainEvaluationContext(BeanExpressionContext beanExpressionContext) {
+        StandardEvaluationContext sec = this.evaluationCache.get(beanExpressionContext);
+        if (sec == null) {
+            sec = new StandardEvaluationContext(beanExpressionContext);
+            sec.addPropertyAccessor(new CompilableBeanExpressionContextAccessor());
+            sec.addPropertyAccessor(new BeanFactoryAccessor());
+            sec.addPropertyAccessor(new MapAccessor());
+            sec.addPropertyAccessor(new EnvironmentAccessor());
+            sec.setBeanResolver(new BeanFactoryResolver(beanExpressionContext.getBeanFactory()));
+            sec.setTypeLocator(new StandardTypeLocator(beanExpressionContext.getBeanFactory().getBeanClassLoader()));
+            sec.setTypeConverter(new StandardTypeConverter(() -> {
+                ConversionService cs = beanExpressionContext.getBeanFactory().getConversionService();
+                return (cs != null ? cs : DefaultConversionService.getSharedInstance());
+            }));
+            customizeEvaluationContext(sec);
+            this.evaluationCache.put(beanExpressionContext, sec);
+        }
+        return sec;
+    }
+
+    private static int retrieveMaxExpressionLength() {
+        String value = SpringProperties.getProperty(StandardBeanExpressionResolver.MAX_SPEL_EXPRESSION_LENGTH_PROPERTY_NAME);
+        return (StringUtils.hasText(value) ? Integer.parseInt(value.trim()) : SpelParserConfiguration.DEFAULT_MAX_EXPRESSION_LENGTH);
+    }
+
+    /**
+     * 缓存的表达式：模板表达式(文本与多个#{...}混合)的每个#{...}片段一起编译、一起回退
+     */
+    private final class CachedExpression {
+
+        private final String expressionString;
+
+        private final Expression expression;
+
+        private final SpelExpression[] spelExpressions;
+
+        private volatile Mode mode;
+
+        /** 本轮解释执行的次数，达到compileThreshold时尝试编译 */
+        private final AtomicInteger interpretedRuns = new AtomicInteger();
+
+        private final LongAdder evaluations = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private int compileAttempts;
+
+        private long compileNanos;
+
+        private int fallbacks;
+
+        CachedExpression(String expressionString, Expression expression) {
+            this.expressionString = expressionString;
+            this.expression = expression;
+            List<SpelExpression> spelExpressions = new ArrayList<>();
+            if (expression instanceof SpelExpression spelExpression) {
+                spelExpressions.add(spelExpression);
+            } else if (expression instanceof CompositeStringExpression compositeExpression) {
+                for (Expression part : compositeExpression.getExpressions()) {
+                    if (part instanceof SpelExpression spelExpression) {
+                        spelExpressions.add(spelExpression);
+                    }
+                }
+            }
+            this.spelExpressions = spelExpressions.toArray(new SpelExpression[0]);
+            this.mode = (this.spelExpressions.length == 0 ? Mode.LITERAL : Mode.INTERPRETED);
+        }
+
+        @Nullable
+        Object getValue(EvaluationContext context) {
+            long start = System.nanoTime();
+            try {
+                Object result;
+                try {
+                    result = this.expression.getValue(context);
+                } catch (SpelEvaluationException ex) {
+                    if (ex.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                        throw ex;
+                    }
+                    // 编译后的代码对类型做了假设(如Bean的实际类型)，假设不成立时回退为解释模式重新执行；真实的执行错误会由解释模式再次抛出
+                    revertToInterpreted();
+                    result = this.expression.getValue(context);
+                }
+                if (this.mode == Mode.INTERPRETED && this.interpretedRuns.incrementAndGet() == compileThreshold) {
+                    compile();
+                }
+                return result;
+            } finally {
+                this.totalNanos.add(System.nanoTime() - start);
+                this.evaluations.increment();
+            }
+        }
+
+        private synchronized void compile() {
+            if (this.mode != Mode.INTERPRETED) {
+                return;
+            }
+            this.compileAttempts++;
+            long start = System.nanoTime();
+            boolean compiled = true;
+            for (SpelExpression spelExpression : this.spelExpressions) {
+                try {
+                    compiled = spelExpression.compileExpression();
+                } catch (SpelEvaluationException ex) {
+                    compiled = false;
+                }
+                if (!compiled) {
+                    break;
+                }
+            }
+            this.compileNanos += System.nanoTime() - start;
+            if (compiled) {
+                this.mode = Mode.COMPILED;
+            } else {
+                for (SpelExpression spelExpression : this.spelExpressions) {
+                    spelExpression.revertToInterpreted();
+                }
+                retryOrGiveUp();
+            }
+        }
+
+        private synchronized void revertToInterpreted() {
+            for (SpelExpression spelExpression : this.spelExpressions) {
+                spelExpression.revertToInterpreted();
+            }
+            if (this.mode == Mode.COMPILED) {
+                this.fallbacks++;
+                retryOrGiveUp();
+            }
+        }
+
+        private void retryOrGiveUp() {
+            if (this.compileAttempts + this.fallbacks < MAX_COMPILE_ATTEMPTS) {
+                this.interpretedRuns.set(0);
+                this.mode = Mode.INTERPRETED;
+            } else {
+                this.mode = Mode.NOT_COMPILABLE;
+            }
+        }
+
+        synchronized ExpressionStats toStats() {
+            return new ExpressionStats(this.expressionString, this.mode, this.evaluations.sum(), this.totalNanos.sum(),
+                    this.compileAttempts, this.compileNanos, this.fallbacks);
+        }
+    }
+
+    /**
+     * 可编译的BeanExpressionContextAccessor：编译后直接调用BeanExpressionContext#getObject，每次执行都重新获取Bean(prototype等Scope语义不变)
+     */
+    private static final class CompilableBeanExpressionContextAccessor extends BeanExpressionContextAccessor
+            implements CompilablePropertyAccessor {
+
+        private static final String CONTEXT_DESCRIPTOR = "Lorg/springframework/beans/factory/config/BeanExpressionContext";
+
+        @Override
+        public boolean isCompilable() {
+            return true;
+        }
+
+        @Override
+        public Class<?> getPropertyType() {
+            return Object.class;
+        }
+
+        @Override
+        public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+            String descriptor = cf.lastDescriptor();
+            if (descriptor == null || !descriptor.equals(CONTEXT_DESCRIPTOR)) {
+                if (descriptor == null) {
+                    cf.loadTarget(mv);
+                }
+                CodeFlow.insertCheckCast(mv, CONTEXT_DESCRIPTOR);
+            }
+            mv.visitLdcInsn(propertyName);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "org/springframework/beans/factory/config/BeanExpressionContext",
+                    "getObject", "(Ljava/lang/String;)Ljava/lang/Object;", false);
+        }
+    }
+}
@@ -1,57 +1,146 @@
 package com.wind.rider.ioc01.infrastructure.componet;
 
 
-import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.Scope;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * @apiNote 自定义的请求级Scope
+ * -- 作用域对象不再放在Scope自身的全局Map中，而是放在当前请求所持有的存储中(通过RequestContextHolder -> RequestAttributes获取)，
+ *    请求之间互不共享、也没有全局锁，请求结束时随请求一起释放
+ * -- 同一请求内同名对象在按名称的锁内创建，并发访问时只创建一个实例、只注册一个销毁回调；
+ *    锁使用ReentrantLock，在虚拟线程上等待时不会占住载体线程
+ * -- registerDestructionCallback注册的销毁回调会在请求结束(requestCompleted)时被执行
+ * -- 不会主动创建HttpSession
+ * -- 如果请求内的任务需要切换到其他线程(包括虚拟线程)执行，使用 {@link RequestScopeTaskDecorator} 传播请求上下文
+ */
 public class CustomRequestScope implements Scope {
 
-    private final Map<String, Object> requestScopedObjects = new HashMap<>();
+    /** 当前请求内作用域对象存储在RequestAttributes中的属性名 */
+    private static final String STORE_ATTRIBUTE = CustomRequestScope.class.getName() + ".STORE";
+
+    /** 销毁回调在RequestAttributes中注册时使用的属性名前缀，避免与业务的请求属性冲突 */
+    private static final String CALLBACK_ATTRIBUTE_PREFIX = CustomRequestScope.class.getName() + ".BEAN.";
+
+    /** 请求内首次使用本Scope时创建存储用的锁，按RequestAttributes的identityHashCode分段，不同请求基本不会争用 */
+    private static final ReentrantLock[] STORE_LOCKS = new ReentrantLock[16];
+
+    static {
+        for (int i = 0; i < STORE_LOCKS.length; i++) {
+            STORE_LOCKS[i] = new ReentrantLock();
+        }
+    }
 
     @Override
     public Object get(String name, ObjectFactory<?> objectFactory) {
-        if (!requestScopedObjects.containsKey(name)) {
-            requestScopedObjects.put(name, objectFactory.getObject());
+        RequestStore store = obtainStore(RequestContextHolder.currentRequestAttributes());
+        Object scopedObject = store.objects.get(name);
+        if (scopedObject != null) {
+            return scopedObject;
         }
-        return requestScopedObjects.get(name);
+        // 不用objects.computeIfAbsent：ObjectFactory创建依赖时会重入本Scope修改同一个Map；
+        // 按名称加锁，不同名称的对象仍可并发创建，同名的只创建一次(销毁回调也只注册一次)
+        ReentrantLock lock = store.creationLocks.computeIfAbsent(name, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            scopedObject = store.objects.get(name);
+            if (scopedObject == null) {
+                scopedObject = objectFactory.getObject();
+                store.objects.put(name, scopedObject);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return scopedObject;
     }
 
     @Override
     public Object remove(String name) {
-        return requestScopedObjects.remove(name);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        RequestStore store = getStore(requestAttributes);
+        Object removed = (store != null ? store.objects.remove(name) : null);
+        // 同时移除已注册的销毁回调
+        requestAttributes.removeAttribute(CALLBACK_ATTRIBUTE_PREFIX + name, RequestAttributes.SCOPE_REQUEST);
+        return removed;
     }
 
     @Override
     public void registerDestructionCallback(String name, Runnable callback) {
-        // No destruction callbacks supported
+        RequestContextHolder.currentRequestAttributes()
+                .registerDestructionCallback(CALLBACK_ATTRIBUTE_PREFIX + name, callback, RequestAttributes.SCOPE_REQUEST);
     }
 
     @Override
     public Object resolveContextualObject(String key) {
-        if ("request".equals(key)) {
-            ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (requestAttributes != null) {
-                return requestAttributes.getRequest();
-            }
+        if ("request".equals(key)
+                && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes requestAttributes) {
+            return requestAttributes.getRequest();
         }
         return null;
     }
 
     @Override
     public String getConversationId() {
-        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (requestAttributes != null) {
-            HttpServletRequest request = requestAttributes.getRequest();
-            if (request != null) {
-                return request.getSession().getId();
+        // request.getSession()会在没有Session时创建新的Session，这里只读取已经存在的Session
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes requestAttributes) {
+            HttpSession session = requestAttributes.getRequest().getSession(false);
+            if (session != null) {
+                return session.getId();
             }
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static RequestStore getStore(RequestAttributes requestAttributes) {
+        return (RequestStore) requestAttributes.getAttribute(STORE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static RequestStore obtainStore(RequestAttributes requestAttributes) {
+        RequestStore store = getStore(requestAttributes);
+        if (store != null) {
+            return store;
+        }
+        // 仅在请求内首次使用本Scope时进入
+        int hash = System.identityHashCode(requestAttributes);
+        ReentrantLock lock = STORE_LOCKS[(hash ^ (hash >>> 16)) & (STORE_LOCKS.length - 1)];
+        lock.lock();
+        try {
+            store = getStore(requestAttributes);
+            if (store == null) {
+                RequestStore newStore = new RequestStore();
+                requestAttributes.setAttribute(STORE_ATTRIBUTE, newStore, RequestAttributes.SCOPE_REQUEST);
+                requestAttributes.registerDestructionCallback(STORE_ATTRIBUTE, newStore::clear, RequestAttributes.SCOPE_REQUEST);
+                store = newStore;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return store;
+    }
+
+    /**
+     * 单个请求内的作用域对象与按名称的创建锁
+     */
+    private static final class RequestStore {
+
+        final Map<String, Object> objects = new ConcurrentHashMap<>(8);
+
+        final Map<String, ReentrantLock> creationLocks = new ConcurrentHashMap<>(8);
+
+        void clear() {
+            this.objects.clear();
+            this.creationLocks.clear();
+        }
+    }
+}
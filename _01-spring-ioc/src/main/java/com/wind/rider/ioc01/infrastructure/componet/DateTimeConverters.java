@@ -0,0 +1,188 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.ConverterRegistry;
+import org.springframework.util.StringUtils;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote 基于java.time的日期类型转换器集合，用于替代 {@link MyCustomDateEditor}
+ * -- DateTimeFormatter不可变且线程安全，每个pattern只编译一次并缓存，转换器实例可以在多线程、多个BeanWrapper之间共享
+ * -- 通过ConversionService接入容器：registerConverters(conversionService, pattern) 后 setConversionService(conversionService)，
+ *    不再像PropertyEditor那样为每个BeanWrapper创建新的编辑器实例
+ * -- 兼容java.util.Date：按系统默认时区与Instant互转，pattern中只有日期部分时按当天0点解析
+ * -- 与SimpleDateFormat一致，pattern中缺少的字段取默认值：年份1970、月份与日期1、时分秒0，
+ *    如yyyy-MM把"2024-03"解析为2024-03-01(LocalDate/LocalDateTime同样如此)
+ * -- LocalDate/LocalDateTime转字符串只在pattern能格式化该类型时注册：含时间字段的pattern不能格式化LocalDate，
+ *    含时区字段的pattern不能格式化LocalDate/LocalDateTime，这两种情况不注册对应方向，由ConversionService报告无法转换
+ */
+public final class DateTimeConverters {
+
+    private static final Map<String, DateTimeFormatter> FORMATTER_CACHE = new ConcurrentHashMap<>();
+
+    private DateTimeConverters() {
+    }
+
+    /**
+     * 向ConverterRegistry(如DefaultFormattingConversionService)注册指定pattern的String与Date/LocalDate/LocalDateTime互转转换器
+     */
+    public static void registerConverters(ConverterRegistry registry, String pattern) {
+        DateTimeFormatter formatter = formatter(pattern);
+        registry.addConverter(String.class, Date.class, new StringToDateConverter(formatter));
+        registry.addConverter(Date.class, String.class, new DateToStringConverter(formatter));
+        registry.addConverter(String.class, LocalDate.class, new StringToLocalDateConverter(formatter));
+        if (canFormat(formatter, LocalDate.EPOCH)) {
+            registry.addConverter(LocalDate.class, String.class, formatter::format);
+        }
+        registry.addConverter(String.class, LocalDateTime.class, new StringToLocalDateTimeConverter(formatter));
+        if (canFormat(formatter, LocalDateTime.of(LocalDate.EPOCH, LocalTime.MIDNIGHT))) {
+            registry.addConverter(LocalDateTime.class, String.class, formatter::format);
+        }
+    }
+
+    /**
+     * pattern是否只用到了该类型具备的字段(如LocalDate没有时间字段)，否则format时抛出UnsupportedTemporalTypeException
+     */
+    private static boolean canFormat(DateTimeFormatter formatter, Temporal sample) {
+        try {
+            formatter.format(sample);
+            return true;
+        } catch (DateTimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析结果中的日期，缺少的年、月、日按SimpleDateFormat的规则取1970、1、1
+     */
+    private static LocalDate resolveDate(TemporalAccessor parsed) {
+        LocalDate date = parsed.query(TemporalQueries.localDate());
+        if (date != null) {
+            return date;
+        }
+        return LocalDate.of(field(parsed, ChronoField.YEAR, 1970), field(parsed, ChronoField.MONTH_OF_YEAR, 1),
+                field(parsed, ChronoField.DAY_OF_MONTH, 1));
+    }
+
+    /**
+     * 解析结果中的时间，缺少的时、分、秒取0
+     */
+    private static LocalTime resolveTime(TemporalAccessor parsed) {
+        LocalTime time = parsed.query(TemporalQueries.localTime());
+        if (time != null) {
+            return time;
+        }
+        return LocalTime.of(field(parsed, ChronoField.HOUR_OF_DAY, 0), field(parsed, ChronoField.MINUTE_OF_HOUR, 0),
+                field(parsed, ChronoField.SECOND_OF_MINUTE, 0), field(parsed, ChronoField.NANO_OF_SECOND, 0));
+    }
+
+    private static int field(TemporalAccessor parsed, ChronoField field, int defaultValue) {
+        return (parsed.isSupported(field) ? parsed.get(field) : defaultValue);
+    }
+
+    /**
+     * 获取pattern对应的DateTimeFormatter，同一pattern只编译一次
+     */
+    public static DateTimeFormatter formatter(String pattern) {
+        if (!StringUtils.hasText(pattern)) {
+            throw new IllegalArgumentException("Date pattern must not be empty");
+        }
+        return FORMATTER_CACHE.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    private static IllegalArgumentException invalidDate(String text, DateTimeFormatter formatter, DateTimeParseException cause) {
+        return new IllegalArgumentException("Invalid date '" + text + "'. Please provide a date in format: " + formatter, cause);
+    }
+
+    public static class StringToDateConverter implements Converter<String, Date> {
+        private final DateTimeFormatter formatter;
+
+        public StringToDateConverter(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public Date convert(String source) {
+            if (!StringUtils.hasText(source)) {
+                return null;
+            }
+            String text = source.trim();
+            try {
+                // 只解析一次再按需取日期、时间、时区，避免parseBest逐个尝试目标类型时抛出异常的开销
+                TemporalAccessor parsed = formatter.parse(text);
+                ZoneId zone = parsed.query(TemporalQueries.zone());
+                ZonedDateTime dateTime = ZonedDateTime.of(resolveDate(parsed), resolveTime(parsed),
+                        zone != null ? zone : ZoneId.systemDefault());
+                return Date.from(dateTime.toInstant());
+            } catch (DateTimeParseException e) {
+                throw invalidDate(text, formatter, e);
+            }
+        }
+    }
+
+    public static class DateToStringConverter implements Converter<Date, String> {
+        private final DateTimeFormatter formatter;
+
+        public DateToStringConverter(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public String convert(Date source) {
+            return formatter.format(source.toInstant().atZone(ZoneId.systemDefault()));
+        }
+    }
+
+    public static class StringToLocalDateConverter implements Converter<String, LocalDate> {
+        private final DateTimeFormatter formatter;
+
+        public StringToLocalDateConverter(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public LocalDate convert(String source) {
+            if (!StringUtils.hasText(source)) {
+                return null;
+            }
+            String text = source.trim();
+            try {
+                return resolveDate(formatter.parse(text));
+            } catch (DateTimeParseException e) {
+                throw invalidDate(text, formatter, e);
+            }
+        }
+    }
+
+    public static class StringToLocalDateTimeConverter implements Converter<String, LocalDateTime> {
+        private final DateTimeFormatter formatter;
+
+        public StringToLocalDateTimeConverter(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public LocalDateTime convert(String source) {
+            if (!StringUtils.hasText(source)) {
+                return null;
+            }
+            String text = source.trim();
+            try {
+                TemporalAccessor parsed = formatter.parse(text);
+                return LocalDateTime.of(resolveDate(parsed), resolveTime(parsed));
+            } catch (DateTimeParseException e) {
+                throw invalidDate(text, formatter, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+/**
+ * @apiNote {@link CompilingBeanExpressionResolver} 中单个表达式的累计统计
+ *
+ * @param expression      表达式原文
+ * @param mode            当前的执行方式
+ * @param evaluations     执行次数(含解释与编译执行)
+ * @param totalNanos      执行累计耗时
+ * @param compileAttempts 尝试编译的次数
+ * @param compileNanos    编译累计耗时
+ * @param fallbacks       编译后执行失败、回退为解释模式的次数
+ */
+public record ExpressionStats(String expression, CompilingBeanExpressionResolver.Mode mode, long evaluations, long totalNanos,
+                              int compileAttempts, long compileNanos, int fallbacks) {
+
+    public double averageNanos() {
+        return (evaluations == 0 ? 0 : (double) totalNanos / evaluations);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s]: %d evaluations, avg %.0f ns, %d compile attempts (%.1f ms), %d fallbacks",
+                expression, mode, evaluations, averageNanos(), compileAttempts, compileNanos / 1_000_000.0, fallbacks);
+    }
+}
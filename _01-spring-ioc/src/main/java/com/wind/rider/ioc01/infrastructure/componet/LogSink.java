@@ -0,0 +1,316 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.joran.spi.DefaultClass;
+import ch.qos.logback.core.spi.ContextAwareBase;
+import ch.qos.logback.core.spi.LifeCycle;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @apiNote {@link BatchingAsyncAppender} 的一个输出目标，只由写线程访问
+ * -- 三选一：console(标准输出)、file(固定文件)、fileNamePattern(按天滚动，如 logs/dayLogFile.%d{yyyy-MM-dd}.log，
+ *    配合maxHistory删除过期文件，与TimeBasedRollingPolicy的按天用法一致)
+ * -- 一批事件先逐条encode到同一个ByteBuffer，攒满或整批结束时才通过FileChannel写出一次
+ * -- 控制台不直接写FileDescriptor.out，而是把整块缓冲区一次交给当时的System.out：PrintStream每次write都持有自身的锁，
+ *    与程序中的System.out.println不会在行中间交错，System.setOut重定向后也随之改变；代价是多一次从缓冲区到PrintStream的复制
+ */
+public class LogSink extends ContextAwareBase implements LifeCycle {
+
+    private static final Pattern DATE_TOKEN = Pattern.compile("%d\\{([^}]+)}");
+
+    private Encoder<ILoggingEvent> encoder;
+
+    private boolean console;
+
+    private String file;
+
+    private String fileNamePattern;
+
+    private int maxHistory;
+
+    private boolean append = true;
+
+    private int bufferSize = 64 * 1024;
+
+    private volatile boolean started;
+
+    private DateTimeFormatter dateFormatter;
+
+    private String patternPrefix;
+
+    private String patternSuffix;
+
+    private WritableByteChannel channel;
+
+    /** 当前滚动文件到期的时间戳，固定文件与控制台为Long.MAX_VALUE */
+    private long nextRolloverMillis = Long.MAX_VALUE;
+
+    private ByteBuffer buffer;
+
+    /**
+     * 与ConsoleAppender/FileAppender一样，logback.xml中的encoder不写class时默认为PatternLayoutEncoder
+     */
+    @DefaultClass(PatternLayoutEncoder.class)
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setConsole(boolean console) {
+        this.console = console;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public void setFileNamePattern(String fileNamePattern) {
+        this.fileNamePattern = fileNamePattern;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+
+    public void setAppend(boolean append) {
+        this.append = append;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public String describe() {
+        return console ? "console" : (file != null ? file : fileNamePattern);
+    }
+
+    @Override
+    public void start() {
+        int targets = (console ? 1 : 0) + (file != null ? 1 : 0) + (fileNamePattern != null ? 1 : 0);
+        if (targets != 1) {
+            addError("Exactly one of <console>, <file> or <fileNamePattern> must be set for sink");
+            return;
+        }
+        if (encoder == null) {
+            addError("No encoder set for sink " + describe());
+            return;
+        }
+        if (fileNamePattern != null) {
+            Matcher matcher = DATE_TOKEN.matcher(fileNamePattern);
+            if (!matcher.find()) {
+                addError("fileNamePattern must contain a %d{...} date token: " + fileNamePattern);
+                return;
+            }
+            dateFormatter = DateTimeFormatter.ofPattern(matcher.group(1));
+            patternPrefix = fileNamePattern.substring(0, matcher.start());
+            patternSuffix = fileNamePattern.substring(matcher.end());
+        }
+        // 控制台按数组整块写入PrintStream，文件直接由FileChannel写出
+        buffer = (console ? ByteBuffer.allocate(bufferSize) : ByteBuffer.allocateDirect(bufferSize));
+        started = true;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 编码并写出一批事件；单个事件编码失败只跳过该事件，写出失败时关闭通道，下一批重新打开
+     */
+    void write(List<ILoggingEvent> batch) {
+        if (!started) {
+            return;
+        }
+        try {
+            for (ILoggingEvent event : batch) {
+                if (event.getTimeStamp() >= nextRolloverMillis || channel == null) {
+                    flush();
+                    open(event.getTimeStamp());
+                }
+                byte[] bytes;
+                try {
+                    bytes = encoder.encode(event);
+                } catch (RuntimeException ex) {
+                    addError("Failed to encode logging event for sink " + describe(), ex);
+                    continue;
+                }
+                put(bytes);
+            }
+            flush();
+        } catch (IOException ex) {
+            addError("Failed to write logging events to " + describe(), ex);
+            closeChannel();
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes == null || bytes.length == 0) {
+            return;
+        }
+        if (bytes.length > buffer.remaining()) {
+            flush();
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0 || channel == null) {
+            return;
+        }
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void open(long timestamp) throws IOException {
+        closeChannel();
+        if (console) {
+            channel = new ConsoleChannel();
+            return;
+        }
+        Path path;
+        if (fileNamePattern != null) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+            path = Paths.get(patternPrefix + dateFormatter.format(date) + patternSuffix);
+            nextRolloverMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            removeExpiredFiles(path, date);
+        } else {
+            path = Paths.get(file);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = (append
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        put(encoder.headerBytes());
+    }
+
+    /**
+     * 删除早于maxHistory天的滚动文件，只匹配与fileNamePattern前后缀一致且日期可以解析的文件
+     */
+    private void removeExpiredFiles(Path activePath, LocalDate today) {
+        if (maxHistory <= 0) {
+            return;
+        }
+        Path directory = activePath.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        String prefix = Paths.get(patternPrefix + "x").getFileName().toString();
+        prefix = prefix.substring(0, prefix.length() - 1);
+        LocalDate oldest = today.minusDays(maxHistory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path candidate : files) {
+                String name = candidate.getFileName().toString();
+                if (!name.startsWith(prefix) || !name.endsWith(patternSuffix) || name.length() <= prefix.length() + patternSuffix.length()) {
+                    continue;
+                }
+                try {
+                    LocalDate date = LocalDate.parse(name.substring(prefix.length(), name.length() - patternSuffix.length()), dateFormatter);
+                    if (date.isBefore(oldest)) {
+                        Files.deleteIfExists(candidate);
+                    }
+                } catch (DateTimeParseException ex) {
+                    // 不是本sink滚动出的文件
+                }
+            }
+        } catch (IOException ex) {
+            addWarn("Failed to remove expired log files in " + directory, ex);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (!console) {
+                put(encoder.footerBytes());
+                flush();
+                channel.close();
+            } else {
+                flush();
+            }
+        } catch (IOException ex) {
+            addWarn("Failed to close " + describe(), ex);
+        } finally {
+            channel = null;
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (started) {
+            closeChannel();
+            started = false;
+        }
+    }
+
+    /**
+     * 写入当时的System.out，每次write整块写出并flush；不关闭System.out
+     */
+    private static final class ConsoleChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            PrintStream out = System.out;
+            if (source.hasArray()) {
+                out.write(source.array(), source.arrayOffset() + source.position(), length);
+                source.position(source.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                source.get(bytes);
+                out.write(bytes, 0, length);
+            }
+            out.flush();
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
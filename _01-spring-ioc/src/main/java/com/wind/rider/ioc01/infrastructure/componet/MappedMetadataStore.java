@@ -0,0 +1,180 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import com.google.common.hash.Hashing;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * @apiNote {@link PersistentMetadataReaderFactory} 的缓存文件，只读映射到内存，条目按类文件内容的哈希查找
+ * -- 格式：MAGIC、FORMAT_VERSION、条目数，之后每个条目为 哈希(16字节)、上次解析耗时、长度、{@link CachedAnnotationMetadata} 的编码；
+ *    魔数或版本不符、文件损坏时视为空缓存，下次persist时整体重写
+ * -- 打开时只扫描一遍条目头建立索引，条目内容在命中时才从映射区解码
+ * -- 写入时先写同目录下的临时文件再原子替换，正在映射旧文件的进程不受影响；同一个类有了新版本时丢弃旧版本的条目
+ */
+final class MappedMetadataStore {
+
+    static final int MAGIC = 0x50594D43;
+
+    static final int FORMAT_VERSION = 2;
+
+    private static final MappedMetadataStore EMPTY = new MappedMetadataStore(null, Collections.emptyMap());
+
+    @Nullable
+    private final ByteBuffer mapped;
+
+    private final Map<ClassFileHash, Slot> slots;
+
+    private MappedMetadataStore(@Nullable ByteBuffer mapped, Map<ClassFileHash, Slot> slots) {
+        this.mapped = mapped;
+        this.slots = slots;
+    }
+
+    static MappedMetadataStore open(Path file) {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException ex) {
+            return EMPTY;
+        } catch (IOException ex) {
+            LoggerFactory.getLogger(MappedMetadataStore.class).warn("Unable to map class metadata cache [{}], starting with an empty cache", file, ex);
+            return EMPTY;
+        }
+        try {
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION) {
+                return EMPTY;
+            }
+            int count = mapped.getInt();
+            Map<ClassFileHash, Slot> slots = new HashMap<>((int) (count / 0.75f) + 1);
+            for (int i = 0; i < count; i++) {
+                ClassFileHash hash = new ClassFileHash(mapped.getLong(), mapped.getLong());
+                long parseNanos = mapped.getLong();
+                int length = mapped.getInt();
+                int offset = mapped.position();
+                String className = CachedAnnotationMetadata.readClassName(mapped.slice(offset, length));
+                slots.put(hash, new Slot(className, offset, length, parseNanos));
+                mapped.position(offset + length);
+            }
+            return new MappedMetadataStore(mapped, slots);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            LoggerFactory.getLogger(MappedMetadataStore.class).warn("Class metadata cache [{}] is corrupted, starting with an empty cache", file);
+            return EMPTY;
+        }
+    }
+
+    @Nullable
+    Slot get(ClassFileHash hash) {
+        return this.slots.get(hash);
+    }
+
+    /**
+     * 条目内容的只读视图，每次调用返回独立的position，可并发解码
+     */
+    ByteBuffer payload(Slot slot) {
+        return this.mapped.slice(slot.offset(), slot.length());
+    }
+
+    int size() {
+        return this.slots.size();
+    }
+
+    Set<String> getClassNames() {
+        Set<String> classNames = new LinkedHashSet<>(this.slots.size() * 2);
+        for (Slot slot : this.slots.values()) {
+            classNames.add(slot.className());
+        }
+        return classNames;
+    }
+
+    /**
+     * 把当前的条目与新增条目写为新的缓存文件
+     */
+    void writeTo(Path file, Map<ClassFileHash, PendingEntry> added) throws IOException {
+        Set<String> updatedClasses = new HashSet<>();
+        for (PendingEntry entry : added.values()) {
+            updatedClasses.add(entry.className());
+        }
+        List<Map.Entry<ClassFileHash, Slot>> kept = new ArrayList<>(this.slots.size());
+        for (Map.Entry<ClassFileHash, Slot> entry : this.slots.entrySet()) {
+            if (!updatedClasses.contains(entry.getValue().className()) && !added.containsKey(entry.getKey())) {
+                kept.add(entry);
+            }
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(kept.size() + added.size());
+                for (Map.Entry<ClassFileHash, Slot> entry : kept) {
+                    byte[] payload = new byte[entry.getValue().length()];
+                    payload(entry.getValue()).get(payload);
+                    writeEntry(out, entry.getKey(), entry.getValue().parseNanos(), payload);
+                }
+                for (Map.Entry<ClassFileHash, PendingEntry> entry : added.entrySet()) {
+                    writeEntry(out, entry.getKey(), entry.getValue().parseNanos(), entry.getValue().payload());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, ClassFileHash hash, long parseNanos, byte[] payload) throws IOException {
+        out.writeLong(hash.high());
+        out.writeLong(hash.low());
+        out.writeLong(parseNanos);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * 类文件内容的128位murmur3哈希，类文件变化后哈希随之变化，旧条目不再命中；缓存只在本地使用，不需要抗碰撞攻击的摘要算法
+     */
+    record ClassFileHash(long high, long low) {
+
+        static ClassFileHash of(byte[] classFile) {
+            ByteBuffer hash = ByteBuffer.wrap(Hashing.murmur3_128().hashBytes(classFile).asBytes());
+            return new ClassFileHash(hash.getLong(), hash.getLong());
+        }
+
+        // 显式实现：record默认的equals/hashCode在首次调用时通过invokedynamic引导生成，冷启动时这一步就要几十毫秒
+
+        @Override
+        public boolean equals(Object other) {
+            return (this == other || (other instanceof ClassFileHash that && this.high == that.high && this.low == that.low));
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.high ^ this.low);
+        }
+    }
+
+    /**
+     * 缓存文件中的一个条目
+     */
+    record Slot(String className, int offset, int length, long parseNanos) {
+    }
+
+    /**
+     * 本次运行新解析、尚未写入缓存文件的条目
+     */
+    record PendingEntry(String className, long parseNanos, byte[] payload) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+/**
+ * @apiNote {@link PersistentMetadataReaderFactory} 的累计统计
+ *
+ * @param hits          从缓存文件还原、跳过了字节码解析的类数
+ * @param misses        缓存中没有(或类文件已变化)、用ASM解析的类数
+ * @param cachedClasses 缓存文件中的类数(不含尚未persist的)
+ * @param parseNanos    解析未命中的类的累计耗时
+ * @param savedNanos    命中的类按上次解析耗时减去本次还原耗时，估算节省的累计耗时
+ */
+public record MetadataCacheStats(long hits, long misses, int cachedClasses, long parseNanos, long savedNanos) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0 ? 0 : (double) hits / lookups);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits / %d misses (%.1f%% hit rate), parsed %d classes in %.1f ms, saved ~%.1f ms, %d classes cached",
+                hits, misses, hitRate() * 100, misses, parseNanos / 1_000_000.0, savedNanos / 1_000_000.0, cachedClasses);
+    }
+}
@@ -5,6 +5,10 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+/**
+ * @apiNote 基于SimpleDateFormat的Date属性编辑器，每次setAsText/getAsText都会新建SimpleDateFormat，
+ * 且按Class注册到容器后每个BeanWrapper都会新建一个编辑器实例；批量绑定Date属性时推荐使用 {@link DateTimeConverters}
+ */
 public class MyCustomDateEditor extends PropertyEditorSupport {
 
     private String dateFormatPattern; // 日期格式化模式
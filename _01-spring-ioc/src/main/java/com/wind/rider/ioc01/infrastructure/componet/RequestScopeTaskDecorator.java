@@ -0,0 +1,37 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * @apiNote {@link CustomRequestScope} 的跨线程(虚拟线程)版本
+ * -- RequestContextHolder基于ThreadLocal绑定请求，请求内把任务交给线程池/虚拟线程执行时，目标线程上拿不到当前请求，
+ *    也就拿不到该请求的作用域对象
+ * -- 该TaskDecorator在提交任务时捕获当前请求的RequestAttributes，在目标线程执行前绑定、执行后恢复，
+ *    不使用InheritableThreadLocal，因此适用于每个任务一个虚拟线程的执行器
+ * -- 用法：SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(); executor.setVirtualThreads(true); executor.setTaskDecorator(new RequestScopeTaskDecorator());
+ */
+public class RequestScopeTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return runnable;
+        }
+        return () -> {
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    RequestContextHolder.setRequestAttributes(previous);
+                } else {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        };
+    }
+}
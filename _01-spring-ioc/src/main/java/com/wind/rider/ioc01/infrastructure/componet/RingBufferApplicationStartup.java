@@ -0,0 +1,367 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import jdk.jfr.EventType;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * @apiNote 基于预分配环形缓冲区的ApplicationStartup，用于替代容量固定、每个步骤都要分配Tag列表的BufferingApplicationStartup
+ * -- 结束的步骤写入预分配的数组(按列存放)，写入位置由一个AtomicLong分配，不加锁；缓冲区满后覆盖最旧的记录，不会停止记录。
+ *    写入前用CAS占用槽位，转了一圈的两个写入者不会同时写同一个槽位(序号更新的一方胜出)，读取方只接受写完的槽位
+ * -- StartupStep对象按线程、按嵌套深度复用，稳定运行后记录一个步骤不分配对象；每个步骤最多保留 {@value #MAX_TAGS} 个Tag
+ * -- 父子关系取自当前线程上尚未结束的步骤，导出时据此把嵌套创建的Bean耗时从父步骤中扣除(selfNanos)
+ * -- JFR正在记录时，每个步骤同时作为 {@link StartupStepEvent} 提交
+ * -- 步骤结束(end)后其对象会被复用，调用方不应再持有或修改它，Spring自身的用法均满足这一点
+ * -- 配合OptimizedListableBeanFactory可以得到每个Bean的实例化、属性填充、初始化耗时以及每个BeanPostProcessor的耗时，
+ *    导出见 {@link StartupReport}
+ */
+public class RingBufferApplicationStartup implements ApplicationStartup {
+
+    public static final int MAX_TAGS = 4;
+
+    private static final long NO_PARENT = -1L;
+
+    private static final EventType JFR_EVENT_TYPE = EventType.getEventType(StartupStepEvent.class);
+
+    private final int mask;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /** 槽位 -> 写入该槽位的序号 + 1，0表示未写入，负数表示该序号正在写入 */
+    private final AtomicLongArray published;
+
+    private final long[] ids;
+
+    private final long[] parentIds;
+
+    private final long[] threadIds;
+
+    private final long[] startNanos;
+
+    private final long[] durationNanos;
+
+    private final String[] names;
+
+    private final String[] tagKeys;
+
+    private final String[] tagValues;
+
+    private final ThreadLocal<StepStack> stepStacks = ThreadLocal.withInitial(StepStack::new);
+
+    /**
+     * @param capacity 保留的最近步骤数，向上取整为2的幂
+     */
+    public RingBufferApplicationStartup(int capacity) {
+        Assert.isTrue(capacity > 0 && capacity <= (1 << 24), "Capacity must be between 1 and 2^24");
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.ids = new long[size];
+        this.parentIds = new long[size];
+        this.threadIds = new long[size];
+        this.startNanos = new long[size];
+        this.durationNanos = new long[size];
+        this.names = new String[size];
+        this.tagKeys = new String[size * MAX_TAGS];
+        this.tagValues = new String[size * MAX_TAGS];
+    }
+
+    @Override
+    public StartupStep start(String name) {
+        StepStack stack = stepStacks.get();
+        Step step = stack.push();
+        step.begin(nextId.getAndIncrement(), name);
+        return step;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 已结束的步骤总数(含已被覆盖的)
+     */
+    public long getRecordedCount() {
+        return cursor.get();
+    }
+
+    /**
+     * 因缓冲区已满被覆盖的步骤数
+     */
+    public long getDroppedCount() {
+        return Math.max(0, cursor.get() - getCapacity());
+    }
+
+    /**
+     * 当前缓冲区中的全部记录，按结束顺序排列，并计算扣除子步骤后的selfNanos；正在被覆盖的槽位会被跳过
+     */
+    public List<StartupRecord> snapshot() {
+        long end = cursor.get();
+        long begin = Math.max(0, end - getCapacity());
+        List<StartupRecord> records = new ArrayList<>((int) (end - begin));
+        for (long sequence = begin; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence + 1) {
+                continue;
+            }
+            long id = ids[slot];
+            long parentId = parentIds[slot];
+            long threadId = threadIds[slot];
+            long start = startNanos[slot];
+            long duration = durationNanos[slot];
+            String name = names[slot];
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (int i = slot * MAX_TAGS; i < slot * MAX_TAGS + MAX_TAGS && tagKeys[i] != null; i++) {
+                tags.put(tagKeys[i], tagValues[i]);
+            }
+            // 读完后再次确认槽位没有被并发覆盖
+            VarHandle.acquireFence();
+            if (published.get(slot) == sequence + 1) {
+                records.add(new StartupRecord(id, parentId == NO_PARENT ? null : parentId, threadId, name,
+                        Collections.unmodifiableMap(tags), start, duration, duration));
+            }
+        }
+        return withSelfTime(records);
+    }
+
+    /**
+     * 基于当前快照生成报告
+     */
+    public StartupReport report() {
+        return new StartupReport(snapshot());
+    }
+
+    private static List<StartupRecord> withSelfTime(List<StartupRecord> records) {
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupRecord record : records) {
+            if (record.parentId() != null) {
+                childNanos.merge(record.parentId(), record.durationNanos(), Long::sum);
+            }
+        }
+        List<StartupRecord> result = new ArrayList<>(records.size());
+        for (StartupRecord record : records) {
+            long self = Math.max(0, record.durationNanos() - childNanos.getOrDefault(record.id(), 0L));
+            result.add(new StartupRecord(record.id(), record.parentId(), record.threadId(), record.name(), record.tags(),
+                    record.startNanos(), record.durationNanos(), self));
+        }
+        return result;
+    }
+
+    private void publish(Step step, long duration) {
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        if (!claim(slot, sequence + 1)) {
+            return;
+        }
+        // 占用标记先于下面的普通写入可见，读取方不会把写了一半的新数据当成旧序号的记录
+        VarHandle.releaseFence();
+        ids[slot] = step.id;
+        parentIds[slot] = step.parentId;
+        threadIds[slot] = step.stack.threadId;
+        startNanos[slot] = step.startNanos;
+        durationNanos[slot] = duration;
+        names[slot] = step.name;
+        int base = slot * MAX_TAGS;
+        for (int i = 0; i < MAX_TAGS; i++) {
+            tagKeys[base + i] = (i < step.tagCount ? step.tagKeys[i] : null);
+            tagValues[base + i] = (i < step.tagCount ? step.tagValues[i] : null);
+        }
+        published.setRelease(slot, sequence + 1);
+    }
+
+    /**
+     * 把槽位标记为正在写入marker；更早的序号正在写入时自旋等它写完，更新的序号已经占用时放弃(该记录本就会被覆盖)
+     */
+    private boolean claim(int slot, long marker) {
+        while (true) {
+            long current = published.get(slot);
+            if (Math.abs(current) > marker) {
+                return false;
+            }
+            if (current >= 0 && published.compareAndSet(slot, current, -marker)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 当前线程上尚未结束的步骤，按嵌套深度复用Step对象
+     */
+    private final class StepStack {
+
+        private final long threadId = Thread.currentThread().getId();
+
+        private Step[] steps = new Step[16];
+
+        private int size;
+
+        Step push() {
+            if (size == steps.length) {
+                steps = Arrays.copyOf(steps, size * 2);
+            }
+            Step step = steps[size];
+            if (step == null) {
+                step = new Step(this, size);
+                steps[size] = step;
+            }
+            step.parentId = (size > 0 ? steps[size - 1].id : NO_PARENT);
+            size++;
+            return step;
+        }
+
+        /**
+         * 弹出该步骤，以及在它之后开始却没有结束的步骤
+         */
+        void pop(Step step) {
+            if (size > step.depth) {
+                size = step.depth;
+            }
+        }
+    }
+
+    private final class Step implements StartupStep {
+
+        private final StepStack stack;
+
+        private final int depth;
+
+        private final String[] tagKeys = new String[MAX_TAGS];
+
+        private final String[] tagValues = new String[MAX_TAGS];
+
+        private long id;
+
+        private long parentId;
+
+        private String name;
+
+        private long startNanos;
+
+        private int tagCount;
+
+        private boolean ended;
+
+        @Nullable
+        private StartupStepEvent event;
+
+        Step(StepStack stack, int depth) {
+            this.stack = stack;
+            this.depth = depth;
+        }
+
+        void begin(long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.tagCount = 0;
+            this.ended = false;
+            if (JFR_EVENT_TYPE.isEnabled()) {
+                this.event = new StartupStepEvent();
+                this.event.begin();
+            } else {
+                this.event = null;
+            }
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        @Nullable
+        public Long getParentId() {
+            return (parentId == NO_PARENT ? null : parentId);
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            if (tagCount < MAX_TAGS) {
+                tagKeys[tagCount] = key;
+                tagValues[tagCount] = value;
+                tagCount++;
+            }
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(String key, Supplier<String> value) {
+            return (tagCount < MAX_TAGS ? tag(key, value.get()) : this);
+        }
+
+        @Override
+        public Tags getTags() {
+            List<Tag> tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                String key = tagKeys[i];
+                String value = tagValues[i];
+                tags.add(new Tag() {
+                    @Override
+                    public String getKey() {
+                        return key;
+                    }
+
+                    @Override
+                    public String getValue() {
+                        return value;
+                    }
+                });
+            }
+            return tags::iterator;
+        }
+
+        @Override
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            long duration = System.nanoTime() - startNanos;
+            publish(this, duration);
+            if (event != null) {
+                commitEvent(event);
+                event = null;
+            }
+            stack.pop(this);
+        }
+
+        private void commitEvent(StartupStepEvent event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stepId = id;
+                event.parentId = parentId;
+                event.name = name;
+                StringJoiner tags = new StringJoiner(",");
+                for (int i = 0; i < tagCount; i++) {
+                    switch (tagKeys[i]) {
+                        case "beanName" -> event.beanName = tagValues[i];
+                        case "postProcessor" -> event.postProcessor = tagValues[i];
+                        case "phase" -> event.phase = tagValues[i];
+                        default -> tags.add(tagKeys[i] + "=" + tagValues[i]);
+                    }
+                }
+                event.tags = tags.toString();
+                event.commit();
+            }
+        }
+    }
+}
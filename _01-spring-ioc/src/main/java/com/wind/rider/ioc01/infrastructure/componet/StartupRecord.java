@@ -0,0 +1,33 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * @apiNote {@link RingBufferApplicationStartup} 中一个已结束的启动步骤
+ *
+ * @param parentId      同一线程上包含该步骤的步骤，没有时为null
+ * @param tags          步骤的Tag，OptimizedListableBeanFactory产生的步骤带有beanName、postProcessor、phase
+ * @param startNanos    System.nanoTime()时间戳，只能在同一个JVM内相互比较
+ * @param durationNanos 步骤耗时，包含其中嵌套的子步骤(如创建依赖的Bean)
+ * @param selfNanos     扣除直接子步骤后的耗时；子步骤已被环形缓冲区覆盖时不会被扣除
+ */
+public record StartupRecord(long id, @Nullable Long parentId, long threadId, String name, Map<String, String> tags,
+                            long startNanos, long durationNanos, long selfNanos) {
+
+    @Nullable
+    public String beanName() {
+        return tags.get("beanName");
+    }
+
+    @Nullable
+    public String postProcessor() {
+        return tags.get("postProcessor");
+    }
+
+    @Nullable
+    public String phase() {
+        return tags.get("phase");
+    }
+}
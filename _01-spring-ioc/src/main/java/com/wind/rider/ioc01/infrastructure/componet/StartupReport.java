@@ -0,0 +1,162 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * @apiNote 启动步骤的离线报告
+ * -- writeCsv：每个步骤一行，含总耗时与扣除子步骤后的耗时
+ * -- writeFoldedStacks：flame graph的折叠栈格式("父;子;孙 自身耗时微秒")，可直接交给flamegraph.pl或speedscope，
+ *    栈帧为 bean:名称 / 阶段 / BeanPostProcessor.阶段，嵌套创建的依赖Bean显示在触发它的阶段之下
+ * -- beanSelfTimes/postProcessorSelfTimes：按Bean、按BeanPostProcessor汇总的自身耗时，toString输出最慢的前10项
+ */
+public class StartupReport {
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private static final int TOP = 10;
+
+    private final List<StartupRecord> records;
+
+    public StartupReport(List<StartupRecord> records) {
+        this.records = List.copyOf(records);
+    }
+
+    public List<StartupRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * 每个Bean的自身耗时(该Bean全部步骤的selfNanos之和，不含其依赖Bean的创建)，按耗时降序
+     */
+    public Map<String, Duration> beanSelfTimes() {
+        Map<String, Long> nanos = new HashMap<>();
+        for (StartupRecord record : records) {
+            if (record.beanName() != null) {
+                nanos.merge(record.beanName(), record.selfNanos(), Long::sum);
+            }
+        }
+        return sortedDurations(nanos);
+    }
+
+    /**
+     * 每个BeanPostProcessor的自身耗时之和，按耗时降序
+     */
+    public Map<String, Duration> postProcessorSelfTimes() {
+        Map<String, Long> nanos = new HashMap<>();
+        for (StartupRecord record : records) {
+            if (record.postProcessor() != null) {
+                nanos.merge(record.postProcessor(), record.selfNanos(), Long::sum);
+            }
+        }
+        return sortedDurations(nanos);
+    }
+
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("id,parentId,threadId,name,beanName,postProcessor,phase,startNanos,durationNanos,selfNanos,otherTags\n");
+        for (StartupRecord record : records) {
+            StringJoiner otherTags = new StringJoiner(";");
+            record.tags().forEach((key, value) -> {
+                if (!key.equals("beanName") && !key.equals("postProcessor") && !key.equals("phase")) {
+                    otherTags.add(key + "=" + value);
+                }
+            });
+            writer.write(record.id() + "," + (record.parentId() != null ? record.parentId() : "") + "," + record.threadId() + ","
+                    + csv(record.name()) + "," + csv(record.beanName()) + "," + csv(record.postProcessor()) + "," + csv(record.phase()) + ","
+                    + record.startNanos() + "," + record.durationNanos() + "," + record.selfNanos() + "," + csv(otherTags.toString()) + "\n");
+        }
+    }
+
+    public void writeFoldedStacks(Writer writer) throws IOException {
+        Map<Long, StartupRecord> byId = new HashMap<>();
+        for (StartupRecord record : records) {
+            byId.put(record.id(), record);
+        }
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        for (StartupRecord record : records) {
+            long micros = record.selfNanos() / 1000;
+            if (micros == 0) {
+                continue;
+            }
+            Deque<String> frames = new ArrayDeque<>();
+            for (StartupRecord current = record; current != null;
+                 current = (current.parentId() != null ? byId.get(current.parentId()) : null)) {
+                frames.addFirst(frame(current));
+            }
+            stacks.merge(String.join(";", frames), micros, Long::sum);
+        }
+        for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+            writer.write(stack.getKey() + " " + stack.getValue() + "\n");
+        }
+    }
+
+    public void writeCsv(Path path) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeCsv(writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void writeFoldedStacks(Path path) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeFoldedStacks(writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String frame(StartupRecord record) {
+        String name;
+        if (record.postProcessor() != null) {
+            name = record.postProcessor() + "." + record.phase();
+        } else if (BEAN_INSTANTIATE.equals(record.name()) && record.beanName() != null) {
+            name = "bean:" + record.beanName();
+        } else {
+            name = (record.phase() != null ? record.phase() : record.name());
+        }
+        // 折叠栈格式中';'分隔栈帧、最后一个空格分隔数值
+        return name.replace(';', ':').replace(' ', '_');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static Map<String, Duration> sortedDurations(Map<String, Long> nanos) {
+        Map<String, Duration> result = new LinkedHashMap<>();
+        nanos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> result.put(entry.getKey(), Duration.ofNanos(entry.getValue())));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("%d startup steps", records.size()));
+        appendTop(summary, "slowest beans (self time)", beanSelfTimes());
+        appendTop(summary, "slowest post-processors (self time)", postProcessorSelfTimes());
+        return summary.toString();
+    }
+
+    private static void appendTop(StringBuilder summary, String title, Map<String, Duration> durations) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        summary.append("\n").append(title).append(':');
+        durations.entrySet().stream().limit(TOP).forEach(entry -> summary.append(
+                String.format("%n  %-60s %10.3f ms", entry.getKey(), entry.getValue().toNanos() / 1_000_000.0)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import jdk.jfr.*;
+
+/**
+ * @apiNote {@link RingBufferApplicationStartup} 在JFR记录期间为每个启动步骤提交的事件，
+ * 可在JDK Mission Control中按beanName/postProcessor分组查看
+ */
+@Name("com.wind.rider.StartupStep")
+@Label("Startup Step")
+@Category({"Spring", "Startup"})
+@Description("Spring容器启动步骤，例如Bean的实例化、属性填充、初始化以及单个BeanPostProcessor的处理")
+@StackTrace(false)
+public class StartupStepEvent extends Event {
+
+    @Label("Step Id")
+    long stepId;
+
+    @Label("Parent Id")
+    long parentId;
+
+    @Label("Name")
+    String name;
+
+    @Label("Bean Name")
+    String beanName;
+
+    @Label("Post Processor")
+    String postProcessor;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Other Tags")
+    String tags;
+}
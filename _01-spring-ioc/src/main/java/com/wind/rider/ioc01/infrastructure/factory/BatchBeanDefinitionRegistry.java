@@ -0,0 +1,59 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * @apiNote 支持整批注册、移除BeanDefinition的BeanDefinitionRegistry
+ * -- 逐个registerBeanDefinition时，容器开始创建Bean之后每次注册都要复制一遍BeanName列表并使各类缓存失效，
+ *    逐个removeBeanDefinition每次还要遍历全部定义查找子定义，注册/移除N个定义的代价是O(N²)
+ * -- registerBeanDefinitions：先一遍检查整批定义(validate、批内重名、覆盖已有定义、与已有别名及批内别名的冲突)，
+ *    任一不合法则整批都不注册；通过后写入，缓存只在最后失效一次。批内同名且允许覆盖时后者生效、保留前者的位置
+ * -- removeBeanDefinitions：先确认全部BeanName都存在(任一不存在则整批都不移除)，再移除，查找子定义只遍历一遍
+ * -- {@link #registerAll}/{@link #removeAll} 对不支持批量的BeanDefinitionRegistry退回逐个注册、移除
+ */
+public interface BatchBeanDefinitionRegistry extends BeanDefinitionRegistry {
+
+    /**
+     * 按给定顺序注册一批BeanDefinition及其别名
+     */
+    void registerBeanDefinitions(Collection<BeanDefinitionHolder> beanDefinitions) throws BeanDefinitionStoreException;
+
+    /**
+     * 移除一批BeanDefinition，重复的BeanName只移除一次
+     */
+    void removeBeanDefinitions(Collection<String> beanNames) throws NoSuchBeanDefinitionException;
+
+    static void registerAll(BeanDefinitionRegistry registry, Collection<BeanDefinitionHolder> beanDefinitions) {
+        if (registry instanceof BatchBeanDefinitionRegistry batchRegistry) {
+            batchRegistry.registerBeanDefinitions(beanDefinitions);
+            return;
+        }
+        for (BeanDefinitionHolder holder : beanDefinitions) {
+            BeanDefinitionReaderUtils.registerBeanDefinition(holder, registry);
+        }
+    }
+
+    static void removeAll(BeanDefinitionRegistry registry, Collection<String> beanNames) {
+        if (registry instanceof BatchBeanDefinitionRegistry batchRegistry) {
+            batchRegistry.removeBeanDefinitions(beanNames);
+            return;
+        }
+        Set<String> distinctNames = new LinkedHashSet<>(beanNames);
+        for (String beanName : distinctNames) {
+            if (!registry.containsBeanDefinition(beanName)) {
+                throw new NoSuchBeanDefinitionException(beanName);
+            }
+        }
+        for (String beanName : distinctNames) {
+            registry.removeBeanDefinition(beanName);
+        }
+    }
+}
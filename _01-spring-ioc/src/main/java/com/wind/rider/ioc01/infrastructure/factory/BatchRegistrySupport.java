@@ -0,0 +1,263 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionOverrideException;
+import org.springframework.beans.factory.support.BeanDefinitionValidationException;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @apiNote 批量注册/移除BeanDefinition：先一遍检查整批的名称与别名冲突，之后仍逐个交给父类的registerBeanDefinition/removeBeanDefinition写入，
+ * 写入期间({@link Scope})本线程上的失效推迟到批量结束时统一进行
+ * -- 父类每次覆盖、移除定义都调用resetBeanDefinition，并遍历全部定义查找子定义；批量期间由容器的resetBeanDefinition转交本类记录，
+ *    结束时逐个清除合并结果、销毁单例、通知MergedBeanDefinitionPostProcessor，子定义只遍历一遍注册表查找
+ * -- 期间被移除的单例与clearMetadataCache()同样只记录，由容器在结束时统一维护类型索引与注入计划
+ * -- 只调用父类的公开与protected方法，不访问父类的私有字段；父类在容器开始创建Bean之后每写入一个定义仍复制一遍BeanName列表
+ */
+final class BatchRegistrySupport {
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    /** 只读取、不触发fork写时复制的定义查找 */
+    private final Function<String, BeanDefinition> rawDefinitions;
+
+    /** 父类的getBeanDefinitionNames：本容器中的定义(不含fork中的模板定义) */
+    private final Supplier<String[]> localBeanNames;
+
+    /** 父类的clearMergedBeanDefinition，只有容器自身可以调用 */
+    private final Consumer<String> clearMergedBeanDefinition;
+
+    /** 正在进行的批量写入，其他线程上的失效不推迟 */
+    @Nullable
+    private volatile Scope scope;
+
+    BatchRegistrySupport(SpringBeanFactoryCopies beanFactory, Function<String, BeanDefinition> rawDefinitions,
+                         Supplier<String[]> localBeanNames, Consumer<String> clearMergedBeanDefinition) {
+        this.beanFactory = beanFactory;
+        this.rawDefinitions = rawDefinitions;
+        this.localBeanNames = localBeanNames;
+        this.clearMergedBeanDefinition = clearMergedBeanDefinition;
+    }
+
+    //---------------------------------------------------------------------
+    // 写入前的整批检查
+    //---------------------------------------------------------------------
+
+    /**
+     * 与父类registerBeanDefinition、registerAlias的检查一致，另外检查批内的重名以及BeanName与别名的冲突；
+     * 任一不合法则抛出异常，此时注册表还没有被修改
+     */
+    Registration check(Collection<BeanDefinitionHolder> beanDefinitions) {
+        Map<String, BeanDefinition> definitions = new LinkedHashMap<>();
+        Map<String, String> aliases = new LinkedHashMap<>();
+        for (BeanDefinitionHolder holder : beanDefinitions) {
+            checkDefinition(holder.getBeanName(), holder.getBeanDefinition(), definitions, aliases);
+            if (holder.getAliases() != null) {
+                for (String alias : holder.getAliases()) {
+                    checkAlias(holder.getBeanName(), alias, definitions, aliases);
+                }
+            }
+        }
+        return new Registration(definitions, aliases);
+    }
+
+    private void checkDefinition(String beanName, BeanDefinition beanDefinition, Map<String, BeanDefinition> definitions,
+                                 Map<String, String> aliases) {
+        Assert.hasText(beanName, "Bean name must not be empty");
+        Assert.notNull(beanDefinition, "BeanDefinition must not be null");
+        if (beanDefinition instanceof AbstractBeanDefinition abd) {
+            try {
+                abd.validate();
+            } catch (BeanDefinitionValidationException ex) {
+                throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+                        "Validation of bean definition failed", ex);
+            }
+        }
+        if (aliases.containsKey(beanName)) {
+            throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+                    "Cannot register bean definition for bean '" + beanName + "' since it is declared as an alias for bean '" +
+                            aliases.get(beanName) + "' in the same batch.");
+        }
+        BeanDefinition batched = definitions.get(beanName);
+        if (batched != null || this.beanFactory.containsBeanDefinition(beanName)) {
+            if (!this.beanFactory.isBeanDefinitionOverridable(beanName)) {
+                throw new BeanDefinitionOverrideException(beanName, beanDefinition,
+                        batched != null ? batched : this.rawDefinitions.apply(beanName));
+            }
+        } else if (this.beanFactory.isAlias(beanName)) {
+            String aliasedName = this.beanFactory.canonicalName(beanName);
+            if (!this.beanFactory.isBeanDefinitionOverridable(aliasedName)) {
+                if (this.beanFactory.containsBeanDefinition(aliasedName)) {
+                    throw new BeanDefinitionOverrideException(beanName, beanDefinition, this.rawDefinitions.apply(aliasedName));
+                }
+                throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+                        "Cannot register bean definition for bean '" + beanName +
+                                "' since there is already an alias for bean '" + aliasedName + "' bound.");
+            }
+        }
+        // 批内重名时后者生效、保留前者的位置，与依次注册相同
+        definitions.put(beanName, beanDefinition);
+    }
+
+    /**
+     * 不允许覆盖时，别名不能已指向(或在批内指向)其他Bean；另外别名不能与批内的BeanName相同
+     */
+    private void checkAlias(String beanName, String alias, Map<String, BeanDefinition> definitions, Map<String, String> aliases) {
+        Assert.hasText(alias, "'alias' must not be empty");
+        if (alias.equals(beanName)) {
+            return;
+        }
+        if (definitions.containsKey(alias)) {
+            throw new IllegalStateException("Cannot define alias '" + alias + "' for name '" + beanName +
+                    "': It is already declared as a bean name in the same batch.");
+        }
+        String registeredName = aliases.get(alias);
+        if (registeredName == null && this.beanFactory.isAlias(alias)) {
+            registeredName = this.beanFactory.canonicalName(alias);
+        }
+        if (registeredName != null && !registeredName.equals(beanName) && !registeredName.equals(this.beanFactory.canonicalName(beanName))
+                && !this.beanFactory.isAllowBeanDefinitionOverriding()) {
+            throw new IllegalStateException("Cannot define alias '" + alias + "' for name '" + beanName +
+                    "': It is already registered for name '" + registeredName + "'.");
+        }
+        aliases.put(alias, beanName);
+    }
+
+    //---------------------------------------------------------------------
+    // 写入期间推迟的失效
+    //---------------------------------------------------------------------
+
+    Scope begin() {
+        Scope scope = new Scope(this.scope);
+        this.scope = scope;
+        return scope;
+    }
+
+    /**
+     * 当前线程上正在进行的批量写入
+     */
+    @Nullable
+    Scope currentScope() {
+        Scope scope = this.scope;
+        return (scope != null && scope.thread == Thread.currentThread() ? scope : null);
+    }
+
+    /**
+     * 执行推迟的resetBeanDefinition后结束批量写入；被移除的单例与clearMetadataCache()由调用方处理
+     */
+    void end(Scope scope) {
+        try {
+            resetDeferred(scope);
+        } finally {
+            this.scope = scope.previous;
+        }
+    }
+
+    /**
+     * 与父类resetBeanDefinition相同，但以这批Bean为父定义的子定义(逐层)只遍历一遍注册表查找
+     */
+    private void resetDeferred(Scope scope) {
+        if (scope.resetNames.isEmpty()) {
+            return;
+        }
+        List<MergedBeanDefinitionPostProcessor> processors = new ArrayList<>();
+        for (BeanPostProcessor processor : this.beanFactory.getBeanPostProcessors()) {
+            if (processor instanceof MergedBeanDefinitionPostProcessor mergedProcessor) {
+                processors.add(mergedProcessor);
+            }
+        }
+        Set<String> reset = new HashSet<>();
+        Set<String> parents = new LinkedHashSet<>(scope.resetNames);
+        while (!parents.isEmpty()) {
+            for (String beanName : parents) {
+                reset.add(beanName);
+                this.clearMergedBeanDefinition.accept(beanName);
+                this.beanFactory.destroySingleton(beanName);
+                for (MergedBeanDefinitionPostProcessor processor : processors) {
+                    processor.resetBeanDefinition(beanName);
+                }
+            }
+            Set<String> children = new LinkedHashSet<>();
+            for (String beanName : this.localBeanNames.get()) {
+                String parentName = parentName(beanName);
+                if (parentName != null && parents.contains(parentName) && !reset.contains(beanName)) {
+                    children.add(beanName);
+                }
+            }
+            parents = children;
+        }
+    }
+
+    @Nullable
+    private String parentName(String beanName) {
+        try {
+            return this.rawDefinitions.apply(beanName).getParentName();
+        } catch (NoSuchBeanDefinitionException ex) {
+            // 遍历期间被其他线程移除
+            return null;
+        }
+    }
+
+    /**
+     * 一批已检查过的定义与别名
+     *
+     * @param definitions 按批内顺序排列的定义，同名的只保留最后一个
+     * @param aliases     别名 -> BeanName
+     */
+    record Registration(Map<String, BeanDefinition> definitions, Map<String, String> aliases) {
+    }
+
+    /**
+     * 一次批量写入，只记录发起线程上的失效
+     */
+    static final class Scope {
+
+        private final Thread thread = Thread.currentThread();
+
+        /** 同一线程上外层的批量写入(如销毁回调中再批量移除) */
+        @Nullable
+        private final Scope previous;
+
+        private final Set<String> resetNames = new LinkedHashSet<>();
+
+        /** 被移除的单例(被覆盖、移除的定义以及它们的子定义)，结束时统一失效依赖它们的注入计划 */
+        private final Set<String> removedSingletons = new HashSet<>();
+
+        private boolean metadataCacheCleared;
+
+        private Scope(@Nullable Scope previous) {
+            this.previous = previous;
+        }
+
+        void deferReset(String beanName) {
+            this.resetNames.add(beanName);
+        }
+
+        void singletonRemoved(String beanName) {
+            this.removedSingletons.add(beanName);
+        }
+
+        Set<String> getRemovedSingletons() {
+            return this.removedSingletons;
+        }
+
+        void deferMetadataCacheClear() {
+            this.metadataCacheCleared = true;
+        }
+
+        boolean isMetadataCacheCleared() {
+            return this.metadataCacheCleared;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * @apiNote {@link OptimizedListableBeanFactory} 运行期按BeanName的访问统计：查找与创建的次数、失败次数与耗时分布
+ * -- 每个被访问过的Bean一个 {@link BeanAccessRecorder}，段数为CPU数向上取2的幂(最多8段)，每段每类约320字节；
+ *    只记录存在的Bean，查找不存在的名称不会增加记录，移除的Bean的记录保留到reset()
+ * -- 次数与失败次数精确记录；耗时按latencySamplingInterval采样(默认每16次计时一次)，不计时的访问只有一次ConcurrentHashMap查询与一次原子加，
+ *    计时的访问另有两次System.nanoTime()与几次原子加，都不分配对象，可以常开；需要更精确的耗时分布时可通过JMX临时把间隔调为1
+ * -- registerMBean后可通过JMX查看(见 {@link BeanAccessMetricsMXBean})，不再使用时调用unregisterMBean
+ */
+public class BeanAccessMetrics implements BeanAccessMetricsMXBean {
+
+    public static final String DEFAULT_DOMAIN = "com.wind.rider.ioc";
+
+    public static final int DEFAULT_LATENCY_SAMPLING_INTERVAL = 16;
+
+    private static final int MAX_STRIPES = 8;
+
+    private final Map<String, BeanAccessRecorder> recorders = new ConcurrentHashMap<>();
+
+    private final int stripes;
+
+    /** BeanName -> 当前作用域，Bean已不存在时返回null */
+    private final Function<String, String> scopeResolver;
+
+    /** 采样间隔 - 1 */
+    private volatile int samplingMask = DEFAULT_LATENCY_SAMPLING_INTERVAL - 1;
+
+    @Nullable
+    private volatile MBeanServer mbeanServer;
+
+    @Nullable
+    private volatile ObjectName objectName;
+
+    BeanAccessMetrics(Function<String, String> scopeResolver) {
+        this.scopeResolver = scopeResolver;
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.stripes = (processors <= 1 ? 1 : Math.min(MAX_STRIPES, Integer.highestOneBit(processors - 1) << 1));
+    }
+
+    int getSamplingMask() {
+        return this.samplingMask;
+    }
+
+    /**
+     * 已有的记录，Bean第一次被访问时为null
+     */
+    @Nullable
+    BeanAccessRecorder getRecorder(String beanName) {
+        return this.recorders.get(beanName);
+    }
+
+    BeanAccessRecorder obtainRecorder(String beanName) {
+        BeanAccessRecorder recorder = this.recorders.get(beanName);
+        if (recorder == null) {
+            recorder = this.recorders.computeIfAbsent(beanName, name -> new BeanAccessRecorder(this.stripes));
+        }
+        return recorder;
+    }
+
+    /**
+     * 单个Bean的统计，没有访问记录时返回null
+     */
+    @Nullable
+    public BeanAccessStats getStats(String beanName) {
+        BeanAccessRecorder recorder = this.recorders.get(beanName);
+        return (recorder != null ? snapshot(beanName, recorder) : null);
+    }
+
+    /**
+     * 全部有访问记录的Bean，按查找的估算累计耗时从高到低排列
+     */
+    public List<BeanAccessStats> getAllStats() {
+        List<BeanAccessStats> stats = new ArrayList<>(this.recorders.size());
+        this.recorders.forEach((beanName, recorder) -> stats.add(snapshot(beanName, recorder)));
+        stats.sort(Comparator.comparingLong((BeanAccessStats s) -> s.lookups().estimatedTotalNanos()).reversed());
+        return stats;
+    }
+
+    private BeanAccessStats snapshot(String beanName, BeanAccessRecorder recorder) {
+        return new BeanAccessStats(beanName, this.scopeResolver.apply(beanName), recorder.lookupLatency(), recorder.creationLatency());
+    }
+
+    /**
+     * 注册到平台MBeanServer，ObjectName为com.wind.rider.ioc:type=BeanAccessMetrics,name=&lt;容器的identity&gt;
+     */
+    public ObjectName registerMBean(Object beanFactory) {
+        try {
+            return registerMBean(ManagementFactory.getPlatformMBeanServer(), new ObjectName(DEFAULT_DOMAIN + ":type=BeanAccessMetrics,name="
+                    + ObjectName.quote(ObjectUtils.identityToString(beanFactory))));
+        } catch (JMException ex) {
+            throw new IllegalStateException("Unable to register bean access metrics MBean", ex);
+        }
+    }
+
+    public synchronized ObjectName registerMBean(MBeanServer mbeanServer, ObjectName objectName) throws JMException {
+        Assert.state(this.objectName == null, () -> "Bean access metrics already registered as " + this.objectName);
+        ObjectName registered = mbeanServer.registerMBean(this, objectName).getObjectName();
+        this.mbeanServer = mbeanServer;
+        this.objectName = registered;
+        return registered;
+    }
+
+    /**
+     * 从MBeanServer注销，未注册时什么也不做
+     */
+    public synchronized void unregisterMBean() {
+        MBeanServer mbeanServer = this.mbeanServer;
+        ObjectName objectName = this.objectName;
+        if (mbeanServer == null || objectName == null) {
+            return;
+        }
+        this.mbeanServer = null;
+        this.objectName = null;
+        try {
+            mbeanServer.unregisterMBean(objectName);
+        } catch (JMException ex) {
+            // 已被其他人注销
+        }
+    }
+
+    @Nullable
+    public ObjectName getObjectName() {
+        return this.objectName;
+    }
+
+    //---------------------------------------------------------------------
+    // BeanAccessMetricsMXBean
+    //---------------------------------------------------------------------
+
+    @Override
+    public int getLatencySamplingInterval() {
+        return this.samplingMask + 1;
+    }
+
+    @Override
+    public void setLatencySamplingInterval(int latencySamplingInterval) {
+        Assert.isTrue(latencySamplingInterval > 0 && Integer.bitCount(latencySamplingInterval) == 1,
+                "Latency sampling interval must be a power of two");
+        this.samplingMask = latencySamplingInterval - 1;
+    }
+
+    @Override
+    public int getTrackedBeanCount() {
+        return this.recorders.size();
+    }
+
+    @Override
+    public long getLookupCount() {
+        long count = 0;
+        for (BeanAccessRecorder recorder : this.recorders.values()) {
+            count += recorder.lookupLatency().count();
+        }
+        return count;
+    }
+
+    @Override
+    public long getCreationCount() {
+        long count = 0;
+        for (BeanAccessRecorder recorder : this.recorders.values()) {
+            count += recorder.creationLatency().count();
+        }
+        return count;
+    }
+
+    @Override
+    public String[] getTrackedBeanNames() {
+        return this.recorders.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    @Nullable
+    public String describeBean(String beanName) {
+        BeanAccessStats stats = getStats(beanName);
+        return (stats != null ? stats.toString() : null);
+    }
+
+    @Override
+    public String[] topBeansByLookupTime(int limit) {
+        return top(stats -> stats.lookups().estimatedTotalNanos(), limit);
+    }
+
+    @Override
+    public String[] topBeansByCreationTime(int limit) {
+        return top(stats -> stats.creations().estimatedTotalNanos(), limit);
+    }
+
+    private String[] top(ToLongFunction<BeanAccessStats> totalNanos, int limit) {
+        return getAllStats().stream()
+                .filter(stats -> totalNanos.applyAsLong(stats) > 0)
+                .sorted(Comparator.comparingLong(totalNanos).reversed())
+                .limit(Math.max(0, limit))
+                .map(BeanAccessStats::toString)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        this.recorders.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+/**
+ * @apiNote {@link BeanAccessMetrics} 通过JMX公开的视图，只使用JConsole、VisualVM等可以直接显示的简单类型
+ */
+public interface BeanAccessMetricsMXBean {
+
+    /**
+     * 每多少次访问计时一次，2的幂；次数与失败次数不受影响
+     */
+    int getLatencySamplingInterval();
+
+    void setLatencySamplingInterval(int latencySamplingInterval);
+
+    /**
+     * 有访问记录的Bean数
+     */
+    int getTrackedBeanCount();
+
+    /**
+     * 全部Bean的查找次数
+     */
+    long getLookupCount();
+
+    /**
+     * 全部Bean的创建次数
+     */
+    long getCreationCount();
+
+    String[] getTrackedBeanNames();
+
+    /**
+     * 单个Bean的统计，没有访问记录时返回null
+     */
+    String describeBean(String beanName);
+
+    /**
+     * 按查找的估算累计耗时从高到低的前limit个Bean
+     */
+    String[] topBeansByLookupTime(int limit);
+
+    /**
+     * 按创建的估算累计耗时从高到低的前limit个Bean
+     */
+    String[] topBeansByCreationTime(int limit);
+
+    /**
+     * 清空全部访问记录
+     */
+    void reset();
+}
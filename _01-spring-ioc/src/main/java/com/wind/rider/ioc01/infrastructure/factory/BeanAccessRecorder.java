@@ -0,0 +1,157 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @apiNote 单个Bean的访问记录：查找(getBean)与创建(createBean)各一组按线程分段的计数器与耗时直方图
+ * -- 每段是AtomicLongArray中连续的一行：次数、失败次数、按2的幂划分的耗时桶、采样耗时之和、最大耗时，行长补齐到缓存行的整数倍；
+ *    不同线程按线程的identityHashCode落到不同的段，互不争用同一缓存行；记录时只做几次原子加，不分配对象
+ * -- 次数与失败次数是精确的；耗时按段每samplingInterval次采样一次(start方法只在采样时读取开始时间)，省去多数访问的两次System.nanoTime()
+ * -- 耗时桶i统计[2^(i+6), 2^(i+7))纳秒，第一个桶包含128ns以下的全部，最后一个桶不设上限(约137秒以上)；
+ *    百分位数取所在桶的上界(不超过最大耗时)，精度为2倍
+ * -- 读取时把各段相加，与记录并发进行时读到的是近似值
+ */
+final class BeanAccessRecorder {
+
+    static final int BUCKETS = 32;
+
+    private static final int MIN_SHIFT = 6;
+
+    private static final int COUNT = 0;
+
+    private static final int FAILURES = 1;
+
+    private static final int FIRST_BUCKET = 2;
+
+    private static final int SAMPLED_NANOS = FIRST_BUCKET + BUCKETS;
+
+    private static final int MAX_NANOS = SAMPLED_NANOS + 1;
+
+    /** 每段占用的long数，补齐到8的倍数(64字节) */
+    private static final int STRIDE = (MAX_NANOS + 1 + 7) & ~7;
+
+    private final int stripeMask;
+
+    private final AtomicLongArray lookups;
+
+    private final AtomicLongArray creations;
+
+    /**
+     * @param stripes 段数，须为2的幂
+     */
+    BeanAccessRecorder(int stripes) {
+        this.stripeMask = stripes - 1;
+        this.lookups = new AtomicLongArray(stripes * STRIDE);
+        this.creations = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    /**
+     * 记一次查找，需要计时时返回开始时间，否则返回0；须与endLookup成对调用
+     *
+     * @param samplingMask 采样间隔 - 1，采样间隔为2的幂
+     */
+    long startLookup(int samplingMask) {
+        return start(this.lookups, samplingMask);
+    }
+
+    /**
+     * 查找结束(含抛出异常)，start为startLookup的返回值
+     */
+    void endLookup(long start, boolean failed) {
+        end(this.lookups, start, failed);
+    }
+
+    long startCreation(int samplingMask) {
+        return start(this.creations, samplingMask);
+    }
+
+    void endCreation(long start, boolean failed) {
+        end(this.creations, start, failed);
+    }
+
+    BeanAccessStats.Latency lookupLatency() {
+        return snapshot(this.lookups);
+    }
+
+    BeanAccessStats.Latency creationLatency() {
+        return snapshot(this.creations);
+    }
+
+    private long start(AtomicLongArray cells, int samplingMask) {
+        return ((cells.getAndIncrement(stripeBase() + COUNT) & samplingMask) == 0 ? System.nanoTime() : 0);
+    }
+
+    private void end(AtomicLongArray cells, long start, boolean failed) {
+        int base = stripeBase();
+        if (failed) {
+            cells.getAndIncrement(base + FAILURES);
+        }
+        if (start != 0) {
+            recordLatency(cells, base, System.nanoTime() - start);
+        }
+    }
+
+    private void recordLatency(AtomicLongArray cells, int base, long nanos) {
+        cells.getAndIncrement(base + FIRST_BUCKET + bucketOf(nanos));
+        cells.getAndAdd(base + SAMPLED_NANOS, nanos);
+        int maxIndex = base + MAX_NANOS;
+        long max;
+        while (nanos > (max = cells.get(maxIndex)) && !cells.weakCompareAndSetVolatile(maxIndex, max, nanos)) {
+            // 其他线程同时更新了最大值，重新比较
+        }
+    }
+
+    private int stripeBase() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        return ((hash ^ (hash >>> 16)) & this.stripeMask) * STRIDE;
+    }
+
+    private static int bucketOf(long nanos) {
+        int bucket = 63 - Long.numberOfLeadingZeros(nanos | 1) - MIN_SHIFT;
+        return (bucket < 0 ? 0 : Math.min(bucket, BUCKETS - 1));
+    }
+
+    /**
+     * 桶的上界，最后一个桶没有上界
+     */
+    private static long upperBound(int bucket) {
+        return (bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (bucket + MIN_SHIFT + 1));
+    }
+
+    private BeanAccessStats.Latency snapshot(AtomicLongArray cells) {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long failures = 0;
+        long sampled = 0;
+        long sampledNanos = 0;
+        long maxNanos = 0;
+        for (int base = 0; base < cells.length(); base += STRIDE) {
+            count += cells.get(base + COUNT);
+            failures += cells.get(base + FAILURES);
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = cells.get(base + FIRST_BUCKET + i);
+                buckets[i] += n;
+                sampled += n;
+            }
+            sampledNanos += cells.get(base + SAMPLED_NANOS);
+            maxNanos = Math.max(maxNanos, cells.get(base + MAX_NANOS));
+        }
+        return new BeanAccessStats.Latency(count, failures, sampled, sampledNanos, maxNanos,
+                percentile(buckets, sampled, maxNanos, 0.5), percentile(buckets, sampled, maxNanos, 0.99));
+    }
+
+    private static long percentile(long[] buckets, long sampled, long maxNanos, double quantile) {
+        if (sampled == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(sampled * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+}
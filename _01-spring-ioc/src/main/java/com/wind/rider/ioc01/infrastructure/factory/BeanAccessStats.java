@@ -0,0 +1,48 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * @apiNote 单个Bean运行期的访问统计，见 {@link BeanAccessMetrics}
+ *
+ * @param beanName  BeanName(别名已转换为规范名称)
+ * @param scope     当前的作用域，手动注册的单例为singleton，只存在于父容器中的为parent，已不存在的Bean为null
+ * @param lookups   getBean(含依赖注入、ObjectProvider、作用域查找)的次数与耗时，包含期间创建Bean与其依赖的时间
+ * @param creations createBean的次数与耗时(单例的首次创建、每次prototype创建、作用域中的新建)，包含创建依赖的时间
+ */
+public record BeanAccessStats(String beanName, @Nullable String scope, Latency lookups, Latency creations) {
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s]: lookups %s; creations %s", beanName, (scope != null ? scope : "removed"), lookups, creations);
+    }
+
+    /**
+     * @param count        次数(含失败)，精确值
+     * @param failures     抛出异常的次数，精确值
+     * @param sampled      计时的次数，约为count / 采样间隔
+     * @param sampledNanos 计时的访问的累计耗时
+     * @param maxNanos     计时的访问中的最大耗时
+     * @param p50Nanos     中位数，精度为2倍(直方图桶的上界)
+     * @param p99Nanos     99分位，精度同上
+     */
+    public record Latency(long count, long failures, long sampled, long sampledNanos, long maxNanos, long p50Nanos, long p99Nanos) {
+
+        public double meanNanos() {
+            return (sampled == 0 ? 0 : (double) sampledNanos / sampled);
+        }
+
+        /**
+         * 按平均耗时估算的累计耗时
+         */
+        public long estimatedTotalNanos() {
+            return (long) (meanNanos() * count);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (%d failed, %d timed), mean %.1f us, p50 <= %.1f us, p99 <= %.1f us, max %.1f us",
+                    count, failures, sampled, meanNanos() / 1000, p50Nanos / 1000.0, p99Nanos / 1000.0, maxNanos / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote 运行期读取编译期生成的Bean注解索引(META-INF/projecty/bean-annotations.idx，由_03-ioc-processor生成)
+ * -- 按注解类型查找类名、按类名还原出类型层次上的MergedAnnotations(含元注解、@AliasFor)，全程不反射扫描Bean类，
+ *    只加载注解类型本身
+ * -- 索引中没有记录的类、或还原失败(如属性中的Class无法加载)的类，由调用方退回反射查找
+ * -- 与Spring的CandidateComponentsIndexLoader一样按ClassLoader缓存，同一ClassLoader下的多个容器共享索引及还原结果
+ */
+public class BeanAnnotationIndex {
+
+    public static final String INDEX_LOCATION = "META-INF/projecty/bean-annotations.idx";
+
+    private static final ConcurrentReferenceHashMap<ClassLoader, BeanAnnotationIndex> CACHE = new ConcurrentReferenceHashMap<>();
+
+    private final ClassLoader classLoader;
+
+    /** 类名 -> 类型层次上直接声明的注解(按TYPE_HIERARCHY顺序) */
+    private final Map<String, List<IndexedAnnotation>> annotationsByClass = new HashMap<>();
+
+    /** 注解类型名(含元注解) -> 类名集合 */
+    private final Map<String, Set<String>> classesByAnnotation = new HashMap<>();
+
+    private final Map<String, Optional<MergedAnnotations>> mergedAnnotationsCache = new ConcurrentHashMap<>();
+
+    private BeanAnnotationIndex(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * 获取ClassLoader对应的索引，首次调用时读取classpath上所有模块生成的索引文件
+     */
+    public static BeanAnnotationIndex load(@Nullable ClassLoader classLoader) {
+        ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+        return CACHE.computeIfAbsent(classLoaderToUse, BeanAnnotationIndex::doLoad);
+    }
+
+    private static BeanAnnotationIndex doLoad(ClassLoader classLoader) {
+        BeanAnnotationIndex index = new BeanAnnotationIndex(classLoader);
+        try {
+            Enumeration<URL> resources = index.classLoader.getResources(INDEX_LOCATION);
+            while (resources.hasMoreElements()) {
+                index.read(resources.nextElement());
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to load bean annotation index from location [" + INDEX_LOCATION + "]", ex);
+        }
+        return index;
+    }
+
+    public boolean isEmpty() {
+        return annotationsByClass.isEmpty();
+    }
+
+    public boolean contains(String className) {
+        return annotationsByClass.containsKey(className);
+    }
+
+    public Set<String> getClassesWithAnnotation(Class<? extends Annotation> annotationType) {
+        return classesByAnnotation.getOrDefault(annotationType.getName(), Collections.emptySet());
+    }
+
+    /**
+     * 还原类型层次上的全部注解，等价于 MergedAnnotations.from(类, SearchStrategy.TYPE_HIERARCHY)；
+     * 类不在索引中或无法还原时返回null
+     */
+    @Nullable
+    public MergedAnnotations getAnnotations(String className) {
+        return mergedAnnotationsCache.computeIfAbsent(className, this::buildAnnotations).orElse(null);
+    }
+
+    private Optional<MergedAnnotations> buildAnnotations(String className) {
+        List<IndexedAnnotation> indexedAnnotations = annotationsByClass.get(className);
+        if (indexedAnnotations == null) {
+            return Optional.empty();
+        }
+        try {
+            List<MergedAnnotation<?>> roots = new ArrayList<>(indexedAnnotations.size());
+            for (IndexedAnnotation indexedAnnotation : indexedAnnotations) {
+                roots.add(toMergedAnnotation(indexedAnnotation));
+            }
+            return Optional.of(MergedAnnotations.of(roots));
+        } catch (ClassNotFoundException | LinkageError | IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MergedAnnotation<?> toMergedAnnotation(IndexedAnnotation indexedAnnotation) throws ClassNotFoundException {
+        Class<? extends Annotation> annotationType =
+                (Class<? extends Annotation>) ClassUtils.forName(indexedAnnotation.type(), classLoader);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> attribute : indexedAnnotation.attributes().entrySet()) {
+            Method method = ReflectionUtils.findMethod(annotationType, attribute.getKey());
+            if (method == null) {
+                throw new IllegalArgumentException("No attribute '" + attribute.getKey() + "' on " + annotationType.getName());
+            }
+            attributes.put(attribute.getKey(), decodeValue(attribute.getValue(), method.getReturnType()));
+        }
+        return MergedAnnotation.of(classLoader, null, annotationType, attributes);
+    }
+
+    private Object decodeValue(String encoded, Class<?> type) throws ClassNotFoundException {
+        if (!type.isArray()) {
+            return decodeScalar(URLDecoder.decode(encoded, StandardCharsets.UTF_8), type);
+        }
+        String[] elements = (encoded.isEmpty() ? new String[0] : encoded.split(",", -1));
+        Object array = Array.newInstance(type.getComponentType(), elements.length);
+        for (int i = 0; i < elements.length; i++) {
+            Array.set(array, i, decodeScalar(URLDecoder.decode(elements[i], StandardCharsets.UTF_8), type.getComponentType()));
+        }
+        return array;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object decodeScalar(String value, Class<?> type) throws ClassNotFoundException {
+        if (type == String.class) {
+            return value;
+        } else if (type == Class.class) {
+            return ClassUtils.forName(value, classLoader);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        } else if (type == boolean.class) {
+            return Boolean.valueOf(value);
+        } else if (type == char.class) {
+            return value.charAt(0);
+        } else if (type == byte.class) {
+            return Byte.valueOf(value);
+        } else if (type == short.class) {
+            return Short.valueOf(value);
+        } else if (type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == double.class) {
+            return Double.valueOf(value);
+        }
+        throw new IllegalArgumentException("Unsupported annotation attribute type " + type.getName());
+    }
+
+    private void read(URL resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            List<IndexedAnnotation> current = null;
+            String currentClass = null;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.length() < 2 || line.startsWith("#")) {
+                    continue;
+                }
+                String content = line.substring(2);
+                switch (line.charAt(0)) {
+                    case 'C' -> {
+                        currentClass = content;
+                        current = new ArrayList<>();
+                        annotationsByClass.put(currentClass, current);
+                    }
+                    case 'R' -> {
+                        if (current != null) {
+                            current.add(parseAnnotation(content));
+                        }
+                    }
+                    case 'P' -> {
+                        if (currentClass != null) {
+                            classesByAnnotation.computeIfAbsent(content, key -> new HashSet<>()).add(currentClass);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    private static IndexedAnnotation parseAnnotation(String content) {
+        String[] parts = content.split(" ");
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            int separator = parts[i].indexOf('=');
+            attributes.put(parts[i].substring(0, separator), parts[i].substring(separator + 1));
+        }
+        return new IndexedAnnotation(parts[0], attributes);
+    }
+
+    private record IndexedAnnotation(String type, Map<String, String> attributes) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * @apiNote 模板容器某一版本注册表的只读视图，由 {@link OptimizedListableBeanFactory#fork()} 创建的所有容器共享
+ * -- BeanDefinition直接引用模板中的实例，不复制；fork中按名称修改(getBeanDefinition取出后修改、重新注册、移除)时才复制或屏蔽
+ * -- 别名与手动注册的单例在fork时复制到新容器(通常只有少量)，BeanDefinition与类型索引不复制
+ * -- version为模板注册表的版本号，模板注册或移除BeanDefinition、别名、手动单例后，下一次fork重新生成
+ */
+final class BeanDefinitionSnapshot {
+
+    private final long version;
+
+    private final String[] beanDefinitionNames;
+
+    private final Map<String, BeanDefinition> beanDefinitions;
+
+    /** 别名 -> BeanName */
+    private final Map<String, String> aliases;
+
+    /** BeanName -> 手动注册的单例 */
+    private final Map<String, Object> manualSingletons;
+
+    private final BeanTypeIndex typeIndex;
+
+    BeanDefinitionSnapshot(long version, String[] beanDefinitionNames, Map<String, BeanDefinition> beanDefinitions,
+                           Map<String, String> aliases, Map<String, Object> manualSingletons, BeanTypeIndex typeIndex) {
+        this.version = version;
+        this.beanDefinitionNames = beanDefinitionNames;
+        this.beanDefinitions = beanDefinitions;
+        this.aliases = aliases;
+        this.manualSingletons = manualSingletons;
+        this.typeIndex = typeIndex;
+    }
+
+    long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * 按模板中的注册顺序排列，调用方不能修改
+     */
+    String[] getBeanDefinitionNames() {
+        return this.beanDefinitionNames;
+    }
+
+    int size() {
+        return this.beanDefinitionNames.length;
+    }
+
+    boolean contains(String beanName) {
+        return this.beanDefinitions.containsKey(beanName);
+    }
+
+    @Nullable
+    BeanDefinition getBeanDefinition(String beanName) {
+        return this.beanDefinitions.get(beanName);
+    }
+
+    Map<String, String> getAliases() {
+        return this.aliases;
+    }
+
+    Map<String, Object> getManualSingletons() {
+        return this.manualSingletons;
+    }
+
+    /**
+     * 只读的类型索引，fork通过 {@link BeanTypeIndex#fork()} 在其上记录差异
+     */
+    BeanTypeIndex getTypeIndex() {
+        return this.typeIndex;
+    }
+}
@@ -0,0 +1,103 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.factory.UnsatisfiedDependencyException;
+import org.springframework.beans.factory.aot.AutowiredArguments;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.support.InstanceSupplier;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.function.ThrowingBiFunction;
+import org.springframework.util.function.ThrowingFunction;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * @apiNote 编译期生成的 {@link GeneratedBeanRegistry} 为每个@Bean方法使用的实例提供者，替代BeanInstanceSupplier.forFactoryMethod
+ * -- BeanInstanceSupplier每次创建都按方法名反射查找一次工厂方法(ReflectionUtils.findMethod)，并为每个参数新建MethodParameter；
+ *    这里只在注册时查找一次(作为合并定义的resolvedFactoryMethod，@Bean方法上的@Qualifier等注解照常生效)，之后每次创建直接调用生成的lambda
+ * -- 参数与BeanInstanceSupplier一样逐个按容器的自动装配规则解析(必需、支持InjectionPoint)，并登记依赖关系；无参方法不解析
+ * -- 不设置SimpleInstantiationStrategy的当前工厂方法：它只供CGLIB增强的full模式配置类拦截@Bean方法之间的调用，
+ *    生成注册代码的配置类都按lite模式处理
+ */
+public final class BeanMethodInstanceSupplier<T> implements InstanceSupplier<T> {
+
+    private static final AutowiredArguments NO_ARGUMENTS = AutowiredArguments.of(new Object[0]);
+
+    private final Method factoryMethod;
+
+    private final MethodParameter[] parameters;
+
+    private final ThrowingBiFunction<RegisteredBean, AutowiredArguments, T> generator;
+
+    private BeanMethodInstanceSupplier(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+                                       ThrowingBiFunction<RegisteredBean, AutowiredArguments, T> generator) {
+        Method method = ReflectionUtils.findMethod(declaringClass, methodName, parameterTypes);
+        Assert.notNull(method, () -> "Factory method '" + methodName + "' cannot be found on " + declaringClass);
+        this.factoryMethod = method;
+        this.parameters = new MethodParameter[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            this.parameters[i] = new MethodParameter(method, i);
+        }
+        this.generator = generator;
+    }
+
+    /**
+     * 无参的@Bean方法
+     */
+    public static <T> BeanMethodInstanceSupplier<T> of(Class<?> declaringClass, String methodName,
+                                                       ThrowingFunction<RegisteredBean, T> generator) {
+        return new BeanMethodInstanceSupplier<>(declaringClass, methodName, new Class<?>[0],
+                (registeredBean, args) -> generator.applyWithException(registeredBean));
+    }
+
+    /**
+     * 带参数的@Bean方法，generator从args中按下标取出已解析的参数
+     */
+    public static <T> BeanMethodInstanceSupplier<T> of(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+                                                       ThrowingBiFunction<RegisteredBean, AutowiredArguments, T> generator) {
+        return new BeanMethodInstanceSupplier<>(declaringClass, methodName, parameterTypes, generator);
+    }
+
+    @Override
+    public T get(RegisteredBean registeredBean) throws Exception {
+        AutowiredArguments args = (this.parameters.length == 0 ? NO_ARGUMENTS : resolveArguments(registeredBean));
+        return this.generator.applyWithException(registeredBean, args);
+    }
+
+    @Override
+    public Method getFactoryMethod() {
+        return this.factoryMethod;
+    }
+
+    /**
+     * 与BeanInstanceSupplier#resolveArguments一致(@Bean的定义没有构造参数值，只需自动装配)
+     */
+    private AutowiredArguments resolveArguments(RegisteredBean registeredBean) {
+        String beanName = registeredBean.getBeanName();
+        TypeConverter typeConverter = registeredBean.getBeanFactory().getTypeConverter();
+        Object[] resolved = new Object[this.parameters.length];
+        Set<String> autowiredBeanNames = new LinkedHashSet<>(resolved.length * 2);
+        for (int i = 0; i < resolved.length; i++) {
+            DependencyDescriptor descriptor = new DependencyDescriptor(this.parameters[i], true);
+            try {
+                resolved[i] = registeredBean.resolveAutowiredArgument(descriptor, typeConverter, autowiredBeanNames);
+            } catch (BeansException ex) {
+                throw new UnsatisfiedDependencyException(null, beanName, descriptor, ex);
+            }
+        }
+        ConfigurableBeanFactory beanFactory = registeredBean.getBeanFactory();
+        for (String autowiredBeanName : autowiredBeanNames) {
+            if (beanFactory.containsBean(autowiredBeanName)) {
+                beanFactory.registerDependentBean(autowiredBeanName, beanName);
+            }
+        }
+        return AutowiredArguments.of(resolved);
+    }
+}
@@ -0,0 +1,203 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.annotation.InitDestroyAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * @apiNote 某个BeanDefinition + Bean类在初始化前后实际需要执行的BeanPostProcessor列表，按回调阶段分别保存，只在第一次创建时计算
+ * -- 回调未被重写(BeanPostProcessor中的默认实现原样返回)的处理器直接去掉，
+ *    InitDestroyAnnotationBeanPostProcessor#postProcessAfterInitialization同样是原样返回，一并去掉
+ * -- InitDestroyAnnotationBeanPostProcessor(含CommonAnnotationBeanPostProcessor)的postProcessBeforeInitialization只调用在
+ *    postProcessMergedBeanDefinition阶段登记到BeanDefinition上的@PostConstruct方法(externallyManagedInitMethods)，
+ *    同一处理器处理过该BeanDefinition且没有登记任何方法时去掉
+ * -- 无法判断的处理器一律保留，过滤后执行的回调与父类逐个执行的结果相同
+ * -- 属性填充阶段(postProcessAfterInstantiation、postProcessProperties)由父类populateBean执行，父类没有按Bean替换处理器的扩展点，不在管道中
+ * -- 保存了创建时的处理器列表快照，处理器增减、BeanDefinition重新合并或Bean类变化后重新计算；
+ *    autowireBean等每次临时创建BeanDefinition的调用，只要没有处理过该BeanDefinition的处理器参与过滤，就沿用同一份管道
+ */
+public class BeanPostProcessorPipeline {
+
+    public enum Phase {
+
+        BEFORE_INITIALIZATION("before-initialization"),
+
+        AFTER_INITIALIZATION("after-initialization");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return this.label;
+        }
+    }
+
+    private static final BeanPostProcessor[] NO_PROCESSORS = new BeanPostProcessor[0];
+
+    private final RootBeanDefinition mergedDefinition;
+
+    private final Class<?> beanClass;
+
+    /** 过滤结果与BeanDefinition上登记的成员无关(没有处理过该BeanDefinition的处理器) */
+    private final boolean definitionIndependent;
+
+    private final BeanPostProcessor[] processors;
+
+    private final BeanPostProcessor[] beforeInitialization;
+
+    private final BeanPostProcessor[] afterInitialization;
+
+    /** 每个阶段被过滤掉的处理器个数(两个字段而不是按阶段索引的数组，每个管道少一个对象) */
+    private int skippedBeforeInitialization;
+
+    private int skippedAfterInitialization;
+
+    /**
+     * @param processors                 容器当前的BeanPostProcessor列表
+     * @param implementedPhases          处理器类 -> 重写了的回调阶段，由调用方缓存
+     * @param mergedDefinitionProcessors 处理过该BeanDefinition(postProcessMergedBeanDefinition)的处理器，未知时为空
+     */
+    public BeanPostProcessorPipeline(RootBeanDefinition mergedDefinition, Class<?> beanClass, List<BeanPostProcessor> processors,
+                                     ImplementedPhases implementedPhases, Set<BeanPostProcessor> mergedDefinitionProcessors) {
+        this.mergedDefinition = mergedDefinition;
+        this.beanClass = beanClass;
+        this.processors = processors.toArray(NO_PROCESSORS);
+        this.definitionIndependent = mergedDefinitionProcessors.isEmpty();
+        boolean noInitMethods = mergedDefinition.getExternallyManagedInitMethods().isEmpty();
+
+        List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+        List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+        for (BeanPostProcessor processor : this.processors) {
+            Set<Phase> phases = implementedPhases.get(processor.getClass());
+            boolean postProcessed = mergedDefinitionProcessors.contains(processor);
+            boolean initializes = !(postProcessed && noInitMethods && invokesOnlyInitMethods(processor.getClass()));
+            add(beforeInitialization, processor, phases.contains(Phase.BEFORE_INITIALIZATION) && initializes, Phase.BEFORE_INITIALIZATION);
+            add(afterInitialization, processor, phases.contains(Phase.AFTER_INITIALIZATION), Phase.AFTER_INITIALIZATION);
+        }
+        this.beforeInitialization = beforeInitialization.toArray(NO_PROCESSORS);
+        this.afterInitialization = afterInitialization.toArray(NO_PROCESSORS);
+    }
+
+    private void add(List<BeanPostProcessor> phaseProcessors, BeanPostProcessor processor, boolean applicable, Phase phase) {
+        if (applicable) {
+            phaseProcessors.add(processor);
+        } else if (phase == Phase.BEFORE_INITIALIZATION) {
+            this.skippedBeforeInitialization++;
+        } else {
+            this.skippedAfterInitialization++;
+        }
+    }
+
+    /**
+     * 管道是否仍适用：同一个合并后的BeanDefinition、同一个Bean类、处理器列表未变化
+     */
+    public boolean isFor(RootBeanDefinition mbd, Class<?> beanClass, List<BeanPostProcessor> processors) {
+        return this.mergedDefinition == mbd && isFor(beanClass, processors);
+    }
+
+    /**
+     * 临时BeanDefinition(不在注册表中，每次调用都是新对象)是否可以沿用该管道
+     */
+    public boolean isEquivalentFor(Class<?> beanClass, List<BeanPostProcessor> processors) {
+        return this.definitionIndependent && isFor(beanClass, processors);
+    }
+
+    private boolean isFor(Class<?> beanClass, List<BeanPostProcessor> processors) {
+        if (this.beanClass != beanClass || this.processors.length != processors.size()) {
+            return false;
+        }
+        for (int i = 0; i < this.processors.length; i++) {
+            if (this.processors[i] != processors.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public BeanPostProcessor[] getBeforeInitialization() {
+        return this.beforeInitialization;
+    }
+
+    public BeanPostProcessor[] getAfterInitialization() {
+        return this.afterInitialization;
+    }
+
+    public int getSkipped(Phase phase) {
+        return (phase == Phase.BEFORE_INITIALIZATION ? this.skippedBeforeInitialization : this.skippedAfterInitialization);
+    }
+
+    /**
+     * 处理器类实际重写了的回调阶段，默认实现(原样返回)的阶段不包含在内
+     */
+    public static Set<Phase> implementedPhases(Class<?> processorClass) {
+        Set<Phase> phases = EnumSet.noneOf(Phase.class);
+        if (!declaredBy(processorClass, "postProcessBeforeInitialization", new Class<?>[] {Object.class, String.class},
+                BeanPostProcessor.class)) {
+            phases.add(Phase.BEFORE_INITIALIZATION);
+        }
+        if (!declaredBy(processorClass, "postProcessAfterInitialization", new Class<?>[] {Object.class, String.class},
+                BeanPostProcessor.class, InitDestroyAnnotationBeanPostProcessor.class)) {
+            phases.add(Phase.AFTER_INITIALIZATION);
+        }
+        return phases;
+    }
+
+    /**
+     * postProcessBeforeInitialization只调用postProcessMergedBeanDefinition登记过的@PostConstruct方法
+     */
+    private static boolean invokesOnlyInitMethods(Class<?> processorClass) {
+        return declaredBy(processorClass, "postProcessBeforeInitialization", new Class<?>[] {Object.class, String.class},
+                InitDestroyAnnotationBeanPostProcessor.class)
+                && declaredBy(processorClass, "postProcessMergedBeanDefinition", new Class<?>[] {RootBeanDefinition.class, Class.class, String.class},
+                InitDestroyAnnotationBeanPostProcessor.class, CommonAnnotationBeanPostProcessor.class);
+    }
+
+    private static boolean declaredBy(Class<?> processorClass, String methodName, Class<?>[] parameterTypes, Class<?>... declaringClasses) {
+        Class<?> declaringClass = findDeclaringClass(processorClass, methodName, parameterTypes);
+        for (Class<?> candidate : declaringClasses) {
+            if (declaringClass == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 先沿父类查找实现，找不到时才是接口中的默认方法(ReflectionUtils.findMethod会先返回接口默认方法，不能用于判断是否重写)
+     */
+    @Nullable
+    private static Class<?> findDeclaringClass(Class<?> processorClass, String methodName, Class<?>[] parameterTypes) {
+        for (Class<?> type = processorClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod(methodName, parameterTypes);
+                if (!method.isBridge() && !Modifier.isAbstract(method.getModifiers())) {
+                    return type;
+                }
+            } catch (NoSuchMethodException ex) {
+                // 继续查找父类
+            }
+        }
+        try {
+            return processorClass.getMethod(methodName, parameterTypes).getDeclaringClass();
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 处理器类 -> 重写了的回调阶段，由容器按处理器类缓存
+     */
+    @FunctionalInterface
+    public interface ImplementedPhases {
+        Set<Phase> get(Class<?> processorClass);
+    }
+}
@@ -0,0 +1,516 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.lang.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * @apiNote Bean类型索引：类型(类本身、所有父类、所有接口) -> 候选Bean集合，随注册/移除增量维护
+ * -- 只有能够在注册时确定类型的Bean才会进入类型桶(普通类的BeanDefinition、手动注册的单例)，
+ *    FactoryBean、工厂方法、未加载类等无法提前确定类型的Bean放入unresolved集合，查询时总是作为候选
+ * -- 查询只返回候选名称(按容器中的注册顺序排列)，最终是否匹配仍由容器逐个确认；
+ *    每个桶都是按注册顺序排好的ConcurrentSkipListSet，查询时按顺序归并各桶，不需要排序
+ * -- BeanDefinition创建过的实例类型与声明类型不同(实例提供者返回子类、被代理)时同时按这些类型索引：容器在合并后的定义中记住实例的类型
+ *    (resolvedTargetType)，单例销毁后仍按它匹配，因此观察到的类型只增不减，直到重新注册或移除BeanDefinition；
+ *    索引只需给出候选的超集，多出的候选由容器确认后排除。观察到的类型超过MAX_OBSERVED_TYPES个时放入unresolved
+ * -- 另按"稳定类型"的类名分桶，供按注解查找使用：稳定类型指手动单例的实例类型、或没有观察到其他实例类型的BeanDefinition的声明类型，
+ *    其余Bean容器需要检查多个类型上的注解，与unresolved一样总是作为候选
+ * -- 写操作按BeanName串行(ConcurrentHashMap.compute)，不同Bean的写入互不阻塞；实例类型已在索引中时(绝大多数情况)
+ *    不写索引；空桶不移除，避免与并发写入竞争，桶的数量以出现过的类型为上限；读操作无锁
+ * -- 分叉：snapshot()复制出只包含BeanDefinition声明类型的只读索引，fork()在其上创建只记录差异的索引，
+ *    覆盖、移除、创建实例后观察到的类型都记在自身，查询时与只读部分合并，多个fork共享同一份只读索引
+ */
+public class BeanTypeIndex {
+
+    private static final NavigableSet<Candidate> NO_CANDIDATES = Collections.emptyNavigableSet();
+
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+    /** 每个BeanDefinition最多按几个观察到的实例类型索引，超过时(如实例提供者每次返回不同的类)放入unresolved */
+    static final int MAX_OBSERVED_TYPES = 4;
+
+    /** 类型 -> 类本身、所有父类(不含Object)与所有接口，每个类只展开一次 */
+    private static final ClassValue<Class<?>[]> TYPE_HIERARCHY = new ClassValue<>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type) {
+            return typeHierarchy(type);
+        }
+    };
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Candidate> allCandidates = new ConcurrentSkipListSet<>();
+
+    private final Map<Class<?>, NavigableSet<Candidate>> candidatesByType = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Candidate> unresolved = new ConcurrentSkipListSet<>();
+
+    private final Map<String, NavigableSet<Candidate>> candidatesByStableTypeName = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Candidate> unstable = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** fork()的只读基础索引 */
+    @Nullable
+    private final BeanTypeIndex base;
+
+    /** base中已被移除的BeanName */
+    private final Set<String> removedBaseNames;
+
+    public BeanTypeIndex() {
+        this(null);
+    }
+
+    private BeanTypeIndex(@Nullable BeanTypeIndex base) {
+        this.base = base;
+        this.removedBaseNames = (base != null ? ConcurrentHashMap.newKeySet() : Collections.emptySet());
+        if (base != null) {
+            // 新注册的Bean排在基础索引中所有Bean之后
+            this.sequence.set(base.sequence.get());
+        }
+    }
+
+    /**
+     * 复制出只读索引：只包含BeanDefinition及其声明类型，手动单例与观察到的实例类型不属于BeanDefinition
+     * (fork按自己合并的定义创建实例)，不复制
+     */
+    public BeanTypeIndex snapshot() {
+        BeanTypeIndex snapshot = new BeanTypeIndex();
+        for (String beanName : names()) {
+            Entry entry = entry(beanName);
+            if (entry != null && !entry.manualSingleton) {
+                snapshot.update(beanName, previous -> new Entry(entry.declaredType, NO_TYPES, false, entry.order));
+            }
+        }
+        snapshot.sequence.set(this.sequence.get());
+        return snapshot;
+    }
+
+    /**
+     * 以本索引为只读基础创建只记录差异的索引，只能在snapshot()返回的索引上调用
+     */
+    public BeanTypeIndex fork() {
+        return new BeanTypeIndex(this);
+    }
+
+    /**
+     * 登记BeanDefinition的类型，type为null表示注册时无法确定类型；声明类型不变时保留已观察到的实例类型
+     */
+    public void putDefinition(String beanName, Class<?> type) {
+        // 覆盖已有的BeanDefinition时容器保持其原有顺序，由手动单例转为BeanDefinition时排到最后
+        update(beanName, previous -> (previous != null && !previous.manualSingleton ?
+                new Entry(type, (previous.declaredType == type ? previous.observedTypes : NO_TYPES), false, previous.order) :
+                new Entry(type, NO_TYPES, false, sequence.incrementAndGet())));
+    }
+
+    /**
+     * 登记手动注册的单例，type为单例实例的类型
+     */
+    public void putManualSingleton(String beanName, Class<?> type) {
+        update(beanName, previous -> new Entry(type, NO_TYPES, true, (previous != null ? previous.order : sequence.incrementAndGet())));
+    }
+
+    /**
+     * BeanDefinition创建了实例(包括单例加入缓存时的最终对象)：容器此后也按实例的类型匹配，尚未索引过该类型时追加，
+     * instanceType为null表示无法确定(如FactoryBean)；手动单例与未登记的Bean(内部Bean)忽略
+     */
+    public void instanceCreated(String beanName, @Nullable Class<?> instanceType) {
+        if (!isObservable(entry(beanName), instanceType)) {
+            return;
+        }
+        update(beanName, previous -> (isObservable(previous, instanceType) ? previous.observe(instanceType) : previous));
+    }
+
+    public void remove(String beanName) {
+        this.entries.compute(beanName, (name, current) -> {
+            if (current != null) {
+                unlink(name, current);
+            }
+            if (this.base != null && this.base.entries.containsKey(name)) {
+                this.removedBaseNames.add(name);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 所有单例被销毁：移除手动单例(基础索引中没有手动单例)，BeanDefinition观察到的实例类型保留
+     */
+    public void singletonsDestroyed() {
+        for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet()) {
+            if (mapEntry.getValue().manualSingleton) {
+                remove(mapEntry.getKey());
+            }
+        }
+    }
+
+    public void clear() {
+        for (String beanName : this.entries.keySet()) {
+            remove(beanName);
+        }
+        if (this.base != null) {
+            this.removedBaseNames.addAll(this.base.entries.keySet());
+        }
+    }
+
+    /**
+     * 获取可能匹配指定类型的Bean，BeanDefinition在前、手动单例在后，各自按注册顺序排列
+     */
+    public List<Candidate> candidates(Class<?> type) {
+        if (type == Object.class) {
+            return (this.base != null ? merge(List.of(this.allCandidates), List.of(this.base.allCandidates)) :
+                    merge(List.of(this.allCandidates), List.of()));
+        }
+        NavigableSet<Candidate> typed = this.candidatesByType.getOrDefault(type, NO_CANDIDATES);
+        if (this.base == null) {
+            return merge(List.of(typed, this.unresolved), List.of());
+        }
+        return merge(List.of(typed, this.unresolved),
+                List.of(this.base.candidatesByType.getOrDefault(type, NO_CANDIDATES), this.base.unresolved));
+    }
+
+    /**
+     * 获取稳定类型的类名满足过滤条件的Bean，以及所有无法确定稳定类型的Bean，排列顺序同candidates(Class)
+     */
+    public List<Candidate> candidatesByTypeName(Predicate<String> typeNameFilter) {
+        List<NavigableSet<Candidate>> own = new ArrayList<>();
+        collectBuckets(this.candidatesByStableTypeName, typeNameFilter, own);
+        own.add(this.unresolved);
+        own.add(this.unstable);
+        List<NavigableSet<Candidate>> fromBase = new ArrayList<>();
+        if (this.base != null) {
+            collectBuckets(this.base.candidatesByStableTypeName, typeNameFilter, fromBase);
+            fromBase.add(this.base.unresolved);
+            fromBase.add(this.base.unstable);
+        }
+        return merge(own, fromBase);
+    }
+
+    /**
+     * Bean的稳定类型，无法确定时返回null
+     */
+    public Class<?> getStableType(String beanName) {
+        Entry entry = entry(beanName);
+        return (entry != null && isStable(entry) ? entry.declaredType : null);
+    }
+
+    public boolean isManualSingleton(String beanName) {
+        Entry entry = entry(beanName);
+        return entry != null && entry.manualSingleton;
+    }
+
+    public int size() {
+        return (this.base == null ? this.entries.size() : names().size());
+    }
+
+    public int unresolvedSize() {
+        int size = this.unresolved.size();
+        if (this.base != null) {
+            for (Candidate candidate : this.base.unresolved) {
+                if (isVisibleBaseName(candidate.beanName())) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    @Nullable
+    private Entry entry(String beanName) {
+        Entry entry = this.entries.get(beanName);
+        return (entry != null ? entry : baseEntry(beanName));
+    }
+
+    @Nullable
+    private Entry baseEntry(String beanName) {
+        return (this.base != null && !this.removedBaseNames.contains(beanName) ? this.base.entries.get(beanName) : null);
+    }
+
+    private Set<String> names() {
+        if (this.base == null) {
+            return this.entries.keySet();
+        }
+        Set<String> names = new HashSet<>(this.entries.keySet());
+        for (String beanName : this.base.entries.keySet()) {
+            if (!this.removedBaseNames.contains(beanName)) {
+                names.add(beanName);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 基础索引中的Bean没有被本索引覆盖(以本索引中的条目为准)或移除
+     */
+    private boolean isVisibleBaseName(String beanName) {
+        return !this.entries.containsKey(beanName) && !this.removedBaseNames.contains(beanName);
+    }
+
+    /**
+     * 在BeanName自身的锁内更新条目：function的参数为当前可见的条目(可能来自基础索引)，返回同一个条目表示不修改
+     */
+    private void update(String beanName, UnaryOperator<Entry> function) {
+        this.entries.compute(beanName, (name, current) -> {
+            Entry previous = (current != null ? current : baseEntry(name));
+            Entry updated = function.apply(previous);
+            if (updated == previous) {
+                return current;
+            }
+            if (current != null) {
+                unlink(name, current);
+            }
+            link(name, updated);
+            return updated;
+        });
+    }
+
+    private void link(String beanName, Entry entry) {
+        Candidate candidate = entry.candidate(beanName);
+        this.allCandidates.add(candidate);
+        if (!entry.isIndexable()) {
+            this.unresolved.add(candidate);
+            return;
+        }
+        for (Class<?> indexedType : entry.indexedTypes()) {
+            for (Class<?> type : TYPE_HIERARCHY.get(indexedType)) {
+                this.candidatesByType.computeIfAbsent(type, key -> new ConcurrentSkipListSet<>()).add(candidate);
+            }
+        }
+        if (isStable(entry)) {
+            this.candidatesByStableTypeName.computeIfAbsent(entry.declaredType.getName(), key -> new ConcurrentSkipListSet<>()).add(candidate);
+        } else {
+            this.unstable.add(candidate);
+        }
+    }
+
+    private void unlink(String beanName, Entry entry) {
+        Candidate candidate = entry.candidate(beanName);
+        this.allCandidates.remove(candidate);
+        if (!entry.isIndexable()) {
+            this.unresolved.remove(candidate);
+            return;
+        }
+        for (Class<?> indexedType : entry.indexedTypes()) {
+            for (Class<?> type : TYPE_HIERARCHY.get(indexedType)) {
+                NavigableSet<Candidate> candidates = this.candidatesByType.get(type);
+                if (candidates != null) {
+                    candidates.remove(candidate);
+                }
+            }
+        }
+        if (isStable(entry)) {
+            NavigableSet<Candidate> candidates = this.candidatesByStableTypeName.get(entry.declaredType.getName());
+            if (candidates != null) {
+                candidates.remove(candidate);
+            }
+        } else {
+            this.unstable.remove(candidate);
+        }
+    }
+
+    private static void collectBuckets(Map<String, NavigableSet<Candidate>> buckets, Predicate<String> typeNameFilter,
+                                       List<NavigableSet<Candidate>> result) {
+        for (Map.Entry<String, NavigableSet<Candidate>> bucket : buckets.entrySet()) {
+            if (!bucket.getValue().isEmpty() && typeNameFilter.test(bucket.getKey())) {
+                result.add(bucket.getValue());
+            }
+        }
+    }
+
+    /**
+     * 按顺序归并已排好序的各个桶：本索引的候选须仍在索引中，基础索引的候选须没有被覆盖或移除；同一个Bean可能同时在多个桶中，只保留一次
+     */
+    private List<Candidate> merge(List<NavigableSet<Candidate>> own, List<NavigableSet<Candidate>> fromBase) {
+        NavigableSet<Candidate> single = singleNonEmpty(own, fromBase);
+        if (single != null) {
+            List<Candidate> candidates = new ArrayList<>(single.size());
+            for (Candidate candidate : single) {
+                if (this.entries.containsKey(candidate.beanName())) {
+                    candidates.add(candidate);
+                }
+            }
+            return candidates;
+        }
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(own.size() + fromBase.size());
+        for (NavigableSet<Candidate> bucket : own) {
+            Cursor.offer(cursors, bucket.iterator(), false);
+        }
+        for (NavigableSet<Candidate> bucket : fromBase) {
+            Cursor.offer(cursors, bucket.iterator(), true);
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        Candidate last = null;
+        Cursor cursor;
+        while ((cursor = cursors.poll()) != null) {
+            Candidate candidate = cursor.head;
+            if (!candidate.equals(last) && (cursor.fromBase ? isVisibleBaseName(candidate.beanName()) :
+                    this.entries.containsKey(candidate.beanName()))) {
+                candidates.add(candidate);
+                last = candidate;
+            }
+            if (cursor.advance()) {
+                cursors.offer(cursor);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 只有本索引的一个桶不为空时返回该桶，不需要归并
+     */
+    @Nullable
+    private static NavigableSet<Candidate> singleNonEmpty(List<NavigableSet<Candidate>> own, List<NavigableSet<Candidate>> fromBase) {
+        for (NavigableSet<Candidate> bucket : fromBase) {
+            if (!bucket.isEmpty()) {
+                return null;
+            }
+        }
+        NavigableSet<Candidate> single = NO_CANDIDATES;
+        for (NavigableSet<Candidate> bucket : own) {
+            if (!bucket.isEmpty()) {
+                if (!single.isEmpty()) {
+                    return null;
+                }
+                single = bucket;
+            }
+        }
+        return single;
+    }
+
+    /**
+     * 只有按类型索引的BeanDefinition需要记录新的实例类型，已经在unresolved中的不再变化
+     */
+    private static boolean isObservable(@Nullable Entry entry, @Nullable Class<?> instanceType) {
+        return entry != null && !entry.manualSingleton && entry.isIndexable() && !entry.isIndexedAs(instanceType);
+    }
+
+    private static boolean isStable(Entry entry) {
+        return entry.isIndexable() && entry.observedTypes.length == 0;
+    }
+
+    /**
+     * 数组类型按协变规则匹配(String[]可以匹配Object[])，无法通过类型层次表达，同样作为unresolved处理
+     */
+    private static boolean isIndexable(Class<?> type) {
+        return type != null && !type.isArray();
+    }
+
+    private static Class<?>[] typeHierarchy(Class<?> type) {
+        Set<Class<?>> hierarchy = new LinkedHashSet<>();
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(current);
+            Collections.addAll(interfaces, current.getInterfaces());
+        }
+        // 接口需要沿继承链向上展开，例如 BeanDefinitionRegistryPostProcessor -> BeanFactoryPostProcessor
+        while (!interfaces.isEmpty()) {
+            Class<?> ifc = interfaces.poll();
+            if (hierarchy.add(ifc)) {
+                Collections.addAll(interfaces, ifc.getInterfaces());
+            }
+        }
+        return hierarchy.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * @param declaredType  注册时确定的类型(手动单例为实例类型)，null表示无法确定
+     * @param observedTypes 创建实例后观察到的其他类型，不含declaredType，null元素表示无法确定
+     */
+    private record Entry(Class<?> declaredType, Class<?>[] observedTypes, boolean manualSingleton, long order) {
+
+        Candidate candidate(String beanName) {
+            return new Candidate(beanName, this.manualSingleton, this.order);
+        }
+
+        boolean isIndexable() {
+            if (!BeanTypeIndex.isIndexable(this.declaredType) || this.observedTypes.length > MAX_OBSERVED_TYPES) {
+                return false;
+            }
+            for (Class<?> observedType : this.observedTypes) {
+                if (!BeanTypeIndex.isIndexable(observedType)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isIndexedAs(@Nullable Class<?> type) {
+            if (type == this.declaredType) {
+                return true;
+            }
+            for (Class<?> observedType : this.observedTypes) {
+                if (observedType == type) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Class<?>[] indexedTypes() {
+            Class<?>[] types = new Class<?>[this.observedTypes.length + 1];
+            types[0] = this.declaredType;
+            System.arraycopy(this.observedTypes, 0, types, 1, this.observedTypes.length);
+            return types;
+        }
+
+        Entry observe(@Nullable Class<?> instanceType) {
+            Class<?>[] types = Arrays.copyOf(this.observedTypes, this.observedTypes.length + 1);
+            types[this.observedTypes.length] = instanceType;
+            return new Entry(this.declaredType, types, false, this.order);
+        }
+    }
+
+    /**
+     * 归并时某个桶的读取位置
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final Iterator<Candidate> iterator;
+
+        private final boolean fromBase;
+
+        private Candidate head;
+
+        private Cursor(Iterator<Candidate> iterator, boolean fromBase) {
+            this.iterator = iterator;
+            this.fromBase = fromBase;
+        }
+
+        static void offer(PriorityQueue<Cursor> cursors, Iterator<Candidate> iterator, boolean fromBase) {
+            Cursor cursor = new Cursor(iterator, fromBase);
+            if (cursor.advance()) {
+                cursors.offer(cursor);
+            }
+        }
+
+        boolean advance() {
+            if (!this.iterator.hasNext()) {
+                return false;
+            }
+            this.head = this.iterator.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return this.head.compareTo(other.head);
+        }
+    }
+
+    public record Candidate(String beanName, boolean manualSingleton, long order) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate other) {
+            if (manualSingleton != other.manualSingleton) {
+                return manualSingleton ? 1 : -1;
+            }
+            int result = Long.compare(order, other.order);
+            return (result != 0 ? result : beanName.compareTo(other.beanName));
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.ConversionNotSupportedException;
+import org.springframework.beans.PropertyEditorRegistry;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.Property;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.beans.PropertyEditor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @apiNote 线程安全、按转换场景编译并缓存的TypeConverter，由 {@link OptimizedListableBeanFactory} 在属性填充、构造器参数、@Value等处代替
+ * BeanWrapper/SimpleTypeConverter(后者每个实例都要重新执行PropertyEditorRegistrar、实例化自定义与默认的PropertyEditor)
+ * -- 每个(源类型, 目标类型, 属性)只编译一次：确定该场景实际生效的转换方式(见 {@link Strategy})并预先取得目标TypeDescriptor，
+ *    之后同一场景的转换不再查找TypeDescriptor与PropertyEditor
+ * -- 属性填充由父类applyPropertyValues按属性写方法的MethodParameter调用：编译时识别出属性的写方法，
+ *    与BeanWrapper一样按属性(含字段上的注解，如@DateTimeFormat)取TypeDescriptor、按属性路径查找PropertyEditor，
+ *    转换失败的异常中带上属性名
+ * -- 判定顺序与TypeConverterDelegate一致：目标类型有自定义PropertyEditor时使用PropertyEditor；否则ConversionService可以转换时使用ConversionService
+ *    (转换失败再退回PropertyEditor)；都不适用且值已是目标类型时原样返回；其余(默认PropertyEditor、集合/数组元素转换等)交给SimpleTypeConverter
+ * -- PropertyEditor有状态，使用PropertyEditor的转换从有界的池中借出一份SimpleTypeConverter独占使用，用完归还；
+ *    池中每份只在创建时执行一次PropertyEditorRegistrar，池空时临时创建、池满时丢弃，份数不随线程数与转换器数增长。
+ *    所有转换器共用一个池，只有属性上按属性路径注册了PropertyEditor的转换器另有自己的池；ConversionService与原样返回不需要SimpleTypeConverter
+ * -- 容器设置了自定义TypeConverter(setTypeConverter)时全部交给它，与DefaultListableBeanFactory一样并发调用，需要它自身线程安全
+ * -- 编译结果依赖当时的ConversionService、PropertyEditorRegistrar与自定义PropertyEditor，这些配置变化后由容器整体丢弃；
+ *    直接向已设置的ConversionService添加Converter不会被感知
+ * -- 每个转换器记录转换次数与累计耗时，见getStats()
+ */
+public final class CompiledTypeConverter implements TypeConverter {
+
+    public enum Strategy {
+        /** 值已是目标类型，原样返回 */
+        IDENTITY,
+        /** 使用ConversionService转换 */
+        CONVERSION_SERVICE,
+        /** 使用PropertyEditor(自定义或默认)以及集合、数组元素的逐个转换 */
+        PROPERTY_EDITOR,
+        /** 使用容器设置的自定义TypeConverter */
+        CUSTOM
+    }
+
+    /** 缓存的转换器上限，超过说明场景本身不固定(如大量动态生成的TypeDescriptor)，整体清空后重新积累 */
+    private static final int MAX_CONVERTERS = 4096;
+
+    /** 每个池保留的SimpleTypeConverter份数，同时转换的线程更多时临时创建 */
+    private static final int POOLED_DELEGATES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    @Nullable
+    private final ConversionService conversionService;
+
+    @Nullable
+    private final TypeConverter customTypeConverter;
+
+    private final Consumer<PropertyEditorRegistry> editorRegistrar;
+
+    /** TypeKey/PropertyKey -> 编译后的转换器 */
+    private final Map<Object, Converter> converters = new ConcurrentHashMap<>();
+
+    private final LongAdder compilations = new LongAdder();
+
+    /** 执行过容器PropertyEditorRegistrar的SimpleTypeConverter */
+    private final DelegatePool delegates = new DelegatePool(() -> createDelegate(null, null));
+
+    /**
+     * @param conversionService   容器的ConversionService
+     * @param customTypeConverter 容器设置的自定义TypeConverter，设置后全部交给它转换
+     * @param editorRegistrar     向PropertyEditorRegistry注册容器的PropertyEditorRegistrar与自定义PropertyEditor
+     */
+    public CompiledTypeConverter(@Nullable ConversionService conversionService, @Nullable TypeConverter customTypeConverter,
+                                 Consumer<PropertyEditorRegistry> editorRegistrar) {
+        this.conversionService = conversionService;
+        this.customTypeConverter = customTypeConverter;
+        this.editorRegistrar = editorRegistrar;
+    }
+
+    @Override
+    @Nullable
+    public <T> T convertIfNecessary(@Nullable Object value, @Nullable Class<T> requiredType) throws TypeMismatchException {
+        return convert(value, requiredType, null);
+    }
+
+    @Override
+    @Nullable
+    public <T> T convertIfNecessary(@Nullable Object value, @Nullable Class<T> requiredType,
+                                    @Nullable MethodParameter methodParam) throws TypeMismatchException {
+        return convert(value, requiredType, methodParam);
+    }
+
+    @Override
+    @Nullable
+    public <T> T convertIfNecessary(@Nullable Object value, @Nullable Class<T> requiredType, @Nullable Field field)
+            throws TypeMismatchException {
+        return convert(value, requiredType, field);
+    }
+
+    @Override
+    @Nullable
+    public <T> T convertIfNecessary(@Nullable Object value, @Nullable Class<T> requiredType,
+                                    @Nullable TypeDescriptor typeDescriptor) throws TypeMismatchException {
+        return convert(value, requiredType, typeDescriptor);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private <T> T convert(@Nullable Object value, @Nullable Class<T> requiredType, @Nullable Object target) {
+        Class<?> sourceType = sourceType(value);
+        TypeKey key = new TypeKey(sourceType, requiredType, target);
+        Converter converter = this.converters.get(key);
+        if (converter == null) {
+            converter = cache(key, compile(sourceType, requiredType, target));
+        }
+        return (T) converter.convert(value);
+    }
+
+    /**
+     * 已编译的转换器数
+     */
+    public int size() {
+        return this.converters.size();
+    }
+
+    /**
+     * 编译次数，超过缓存上限清空后的重新编译也计入
+     */
+    public long getCompilationCount() {
+        return this.compilations.sum();
+    }
+
+    /**
+     * 每个转换器的统计，按转换次数降序
+     */
+    public List<PropertyConverterStats> getStats() {
+        List<PropertyConverterStats> stats = new ArrayList<>(this.converters.size());
+        for (Converter converter : this.converters.values()) {
+            stats.add(converter.toStats());
+        }
+        stats.sort(Comparator.comparingLong(PropertyConverterStats::conversions).reversed());
+        return stats;
+    }
+
+    private Converter cache(Object key, Converter converter) {
+        // 编译时可能执行PropertyEditorRegistrar(可能获取Bean并再次转换)，不在computeIfAbsent中编译
+        if (this.converters.size() >= MAX_CONVERTERS) {
+            this.converters.clear();
+        }
+        Converter existing = this.converters.putIfAbsent(key, converter);
+        return (existing != null ? existing : converter);
+    }
+
+    private Converter compile(Class<?> sourceType, @Nullable Class<?> requiredType, @Nullable Object target) {
+        // 与TypeConverterSupport取得TypeDescriptor的方式一致，属性的写方法与BeanWrapper一致
+        TypeDescriptor targetType;
+        String propertyName = null;
+        String label = null;
+        PropertyDescriptor pd = (target instanceof MethodParameter methodParam ? findWrittenProperty(methodParam) : null);
+        if (pd != null) {
+            Class<?> beanClass = ((MethodParameter) target).getContainingClass();
+            targetType = new TypeDescriptor(new Property(beanClass, pd.getReadMethod(), pd.getWriteMethod(), pd.getName()));
+            propertyName = pd.getName();
+            label = ClassUtils.getShortName(beanClass) + "." + propertyName;
+        } else if (target instanceof MethodParameter methodParam) {
+            targetType = new TypeDescriptor(methodParam);
+            propertyName = methodParam.getParameterName();
+        } else if (target instanceof Field field) {
+            targetType = new TypeDescriptor(field);
+            propertyName = field.getName();
+        } else if (target instanceof TypeDescriptor typeDescriptor) {
+            targetType = typeDescriptor;
+        } else {
+            targetType = TypeDescriptor.valueOf(requiredType);
+        }
+        return compile(sourceType, requiredType, targetType, target, propertyName, label);
+    }
+
+    /**
+     * methodParam是Bean属性唯一写方法的参数时(父类applyPropertyValues的调用方式)返回该属性
+     */
+    @Nullable
+    private static PropertyDescriptor findWrittenProperty(MethodParameter methodParam) {
+        Method method = methodParam.getMethod();
+        if (method == null || method.getParameterCount() != 1 || methodParam.getNestingLevel() != 1) {
+            return null;
+        }
+        PropertyDescriptor pd = BeanUtils.findPropertyForMethod(method, methodParam.getContainingClass());
+        return (pd != null && method.equals(pd.getWriteMethod()) && BeanUtils.hasUniqueWriteMethod(pd) ? pd : null);
+    }
+
+    private Converter compile(Class<?> sourceType, @Nullable Class<?> requiredType, TypeDescriptor targetType,
+                              @Nullable Object target, @Nullable String propertyName, @Nullable String label) {
+        this.compilations.increment();
+        if (this.customTypeConverter != null) {
+            return new Converter(sourceType, requiredType, targetType, target, null, label, Strategy.CUSTOM, null);
+        }
+        PropertyEditor editor;
+        boolean propertyPathEditor;
+        SimpleTypeConverter delegate = this.delegates.borrow();
+        try {
+            editor = delegate.findCustomEditor(requiredType, null);
+            propertyPathEditor = (propertyName != null && requiredType != null
+                    && delegate.findCustomEditor(requiredType, propertyName) != editor);
+        } finally {
+            this.delegates.release(delegate);
+        }
+        Strategy strategy;
+        if (editor != null || propertyPathEditor || sourceType == void.class) {
+            strategy = Strategy.PROPERTY_EDITOR;
+        } else if (this.conversionService != null && this.conversionService.canConvert(TypeDescriptor.valueOf(sourceType), targetType)) {
+            strategy = Strategy.CONVERSION_SERVICE;
+        } else if (isAssignableAsIs(sourceType, requiredType)) {
+            return new Converter(sourceType, requiredType, targetType, target, propertyName, label, Strategy.IDENTITY, null);
+        } else {
+            strategy = Strategy.PROPERTY_EDITOR;
+        }
+        DelegatePool pool = (propertyPathEditor ? new DelegatePool(() -> createDelegate(requiredType, propertyName)) : this.delegates);
+        return new Converter(sourceType, requiredType, targetType, target, propertyName, label, strategy, pool);
+    }
+
+    /**
+     * 执行容器的PropertyEditorRegistrar与自定义PropertyEditor，得到一份放入池中的SimpleTypeConverter；
+     * 给出propertyName时把按该属性路径注册的PropertyEditor改为按类型注册
+     */
+    private SimpleTypeConverter createDelegate(@Nullable Class<?> requiredType, @Nullable String propertyName) {
+        SimpleTypeConverter delegate = new SimpleTypeConverter();
+        delegate.setConversionService(this.conversionService);
+        this.editorRegistrar.accept(delegate);
+        if (propertyName != null && requiredType != null) {
+            PropertyEditor editor = delegate.findCustomEditor(requiredType, propertyName);
+            if (editor != null && editor != delegate.findCustomEditor(requiredType, null)) {
+                // 按属性路径注册的PropertyEditor：SimpleTypeConverter转换时没有属性名，改为按类型注册
+                delegate.registerCustomEditor(requiredType, editor);
+            }
+        }
+        return delegate;
+    }
+
+    /**
+     * 没有PropertyEditor与ConversionService可用时，TypeConverterDelegate是否会原样返回该类型的值(集合、Map、数组仍可能逐个转换元素)
+     */
+    private static boolean isAssignableAsIs(Class<?> sourceType, @Nullable Class<?> requiredType) {
+        if (requiredType == null || requiredType == Object.class) {
+            return true;
+        }
+        return ClassUtils.isAssignable(requiredType, sourceType) && !requiredType.isArray() && !sourceType.isArray()
+                && !Collection.class.isAssignableFrom(sourceType) && !Map.class.isAssignableFrom(sourceType);
+    }
+
+    private static Class<?> sourceType(@Nullable Object value) {
+        return (value != null ? value.getClass() : void.class);
+    }
+
+    /**
+     * 按类型/方法参数/字段/TypeDescriptor转换的场景，target为调用时传入的MethodParameter、Field或TypeDescriptor
+     */
+    private record TypeKey(Class<?> sourceType, @Nullable Class<?> requiredType, @Nullable Object target) {
+    }
+
+    private final class Converter {
+
+        private final Class<?> sourceType;
+
+        @Nullable
+        private final Class<?> requiredType;
+
+        private final TypeDescriptor sourceTypeDescriptor;
+
+        private final TypeDescriptor targetType;
+
+        /** 交给自定义TypeConverter时使用调用方原本传入的MethodParameter/Field/TypeDescriptor */
+        @Nullable
+        private final Object target;
+
+        /** 按属性路径查找PropertyEditor，是属性的写方法时为属性名 */
+        @Nullable
+        private final String propertyName;
+
+        @Nullable
+        private final String label;
+
+        private final Strategy strategy;
+
+        /** PROPERTY_EDITOR使用，CONVERSION_SERVICE转换失败时退回使用 */
+        @Nullable
+        private final DelegatePool delegates;
+
+        private final LongAdder conversions = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        /**
+         * @param delegates 借出SimpleTypeConverter的池，不需要时为null
+         */
+        Converter(Class<?> sourceType, @Nullable Class<?> requiredType, TypeDescriptor targetType, @Nullable Object target,
+                  @Nullable String propertyName, @Nullable String label, Strategy strategy, @Nullable DelegatePool delegates) {
+            this.sourceType = sourceType;
+            this.requiredType = requiredType;
+            this.sourceTypeDescriptor = TypeDescriptor.valueOf(sourceType);
+            this.targetType = targetType;
+            this.target = target;
+            this.propertyName = propertyName;
+            this.label = label;
+            this.strategy = strategy;
+            this.delegates = delegates;
+        }
+
+        @Nullable
+        Object convert(@Nullable Object value) {
+            long start = System.nanoTime();
+            try {
+                return switch (this.strategy) {
+                    case IDENTITY -> value;
+                    case CONVERSION_SERVICE -> convertWithConversionService(value);
+                    case PROPERTY_EDITOR -> convertWithEditors(value);
+                    case CUSTOM -> convertWithCustomTypeConverter(value);
+                };
+            } catch (TypeMismatchException ex) {
+                throw withPropertyName(ex, value);
+            } finally {
+                this.conversions.increment();
+                this.totalNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        @Nullable
+        private Object convertWithConversionService(Object value) {
+            try {
+                return CompiledTypeConverter.this.conversionService.convert(value, this.sourceTypeDescriptor, this.targetType);
+            } catch (ConversionFailedException ex) {
+                // 与TypeConverterDelegate一致，ConversionService转换失败后再尝试PropertyEditor
+                return convertWithEditors(value);
+            }
+        }
+
+        @Nullable
+        private Object convertWithEditors(@Nullable Object value) {
+            SimpleTypeConverter delegate = this.delegates.borrow();
+            try {
+                return delegate.convertIfNecessary(value, this.requiredType, this.targetType);
+            } finally {
+                this.delegates.release(delegate);
+            }
+        }
+
+        @Nullable
+        private Object convertWithCustomTypeConverter(@Nullable Object value) {
+            TypeConverter typeConverter = CompiledTypeConverter.this.customTypeConverter;
+            if (this.target instanceof MethodParameter methodParam) {
+                return typeConverter.convertIfNecessary(value, this.requiredType, methodParam);
+            } else if (this.target instanceof Field field) {
+                return typeConverter.convertIfNecessary(value, this.requiredType, field);
+            } else if (this.target instanceof TypeDescriptor typeDescriptor) {
+                return typeConverter.convertIfNecessary(value, this.requiredType, typeDescriptor);
+            }
+            return typeConverter.convertIfNecessary(value, this.requiredType);
+        }
+
+        /**
+         * 与BeanWrapper一致，属性转换失败的异常中带上属性名
+         */
+        private TypeMismatchException withPropertyName(TypeMismatchException ex, @Nullable Object value) {
+            if (this.label == null || ex.getPropertyName() != null) {
+                return ex;
+            }
+            PropertyChangeEvent event = new PropertyChangeEvent(this.target, this.propertyName, null, value);
+            if (ex instanceof ConversionNotSupportedException) {
+                return new ConversionNotSupportedException(event, this.requiredType, ex.getCause());
+            }
+            return new TypeMismatchException(event, this.requiredType, ex.getCause());
+        }
+
+        PropertyConverterStats toStats() {
+            return new PropertyConverterStats(this.sourceType.getName(), this.targetType.toString(), this.label,
+                    this.strategy, this.conversions.sum(), this.totalNanos.sum());
+        }
+    }
+
+    /**
+     * 有界的SimpleTypeConverter池：借出的一份由借用方独占(PropertyEditor转换期间可能再次借用，如编辑器获取Bean)，
+     * 池空时新建，归还时池已满则丢弃
+     */
+    private static final class DelegatePool {
+
+        private final Supplier<SimpleTypeConverter> factory;
+
+        private final BlockingQueue<SimpleTypeConverter> idle = new ArrayBlockingQueue<>(POOLED_DELEGATES);
+
+        DelegatePool(Supplier<SimpleTypeConverter> factory) {
+            this.factory = factory;
+        }
+
+        SimpleTypeConverter borrow() {
+            SimpleTypeConverter delegate = this.idle.poll();
+            return (delegate != null ? delegate : this.factory.get());
+        }
+
+        void release(SimpleTypeConverter delegate) {
+            this.idle.offer(delegate);
+        }
+    }
+}
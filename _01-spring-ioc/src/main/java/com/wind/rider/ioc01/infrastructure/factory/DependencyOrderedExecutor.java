@@ -0,0 +1,258 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.FatalBeanException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * @apiNote 按 {@link SingletonDependencyGraph} 并行对每个Bean执行同一个任务，执行顺序由 {@link Direction} 决定：
+ * 一个强连通分量(通常就是一个Bean)的前置分量全部完成后才把它提交给Executor，互不相关的Bean同时执行
+ * -- 并行预实例化按DEPENDENCIES_FIRST创建单例，并行销毁按DEPENDENTS_FIRST销毁单例，两者共用同一个依赖图的含义("A依赖B")
+ * -- 分量内部(循环依赖)由同一个线程依次执行：DEPENDENCIES_FIRST按图中的顺序，DEPENDENTS_FIRST按其逆序(与父类逆序销毁一致)
+ * -- 任一任务失败后不再提交新的任务，等正在执行的任务结束后抛出第一个异常，与单线程下的失败语义一致
+ * -- 结束后按实际耗时计算关键路径，生成与用途无关的 {@link Result}，由调用方转换为各自的报告
+ */
+public class DependencyOrderedExecutor {
+
+    /**
+     * 执行方向
+     */
+    public enum Direction {
+
+        /** 被依赖的Bean先执行，如创建 */
+        DEPENDENCIES_FIRST,
+
+        /** 依赖它的Bean先执行，如销毁 */
+        DEPENDENTS_FIRST
+    }
+
+    private final SingletonDependencyGraph graph;
+
+    private final Executor executor;
+
+    private final Consumer<String> task;
+
+    private final List<List<String>> components;
+
+    /** 按执行方向排列的分量下标，前置分量总在前面 */
+    private final int[] executionOrder;
+
+    /** 分量 -> 以它为前置的分量 */
+    private final List<List<Integer>> successors = new ArrayList<>();
+
+    /** 分量 -> 前置分量 */
+    private final List<Set<Integer>> prerequisites = new ArrayList<>();
+
+    private final AtomicInteger[] pendingPrerequisites;
+
+    private final long[] componentNanos;
+
+    private final Map<String, Duration> taskTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition finished = lock.newCondition();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private int completed;
+
+    private int running;
+
+    private final AtomicInteger executing = new AtomicInteger();
+
+    private final AtomicInteger peakParallelism = new AtomicInteger();
+
+    public DependencyOrderedExecutor(SingletonDependencyGraph graph, Direction direction, Executor executor, Consumer<String> task) {
+        this.graph = graph;
+        this.executor = executor;
+        this.task = task;
+        this.components = graph.stronglyConnectedComponents();
+        if (direction == Direction.DEPENDENTS_FIRST) {
+            for (List<String> component : components) {
+                Collections.reverse(component);
+            }
+        }
+        int count = components.size();
+        Map<String, Integer> componentOf = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            for (String beanName : components.get(i)) {
+                componentOf.put(beanName, i);
+            }
+            successors.add(new ArrayList<>());
+            prerequisites.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < count; i++) {
+            for (String beanName : components.get(i)) {
+                for (String dependency : graph.getDependencies(beanName)) {
+                    int target = componentOf.get(dependency);
+                    if (target == i) {
+                        continue;
+                    }
+                    int before = (direction == Direction.DEPENDENCIES_FIRST ? target : i);
+                    int after = (direction == Direction.DEPENDENCIES_FIRST ? i : target);
+                    if (prerequisites.get(after).add(before)) {
+                        successors.get(before).add(after);
+                    }
+                }
+            }
+        }
+        // stronglyConnectedComponents()中被依赖的分量在前
+        this.executionOrder = new int[count];
+        for (int i = 0; i < count; i++) {
+            executionOrder[i] = (direction == Direction.DEPENDENCIES_FIRST ? i : count - 1 - i);
+        }
+        this.pendingPrerequisites = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            pendingPrerequisites[i] = new AtomicInteger(prerequisites.get(i).size());
+        }
+        this.componentNanos = new long[count];
+    }
+
+    /**
+     * 对全部Bean执行任务并等待完成，任务抛出的RuntimeException、Error原样抛出
+     */
+    public Result execute() {
+        long start = System.nanoTime();
+        for (int component : executionOrder) {
+            if (prerequisites.get(component).isEmpty()) {
+                submit(component);
+            }
+        }
+        lock.lock();
+        try {
+            while (completed < components.size() && !(failure.get() != null && running == 0)) {
+                finished.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        Throwable ex = failure.get();
+        if (ex instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (ex instanceof Error error) {
+            throw error;
+        } else if (ex != null) {
+            throw new FatalBeanException("Dependency-ordered execution failed", ex);
+        }
+        return buildResult(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void submit(int component) {
+        lock.lock();
+        try {
+            running++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            executor.execute(() -> run(component));
+        } catch (RejectedExecutionException ex) {
+            complete(component, ex);
+        }
+    }
+
+    private void run(int component) {
+        Throwable ex = null;
+        if (failure.get() == null) {
+            peakParallelism.accumulateAndGet(executing.incrementAndGet(), Math::max);
+            try {
+                long componentStart = System.nanoTime();
+                for (String beanName : components.get(component)) {
+                    long beanStart = System.nanoTime();
+                    task.accept(beanName);
+                    taskTimes.put(beanName, Duration.ofNanos(System.nanoTime() - beanStart));
+                }
+                componentNanos[component] = System.nanoTime() - componentStart;
+            } catch (Throwable t) {
+                ex = t;
+            } finally {
+                executing.decrementAndGet();
+            }
+        }
+        complete(component, ex);
+    }
+
+    private void complete(int component, Throwable ex) {
+        List<Integer> ready = new ArrayList<>();
+        if (ex != null) {
+            failure.compareAndSet(null, ex);
+        } else if (failure.get() == null) {
+            for (int successor : successors.get(component)) {
+                if (pendingPrerequisites[successor].decrementAndGet() == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        // 先提交后续任务再减少running，保证等待方不会在两者之间误判为全部结束
+        for (int successor : ready) {
+            submit(successor);
+        }
+        lock.lock();
+        try {
+            running--;
+            if (ex == null) {
+                completed++;
+            }
+            finished.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按执行顺序计算每个分量的最早完成时间，最晚完成的分量沿前驱回溯即为关键路径
+     */
+    private Result buildResult(Duration wallClock) {
+        long[] finish = new long[components.size()];
+        int[] predecessor = new int[components.size()];
+        int last = -1;
+        long sequentialNanos = 0;
+        for (int component : executionOrder) {
+            predecessor[component] = -1;
+            long ready = 0;
+            for (int prerequisite : prerequisites.get(component)) {
+                if (finish[prerequisite] > ready) {
+                    ready = finish[prerequisite];
+                    predecessor[component] = prerequisite;
+                }
+            }
+            finish[component] = ready + componentNanos[component];
+            sequentialNanos += componentNanos[component];
+            if (last < 0 || finish[component] > finish[last]) {
+                last = component;
+            }
+        }
+        LinkedList<String> criticalPathBeans = new LinkedList<>();
+        for (int i = last; i >= 0; i = predecessor[i]) {
+            criticalPathBeans.addAll(0, components.get(i));
+        }
+        return new Result(graph.getBeanNames().size(), graph.getDependencyCount(), peakParallelism.get(), wallClock,
+                Duration.ofNanos(sequentialNanos), Duration.ofNanos(last >= 0 ? finish[last] : 0), List.copyOf(criticalPathBeans),
+                Collections.unmodifiableMap(new LinkedHashMap<>(taskTimes)));
+    }
+
+    /**
+     * 一次执行的调度结果
+     *
+     * @param taskCount         执行任务的Bean数量
+     * @param dependencyCount   依赖图中的边数
+     * @param peakParallelism   同时在执行任务的线程数峰值
+     * @param wallClock         实际耗时
+     * @param sequential        各任务耗时之和，即单线程依次执行所需的时间
+     * @param criticalPath      耗时最长的一条前置链
+     * @param criticalPathBeans 关键路径上的Bean，先执行的在前
+     * @param taskTimes         每个Bean的任务耗时，按完成顺序排列
+     */
+    public record Result(int taskCount, int dependencyCount, int peakParallelism, Duration wallClock, Duration sequential,
+                         Duration criticalPath, List<String> criticalPathBeans, Map<String, Duration> taskTimes) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @apiNote 一次并行销毁单例的统计结果
+ * -- sequentialEstimate：各Bean销毁耗时之和，即单线程依次销毁所需的时间；耗时在并行销毁时测得，CPU核数少于并行度时偏大
+ * -- criticalPath：依赖关系上耗时最长的一条销毁链，是并行销毁所能达到的下限
+ * -- saved：相比单线程依次销毁节省的停机时间
+ *
+ * @param beanCount         参与调度的Bean数(单例以及通过依赖关系关联的内部Bean、prototype等)
+ * @param dependencyCount   依赖关系的边数
+ * @param peakParallelism   同时在销毁Bean的线程数峰值
+ * @param wallClock         并行销毁实际耗时
+ * @param criticalPathBeans 关键路径上的Bean，先销毁的在前
+ * @param destructionTimes  每个Bean的销毁耗时(含其内部Bean；超时的Bean为等待的时间)，按完成顺序排列
+ * @param timedOutBeans     销毁回调超时、未等待其完成的Bean
+ * @param failedBeans       销毁回调抛出异常的Bean
+ */
+public record DestructionReport(int beanCount, int dependencyCount, int peakParallelism, Duration wallClock,
+                                Duration sequentialEstimate, Duration criticalPath, List<String> criticalPathBeans,
+                                Map<String, Duration> destructionTimes, List<String> timedOutBeans, List<String> failedBeans) {
+
+    /**
+     * 由调度结果与回调的执行结果组成
+     */
+    static DestructionReport of(DependencyOrderedExecutor.Result schedule, List<String> timedOutBeans, List<String> failedBeans) {
+        return new DestructionReport(schedule.taskCount(), schedule.dependencyCount(), schedule.peakParallelism(),
+                schedule.wallClock(), schedule.sequential(), schedule.criticalPath(), schedule.criticalPathBeans(),
+                schedule.taskTimes(), List.copyOf(timedOutBeans), List.copyOf(failedBeans));
+    }
+
+    public Duration saved() {
+        return sequentialEstimate.minus(wallClock);
+    }
+
+    /**
+     * 销毁耗时最长的limit个Bean，从长到短排列
+     */
+    public List<Map.Entry<String, Duration>> slowestBeans(int limit) {
+        return destructionTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        String slowest = slowestBeans(5).stream()
+                .map(entry -> String.format("%s %.1f ms", entry.getKey(), millis(entry.getValue())))
+                .collect(Collectors.joining(", "));
+        return String.format("Destroyed %d beans (%d dependencies) in %.1f ms with peak parallelism %d, " +
+                        "sequential estimate %.1f ms, saved %.1f ms; critical path %.1f ms: %s; slowest: %s; timed out: %s; failed: %s",
+                beanCount, dependencyCount, millis(wallClock), peakParallelism, millis(sequentialEstimate), millis(saved()),
+                millis(criticalPath), String.join(" -> ", criticalPathBeans), slowest, timedOutBeans, failedBeans);
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,238 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @apiNote 容器的并行销毁与销毁回调超时；单例的销毁本身仍由容器的destroySingleton(即父类)完成
+ * -- 并行销毁：按registerDependentBean记录的依赖关系({@link SingletonDependencyGraph#fromDependentBeans})构建依赖图，
+ *    由 {@link DependencyOrderedExecutor} 按DEPENDENTS_FIRST调度：依赖某个Bean的Bean全部销毁后才销毁该Bean，互不依赖的Bean同时销毁
+ * -- 回调超时：设置timeout后每个销毁回调在单独的守护线程中执行并最多等待该时间，超时后中断回调线程、记录警告并继续
+ * -- 并行销毁期间超时、失败的Bean与每个Bean的耗时汇总为 {@link DestructionReport}
+ */
+final class DestructionSupport {
+
+    private static final Log logger = LogFactory.getLog(DestructionSupport.class);
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    @Nullable
+    private volatile Executor executor;
+
+    @Nullable
+    private volatile Duration timeout;
+
+    /** 执行带超时的销毁回调，首次需要时创建，destroySingletons结束时关闭 */
+    @Nullable
+    private volatile ExecutorService callbackExecutor;
+
+    /** 创建与关闭callbackExecutor时使用 */
+    private final Object callbackExecutorMonitor = new Object();
+
+    /** 仅在并行销毁期间存在：销毁回调超时(true)或抛出异常(false)的Bean */
+    @Nullable
+    private volatile Map<String, Boolean> problems;
+
+    @Nullable
+    private volatile DestructionReport lastReport;
+
+    DestructionSupport(SpringBeanFactoryCopies beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    void setExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+    }
+
+    @Nullable
+    Executor getExecutor() {
+        return this.executor;
+    }
+
+    void setTimeout(@Nullable Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Nullable
+    Duration getTimeout() {
+        return this.timeout;
+    }
+
+    @Nullable
+    DestructionReport getLastReport() {
+        return this.lastReport;
+    }
+
+    /**
+     * 设置了executor时按依赖关系并行销毁当前全部单例，否则什么也不做；之后剩下的Bean由父类的destroySingletons依次销毁。
+     * 循环依赖的Bean由同一个线程按注册顺序的逆序销毁，与父类的顺序一致
+     */
+    void destroySingletonsInParallel() {
+        Executor executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Destroying singletons in parallel in " + this.beanFactory);
+        }
+        SingletonDependencyGraph graph = SingletonDependencyGraph.fromDependentBeans(this.beanFactory,
+                Arrays.asList(this.beanFactory.getSingletonNames()));
+        Map<String, Boolean> problems = new ConcurrentHashMap<>();
+        this.problems = problems;
+        DependencyOrderedExecutor.Result schedule;
+        try {
+            schedule = new DependencyOrderedExecutor(graph, DependencyOrderedExecutor.Direction.DEPENDENTS_FIRST,
+                    executor, this::destroySingletonSafely).execute();
+        } finally {
+            this.problems = null;
+        }
+        List<String> timedOutBeans = new ArrayList<>();
+        List<String> failedBeans = new ArrayList<>();
+        problems.forEach((beanName, timedOut) -> (timedOut ? timedOutBeans : failedBeans).add(beanName));
+        DestructionReport report = DestructionReport.of(schedule, timedOutBeans, failedBeans);
+        this.lastReport = report;
+        if (logger.isInfoEnabled()) {
+            logger.info(report);
+        }
+    }
+
+    /**
+     * 与父类一样，单个Bean销毁失败不影响其他Bean的销毁
+     */
+    private void destroySingletonSafely(String beanName) {
+        try {
+            this.beanFactory.destroySingleton(beanName);
+        } catch (Throwable ex) {
+            recordProblem(beanName, false);
+            if (logger.isWarnEnabled()) {
+                logger.warn("Destruction of bean with name '" + beanName + "' threw an exception", ex);
+            }
+        }
+    }
+
+    /**
+     * 单例的销毁回调：设置了timeout或正在并行销毁时包装为带超时、记录问题的回调，否则原样返回
+     */
+    @Nullable
+    DisposableBean singletonCallback(String beanName, @Nullable DisposableBean bean) {
+        if (bean == null || (this.timeout == null && this.problems == null)) {
+            return bean;
+        }
+        return () -> invoke(beanName, bean);
+    }
+
+    /**
+     * 非单例Bean(prototype等)的销毁：设置了timeout时带超时执行，回调抛出的异常只记录警告；否则直接执行
+     */
+    void destroyNonSingleton(String beanName, Runnable destruction) {
+        if (this.timeout == null) {
+            destruction.run();
+            return;
+        }
+        try {
+            invoke(beanName, destruction::run);
+        } catch (Exception ex) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Destruction of bean with name '" + beanName + "' threw an exception", ex);
+            }
+        }
+    }
+
+    /**
+     * 设置了timeout时在单独的守护线程中执行回调并最多等待该时间，超时或当前线程被中断时中断回调线程、记录警告后返回；
+     * 回调抛出的异常原样抛出
+     */
+    private void invoke(String beanName, DisposableBean callback) throws Exception {
+        Duration timeout = this.timeout;
+        if (timeout == null) {
+            try {
+                callback.destroy();
+            } catch (Exception | Error ex) {
+                recordProblem(beanName, false);
+                throw ex;
+            }
+            return;
+        }
+        Future<?> future = obtainCallbackExecutor().submit(() -> {
+            callback.destroy();
+            return null;
+        });
+        try {
+            future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException ex) {
+            future.cancel(true);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            recordProblem(beanName, true);
+            if (logger.isWarnEnabled()) {
+                logger.warn("Destruction of bean with name '" + beanName + "' did not complete within " +
+                        timeout.toMillis() + " ms, continuing shutdown");
+            }
+        } catch (ExecutionException ex) {
+            recordProblem(beanName, false);
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private void recordProblem(String beanName, boolean timedOut) {
+        Map<String, Boolean> problems = this.problems;
+        if (problems != null) {
+            problems.putIfAbsent(beanName, timedOut);
+        }
+    }
+
+    private ExecutorService obtainCallbackExecutor() {
+        ExecutorService executor = this.callbackExecutor;
+        if (executor == null) {
+            synchronized (this.callbackExecutorMonitor) {
+                executor = this.callbackExecutor;
+                if (executor == null) {
+                    // 超时的回调可能一直阻塞，使用守护线程，空闲后自动回收
+                    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("destroy-callback-");
+                    threadFactory.setDaemon(true);
+                    executor = Executors.newCachedThreadPool(threadFactory);
+                    this.callbackExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 单例全部销毁后关闭回调线程池：已超时的回调此前已被中断，空闲线程随即退出；之后再销毁prototype时重新创建
+     */
+    void shutdownCallbackExecutor() {
+        ExecutorService executor;
+        synchronized (this.callbackExecutorMonitor) {
+            executor = this.callbackExecutor;
+            this.callbackExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
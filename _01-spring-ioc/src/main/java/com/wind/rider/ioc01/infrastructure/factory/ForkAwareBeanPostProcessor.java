@@ -0,0 +1,18 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * @apiNote 由处理器自己决定 {@link OptimizedListableBeanFactory#fork()} 时新容器中使用的实例
+ * -- 未实现该接口时，Spring自带的注解处理器在fork中以默认设置新建，其他BeanFactoryAware的处理器使fork失败，
+ *    其余处理器与模板共享(见 {@link ForkedPostProcessors})；改过设置的注解处理器、持有模板容器或按容器区分的状态的处理器都应实现该接口
+ * -- 与容器无关的处理器可以直接返回this，与模板及其他fork共享(不再记录共享警告)
+ */
+public interface ForkAwareBeanPostProcessor extends BeanPostProcessor {
+
+    /**
+     * @param fork 新创建的容器，此时已复制了模板的配置，但尚未注册别名与手动单例
+     * @return fork中代替当前处理器的实例，位置与当前处理器相同
+     */
+    BeanPostProcessor forkFor(OptimizedListableBeanFactory fork);
+}
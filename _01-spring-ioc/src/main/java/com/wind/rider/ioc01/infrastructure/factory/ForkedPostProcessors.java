@@ -0,0 +1,73 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote fork时模板中的BeanPostProcessor在新容器中的对应实例，只使用公开API，不按字段复制
+ * -- 实现了 {@link ForkAwareBeanPostProcessor} 的处理器由其自行决定(forkFor)
+ * -- Spring自带的AutowiredAnnotationBeanPostProcessor、CommonAnnotationBeanPostProcessor(只认这两个类本身，不含子类)
+ *    以默认设置新建，复制order后绑定到fork；公开API读不到setAutowiredAnnotationType、setFallbackToDefaultTypeMatch等设置，
+ *    改过这些设置的应当注册一个实现ForkAwareBeanPostProcessor的子类
+ * -- 其他持有容器引用(BeanFactoryAware)的处理器无法安全地复制，也不能共享(依赖会解析到模板中)，fork时抛出IllegalStateException
+ * -- 其余处理器由模板与所有fork共享同一个实例，每个类第一次共享时记录一条警告：
+ *    通过构造器等方式持有模板容器或其他按容器区分的状态的处理器同样应当实现ForkAwareBeanPostProcessor
+ */
+final class ForkedPostProcessors {
+
+    private static final Log logger = LogFactory.getLog(ForkedPostProcessors.class);
+
+    /** 已记录过共享警告的处理器类 */
+    private static final Set<Class<?>> warnedSharedTypes = ConcurrentHashMap.newKeySet();
+
+    private ForkedPostProcessors() {
+    }
+
+    /**
+     * 把fork中从模板复制来的处理器列表逐个换成fork中的实例，位置不变
+     */
+    static void rebind(List<BeanPostProcessor> processors, OptimizedListableBeanFactory fork) {
+        for (int i = 0; i < processors.size(); i++) {
+            BeanPostProcessor processor = processors.get(i);
+            BeanPostProcessor forked = forFork(processor, fork);
+            if (forked != processor) {
+                processors.set(i, forked);
+            }
+        }
+    }
+
+    private static BeanPostProcessor forFork(BeanPostProcessor processor, OptimizedListableBeanFactory fork) {
+        if (processor instanceof ForkAwareBeanPostProcessor forkAware) {
+            return forkAware.forkFor(fork);
+        }
+        if (processor.getClass() == AutowiredAnnotationBeanPostProcessor.class) {
+            AutowiredAnnotationBeanPostProcessor forked = new AutowiredAnnotationBeanPostProcessor();
+            forked.setOrder(((AutowiredAnnotationBeanPostProcessor) processor).getOrder());
+            forked.setBeanFactory(fork);
+            return forked;
+        }
+        if (processor.getClass() == CommonAnnotationBeanPostProcessor.class) {
+            CommonAnnotationBeanPostProcessor forked = new CommonAnnotationBeanPostProcessor();
+            forked.setOrder(((CommonAnnotationBeanPostProcessor) processor).getOrder());
+            forked.setBeanFactory(fork);
+            return forked;
+        }
+        if (processor instanceof BeanFactoryAware) {
+            throw new IllegalStateException("Cannot fork BeanFactoryAware post-processor " + processor.getClass().getName()
+                    + ": implement ForkAwareBeanPostProcessor to provide the instance bound to the fork");
+        }
+        if (warnedSharedTypes.add(processor.getClass()) && logger.isWarnEnabled()) {
+            logger.warn("Sharing post-processor " + processor.getClass().getName() + " between the template and its forks; "
+                    + "implement ForkAwareBeanPostProcessor if it holds container-specific state");
+        }
+        return processor;
+    }
+}
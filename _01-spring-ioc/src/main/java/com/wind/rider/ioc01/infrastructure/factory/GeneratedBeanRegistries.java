@@ -0,0 +1,98 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.core.Conventions;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * @apiNote 编译期生成的 {@link GeneratedBeanRegistry} 的运行期入口
+ * -- 开关：系统属性 projecty.generated-registry.enabled，默认true；为false或找不到生成的类时，按原方式注册配置类，
+ *    由ConfigurationClassPostProcessor在运行期解析
+ * -- 生成的配置类BeanDefinition会被标记为已处理，ConfigurationClassPostProcessor遇到它时直接跳过，不再解析也不再增强
+ */
+public final class GeneratedBeanRegistries {
+
+    public static final String ENABLED_PROPERTY = "projecty.generated-registry.enabled";
+
+    public static final String REGISTRY_SUFFIX = "__BeanRegistry";
+
+    /** 与ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE相同 */
+    private static final String CONFIGURATION_CLASS_ATTRIBUTE =
+            Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "configurationClass");
+
+    private GeneratedBeanRegistries() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * 按开关注册配置类，返回是否使用了生成的注册代码
+     */
+    public static boolean registerConfiguration(BeanDefinitionRegistry registry, String beanName, Class<?> configurationClass) {
+        return registerConfiguration(registry, beanName, configurationClass, isEnabled());
+    }
+
+    /**
+     * useGenerated为true且存在生成的注册代码时直接注册最终的BeanDefinition，否则只注册配置类，交给ConfigurationClassPostProcessor解析
+     */
+    public static boolean registerConfiguration(BeanDefinitionRegistry registry, String beanName, Class<?> configurationClass,
+                                                boolean useGenerated) {
+        GeneratedBeanRegistry generated = (useGenerated ? findRegistry(configurationClass) : null);
+        if (generated != null) {
+            generated.registerBeanDefinitions(registry, beanName);
+            return true;
+        }
+        AbstractBeanDefinition definition = BeanDefinitionBuilder.genericBeanDefinition(configurationClass)
+                .setScope("singleton")
+                .getBeanDefinition();
+        registry.registerBeanDefinition(beanName, definition);
+        return false;
+    }
+
+    /**
+     * 查找配置类对应的生成类，配置类不满足编译期生成条件时没有生成类，返回null
+     */
+    @Nullable
+    public static GeneratedBeanRegistry findRegistry(Class<?> configurationClass) {
+        String registryName = configurationClass.getName() + REGISTRY_SUFFIX;
+        ClassLoader classLoader = configurationClass.getClassLoader();
+        if (!ClassUtils.isPresent(registryName, classLoader)) {
+            return null;
+        }
+        try {
+            Object registry = ClassUtils.forName(registryName, classLoader).getDeclaredConstructor().newInstance();
+            return (GeneratedBeanRegistry) registry;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            throw new IllegalStateException("Unable to instantiate generated bean registry " + registryName, ex);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // 供生成的代码调用
+    //---------------------------------------------------------------------
+
+    /**
+     * 标记为已处理的lite配置类：ConfigurationClassPostProcessor不再解析，也不会生成CGLIB子类
+     */
+    public static void markConfigurationProcessed(AbstractBeanDefinition configurationDefinition) {
+        configurationDefinition.setAttribute(CONFIGURATION_CLASS_ATTRIBUTE, "lite");
+    }
+
+    /**
+     * 获取@Bean方法所在的配置类实例，并与工厂方法创建时一样登记依赖关系，保证@Bean先于配置类销毁
+     */
+    public static <C> C getConfiguration(RegisteredBean registeredBean, String configurationBeanName, Class<C> configurationClass) {
+        ConfigurableListableBeanFactory beanFactory = registeredBean.getBeanFactory();
+        C configuration = beanFactory.getBean(configurationBeanName, configurationClass);
+        beanFactory.registerDependentBean(configurationBeanName, registeredBean.getBeanName());
+        return configuration;
+    }
+}
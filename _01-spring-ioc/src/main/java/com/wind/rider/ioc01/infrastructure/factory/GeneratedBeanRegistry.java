@@ -0,0 +1,18 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+/**
+ * @apiNote 编译期由BeanRegistryProcessor为@Configuration类生成的Bean注册代码(&lt;配置类&gt;__BeanRegistry)
+ * -- 注册的BeanDefinition与ConfigurationClassPostProcessor解析该配置类得到的结果一致，但运行期不再解析字节码、不再生成CGLIB子类
+ * -- 通过 {@link GeneratedBeanRegistries#registerConfiguration} 使用
+ */
+public interface GeneratedBeanRegistry {
+
+    Class<?> getConfigurationClass();
+
+    /**
+     * 注册配置类本身(名称为configurationBeanName)以及它的全部@Bean方法对应的BeanDefinition
+     */
+    void registerBeanDefinitions(BeanDefinitionRegistry registry, String configurationBeanName);
+}
@@ -0,0 +1,98 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @apiNote 某个注入点上一次完整解析(候选查找、限定符匹配、@Primary/@Priority/名称回退选择)的结果，之后同一注入点直接按结果取Bean
+ * -- 注入点由 {@link Key} 表示：字段/方法参数、所在Bean类(containingClass)、嵌套层级、required(按isRequired()的实际结果)/eager以及请求注入的BeanName
+ * -- candidateName：唯一胜出的候选BeanName；shortcutSingleton：候选在解析时已是创建好的单例，命中时直接getBean，
+ *    否则(prototype、自定义作用域、尚未创建的单例)与AutowiredAnnotationBeanPostProcessor的ShortcutDependencyDescriptor一样交回容器按名称获取
+ * -- 只缓存解析到单个Bean的注入点：@Value(每次需要重新解析占位符与类型转换)、数组/集合/Map/Stream、
+ *    可解析依赖(registerResolvableDependency)以及重写了resolveCandidate/resolveShortcut的DependencyDescriptor一律不缓存
+ * -- 是否失效由容器判断：候选被移除/覆盖，或新注册的Bean类型可能匹配dependencyType时失效，按依赖类型与候选的索引见 {@link InjectionPlanCache}
+ */
+public final class InjectionPlan {
+
+    /** DefaultListableBeanFactory中按元素类型解析、返回Stream/集合的私有DependencyDescriptor */
+    private static final Set<String> MULTIPLE_BEAN_DESCRIPTORS = Set.of(
+            "StreamDependencyDescriptor", "MultiElementDescriptor");
+
+    private final Class<?> dependencyType;
+
+    private final String candidateName;
+
+    private final boolean shortcutSingleton;
+
+    public InjectionPlan(Class<?> dependencyType, String candidateName, boolean shortcutSingleton) {
+        this.dependencyType = dependencyType;
+        this.candidateName = candidateName;
+        this.shortcutSingleton = shortcutSingleton;
+    }
+
+    public Class<?> getDependencyType() {
+        return this.dependencyType;
+    }
+
+    public String getCandidateName() {
+        return this.candidateName;
+    }
+
+    public boolean isShortcutSingleton() {
+        return this.shortcutSingleton;
+    }
+
+    /**
+     * 单个候选的依赖类型才可以缓存，数组、集合、Map即使只有一个候选也会被包装
+     */
+    public static boolean isSingleBeanType(Class<?> dependencyType) {
+        return !dependencyType.isArray() && !Collection.class.isAssignableFrom(dependencyType)
+                && !Map.class.isAssignableFrom(dependencyType);
+    }
+
+    /**
+     * DependencyDescriptor子类是否只改变了required等判断条件，没有改变候选的获取方式
+     */
+    public static boolean isPlannableDescriptorType(Class<?> descriptorType) {
+        for (Class<?> type = descriptorType; type != null && type != DependencyDescriptor.class; type = type.getSuperclass()) {
+            if (MULTIPLE_BEAN_DESCRIPTORS.contains(type.getSimpleName())) {
+                return false;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                String name = method.getName();
+                if (name.equals("resolveCandidate") || name.equals("resolveShortcut") || name.equals("getDependencyType")
+                        || name.equals("getResolvableType") || name.equals("fallbackMatchAllowed")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.dependencyType.getName() + " -> " + this.candidateName + (this.shortcutSingleton ? " (singleton)" : "");
+    }
+
+    /**
+     * 注入点：DependencyDescriptor的equals/hashCode区分具体类，这里统一复制为DependencyDescriptor再比较，
+     * 使ObjectProvider.getIfAvailable每次创建的匿名子类与原注入点命中同一份计划；
+     * 复制只保留required字段，子类重写的isRequired()(如getIfAvailable返回false)单独记录，required不同的请求不共用计划
+     *
+     * @param descriptor         仅包含注入点信息的DependencyDescriptor副本
+     * @param required           原DependencyDescriptor#isRequired()的结果
+     * @param requestingBeanName 请求注入的BeanName，候选查找会排除自引用
+     */
+    public record Key(DependencyDescriptor descriptor, boolean required, @Nullable String requestingBeanName) {
+
+        public static Key of(DependencyDescriptor descriptor, @Nullable String requestingBeanName) {
+            return new Key(descriptor.getClass() == DependencyDescriptor.class ? descriptor : new DependencyDescriptor(descriptor),
+                    descriptor.isRequired(), requestingBeanName);
+        }
+    }
+}
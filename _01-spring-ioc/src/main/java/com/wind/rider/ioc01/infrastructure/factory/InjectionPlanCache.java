@@ -0,0 +1,127 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * @apiNote 注入点 -> {@link InjectionPlan}，另按依赖类型与候选BeanName建立索引，注册表变化时只查看可能受影响的计划
+ * -- 注册类型为T的Bean：只查看依赖类型为T自身、T的父类或接口的计划(与InjectionPlan的判断条件dependencyType.isAssignableFrom(T)等价)，
+ *    开销与T的类型层次成正比，与已缓存的计划数无关；类型无法提前确定时全部失效
+ * -- 候选被移除、覆盖或销毁：按候选BeanName直接找到对应的计划
+ * -- 索引只增不减(清空时除外)，计划被替换或移除后留下的旧条目在失效时按计划当前的依赖类型/候选重新判断，最多多看几个注入点；
+ *    先写计划再写索引，清空时先清索引再清计划，任何时刻存在的计划都能从索引中找到
+ * -- 计划写入期间发生的失效由容器的版本号判断，见InjectionPlanSupport#resolve
+ */
+public final class InjectionPlanCache {
+
+    private final Map<InjectionPlan.Key, InjectionPlan> plans = new ConcurrentHashMap<>();
+
+    /** 依赖类型 -> 注入点 */
+    private final Map<Class<?>, Set<InjectionPlan.Key>> keysByType = new ConcurrentHashMap<>();
+
+    /** 候选BeanName -> 注入点 */
+    private final Map<String, Set<InjectionPlan.Key>> keysByCandidate = new ConcurrentHashMap<>();
+
+    @Nullable
+    public InjectionPlan get(InjectionPlan.Key key) {
+        return this.plans.get(key);
+    }
+
+    public void put(InjectionPlan.Key key, InjectionPlan plan) {
+        this.plans.put(key, plan);
+        this.keysByType.computeIfAbsent(plan.getDependencyType(), type -> ConcurrentHashMap.newKeySet()).add(key);
+        this.keysByCandidate.computeIfAbsent(plan.getCandidateName(), name -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    public void remove(InjectionPlan.Key key, InjectionPlan plan) {
+        this.plans.remove(key, plan);
+    }
+
+    public int size() {
+        return this.plans.size();
+    }
+
+    public boolean isEmpty() {
+        return this.plans.isEmpty();
+    }
+
+    /**
+     * 候选为beanName的计划失效
+     *
+     * @return 失效的计划数
+     */
+    public int invalidateCandidate(String beanName) {
+        return invalidate(this.keysByCandidate.get(beanName), plan -> plan.getCandidateName().equals(beanName));
+    }
+
+    /**
+     * 新注册的Bean可能成为其候选的计划失效，beanType为null(无法提前确定类型)时全部失效
+     *
+     * @return 失效的计划数
+     */
+    public int invalidateMatching(@Nullable Class<?> beanType) {
+        if (beanType == null) {
+            return clear();
+        }
+        if (this.plans.isEmpty()) {
+            return 0;
+        }
+        int removed = 0;
+        for (Class<?> type = beanType; type != null; type = type.getSuperclass()) {
+            removed += invalidateType(type);
+        }
+        for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(beanType)) {
+            removed += invalidateType(ifc);
+        }
+        return removed;
+    }
+
+    /**
+     * 依赖类型可以赋值给dependencyType的计划失效(registerResolvableDependency)
+     *
+     * @return 失效的计划数
+     */
+    public int invalidateAssignableTo(Class<?> dependencyType) {
+        int removed = 0;
+        for (Class<?> type : this.keysByType.keySet()) {
+            if (dependencyType.isAssignableFrom(type)) {
+                removed += invalidateType(type);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return 清空前的计划数
+     */
+    public int clear() {
+        this.keysByType.clear();
+        this.keysByCandidate.clear();
+        int removed = this.plans.size();
+        this.plans.clear();
+        return removed;
+    }
+
+    private int invalidateType(Class<?> type) {
+        return invalidate(this.keysByType.get(type), plan -> plan.getDependencyType() == type);
+    }
+
+    private int invalidate(@Nullable Set<InjectionPlan.Key> keys, Predicate<InjectionPlan> affected) {
+        if (keys == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (InjectionPlan.Key key : keys) {
+            InjectionPlan plan = this.plans.get(key);
+            if (plan != null && affected.test(plan) && this.plans.remove(key, plan)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,17 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+/**
+ * @apiNote 注入计划的累计统计
+ *
+ * @param plans         当前缓存的注入计划数
+ * @param hits          直接按计划取得依赖的次数
+ * @param misses        完整解析的次数(首次解析、计划失效后重新解析以及不能缓存的注入点)
+ * @param invalidations 因注册表变化而失效的计划数
+ */
+public record InjectionPlanStats(int plans, long hits, long misses, long invalidations) {
+
+    @Override
+    public String toString() {
+        return String.format("%d injection plans cached, %d hits, %d misses, %d invalidated", plans, hits, misses, invalidations);
+    }
+}
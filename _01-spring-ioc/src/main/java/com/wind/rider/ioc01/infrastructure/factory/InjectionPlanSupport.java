@@ -0,0 +1,225 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @apiNote 容器的注入计划：按注入点缓存 {@link InjectionPlan}，命中时直接按计划取Bean，否则由父类doResolveDependency完整解析后记录；
+ * 注册表变化时由容器通知，只失效受影响的计划(见 {@link InjectionPlanCache})
+ * -- 每次失效先递增版本号，再移除受影响的计划；解析期间版本号发生变化时结果不缓存
+ * -- 有父容器时不缓存(父容器的变化无法感知)
+ */
+final class InjectionPlanSupport {
+
+    private static final Object NO_PLANNED_RESULT = new Object();
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    /** 父类的doResolveDependency，只有容器自身可以调用 */
+    private final DependencyResolver fullResolution;
+
+    private volatile boolean enabled = true;
+
+    /** 注入点 -> 上一次完整解析的结果，按依赖类型与候选建立索引 */
+    private final InjectionPlanCache plans = new InjectionPlanCache();
+
+    /** 注册表每次变化加一，解析期间注册表发生变化时结果不缓存 */
+    private final AtomicLong version = new AtomicLong();
+
+    /** DependencyDescriptor类 -> 是否可以缓存注入计划 */
+    private final Map<Class<?>, Boolean> plannableDescriptorTypes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    InjectionPlanSupport(SpringBeanFactoryCopies beanFactory, DependencyResolver fullResolution) {
+        this.beanFactory = beanFactory;
+        this.fullResolution = fullResolution;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        clear();
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    InjectionPlanStats getStats() {
+        return new InjectionPlanStats(this.plans.size(), this.hits.sum(), this.misses.sum(), this.invalidations.sum());
+    }
+
+    //---------------------------------------------------------------------
+    // 解析
+    //---------------------------------------------------------------------
+
+    @Nullable
+    Object resolve(DependencyDescriptor descriptor, @Nullable String beanName,
+                   @Nullable Set<String> autowiredBeanNames, @Nullable TypeConverter typeConverter) throws BeansException {
+        if (!this.enabled || this.beanFactory.getParentBeanFactory() != null
+                || !this.plannableDescriptorTypes.computeIfAbsent(descriptor.getClass(), InjectionPlan::isPlannableDescriptorType)) {
+            return this.fullResolution.resolve(descriptor, beanName, autowiredBeanNames, typeConverter);
+        }
+        InjectionPlan.Key key = InjectionPlan.Key.of(descriptor, beanName);
+        InjectionPlan plan = this.plans.get(key);
+        if (plan != null) {
+            Object result = resolveWithPlan(plan, descriptor, beanName, typeConverter);
+            if (result != NO_PLANNED_RESULT) {
+                this.hits.increment();
+                if (autowiredBeanNames != null) {
+                    autowiredBeanNames.add(plan.getCandidateName());
+                }
+                return result;
+            }
+            this.plans.remove(key, plan);
+        }
+        this.misses.increment();
+
+        long version = this.version.get();
+        Set<String> candidateNames = new LinkedHashSet<>(2);
+        Object result = this.fullResolution.resolve(descriptor, beanName, candidateNames, typeConverter);
+        if (autowiredBeanNames != null) {
+            autowiredBeanNames.addAll(candidateNames);
+        }
+        plan = createPlan(descriptor, candidateNames, result);
+        if (plan != null && this.version.get() == version) {
+            this.plans.put(key, plan);
+            if (this.version.get() != version) {
+                // 写入的同时注册表发生了变化
+                this.plans.remove(key, plan);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 只有父类同样会直接返回唯一候选的情况才生成计划：没有@Value、单个候选、候选是本容器中的Bean(不是可解析依赖)
+     */
+    @Nullable
+    private InjectionPlan createPlan(DependencyDescriptor descriptor, Set<String> candidateNames, @Nullable Object result) {
+        Class<?> type = descriptor.getDependencyType();
+        if (result == null || candidateNames.size() != 1 || !InjectionPlan.isSingleBeanType(type)
+                || !ClassUtils.isAssignableValue(type, result)
+                || this.beanFactory.getAutowireCandidateResolver().getSuggestedValue(descriptor) != null) {
+            return null;
+        }
+        String candidateName = candidateNames.iterator().next();
+        if (!this.beanFactory.containsBean(candidateName)) {
+            return null;
+        }
+        boolean shortcutSingleton = this.beanFactory.containsSingleton(candidateName) && this.beanFactory.isSingleton(candidateName)
+                && this.beanFactory.getBean(candidateName) == result;
+        return new InjectionPlan(type, candidateName, shortcutSingleton);
+    }
+
+    private Object resolveWithPlan(InjectionPlan plan, DependencyDescriptor descriptor, @Nullable String beanName,
+                                   @Nullable TypeConverter typeConverter) {
+        Class<?> type = descriptor.getDependencyType();
+        Object result;
+        if (plan.isShortcutSingleton()) {
+            result = this.beanFactory.getBean(plan.getCandidateName());
+        } else {
+            // 非单例的创建可能需要当前注入点(InjectionPoint参数)，由父类设置后按名称获取
+            result = this.fullResolution.resolve(new PlannedDependencyDescriptor(descriptor, plan.getCandidateName()),
+                    beanName, null, typeConverter);
+        }
+        // NullBean.equals(null)为true，空Bean与类型不符的结果交回父类按原有规则处理
+        if (result == null || result.equals(null) || !ClassUtils.isAssignableValue(type, result)) {
+            return NO_PLANNED_RESULT;
+        }
+        return result;
+    }
+
+    //---------------------------------------------------------------------
+    // 失效
+    //---------------------------------------------------------------------
+
+    /**
+     * 候选被移除、覆盖或销毁
+     */
+    void candidateChanged(String beanName) {
+        this.version.incrementAndGet();
+        this.invalidations.add(this.plans.invalidateCandidate(beanName));
+    }
+
+    /**
+     * 注册或覆盖beanName，类型为beanType的Bean可能成为新的候选，类型无法提前确定(null)时全部失效
+     */
+    void beanRegistered(String beanName, @Nullable Class<?> beanType) {
+        this.version.incrementAndGet();
+        this.invalidations.add(this.plans.invalidateCandidate(beanName) + this.plans.invalidateMatching(beanType));
+    }
+
+    /**
+     * 批量注册/移除结束时统一失效：changedNames为注册、覆盖、移除或销毁的BeanName，registeredTypes为新注册的Bean能够确定的类型
+     */
+    void beansChanged(Collection<String> changedNames, Collection<Class<?>> registeredTypes) {
+        this.version.incrementAndGet();
+        int invalidated = 0;
+        for (String beanName : changedNames) {
+            invalidated += this.plans.invalidateCandidate(beanName);
+        }
+        for (Class<?> beanType : registeredTypes) {
+            invalidated += this.plans.invalidateMatching(beanType);
+        }
+        this.invalidations.add(invalidated);
+    }
+
+    /**
+     * 注册可解析依赖：它优先于容器中的Bean，依赖类型可以赋值给它的计划失效
+     */
+    void resolvableDependencyRegistered(Class<?> dependencyType) {
+        this.version.incrementAndGet();
+        this.invalidations.add(this.plans.invalidateAssignableTo(dependencyType));
+    }
+
+    void clear() {
+        this.version.incrementAndGet();
+        this.invalidations.add(this.plans.clear());
+    }
+
+    /**
+     * 父类的doResolveDependency
+     */
+    @FunctionalInterface
+    interface DependencyResolver {
+
+        @Nullable
+        Object resolve(DependencyDescriptor descriptor, @Nullable String beanName,
+                       @Nullable Set<String> autowiredBeanNames, @Nullable TypeConverter typeConverter) throws BeansException;
+    }
+
+    /**
+     * 按注入计划中的候选名称直接获取，与AutowiredAnnotationBeanPostProcessor的ShortcutDependencyDescriptor相同
+     */
+    private static class PlannedDependencyDescriptor extends DependencyDescriptor {
+
+        private final String candidateName;
+
+        PlannedDependencyDescriptor(DependencyDescriptor original, String candidateName) {
+            super(original);
+            this.candidateName = candidateName;
+        }
+
+        @Override
+        public Object resolveShortcut(BeanFactory beanFactory) {
+            return resolveCandidate(this.candidateName, getDependencyType(), beanFactory);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote 按合并后的BeanDefinition编译的结果：非单例Bean的创建计划( {@link PrototypeCreationSupport} )、
+ * BeanPostProcessor管道以及执行过postProcessMergedBeanDefinition的处理器( {@link PostProcessorPipelineSupport} )
+ * -- 三者放在同一个 {@link Holder} 中：每个BeanName只占一个Map节点与一个Holder，不再各自按BeanName建一个Map
+ * -- 使用共享合并结果的Bean没有自己的Holder，使用共享条目上的Holder，每种形状只编译一次
+ * -- Holder中的结果各自记录了编译时的合并结果，合并结果变化后由使用方重新编译；BeanDefinition注册、覆盖或移除时整个Holder丢弃
+ */
+final class MergedDefinitionCaches {
+
+    private final SharedMergedDefinitions sharedMergedDefinitions;
+
+    /** BeanName -> 不使用共享合并结果的Bean的编译结果 */
+    private final Map<String, Holder> holders = new ConcurrentHashMap<>();
+
+    MergedDefinitionCaches(SharedMergedDefinitions sharedMergedDefinitions) {
+        this.sharedMergedDefinitions = sharedMergedDefinitions;
+    }
+
+    /**
+     * mbd是beanName当前使用的共享合并结果时返回共享条目上的Holder，否则返回(必要时创建)该BeanName自己的Holder
+     */
+    Holder obtain(String beanName, RootBeanDefinition mbd) {
+        SharedMergedDefinitions.Entry entry = this.sharedMergedDefinitions.get(beanName);
+        if (entry != null && entry.getMergedDefinition() == mbd) {
+            return entry.getCaches();
+        }
+        return this.holders.computeIfAbsent(beanName, key -> new Holder());
+    }
+
+    /**
+     * BeanDefinition注册、覆盖或移除
+     */
+    void remove(String beanName) {
+        this.holders.remove(beanName);
+    }
+
+    /**
+     * BeanDefinition整体可能已被修改(共享条目由SharedMergedDefinitions一并丢弃)
+     */
+    void clear() {
+        this.holders.clear();
+    }
+
+    /**
+     * BeanPostProcessor或实例化策略变化：只丢弃创建计划，管道按处理器列表自行校验
+     */
+    void clearCreationPlans() {
+        for (Holder holder : this.holders.values()) {
+            holder.creationPlan = null;
+        }
+        this.sharedMergedDefinitions.forEachEntry(entry -> entry.getCaches().creationPlan = null);
+    }
+
+    /**
+     * 一个合并结果的编译结果，由对应的Support读写
+     */
+    static final class Holder {
+
+        @Nullable
+        volatile PrototypeCreationPlan creationPlan;
+
+        @Nullable
+        volatile BeanPostProcessorPipeline pipeline;
+
+        @Nullable
+        volatile PostProcessorPipelineSupport.PostProcessedDefinition postProcessed;
+    }
+}
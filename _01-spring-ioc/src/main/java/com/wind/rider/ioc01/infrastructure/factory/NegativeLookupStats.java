@@ -0,0 +1,20 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+/**
+ * @apiNote 某一级容器的未命中查找缓存统计
+ *
+ * @param factory       容器标识(类名@identityHashCode)
+ * @param depth         相对于调用方容器的层级，0为调用方自身，父容器依次加一
+ * @param hits          直接由缓存判定不存在、不再沿父容器链查找的次数
+ * @param misses        缓存中没有、沿父容器链查找后确认不存在并记入缓存的次数
+ * @param invalidations 本级或任一祖先容器注册了新的Bean/别名而使缓存失效的次数
+ * @param entries       当前缓存的未命中名称/类型数
+ */
+public record NegativeLookupStats(String factory, int depth, long hits, long misses, long invalidations, int entries) {
+
+    @Override
+    public String toString() {
+        return String.format("[%d] %s: %d hits, %d misses, %d invalidations, %d entries",
+                depth, factory, hits, misses, invalidations, entries);
+    }
+}
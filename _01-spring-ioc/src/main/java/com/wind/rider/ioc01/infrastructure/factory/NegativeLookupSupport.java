@@ -0,0 +1,286 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * @apiNote 父子容器中未命中查找的缓存：确认整个父容器链上都不存在的BeanName(String)或类型(ResolvableType)记入本级，
+ * 之后直接判定不存在；查找本身仍由容器调用父类方法完成
+ * -- 本级或任一祖先容器注册BeanDefinition、单例、别名时由容器调用invalidate()，逐级通知子容器的缓存整体失效
+ * -- 每次失效先递增版本号，查找前取得的版本号与写入时不同时不写入
+ * -- 父容器链上有不是OptimizedListableBeanFactory的容器时无法感知其变化，不缓存
+ */
+final class NegativeLookupSupport {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    /** 父类的containsBean(不经过本缓存)，只有容器自身可以调用 */
+    private final Predicate<String> containsBean;
+
+    private volatile boolean enabled = true;
+
+    /** 父容器链上的每一级都是OptimizedListableBeanFactory，祖先的变化可以通知到本级 */
+    private volatile boolean ancestorsObservable = true;
+
+    /** 确认不存在的BeanName(String)或类型(ResolvableType) -> 记录时的版本 */
+    private final Map<Object, NegativeLookup> lookups = new ConcurrentHashMap<>();
+
+    /** 本级或祖先容器每次注册新的Bean/别名加一，旧版本的记录视为失效 */
+    private final AtomicLong version = new AtomicLong();
+
+    /** 以本容器为父容器的容器的缓存，弱引用，子容器关闭后自动移除 */
+    private final Set<NegativeLookupSupport> children = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    NegativeLookupSupport(SpringBeanFactoryCopies beanFactory, Predicate<String> containsBean) {
+        this.beanFactory = beanFactory;
+        this.containsBean = containsBean;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        invalidate();
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    NegativeLookupStats getStats(int depth) {
+        return new NegativeLookupStats(ObjectUtils.identityToString(this.beanFactory), depth, this.hits.sum(),
+                this.misses.sum(), this.invalidations.sum(), this.lookups.size());
+    }
+
+    /**
+     * 没有父容器时本级查找只是一次Map查询，不需要缓存
+     */
+    boolean isActive() {
+        return this.enabled && this.ancestorsObservable && this.beanFactory.getParentBeanFactory() != null;
+    }
+
+    /**
+     * FactoryBean本身(&name)的查找不缓存
+     */
+    boolean isActive(String name) {
+        return isActive() && !BeanFactoryUtils.isFactoryDereference(name);
+    }
+
+    long currentVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * 已确认不存在时直接抛出，否则返回查找前的版本号，用于判断查找期间缓存是否失效
+     */
+    long check(String name) {
+        long version = this.version.get();
+        NegativeLookup lookup = find(name, version);
+        if (lookup != null) {
+            throw new NoSuchBeanDefinitionException(lookup.beanName());
+        }
+        return version;
+    }
+
+    boolean isMissing(Object key, long version) {
+        return find(key, version) != null;
+    }
+
+    /**
+     * 创建Bean的过程中缺少其他依赖同样会抛出NoSuchBeanDefinitionException，只有本身确实不存在时才记入缓存
+     */
+    void namedMiss(String name, NoSuchBeanDefinitionException ex, long version) {
+        if (ex.getBeanName() != null && !this.containsBean.test(name)) {
+            record(name, ex.getBeanName(), version);
+        }
+    }
+
+    void record(Object key, @Nullable String beanName, long version) {
+        if (this.lookups.size() >= MAX_ENTRIES) {
+            // 不存在的名称/类型通常来自固定的几处查找，超出上限说明查找的键本身不固定(如拼接的名称)，整体清空即可
+            this.lookups.clear();
+        }
+        this.lookups.put(key, new NegativeLookup(version, beanName));
+        this.misses.increment();
+        if (this.version.get() != version) {
+            // 写入的同时本级或祖先容器注册了新的Bean，版本号不同的记录不会被使用，顺便移除
+            this.lookups.remove(key);
+        }
+    }
+
+    /**
+     * 按类型查找的ObjectProvider：已确认整个父容器链上都没有该类型的Bean时直接返回空结果
+     */
+    <T> ObjectProvider<T> wrap(ObjectProvider<T> provider, ResolvableType requiredType) {
+        return (isActive() ? new NegativeLookupObjectProvider<>(provider, requiredType) : provider);
+    }
+
+    /**
+     * 父容器变化后重新判断祖先链是否可以感知，并登记为父容器缓存的子缓存以接收失效通知
+     *
+     * @param parent 父容器为OptimizedListableBeanFactory时为其缓存，否则为null
+     */
+    void parentChanged(@Nullable NegativeLookupSupport parent) {
+        if (parent != null) {
+            parent.children.add(this);
+        }
+        refreshAncestorsObservable(parent);
+    }
+
+    private void refreshAncestorsObservable(@Nullable NegativeLookupSupport parent) {
+        this.ancestorsObservable = (parent != null ? parent.ancestorsObservable : this.beanFactory.getParentBeanFactory() == null);
+        invalidate();
+        for (NegativeLookupSupport child : children()) {
+            child.refreshAncestorsObservable(this);
+        }
+    }
+
+    /**
+     * 先递增版本号，使正在进行的查找不再写入缓存，再逐级通知子容器
+     */
+    void invalidate() {
+        this.version.incrementAndGet();
+        if (!this.lookups.isEmpty()) {
+            this.lookups.clear();
+            this.invalidations.increment();
+        }
+        for (NegativeLookupSupport child : children()) {
+            child.invalidate();
+        }
+    }
+
+    @Nullable
+    private NegativeLookup find(Object key, long version) {
+        NegativeLookup lookup = this.lookups.get(key);
+        if (lookup == null || lookup.version() != version) {
+            return null;
+        }
+        this.hits.increment();
+        return lookup;
+    }
+
+    private void typeMiss(ResolvableType requiredType, long version) {
+        if (BeanFactoryUtils.beanNamesForTypeIncludingAncestors(this.beanFactory, requiredType).length == 0) {
+            record(requiredType, null, version);
+        }
+    }
+
+    private NegativeLookupSupport[] children() {
+        synchronized (this.children) {
+            return this.children.toArray(new NegativeLookupSupport[0]);
+        }
+    }
+
+    /**
+     * @param version  记录时的版本号
+     * @param beanName 抛出NoSuchBeanDefinitionException时使用的BeanName，按类型查找时为null
+     */
+    private record NegativeLookup(long version, @Nullable String beanName) {
+    }
+
+    private class NegativeLookupObjectProvider<T> implements ObjectProvider<T> {
+
+        private final ObjectProvider<T> delegate;
+
+        private final ResolvableType requiredType;
+
+        NegativeLookupObjectProvider(ObjectProvider<T> delegate, ResolvableType requiredType) {
+            this.delegate = delegate;
+            this.requiredType = requiredType;
+        }
+
+        @Override
+        public T getObject() throws BeansException {
+            long version = currentVersion();
+            if (isMissing(this.requiredType, version)) {
+                throw new NoSuchBeanDefinitionException(this.requiredType);
+            }
+            try {
+                return this.delegate.getObject();
+            } catch (NoSuchBeanDefinitionException ex) {
+                typeMiss(this.requiredType, version);
+                throw ex;
+            }
+        }
+
+        @Override
+        public T getObject(Object... args) throws BeansException {
+            long version = currentVersion();
+            if (isMissing(this.requiredType, version)) {
+                throw new NoSuchBeanDefinitionException(this.requiredType);
+            }
+            try {
+                return this.delegate.getObject(args);
+            } catch (NoSuchBeanDefinitionException ex) {
+                typeMiss(this.requiredType, version);
+                throw ex;
+            }
+        }
+
+        @Override
+        @Nullable
+        public T getIfAvailable() throws BeansException {
+            long version = currentVersion();
+            if (isMissing(this.requiredType, version)) {
+                return null;
+            }
+            T result = this.delegate.getIfAvailable();
+            if (result == null) {
+                typeMiss(this.requiredType, version);
+            }
+            return result;
+        }
+
+        @Override
+        @Nullable
+        public T getIfUnique() throws BeansException {
+            long version = currentVersion();
+            if (isMissing(this.requiredType, version)) {
+                return null;
+            }
+            T result = this.delegate.getIfUnique();
+            if (result == null) {
+                typeMiss(this.requiredType, version);
+            }
+            return result;
+        }
+
+        @Override
+        public Stream<T> stream() {
+            if (isMissing(this.requiredType, currentVersion())) {
+                return Stream.empty();
+            }
+            return this.delegate.stream();
+        }
+
+        @Override
+        public Stream<T> orderedStream() {
+            if (isMissing(this.requiredType, currentVersion())) {
+                return Stream.empty();
+            }
+            return this.delegate.orderedStream();
+        }
+    }
+}
@@ -0,0 +1,1870 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.InvalidPropertyException;
+import org.springframework.beans.PropertyAccessorUtils;
+import org.springframework.beans.PropertyEditorRegistrar;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateResolver;
+import org.springframework.beans.factory.support.BeanDefinitionOverrideException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.beans.PropertyEditor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * @author yfchen1
+ * @apiNote 针对大规模注册表优化的DefaultListableBeanFactory
+ * -- 类型索引：getBeanNamesForType/getBeansOfType(含ResolvableType重载)不再遍历全部BeanDefinition，
+ *    而是从 {@link BeanTypeIndex} 取出候选BeanName后逐个确认；索引随registerBeanDefinition、removeBeanDefinition、
+ *    registerSingleton以及实例的创建、单例的销毁增量维护，注册表变化时不会整体失效；索引由 {@link TypeIndexSupport} 维护，
+ *    逐个确认的匹配规则是从父类私有方法复制的，与其他不得不复制的代码一起放在 {@link SpringBeanFactoryCopies}
+ * -- BeanFactoryPostProcessor修改BeanDefinition(如替换beanClass)后，需要调用clearMetadataCache()刷新索引，
+ *    ApplicationContext在执行完BeanFactoryPostProcessor后会自动调用
+ * -- 存在重写了predictBeanType的SmartInstantiationAwareBeanPostProcessor时，注册的类型不再可信，自动退回父类的全量遍历
+ * -- 批量注册/移除：registerBeanDefinitions/removeBeanDefinitions(见 {@link BatchBeanDefinitionRegistry})先一遍检查整批的名称与别名冲突，
+ *    再逐个交给父类写入；期间父类调用的resetBeanDefinition(逐个遍历全部定义查找子定义)、clearMetadataCache以及类型索引、注入计划、
+ *    未命中查找缓存的维护推迟到最后进行一次(见 {@link BatchRegistrySupport})，不访问父类的私有字段。
+ *    父类在容器开始创建Bean之后每写入一个定义仍复制一遍BeanName列表，这部分仍与定义数成正比
+ * -- 注解索引：getBeanNamesForAnnotation/getBeansWithAnnotation/findAnnotationOnBean/findAllAnnotationsOnBean优先使用
+ *    编译期生成的 {@link BeanAnnotationIndex}，按注解直接取出候选类，并由索引还原注解，不再对每个Bean的类做反射扫描；
+ *    索引中没有的类(第三方jar、运行期生成的代理等)以及类型无法提前确定的Bean仍按父类的方式反射查找
+ * -- 并行预实例化：设置preInstantiationExecutor后，preInstantiateSingletons()按 {@link SingletonDependencyGraph}
+ *    (由 {@link DependencyOrderedExecutor} 调度)并行创建互不依赖的非懒加载单例，期间单例创建改用 {@link SingletonCreationGuard} 的按BeanName加锁，
+ *    结果(关键路径、相比单线程节省的时间)见getLastPreInstantiationReport()
+ * -- 并行销毁：设置destructionExecutor后，destroySingletons()按registerDependentBean记录的依赖关系
+ *    ({@link SingletonDependencyGraph#fromDependentBeans}，由 {@link DependencyOrderedExecutor} 按DEPENDENTS_FIRST调度)并行销毁单例，
+ *    依赖某个Bean的Bean总是先于它销毁，互不依赖的Bean同时销毁；
+ *    设置destructionTimeout后每个销毁回调(含destroyBean销毁的prototype)最多等待该时间，超时后中断回调线程并继续销毁。
+ *    每个Bean的销毁耗时、关键路径以及超时、失败的Bean见getLastDestructionReport()；实现见 {@link DestructionSupport}
+ * -- 分段加锁的单例创建：setStripedSingletonCreationEnabled(true)后，运行期懒加载单例的创建同样改用 {@link SingletonCreationGuard}，
+ *    多个请求线程同时触发不同单例的创建时可以并发进行，不再排队等待singletonObjects全局锁；同一单例仍只创建一次，
+ *    循环依赖(含分到两个线程上的)仍通过早期引用解决；FactoryBean单例产物的创建与缓存同样按BeanName加锁
+ * -- 非单例Bean的创建：每个合并后的BeanDefinition只解析一次构造器和init方法，编译为 {@link PrototypeCreationPlan}，
+ *    之后每次getBean不再走ConstructorResolver与反射调用；需要构造器注入、方法注入、instanceSupplier、工厂方法等情况仍交给父类。
+ *    正在创建的prototype按线程记录在保留的数组中，不再每次设置、移除ThreadLocal；计划与该记录由 {@link PrototypeCreationSupport} 维护
+ * -- BeanPostProcessor管道：每个BeanDefinition + Bean类只计算一次初始化前后哪些处理器的回调真正适用(见 {@link BeanPostProcessorPipeline})，
+ *    之后每次创建只执行这份短列表；初始化仍由父类initializeBean完成，管道只替换它调用的applyBeanPostProcessorsBefore/AfterInitialization
+ *    (见 {@link PostProcessorPipelineSupport})，属性填充阶段的处理器由父类逐个执行。跳过的回调次数见getPostProcessorPipelineStats()
+ * -- 共享合并结果(默认开启)：形状相同(Bean类、作用域、init/destroy方法名、自动装配方式等)
+ *    且不携带逐个Bean数据的定义共享同一个合并后的RootBeanDefinition(见 {@link SharedMergedDefinitions})，
+ *    创建计划与BeanPostProcessor管道也按形状只保存一份；注册时作用域、方法名等属性值换成共享实例。
+ *    不共享的Bean的创建计划与管道每个BeanName只占一个 {@link MergedDefinitionCaches.Holder}。
+ *    MergedBeanDefinitionPostProcessor仍对每个BeanName各执行一次；存在重写了postProcessBeforeInstantiation的处理器时不共享。
+ *    统计见getSharedDefinitionStats()
+ * -- 注入计划：resolveDependency/autowireBean/ObjectProvider.getIfAvailable等依赖解析按注入点缓存 {@link InjectionPlan}
+ *    (唯一候选的BeanName、是否为已创建的单例)，之后同一注入点不再查找候选、匹配限定符；注册或移除可能匹配的Bean、
+ *    注册别名或可解析依赖、更换AutowireCandidateResolver时只失效受影响的计划(按依赖类型与候选的索引查找，不遍历全部计划)；
+ *    有父容器时不缓存(父容器的变化无法感知)；解析与失效由 {@link InjectionPlanSupport} 完成，未命中计划时仍调用父类doResolveDependency
+ * -- 未命中查找缓存：父子容器中按名称(getBean/containsBean)或按类型(getBeanProvider)查找不存在的Bean时，
+ *    每次都要沿父容器链逐级查找到根容器；确认不存在后按名称/类型记入本级缓存，之后直接判定不存在。
+ *    本级或任一祖先容器注册BeanDefinition、单例、别名时逐级通知子容器使缓存整体失效(移除Bean不会使"不存在"失效)；
+ *    父容器链上有不是OptimizedListableBeanFactory的容器时无法感知其变化，不缓存。缓存与逐级失效由 {@link NegativeLookupSupport} 维护，统计见getNegativeLookupStatsByLevel()
+ * -- 容器分叉：fork()以当前注册表为模板创建租户容器，共享模板的BeanDefinition与类型索引(见 {@link BeanDefinitionSnapshot})，
+ *    只复制配置、别名与手动单例；租户中的覆盖、移除、getBeanDefinition取出修改都只作用于自身(写时复制，只读取时不复制)，
+ *    单例与合并后的BeanDefinition各自独立。BeanPostProcessor由 {@link ForkAwareBeanPostProcessor} 自行决定，Spring自带的注解处理器
+ *    在fork中新建，其他持有容器引用的处理器拒绝fork，其余共享(见 {@link ForkedPostProcessors})；模板中手动注册的单例按引用由所有fork共享，见fork()
+ * -- 属性值转换：属性填充、构造器参数、@Value等的类型转换统一交给线程安全的 {@link CompiledTypeConverter}，
+ *    每个(源类型, 目标类型, 属性)只确定一次转换方式(PropertyEditor/ConversionService/原样返回)并缓存，
+ *    BeanWrapper不再逐个执行PropertyEditorRegistrar、实例化PropertyEditor；每个转换器的次数与耗时见getPropertyConverterStats()
+ * -- 启动追踪：设置了非默认的ApplicationStartup(如 {@link com.wind.rider.ioc01.infrastructure.componet.RingBufferApplicationStartup})时，
+ *    在Spring自带的spring.beans.instantiate步骤之下再记录实例化、属性填充、初始化、init方法的步骤，Tag为beanName、phase；
+ *    属性填充与初始化只包在父类外层，不另写一份。使用BeanPostProcessor管道(过滤开启，默认)时
+ *    还为管道中每个处理器的初始化前后阶段记录步骤(Tag多一个postProcessor)，过滤关闭时只有Bean级别的步骤；使用默认ApplicationStartup时不产生任何步骤
+ * -- 运行期访问统计：setAccessMetricsEnabled(true)后按BeanName记录getBean(含依赖注入、ObjectProvider、作用域查找)与createBean的
+ *    次数、失败次数和按采样计时的耗时直方图(见 {@link BeanAccessMetrics})，分段记录、不分配对象，可以常开；
+ *    getBeanAccessMetrics().registerMBean(this)后通过JMX查看。默认关闭，关闭时每次getBean只多一次volatile读
+ */
+public class OptimizedListableBeanFactory extends SpringBeanFactoryCopies implements BatchBeanDefinitionRegistry {
+
+    public static final String STEP_CREATE_INSTANCE = "projecty.beans.create-instance";
+
+    public static final String STEP_POPULATE = "projecty.beans.populate";
+
+    public static final String STEP_INITIALIZE = "projecty.beans.initialize";
+
+    public static final String STEP_INIT_METHODS = "projecty.beans.init-methods";
+
+    public static final String STEP_POST_PROCESS = "projecty.beans.post-process";
+
+    private final TypeIndexSupport typeIndex;
+
+    private final PostProcessorPipelineSupport pipelines = new PostProcessorPipelineSupport(this);
+
+    private final PrototypeCreationSupport prototypeCreation = new PrototypeCreationSupport(this,
+            (beanClass, beanName) -> determineConstructorsFromBeanPostProcessors(beanClass, beanName) != null);
+
+    private final InjectionPlanSupport injectionPlans = new InjectionPlanSupport(this, super::doResolveDependency);
+
+    private final NegativeLookupSupport negativeLookups = new NegativeLookupSupport(this, super::containsBean);
+
+    private final DestructionSupport destruction = new DestructionSupport(this);
+
+    /** fork()创建的容器共享的模板注册表 */
+    @Nullable
+    private final BeanDefinitionSnapshot template;
+
+    /** 在本容器中移除了的模板BeanName */
+    private final Set<String> removedTemplateDefinitions = ConcurrentHashMap.newKeySet();
+
+    /** 模板Bean合并后的BeanDefinition，父类按BeanName缓存，这里省去每次获取时的同步 */
+    private final Map<String, RootBeanDefinition> templateMergedDefinitions = new ConcurrentHashMap<>();
+
+    /** 正在复制到本容器的模板BeanName，复制前后内容相同，不需要重置 */
+    @Nullable
+    private volatile String copyingTemplateDefinition;
+
+    /** 批量注册/移除BeanDefinition，期间该线程上的失效推迟到批量结束时统一进行 */
+    private final BatchRegistrySupport batchRegistry = new BatchRegistrySupport(this, this::getRawBeanDefinition,
+            super::getBeanDefinitionNames, super::clearMergedBeanDefinition);
+
+    /** 作为模板时的注册表快照，注册表变化后在下一次fork时重新生成 */
+    @Nullable
+    private volatile BeanDefinitionSnapshot definitionSnapshot;
+
+    /** 注册或移除BeanDefinition、别名、手动单例时加一 */
+    private final AtomicLong definitionVersion = new AtomicLong();
+
+    /** 注册为容器自身的可解析依赖(如BeanFactory)，复制配置时改为指向新容器 */
+    private final Set<Class<?>> selfResolvableDependencies = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean annotationIndexEnabled = true;
+
+    /** 按当前beanClassLoader延迟加载 */
+    @Nullable
+    private volatile BeanAnnotationIndex annotationIndex;
+
+    @Nullable
+    private volatile Executor preInstantiationExecutor;
+
+    /** 分段加锁模式下一直存在，否则仅在并行预实例化期间存在 */
+    @Nullable
+    private volatile SingletonCreationGuard creationGuard;
+
+    private volatile boolean stripedSingletonCreationEnabled;
+
+    @Nullable
+    private volatile PreInstantiationReport lastPreInstantiationReport;
+
+    private volatile boolean compiledPropertyConversionEnabled = true;
+
+    /** 按当前ConversionService、PropertyEditor配置编译的转换器，配置变化时丢弃 */
+    @Nullable
+    private volatile CompiledTypeConverter compiledTypeConverter;
+
+
+    private volatile boolean sharedMergedDefinitionsEnabled = true;
+
+    /** 形状相同的BeanDefinition共享的合并结果，以及按它编译的创建计划与BeanPostProcessor管道 */
+    private final SharedMergedDefinitions sharedMergedDefinitions = new SharedMergedDefinitions();
+
+    /** 按合并结果编译的创建计划、BeanPostProcessor管道：不共享合并结果的Bean每个BeanName一份，其余记在共享条目上 */
+    private final MergedDefinitionCaches definitionCaches = new MergedDefinitionCaches(this.sharedMergedDefinitions);
+
+    /** 当前BeanPostProcessor是否允许共享合并结果，null表示需要重新计算 */
+    @Nullable
+    private volatile Boolean mergedDefinitionSharingSafe;
+
+    /** 开启运行期访问统计时存在 */
+    @Nullable
+    private volatile BeanAccessMetrics accessMetrics;
+
+    public OptimizedListableBeanFactory() {
+        super();
+        this.typeIndex = new TypeIndexSupport(this, new BeanTypeIndex());
+        this.template = null;
+    }
+
+    public OptimizedListableBeanFactory(@Nullable BeanFactory parentBeanFactory) {
+        super(parentBeanFactory);
+        this.typeIndex = new TypeIndexSupport(this, new BeanTypeIndex());
+        this.template = null;
+        // 父类构造器中调用setParentBeanFactory时本类的字段尚未初始化
+        linkParentBeanFactory();
+    }
+
+    private OptimizedListableBeanFactory(BeanDefinitionSnapshot template) {
+        super();
+        this.typeIndex = new TypeIndexSupport(this, template.getTypeIndex().fork());
+        this.template = template;
+    }
+
+    /**
+     * 是否使用类型索引回答按类型查找，默认开启；关闭后行为与DefaultListableBeanFactory完全一致(索引仍会维护)
+     */
+    public void setTypeIndexEnabled(boolean typeIndexEnabled) {
+        this.typeIndex.setEnabled(typeIndexEnabled);
+    }
+
+    public boolean isTypeIndexEnabled() {
+        return this.typeIndex.isEnabled();
+    }
+
+    /**
+     * 是否使用编译期注解索引回答按注解查找，默认开启；classpath上没有索引文件时自动退回反射查找
+     */
+    public void setAnnotationIndexEnabled(boolean annotationIndexEnabled) {
+        this.annotationIndexEnabled = annotationIndexEnabled;
+    }
+
+    public boolean isAnnotationIndexEnabled() {
+        return this.annotationIndexEnabled;
+    }
+
+    /**
+     * 设置后preInstantiateSingletons()并行创建单例，例如ForkJoinPool.commonPool()或虚拟线程Executor；
+     * 为null(默认)时与DefaultListableBeanFactory一样在当前线程依次创建
+     */
+    public void setPreInstantiationExecutor(@Nullable Executor preInstantiationExecutor) {
+        this.preInstantiationExecutor = preInstantiationExecutor;
+    }
+
+    @Nullable
+    public Executor getPreInstantiationExecutor() {
+        return this.preInstantiationExecutor;
+    }
+
+    /**
+     * 是否始终按BeanName加锁创建单例，默认关闭(与DefaultListableBeanFactory一样在singletonObjects全局锁下创建)；
+     * 应在容器开始创建单例之前设置
+     */
+    public void setStripedSingletonCreationEnabled(boolean stripedSingletonCreationEnabled) {
+        this.stripedSingletonCreationEnabled = stripedSingletonCreationEnabled;
+        this.creationGuard = (stripedSingletonCreationEnabled ? new SingletonCreationGuard() : null);
+    }
+
+    public boolean isStripedSingletonCreationEnabled() {
+        return this.stripedSingletonCreationEnabled;
+    }
+
+    /**
+     * 分段加锁模式下的创建保护，可用于查看锁等待次数；未开启且不在并行预实例化期间时返回null
+     */
+    @Nullable
+    public SingletonCreationGuard getSingletonCreationGuard() {
+        return this.creationGuard;
+    }
+
+    /**
+     * 最近一次并行预实例化的统计结果，未进行过并行预实例化时返回null
+     */
+    @Nullable
+    public PreInstantiationReport getLastPreInstantiationReport() {
+        return this.lastPreInstantiationReport;
+    }
+
+    /**
+     * 设置后destroySingletons()按依赖关系并行销毁单例；为null(默认)时与DefaultListableBeanFactory一样在当前线程依次销毁
+     */
+    public void setDestructionExecutor(@Nullable Executor destructionExecutor) {
+        this.destruction.setExecutor(destructionExecutor);
+    }
+
+    @Nullable
+    public Executor getDestructionExecutor() {
+        return this.destruction.getExecutor();
+    }
+
+    /**
+     * 每个销毁回调(DisposableBean、destroy方法、DestructionAwareBeanPostProcessor)的最长等待时间，超时后中断回调线程、
+     * 记录警告并继续销毁其他Bean；为null(默认)时在当前线程执行、不限时
+     */
+    public void setDestructionTimeout(@Nullable Duration destructionTimeout) {
+        this.destruction.setTimeout(destructionTimeout);
+    }
+
+    @Nullable
+    public Duration getDestructionTimeout() {
+        return this.destruction.getTimeout();
+    }
+
+    /**
+     * 最近一次并行销毁的统计结果，未进行过并行销毁时返回null
+     */
+    @Nullable
+    public DestructionReport getLastDestructionReport() {
+        return this.destruction.getLastReport();
+    }
+
+    /**
+     * 是否为非单例Bean编译构造器与init方法，默认开启；关闭后与DefaultListableBeanFactory一样每次都反射解析
+     */
+    public void setCompiledPrototypeCreationEnabled(boolean compiledPrototypeCreationEnabled) {
+        this.prototypeCreation.setEnabled(compiledPrototypeCreationEnabled);
+        this.definitionCaches.clearCreationPlans();
+    }
+
+    public boolean isCompiledPrototypeCreationEnabled() {
+        return this.prototypeCreation.isEnabled();
+    }
+
+    /**
+     * 是否让形状相同的BeanDefinition共享合并结果(见 {@link SharedMergedDefinitions})，默认开启；
+     * 关闭后与父类一样每个BeanName各保存一份合并结果。应在注册BeanDefinition之前设置，开启前注册的定义不会共享属性值
+     */
+    public void setSharedMergedDefinitionsEnabled(boolean sharedMergedDefinitionsEnabled) {
+        this.sharedMergedDefinitionsEnabled = sharedMergedDefinitionsEnabled;
+        this.sharedMergedDefinitions.clear();
+    }
+
+    public boolean isSharedMergedDefinitionsEnabled() {
+        return this.sharedMergedDefinitionsEnabled;
+    }
+
+    /**
+     * 共享合并结果的统计：使用共享结果的Bean数、共享结果数与共享的属性值数
+     */
+    public SharedDefinitionStats getSharedDefinitionStats() {
+        return this.sharedMergedDefinitions.getStats();
+    }
+
+    /**
+     * 是否只执行对当前Bean适用的BeanPostProcessor回调，默认开启；关闭后与DefaultListableBeanFactory一样逐个执行全部处理器
+     */
+    public void setPostProcessorFilteringEnabled(boolean postProcessorFilteringEnabled) {
+        this.pipelines.setEnabled(postProcessorFilteringEnabled);
+    }
+
+    public boolean isPostProcessorFilteringEnabled() {
+        return this.pipelines.isEnabled();
+    }
+
+    /**
+     * BeanPostProcessor管道的累计统计：各阶段实际执行与被跳过的回调次数
+     */
+    public PostProcessorPipelineStats getPostProcessorPipelineStats() {
+        return this.pipelines.getStats();
+    }
+
+    /**
+     * 是否按注入点缓存依赖解析结果，默认开启；关闭后与DefaultListableBeanFactory一样每次完整解析
+     */
+    public void setInjectionPlanCachingEnabled(boolean injectionPlanCachingEnabled) {
+        this.injectionPlans.setEnabled(injectionPlanCachingEnabled);
+    }
+
+    public boolean isInjectionPlanCachingEnabled() {
+        return this.injectionPlans.isEnabled();
+    }
+
+    /**
+     * 注入计划的累计统计：命中、完整解析与失效次数
+     */
+    public InjectionPlanStats getInjectionPlanStats() {
+        return this.injectionPlans.getStats();
+    }
+
+    /**
+     * 是否缓存父子容器中未命中的按名称/按类型查找，默认开启；关闭后每次都沿父容器链查找
+     */
+    public void setNegativeLookupCachingEnabled(boolean negativeLookupCachingEnabled) {
+        this.negativeLookups.setEnabled(negativeLookupCachingEnabled);
+    }
+
+    public boolean isNegativeLookupCachingEnabled() {
+        return this.negativeLookups.isEnabled();
+    }
+
+    /**
+     * 本级容器的未命中查找缓存统计
+     */
+    public NegativeLookupStats getNegativeLookupStats() {
+        return this.negativeLookups.getStats(0);
+    }
+
+    /**
+     * 从本级开始，沿父容器链逐级的未命中查找缓存统计，遇到不是OptimizedListableBeanFactory的父容器为止
+     */
+    public List<NegativeLookupStats> getNegativeLookupStatsByLevel() {
+        List<NegativeLookupStats> stats = new ArrayList<>();
+        int depth = 0;
+        for (BeanFactory factory = this; factory instanceof OptimizedListableBeanFactory optimized;
+             factory = optimized.getParentBeanFactory()) {
+            stats.add(optimized.negativeLookups.getStats(depth++));
+        }
+        return stats;
+    }
+
+    /**
+     * 是否使用 {@link CompiledTypeConverter} 转换属性值、构造器参数与@Value，默认开启；
+     * 关闭后与DefaultListableBeanFactory一样每个BeanWrapper各自注册PropertyEditor并逐个属性查找转换方式
+     */
+    public void setCompiledPropertyConversionEnabled(boolean compiledPropertyConversionEnabled) {
+        this.compiledPropertyConversionEnabled = compiledPropertyConversionEnabled;
+        this.compiledTypeConverter = null;
+    }
+
+    public boolean isCompiledPropertyConversionEnabled() {
+        return this.compiledPropertyConversionEnabled;
+    }
+
+    /**
+     * 每个编译后的转换器的转换次数与累计耗时，按转换次数降序
+     */
+    public List<PropertyConverterStats> getPropertyConverterStats() {
+        CompiledTypeConverter converter = this.compiledTypeConverter;
+        return (converter != null ? converter.getStats() : Collections.emptyList());
+    }
+
+    /**
+     * 是否按BeanName记录getBean与createBean的次数与耗时，默认关闭；关闭时丢弃已有记录并从JMX注销
+     */
+    public synchronized void setAccessMetricsEnabled(boolean accessMetricsEnabled) {
+        BeanAccessMetrics metrics = this.accessMetrics;
+        if (accessMetricsEnabled && metrics == null) {
+            this.accessMetrics = new BeanAccessMetrics(this::resolveScopeForMetrics);
+        } else if (!accessMetricsEnabled && metrics != null) {
+            this.accessMetrics = null;
+            metrics.unregisterMBean();
+        }
+    }
+
+    public boolean isAccessMetricsEnabled() {
+        return this.accessMetrics != null;
+    }
+
+    /**
+     * 运行期访问统计，未开启时返回null
+     */
+    @Nullable
+    public BeanAccessMetrics getBeanAccessMetrics() {
+        return this.accessMetrics;
+    }
+
+    @Override
+    public void setParentBeanFactory(@Nullable BeanFactory parentBeanFactory) {
+        super.setParentBeanFactory(parentBeanFactory);
+        if (this.negativeLookups != null) {
+            linkParentBeanFactory();
+        }
+    }
+
+    @Override
+    public void setBeanClassLoader(@Nullable ClassLoader beanClassLoader) {
+        super.setBeanClassLoader(beanClassLoader);
+        this.annotationIndex = null;
+        this.compiledTypeConverter = null;
+    }
+
+    @Override
+    public void setConversionService(@Nullable ConversionService conversionService) {
+        super.setConversionService(conversionService);
+        this.compiledTypeConverter = null;
+    }
+
+    @Override
+    public void addPropertyEditorRegistrar(PropertyEditorRegistrar registrar) {
+        super.addPropertyEditorRegistrar(registrar);
+        this.compiledTypeConverter = null;
+    }
+
+    @Override
+    public void registerCustomEditor(Class<?> requiredType, Class<? extends PropertyEditor> propertyEditorClass) {
+        super.registerCustomEditor(requiredType, propertyEditorClass);
+        this.compiledTypeConverter = null;
+    }
+
+    @Override
+    public void setTypeConverter(TypeConverter typeConverter) {
+        super.setTypeConverter(typeConverter);
+        this.compiledTypeConverter = null;
+    }
+
+    @Override
+    public void setAutowireCandidateResolver(AutowireCandidateResolver autowireCandidateResolver) {
+        super.setAutowireCandidateResolver(autowireCandidateResolver);
+        this.injectionPlans.clear();
+    }
+
+    @Override
+    public void setDependencyComparator(@Nullable Comparator<Object> dependencyComparator) {
+        super.setDependencyComparator(dependencyComparator);
+        this.injectionPlans.clear();
+    }
+
+    //---------------------------------------------------------------------
+    // 注册表变化时维护类型索引与注入计划
+    //---------------------------------------------------------------------
+
+    @Override
+    public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) throws BeanDefinitionStoreException {
+        internAttributes(beanDefinition);
+        doRegisterBeanDefinition(beanName, beanDefinition);
+        this.definitionVersion.incrementAndGet();
+        Class<?> indexType = this.typeIndex.definitionRegistered(beanName, beanDefinition);
+        this.injectionPlans.beanRegistered(beanName, indexType);
+        this.negativeLookups.invalidate();
+        this.definitionCaches.remove(beanName);
+    }
+
+    @Override
+    public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+        doRemoveBeanDefinition(beanName);
+        this.definitionVersion.incrementAndGet();
+        this.typeIndex.definitionRemoved(beanName);
+        this.injectionPlans.candidateChanged(beanName);
+        this.definitionCaches.remove(beanName);
+    }
+
+    private void doRegisterBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+        // 父类只检查本容器中的定义，覆盖模板中的定义时由这里检查并重置
+        boolean overridesTemplate = (isTemplateDefinition(beanName) && !super.containsBeanDefinition(beanName));
+        if (overridesTemplate && !isBeanDefinitionOverridable(beanName)) {
+            throw new BeanDefinitionOverrideException(beanName, beanDefinition, this.template.getBeanDefinition(beanName));
+        }
+        super.registerBeanDefinition(beanName, beanDefinition);
+        if (overridesTemplate) {
+            resetBeanDefinition(beanName);
+        }
+    }
+
+    private void doRemoveBeanDefinition(String beanName) {
+        if (isTemplateDefinition(beanName)) {
+            this.removedTemplateDefinitions.add(beanName);
+            if (super.containsBeanDefinition(beanName)) {
+                super.removeBeanDefinition(beanName);
+            } else {
+                resetBeanDefinition(beanName);
+            }
+        } else {
+            super.removeBeanDefinition(beanName);
+        }
+    }
+
+    @Override
+    public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
+        super.registerSingleton(beanName, singletonObject);
+        this.definitionVersion.incrementAndGet();
+        Class<?> singletonType = this.typeIndex.manualSingletonRegistered(beanName, singletonObject, containsBeanDefinition(beanName));
+        this.injectionPlans.beanRegistered(beanName, singletonType);
+        this.negativeLookups.invalidate();
+    }
+
+    @Override
+    protected void addSingleton(String beanName, Object singletonObject) {
+        super.addSingleton(beanName, singletonObject);
+        this.typeIndex.singletonCreated(beanName, singletonObject);
+    }
+
+    @Override
+    protected void removeSingleton(String beanName) {
+        super.removeSingleton(beanName);
+        BatchRegistrySupport.Scope batch = this.batchRegistry.currentScope();
+        if (batch != null) {
+            batch.singletonRemoved(beanName);
+        } else {
+            this.injectionPlans.candidateChanged(beanName);
+        }
+    }
+
+    @Override
+    public void destroySingleton(String beanName) {
+        super.destroySingleton(beanName);
+        this.typeIndex.singletonDestroyed(beanName);
+    }
+
+    @Override
+    public void destroySingletons() {
+        setSingletonsInDestruction(true);
+        try {
+            this.destruction.destroySingletonsInParallel();
+            // 剩下的(期间新注册的可销毁Bean、没有被依赖关系覆盖的Bean)由父类依次销毁，并清空依赖关系与单例缓存
+            super.destroySingletons();
+        } finally {
+            setSingletonsInDestruction(false);
+            this.destruction.shutdownCallbackExecutor();
+        }
+        this.typeIndex.singletonsDestroyed();
+        this.injectionPlans.clear();
+    }
+
+    @Override
+    public void clearMetadataCache() {
+        BatchRegistrySupport.Scope batch = this.batchRegistry.currentScope();
+        if (batch != null) {
+            // 批量写入期间重建索引的代价与注册表大小成正比，推迟到结束时进行一次
+            batch.deferMetadataCacheClear();
+            return;
+        }
+        super.clearMetadataCache();
+        this.definitionVersion.incrementAndGet();
+        this.templateMergedDefinitions.clear();
+        // primary、autowireCandidate等标记可能已被修改
+        this.injectionPlans.clear();
+        // Bean的类型可能已被修改
+        this.negativeLookups.invalidate();
+        this.definitionCaches.clear();
+        this.sharedMergedDefinitions.clear();
+        // BeanDefinition可能已被BeanFactoryPostProcessor修改，按当前定义刷新索引(保留原有注册顺序)；
+        // fork中没有复制到本容器的模板定义不会被修改
+        for (String beanName : super.getBeanDefinitionNames()) {
+            this.typeIndex.definitionRegistered(beanName, super.getBeanDefinition(beanName));
+            Object singleton = getSingleton(beanName, false);
+            if (singleton != null) {
+                this.typeIndex.singletonCreated(beanName, singleton);
+            }
+        }
+    }
+
+    @Override
+    public void registerResolvableDependency(Class<?> dependencyType, @Nullable Object autowiredValue) {
+        super.registerResolvableDependency(dependencyType, autowiredValue);
+        if (autowiredValue == this) {
+            this.selfResolvableDependencies.add(dependencyType);
+        }
+        this.injectionPlans.resolvableDependencyRegistered(dependencyType);
+    }
+
+    @Override
+    public void registerAlias(String name, String alias) {
+        super.registerAlias(name, alias);
+        this.definitionVersion.incrementAndGet();
+        // 别名参与按注入点名称的回退匹配
+        this.injectionPlans.clear();
+        this.negativeLookups.invalidate();
+    }
+
+    @Override
+    public void removeAlias(String alias) {
+        super.removeAlias(alias);
+        this.definitionVersion.incrementAndGet();
+        this.injectionPlans.clear();
+    }
+
+    @Override
+    public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        super.addBeanPostProcessor(beanPostProcessor);
+        this.typeIndex.postProcessorsChanged();
+        this.mergedDefinitionSharingSafe = null;
+        this.definitionCaches.clearCreationPlans();
+        // predictBeanType可能改变候选的类型匹配结果
+        this.injectionPlans.clear();
+        this.negativeLookups.invalidate();
+    }
+
+    @Override
+    public void addBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors) {
+        super.addBeanPostProcessors(beanPostProcessors);
+        this.typeIndex.postProcessorsChanged();
+        this.mergedDefinitionSharingSafe = null;
+        this.definitionCaches.clearCreationPlans();
+        this.injectionPlans.clear();
+        this.negativeLookups.invalidate();
+    }
+
+    //---------------------------------------------------------------------
+    // 批量注册与移除BeanDefinition
+    //---------------------------------------------------------------------
+
+    /**
+     * 整批检查通过后逐个交给父类写入，覆盖已有定义时父类调用的resetBeanDefinition推迟到最后一并进行
+     */
+    @Override
+    public void registerBeanDefinitions(Collection<BeanDefinitionHolder> beanDefinitions) throws BeanDefinitionStoreException {
+        for (BeanDefinitionHolder holder : beanDefinitions) {
+            internAttributes(holder.getBeanDefinition());
+        }
+        BatchRegistrySupport.Registration registration = this.batchRegistry.check(beanDefinitions);
+        Map<String, BeanDefinition> registered = new LinkedHashMap<>();
+        BatchRegistrySupport.Scope batch = this.batchRegistry.begin();
+        try {
+            registration.definitions().forEach((beanName, beanDefinition) -> {
+                doRegisterBeanDefinition(beanName, beanDefinition);
+                registered.put(beanName, beanDefinition);
+            });
+            registration.aliases().forEach((alias, beanName) -> super.registerAlias(beanName, alias));
+        } finally {
+            endBatch(batch);
+            afterBatchRegistration(registered, !registration.aliases().isEmpty(), batch.getRemovedSingletons());
+        }
+    }
+
+    /**
+     * 先确认全部BeanName都存在，再逐个交给父类移除；查找子定义只在最后遍历一遍注册表
+     */
+    @Override
+    public void removeBeanDefinitions(Collection<String> beanNames) throws NoSuchBeanDefinitionException {
+        Set<String> distinctNames = new LinkedHashSet<>();
+        for (String beanName : beanNames) {
+            Assert.hasText(beanName, "'beanName' must not be empty");
+            if (!containsBeanDefinition(beanName)) {
+                throw new NoSuchBeanDefinitionException(beanName);
+            }
+            distinctNames.add(beanName);
+        }
+        List<String> removed = new ArrayList<>(distinctNames.size());
+        BatchRegistrySupport.Scope batch = this.batchRegistry.begin();
+        try {
+            for (String beanName : distinctNames) {
+                doRemoveBeanDefinition(beanName);
+                removed.add(beanName);
+            }
+        } finally {
+            endBatch(batch);
+            afterBatchRemoval(removed, batch.getRemovedSingletons());
+        }
+    }
+
+    private void endBatch(BatchRegistrySupport.Scope batch) {
+        this.batchRegistry.end(batch);
+        if (batch.isMetadataCacheCleared()) {
+            clearMetadataCache();
+        }
+    }
+
+    private void afterBatchRegistration(Map<String, BeanDefinition> registered, boolean aliasesRegistered, Set<String> removedSingletons) {
+        this.definitionVersion.incrementAndGet();
+        Set<Class<?>> indexTypes = new HashSet<>();
+        boolean untypedDefinition = false;
+        for (Map.Entry<String, BeanDefinition> entry : registered.entrySet()) {
+            String beanName = entry.getKey();
+            Class<?> indexType = this.typeIndex.definitionRegistered(beanName, entry.getValue());
+            if (indexType != null) {
+                indexTypes.add(indexType);
+            } else {
+                untypedDefinition = true;
+            }
+            this.definitionCaches.remove(beanName);
+        }
+        if (aliasesRegistered || untypedDefinition) {
+            this.injectionPlans.clear();
+        } else if (!registered.isEmpty() || !removedSingletons.isEmpty()) {
+            Set<String> changedNames = new HashSet<>(registered.keySet());
+            changedNames.addAll(removedSingletons);
+            this.injectionPlans.beansChanged(changedNames, indexTypes);
+        }
+        this.negativeLookups.invalidate();
+    }
+
+    private void afterBatchRemoval(List<String> removed, Set<String> removedSingletons) {
+        this.definitionVersion.incrementAndGet();
+        Set<String> removedNames = new HashSet<>(removed);
+        removedNames.addAll(removedSingletons);
+        for (String beanName : removed) {
+            this.typeIndex.definitionRemoved(beanName);
+            this.definitionCaches.remove(beanName);
+        }
+        this.injectionPlans.beansChanged(removedNames, Set.of());
+    }
+
+    //---------------------------------------------------------------------
+    // 基于类型索引的按类型查找
+    //---------------------------------------------------------------------
+
+    @Override
+    public String[] getBeanNamesForType(@Nullable Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
+        String[] beanNames = this.typeIndex.getBeanNamesForType(type, ResolvableType.forRawClass(type),
+                includeNonSingletons, allowEagerInit, isFork());
+        return (beanNames != null ? beanNames : super.getBeanNamesForType(type, includeNonSingletons, allowEagerInit));
+    }
+
+    @Override
+    public String[] getBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+        Class<?> resolved = type.resolve();
+        if (resolved != null && !type.hasGenerics()) {
+            return getBeanNamesForType(resolved, includeNonSingletons, allowEagerInit);
+        }
+        // 带泛型的类型：先按原始类型取候选，再由isTypeMatch按完整的ResolvableType确认
+        String[] beanNames = this.typeIndex.getBeanNamesForType(resolved, type, includeNonSingletons, allowEagerInit, isFork());
+        return (beanNames != null ? beanNames : super.getBeanNamesForType(type, includeNonSingletons, allowEagerInit));
+    }
+
+    //---------------------------------------------------------------------
+    // 基于编译期注解索引的按注解查找
+    //---------------------------------------------------------------------
+
+    @Override
+    public String[] getBeanNamesForAnnotation(Class<? extends Annotation> annotationType) {
+        BeanAnnotationIndex index = getUsableAnnotationIndex();
+        if (index == null && this.template == null) {
+            return super.getBeanNamesForAnnotation(annotationType);
+        }
+        // 候选：稳定类型被索引标记为带有该注解的Bean + 稳定类型不在索引中的Bean + 类型无法提前确定的Bean；
+        // 没有注解索引的fork逐个确认全部Bean(父类只遍历本容器中的定义)
+        Predicate<String> typeNameFilter = typeName -> true;
+        if (index != null) {
+            Set<String> annotatedClasses = index.getClassesWithAnnotation(annotationType);
+            typeNameFilter = typeName -> annotatedClasses.contains(typeName) || !index.contains(typeName);
+        }
+        List<String> result = new ArrayList<>();
+        for (BeanTypeIndex.Candidate candidate : this.typeIndex.getIndex().candidatesByTypeName(typeNameFilter)) {
+            String beanName = candidate.beanName();
+            try {
+                if (!candidate.manualSingleton() && getRawBeanDefinition(beanName).isAbstract()) {
+                    continue;
+                }
+            } catch (NoSuchBeanDefinitionException ex) {
+                // Bean definition got removed while we were iterating -> ignore.
+                continue;
+            }
+            if (findAnnotationOnBean(beanName, annotationType) != null) {
+                result.add(beanName);
+            }
+        }
+        return StringUtils.toStringArray(result);
+    }
+
+    @Override
+    @Nullable
+    public <A extends Annotation> A findAnnotationOnBean(String beanName, Class<A> annotationType, boolean allowFactoryBeanInit)
+            throws NoSuchBeanDefinitionException {
+        MergedAnnotations annotations = getIndexedAnnotations(beanName);
+        if (annotations == null) {
+            return super.findAnnotationOnBean(beanName, annotationType, allowFactoryBeanInit);
+        }
+        MergedAnnotation<A> annotation = annotations.get(annotationType);
+        return (annotation.isPresent() ? annotation.synthesize() : null);
+    }
+
+    @Override
+    public <A extends Annotation> Set<A> findAllAnnotationsOnBean(String beanName, Class<A> annotationType, boolean allowFactoryBeanInit)
+            throws NoSuchBeanDefinitionException {
+        MergedAnnotations annotations = getIndexedAnnotations(beanName);
+        if (annotations == null) {
+            return super.findAllAnnotationsOnBean(beanName, annotationType, allowFactoryBeanInit);
+        }
+        Set<A> result = new LinkedHashSet<>();
+        annotations.stream(annotationType)
+                .filter(MergedAnnotation::isPresent)
+                .forEach(mergedAnnotation -> result.add(mergedAnnotation.synthesize()));
+        return result;
+    }
+
+    /**
+     * 本容器中类型稳定、且类型在注解索引中的Bean，返回索引还原的注解；
+     * FactoryBean本身(&前缀)、父容器中的Bean、类型可能变化的Bean返回null，由父类反射查找
+     */
+    @Nullable
+    private MergedAnnotations getIndexedAnnotations(String name) {
+        if (BeanFactoryUtils.isFactoryDereference(name)) {
+            return null;
+        }
+        BeanAnnotationIndex index = getUsableAnnotationIndex();
+        if (index == null) {
+            return null;
+        }
+        Class<?> stableType = this.typeIndex.getIndex().getStableType(canonicalName(name));
+        return (stableType != null ? index.getAnnotations(stableType.getName()) : null);
+    }
+
+    @Nullable
+    private BeanAnnotationIndex getUsableAnnotationIndex() {
+        if (!this.annotationIndexEnabled || !this.typeIndex.isTypePredictionSafe()) {
+            return null;
+        }
+        BeanAnnotationIndex index = this.annotationIndex;
+        if (index == null) {
+            index = BeanAnnotationIndex.load(getBeanClassLoader());
+            this.annotationIndex = index;
+        }
+        return (index.isEmpty() ? null : index);
+    }
+
+    //---------------------------------------------------------------------
+    // 并行预实例化与分段加锁的单例创建
+    //---------------------------------------------------------------------
+
+    @Override
+    public void preInstantiateSingletons() throws BeansException {
+        Executor executor = this.preInstantiationExecutor;
+        if (executor == null && this.template == null) {
+            super.preInstantiateSingletons();
+            return;
+        }
+        List<String> beanNames = new ArrayList<>(Arrays.asList(getBeanDefinitionNames()));
+        List<String> eagerSingletons = new ArrayList<>();
+        for (String beanName : beanNames) {
+            RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+            if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+                eagerSingletons.add(beanName);
+            }
+        }
+        if (executor == null) {
+            // fork：父类只遍历本容器中的定义，按同样的顺序逐个创建包括模板在内的全部单例
+            eagerSingletons.forEach(this::preInstantiateSingleton);
+            invokeSmartInitializingSingletons(beanNames);
+            return;
+        }
+        SingletonDependencyGraph graph = SingletonDependencyGraph.build(this, eagerSingletons);
+        PreInstantiationReport report;
+        SingletonCreationGuard permanentGuard = this.creationGuard;
+        if (permanentGuard == null) {
+            this.creationGuard = new SingletonCreationGuard();
+        }
+        try {
+            report = PreInstantiationReport.of(new DependencyOrderedExecutor(graph, DependencyOrderedExecutor.Direction.DEPENDENCIES_FIRST,
+                    executor, this::preInstantiateSingleton).execute());
+        } finally {
+            this.creationGuard = permanentGuard;
+        }
+        this.lastPreInstantiationReport = report;
+        if (logger.isInfoEnabled()) {
+            logger.info(report);
+        }
+        invokeSmartInitializingSingletons(beanNames);
+    }
+
+    private void invokeSmartInitializingSingletons(List<String> beanNames) {
+        // Trigger post-initialization callback for all applicable beans...
+        for (String beanName : beanNames) {
+            Object singletonInstance = getSingleton(beanName);
+            if (singletonInstance instanceof SmartInitializingSingleton smartSingleton) {
+                StartupStep smartInitialize = getApplicationStartup().start("spring.beans.smart-initialize")
+                        .tag("beanName", beanName);
+                smartSingleton.afterSingletonsInstantiated();
+                smartInitialize.end();
+            }
+        }
+    }
+
+    private void preInstantiateSingleton(String beanName) {
+        if (isFactoryBean(beanName)) {
+            Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+            if (bean instanceof SmartFactoryBean<?> smartFactoryBean && smartFactoryBean.isEagerInit()) {
+                getBean(beanName);
+            }
+        } else {
+            getBean(beanName);
+        }
+    }
+
+    /**
+     * 分段加锁模式或并行预实例化期间不持有singletonObjects全局锁创建单例，由SingletonCreationGuard保证每个单例只创建一次
+     */
+    @Override
+    public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+        SingletonCreationGuard guard = this.creationGuard;
+        if (guard == null) {
+            // 并行销毁阶段父类的标记还没有设置
+            if (isSingletonsInDestruction() && !containsSingleton(beanName)) {
+                throw creationNotAllowedInDestruction(beanName);
+            }
+            return super.getSingleton(beanName, singletonFactory);
+        }
+        return guard.execute(beanName, () -> createSingleton(beanName, singletonFactory), () -> {
+            // 两个线程相互等待：与单线程下的循环依赖一样使用早期引用
+            Object earlyReference = super.getSingleton(beanName, true);
+            if (earlyReference == null) {
+                throw new BeanCurrentlyInCreationException(beanName,
+                        "Requested bean is currently in creation on another thread: Is there an unresolvable circular reference?");
+            }
+            return earlyReference;
+        });
+    }
+
+    /**
+     * 其他线程正在创建的Bean不向当前线程暴露早期引用，而是在getSingleton(String, ObjectFactory)中等待其创建完成
+     */
+    @Override
+    @Nullable
+    protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+        SingletonCreationGuard guard = this.creationGuard;
+        if (guard != null && guard.isCreatedByOtherThread(beanName)) {
+            return (containsSingleton(beanName) ? super.getSingleton(beanName, false) : null);
+        }
+        return super.getSingleton(beanName, allowEarlyReference);
+    }
+
+    /**
+     * 分段加锁模式或并行预实例化期间FactoryBean单例产物的创建与缓存同样不持有singletonObjects全局锁，
+     * 改为按BeanName加锁(锁的键带FactoryBean前缀，与FactoryBean本身的创建分开)；等待会形成线程间等待环时抛出BeanCurrentlyInCreationException
+     */
+    @Override
+    protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+        if (factory.isSingleton() && containsSingleton(beanName)) {
+            Object object = getCachedObjectForFactoryBean(beanName);
+            if (object != null) {
+                return object;
+            }
+            SingletonCreationGuard guard = this.creationGuard;
+            if (guard != null) {
+                return guard.execute(FACTORY_BEAN_PREFIX + beanName,
+                        () -> createFactoryBeanObject(factory, beanName, shouldPostProcess), () -> {
+                            throw new BeanCurrentlyInCreationException(beanName,
+                                    "FactoryBean object is currently in creation on another thread: Is there an unresolvable circular reference?");
+                        });
+            }
+        }
+        return super.getObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+    }
+
+    //---------------------------------------------------------------------
+    // 并行销毁单例与销毁回调超时
+    //---------------------------------------------------------------------
+
+    /**
+     * 单例的销毁回调(由父类在销毁依赖它的Bean之后调用)，超时与问题记录见 {@link DestructionSupport}
+     */
+    @Override
+    protected void destroyBean(String beanName, @Nullable DisposableBean bean) {
+        super.destroyBean(beanName, this.destruction.singletonCallback(beanName, bean));
+    }
+
+    /**
+     * destroyBean(String, Object)销毁prototype等非单例Bean，父类的DisposableBeanAdapter自行记录回调抛出的异常
+     */
+    @Override
+    protected void destroyBean(String beanName, Object bean, RootBeanDefinition mbd) {
+        this.destruction.destroyNonSingleton(beanName, () -> super.destroyBean(beanName, bean, mbd));
+    }
+
+    //---------------------------------------------------------------------
+    // 非单例Bean的编译创建
+    //---------------------------------------------------------------------
+
+    /**
+     * 父类每创建一个prototype都要设置并移除一次ThreadLocal(移除时清除弱引用)，这里改为线程内保留的数组，只增减计数
+     */
+    @Override
+    protected boolean isPrototypeCurrentlyInCreation(String beanName) {
+        return this.prototypeCreation.isCurrentlyInCreation(beanName);
+    }
+
+    @Override
+    protected void beforePrototypeCreation(String beanName) {
+        this.prototypeCreation.beforeCreation(beanName);
+    }
+
+    @Override
+    protected void afterPrototypeCreation(String beanName) {
+        this.prototypeCreation.afterCreation(beanName);
+    }
+
+    @Override
+    protected BeanWrapper createBeanInstance(String beanName, RootBeanDefinition mbd, @Nullable Object[] args) {
+        StartupStep step = startBeanStep(STEP_CREATE_INSTANCE, beanName, "create-instance");
+        BeanWrapper bw;
+        if (step == null) {
+            bw = createBeanInstanceWithPlan(beanName, mbd, args);
+        } else {
+            try {
+                bw = createBeanInstanceWithPlan(beanName, mbd, args);
+            } finally {
+                step.end();
+            }
+        }
+        this.typeIndex.instanceCreated(beanName, bw.getWrappedClass());
+        return bw;
+    }
+
+    private BeanWrapper createBeanInstanceWithPlan(String beanName, RootBeanDefinition mbd, @Nullable Object[] args) {
+        PrototypeCreationPlan plan = getPrototypeCreationPlan(beanName, mbd);
+        PrototypeCreationPlan.Instantiator instantiator = null;
+        if (plan != null && (ObjectUtils.isEmpty(args)
+                || determineConstructorsFromBeanPostProcessors(plan.getBeanClass(), beanName) == null)) {
+            // 带实参时与父类一样每次按当前BeanName询问BeanPostProcessor，给出候选构造器时由父类在其中选择
+            instantiator = plan.getInstantiator(args);
+        }
+        if (instantiator == null) {
+            BeanWrapper bw = super.createBeanInstance(beanName, mbd, args);
+            postProcessSharedDefinition(beanName, mbd, bw.getWrappedClass());
+            return bw;
+        }
+        Object beanInstance;
+        try {
+            beanInstance = instantiator.newInstance(args);
+        } catch (Throwable ex) {
+            // 与BeanUtils.instantiateClass包装构造器异常的方式一致
+            BeanInstantiationException cause = new BeanInstantiationException(plan.getBeanClass(), "Constructor threw exception", ex);
+            throw new BeanCreationException(mbd.getResourceDescription(), beanName, cause.getMessage(), cause);
+        }
+        BeanWrapper bw = new BeanWrapperImpl(beanInstance);
+        initBeanWrapper(bw);
+        postProcessSharedDefinition(beanName, mbd, bw.getWrappedClass());
+        return bw;
+    }
+
+    @Override
+    protected void invokeCustomInitMethod(String beanName, Object bean, RootBeanDefinition mbd, String initMethodName)
+            throws Throwable {
+        PrototypeCreationPlan plan = getPrototypeCreationPlan(beanName, mbd);
+        PrototypeCreationPlan.InitInvoker invoker = (plan != null ? plan.getInitInvoker(bean, initMethodName, mbd.isNonPublicAccessAllowed()) : null);
+        if (invoker == null) {
+            // 方法不存在(是否报错取决于enforceInitMethod)、全限定方法名或无法编译时交给父类
+            super.invokeCustomInitMethod(beanName, bean, mbd, initMethodName);
+            return;
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Invoking init method '" + initMethodName + "' on bean with name '" + beanName + "'");
+        }
+        invoker.invoke(bean);
+    }
+
+    @Nullable
+    private PrototypeCreationPlan getPrototypeCreationPlan(String beanName, RootBeanDefinition mbd) {
+        if (!this.prototypeCreation.isEnabled() || mbd.isSingleton()) {
+            return null;
+        }
+        return this.prototypeCreation.getPlan(beanName, mbd, this.definitionCaches.obtain(beanName, mbd));
+    }
+
+    //---------------------------------------------------------------------
+    // 注入计划
+    //---------------------------------------------------------------------
+
+    @Override
+    @Nullable
+    public Object doResolveDependency(DependencyDescriptor descriptor, @Nullable String beanName,
+                                      @Nullable Set<String> autowiredBeanNames, @Nullable TypeConverter typeConverter) throws BeansException {
+        return this.injectionPlans.resolve(descriptor, beanName, autowiredBeanNames, typeConverter);
+    }
+
+    //---------------------------------------------------------------------
+    // 父子容器的未命中查找缓存
+    //---------------------------------------------------------------------
+
+    @Override
+    public Object getBean(String name) throws BeansException {
+        if (!this.negativeLookups.isActive(name)) {
+            return super.getBean(name);
+        }
+        long version = this.negativeLookups.check(name);
+        try {
+            return super.getBean(name);
+        } catch (NoSuchBeanDefinitionException ex) {
+            this.negativeLookups.namedMiss(name, ex, version);
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> T getBean(String name, Class<T> requiredType) throws BeansException {
+        if (!this.negativeLookups.isActive(name)) {
+            return super.getBean(name, requiredType);
+        }
+        long version = this.negativeLookups.check(name);
+        try {
+            return super.getBean(name, requiredType);
+        } catch (NoSuchBeanDefinitionException ex) {
+            this.negativeLookups.namedMiss(name, ex, version);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Object getBean(String name, Object... args) throws BeansException {
+        if (!this.negativeLookups.isActive(name)) {
+            return super.getBean(name, args);
+        }
+        long version = this.negativeLookups.check(name);
+        try {
+            return super.getBean(name, args);
+        } catch (NoSuchBeanDefinitionException ex) {
+            this.negativeLookups.namedMiss(name, ex, version);
+            throw ex;
+        }
+    }
+
+    @Override
+    public <T> T getBean(String name, @Nullable Class<T> requiredType, @Nullable Object... args) throws BeansException {
+        if (!this.negativeLookups.isActive(name)) {
+            return super.getBean(name, requiredType, args);
+        }
+        long version = this.negativeLookups.check(name);
+        try {
+            return super.getBean(name, requiredType, args);
+        } catch (NoSuchBeanDefinitionException ex) {
+            this.negativeLookups.namedMiss(name, ex, version);
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean containsBean(String name) {
+        if (!this.negativeLookups.isActive(name)) {
+            return super.containsBean(name);
+        }
+        long version = this.negativeLookups.currentVersion();
+        if (this.negativeLookups.isMissing(name, version)) {
+            return false;
+        }
+        if (super.containsBean(name)) {
+            return true;
+        }
+        this.negativeLookups.record(name, transformedBeanName(name), version);
+        return false;
+    }
+
+    @Override
+    public <T> ObjectProvider<T> getBeanProvider(ResolvableType requiredType, boolean allowEagerInit) {
+        ObjectProvider<T> provider = super.getBeanProvider(requiredType, allowEagerInit);
+        return this.negativeLookups.wrap(provider, requiredType);
+    }
+
+    /**
+     * 父容器变化后登记为父容器的子容器，以接收祖先容器的失效通知
+     */
+    private void linkParentBeanFactory() {
+        this.negativeLookups.parentChanged(getParentBeanFactory() instanceof OptimizedListableBeanFactory optimizedParent
+                ? optimizedParent.negativeLookups : null);
+    }
+
+    //---------------------------------------------------------------------
+    // 运行期访问统计
+    //---------------------------------------------------------------------
+
+    /**
+     * getBean的各个重载、依赖注入与ObjectProvider最终都经过doGetBean；只记录存在的Bean，查找不存在的名称不增加记录
+     */
+    @Override
+    protected <T> T doGetBean(String name, @Nullable Class<T> requiredType, @Nullable Object[] args, boolean typeCheckOnly)
+            throws BeansException {
+        BeanAccessMetrics metrics = this.accessMetrics;
+        if (metrics == null || typeCheckOnly) {
+            return super.doGetBean(name, requiredType, args, typeCheckOnly);
+        }
+        String beanName = transformedBeanName(name);
+        BeanAccessRecorder recorder = metrics.getRecorder(beanName);
+        if (recorder == null) {
+            if (!containsBean(beanName)) {
+                return super.doGetBean(name, requiredType, args, false);
+            }
+            recorder = metrics.obtainRecorder(beanName);
+        }
+        long start = recorder.startLookup(metrics.getSamplingMask());
+        boolean failed = true;
+        try {
+            T bean = super.doGetBean(name, requiredType, args, false);
+            failed = false;
+            return bean;
+        } finally {
+            recorder.endLookup(start, failed);
+        }
+    }
+
+    @Override
+    protected Object createBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args) throws BeanCreationException {
+        BeanAccessMetrics metrics = this.accessMetrics;
+        if (metrics == null) {
+            return super.createBean(beanName, mbd, args);
+        }
+        BeanAccessRecorder recorder = metrics.obtainRecorder(beanName);
+        long start = recorder.startCreation(metrics.getSamplingMask());
+        boolean failed = true;
+        try {
+            Object bean = super.createBean(beanName, mbd, args);
+            failed = false;
+            return bean;
+        } finally {
+            recorder.endCreation(start, failed);
+        }
+    }
+
+    /**
+     * 读取统计时的当前作用域：手动注册的单例为singleton，只存在于父容器中的为parent，已不存在的为null
+     */
+    @Nullable
+    private String resolveScopeForMetrics(String beanName) {
+        if (containsBeanDefinition(beanName)) {
+            try {
+                String scope = getMergedLocalBeanDefinition(beanName).getScope();
+                return (StringUtils.hasLength(scope) ? scope : SCOPE_SINGLETON);
+            } catch (BeansException ex) {
+                return null;
+            }
+        }
+        if (containsSingleton(beanName)) {
+            return SCOPE_SINGLETON;
+        }
+        return (containsBean(beanName) ? "parent" : null);
+    }
+
+    //---------------------------------------------------------------------
+    // 写时复制的容器分叉
+    //---------------------------------------------------------------------
+
+    /**
+     * 以当前注册表为模板创建租户容器：复制配置(copyConfigurationFrom)、父容器、别名与手动注册的单例，
+     * BeanDefinition与类型索引和模板及其他fork共享，创建开销与注册表规模无关(快照在模板注册表变化后的第一次fork时生成)
+     * -- 模板应当已完成配置(BeanFactoryPostProcessor已执行)；模板之后通过registerBeanDefinition替换的定义只对之后的fork生效，
+     *    原地修改模板中的BeanDefinition则会被已有的fork看到
+     * -- fork中的单例、合并后的BeanDefinition、注入计划等运行期状态各自独立，模板中已创建的单例不会带到fork中
+     * -- 模板中手动注册的单例(registerSingleton，如Environment、应用自己注册的对象)不复制，同一个实例注册到所有fork，
+     *    因此应当是无状态或线程安全的；fork销毁时不会调用它们的销毁方法。需要按租户隔离时，在fork中先destroySingleton(name)
+     *    再registerSingleton租户自己的实例，或改为注册BeanDefinition(每个fork各自创建)
+     */
+    public OptimizedListableBeanFactory fork() {
+        BeanDefinitionSnapshot snapshot = getDefinitionSnapshot();
+        OptimizedListableBeanFactory fork = new OptimizedListableBeanFactory(snapshot);
+        BeanFactory parent = getParentBeanFactory();
+        if (parent != null) {
+            fork.setParentBeanFactory(parent);
+        }
+        fork.copyConfigurationFrom(this);
+        fork.rebindPostProcessors();
+        snapshot.getAliases().forEach((alias, beanName) -> fork.registerAlias(beanName, alias));
+        snapshot.getManualSingletons().forEach(fork::registerSingleton);
+        return fork;
+    }
+
+    /**
+     * 是否为fork()创建的容器
+     */
+    public boolean isFork() {
+        return this.template != null;
+    }
+
+    /**
+     * 在父类的基础上复制本类的开关与设置；父类复制的可解析依赖中指向原容器自身的(如BeanFactory)改为指向本容器
+     */
+    @Override
+    public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
+        super.copyConfigurationFrom(otherFactory);
+        if (otherFactory instanceof OptimizedListableBeanFactory other) {
+            this.typeIndex.setEnabled(other.typeIndex.isEnabled());
+            this.annotationIndexEnabled = other.annotationIndexEnabled;
+            if (other.getBeanClassLoader() == getBeanClassLoader()) {
+                this.annotationIndex = other.annotationIndex;
+            }
+            this.preInstantiationExecutor = other.preInstantiationExecutor;
+            setDestructionExecutor(other.getDestructionExecutor());
+            setDestructionTimeout(other.getDestructionTimeout());
+            setStripedSingletonCreationEnabled(other.stripedSingletonCreationEnabled);
+            setCompiledPrototypeCreationEnabled(other.isCompiledPrototypeCreationEnabled());
+            setPostProcessorFilteringEnabled(other.isPostProcessorFilteringEnabled());
+            setInjectionPlanCachingEnabled(other.isInjectionPlanCachingEnabled());
+            setNegativeLookupCachingEnabled(other.isNegativeLookupCachingEnabled());
+            this.compiledPropertyConversionEnabled = other.compiledPropertyConversionEnabled;
+            setSharedMergedDefinitionsEnabled(other.sharedMergedDefinitionsEnabled);
+            setAccessMetricsEnabled(other.accessMetrics != null);
+            for (Class<?> dependencyType : other.selfResolvableDependencies) {
+                registerResolvableDependency(dependencyType, this);
+            }
+        }
+        // 父类直接修改了处理器列表，并直接复制了ConversionService、PropertyEditor与TypeConverter
+        this.typeIndex.postProcessorsChanged();
+        this.mergedDefinitionSharingSafe = null;
+        this.definitionCaches.clearCreationPlans();
+        this.compiledTypeConverter = null;
+        this.injectionPlans.clear();
+        this.negativeLookups.invalidate();
+    }
+
+    @Override
+    public boolean containsBeanDefinition(String beanName) {
+        return super.containsBeanDefinition(beanName) || isTemplateDefinition(beanName);
+    }
+
+    /**
+     * 模板中的定义由所有fork共享，返回 {@link TemplateBeanDefinitionView}：只读取时不复制，调用方第一次修改时才复制到本容器
+     */
+    @Override
+    public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+        BeanDefinition shared = getSharedTemplateDefinition(beanName);
+        return (shared != null ? new TemplateBeanDefinitionView(beanName, shared, this::copyTemplateDefinition)
+                : super.getBeanDefinition(beanName));
+    }
+
+    @Override
+    public int getBeanDefinitionCount() {
+        BeanDefinitionSnapshot template = this.template;
+        if (template == null) {
+            return super.getBeanDefinitionCount();
+        }
+        int count = template.size() - this.removedTemplateDefinitions.size();
+        for (String beanName : super.getBeanDefinitionNames()) {
+            if (!isTemplateDefinition(beanName)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 模板中的定义按模板的顺序在前(本容器覆盖的保持原位置)，之后是本容器新注册的定义
+     */
+    @Override
+    public String[] getBeanDefinitionNames() {
+        BeanDefinitionSnapshot template = this.template;
+        if (template == null) {
+            return super.getBeanDefinitionNames();
+        }
+        String[] localNames = super.getBeanDefinitionNames();
+        List<String> beanNames = new ArrayList<>(template.size() + localNames.length);
+        for (String beanName : template.getBeanDefinitionNames()) {
+            if (!this.removedTemplateDefinitions.contains(beanName)) {
+                beanNames.add(beanName);
+            }
+        }
+        for (String beanName : localNames) {
+            if (!isTemplateDefinition(beanName)) {
+                beanNames.add(beanName);
+            }
+        }
+        return StringUtils.toStringArray(beanNames);
+    }
+
+    @Override
+    public Iterator<String> getBeanNamesIterator() {
+        if (this.template == null) {
+            return super.getBeanNamesIterator();
+        }
+        Set<String> beanNames = new LinkedHashSet<>(Arrays.asList(getBeanDefinitionNames()));
+        // 父类给出本容器中的定义与手动注册的单例
+        super.getBeanNamesIterator().forEachRemaining(beanNames::add);
+        return Collections.unmodifiableSet(beanNames).iterator();
+    }
+
+    /**
+     * 模板中的定义在每个fork中各自合并，合并结果与父类一样按BeanName缓存，在clearMergedBeanDefinition、clearMetadataCache时失效；
+     * 开启共享合并结果时，满足条件的定义(含模板中的)改为取形状相同的共享结果
+     */
+    @Override
+    protected RootBeanDefinition getMergedLocalBeanDefinition(String beanName) throws BeansException {
+        SharedMergedDefinitions.Entry sharedEntry = obtainSharedMergedDefinition(beanName);
+        if (sharedEntry != null) {
+            return sharedEntry.getMergedDefinition();
+        }
+        if (this.template == null) {
+            return super.getMergedLocalBeanDefinition(beanName);
+        }
+        RootBeanDefinition mbd = this.templateMergedDefinitions.get(beanName);
+        if (mbd != null) {
+            return mbd;
+        }
+        BeanDefinition shared = getSharedTemplateDefinition(beanName);
+        if (shared == null) {
+            return super.getMergedLocalBeanDefinition(beanName);
+        }
+        mbd = getMergedBeanDefinition(beanName, shared);
+        if (isCacheBeanMetadata()) {
+            this.templateMergedDefinitions.put(beanName, mbd);
+        }
+        return mbd;
+    }
+
+    @Override
+    protected void clearMergedBeanDefinition(String beanName) {
+        super.clearMergedBeanDefinition(beanName);
+        this.templateMergedDefinitions.remove(beanName);
+        this.sharedMergedDefinitions.remove(beanName);
+    }
+
+    @Override
+    protected void resetBeanDefinition(String beanName) {
+        if (beanName.equals(this.copyingTemplateDefinition)) {
+            return;
+        }
+        BatchRegistrySupport.Scope batch = this.batchRegistry.currentScope();
+        if (batch != null) {
+            batch.deferReset(beanName);
+            return;
+        }
+        super.resetBeanDefinition(beanName);
+    }
+
+    private boolean isTemplateDefinition(String beanName) {
+        BeanDefinitionSnapshot template = this.template;
+        return (template != null && template.contains(beanName) && !this.removedTemplateDefinitions.contains(beanName));
+    }
+
+    /**
+     * 尚未复制到本容器、也没有被移除的模板定义
+     */
+    @Nullable
+    private BeanDefinition getSharedTemplateDefinition(String beanName) {
+        BeanDefinitionSnapshot template = this.template;
+        if (template == null || super.containsBeanDefinition(beanName) || this.removedTemplateDefinitions.contains(beanName)) {
+            return null;
+        }
+        return template.getBeanDefinition(beanName);
+    }
+
+    /**
+     * 只读取、不触发写时复制，供容器内部的判断使用
+     */
+    private BeanDefinition getRawBeanDefinition(String beanName) {
+        BeanDefinition shared = getSharedTemplateDefinition(beanName);
+        return (shared != null ? shared : super.getBeanDefinition(beanName));
+    }
+
+    /**
+     * 复制前后内容相同，已合并的BeanDefinition与已创建的单例保持不变；
+     * 与修改DefaultListableBeanFactory中的定义一样，对副本的修改在clearMetadataCache()之后生效
+     */
+    private BeanDefinition copyTemplateDefinition(String beanName, BeanDefinition shared) {
+        synchronized (this.removedTemplateDefinitions) {
+            if (super.containsBeanDefinition(beanName)) {
+                return super.getBeanDefinition(beanName);
+            }
+            BeanDefinition copy = (shared instanceof AbstractBeanDefinition abd ? abd.cloneBeanDefinition() : new GenericBeanDefinition(shared));
+            this.copyingTemplateDefinition = beanName;
+            try {
+                super.registerBeanDefinition(beanName, copy);
+            } finally {
+                this.copyingTemplateDefinition = null;
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * BeanFactoryAware的处理器(如AutowiredAnnotationBeanPostProcessor)通过持有的容器解析依赖，并按容器缓存注入元数据，
+     * 与模板共享会把依赖解析到模板中，按 {@link ForkedPostProcessors} 的规则换成绑定到本容器的实例
+     */
+    private void rebindPostProcessors() {
+        ForkedPostProcessors.rebind(getBeanPostProcessors(), this);
+        this.typeIndex.postProcessorsChanged();
+        this.mergedDefinitionSharingSafe = null;
+    }
+
+    /**
+     * 模板注册表没有变化时所有fork共享同一份快照
+     */
+    private BeanDefinitionSnapshot getDefinitionSnapshot() {
+        long version = this.definitionVersion.get();
+        BeanDefinitionSnapshot snapshot = this.definitionSnapshot;
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+        String[] beanNames = getBeanDefinitionNames();
+        Map<String, BeanDefinition> definitions = new HashMap<>((int) (beanNames.length / 0.75f) + 1);
+        Map<String, String> aliases = new LinkedHashMap<>();
+        for (String beanName : beanNames) {
+            definitions.put(beanName, getRawBeanDefinition(beanName));
+            for (String alias : getAliases(beanName)) {
+                aliases.put(alias, beanName);
+            }
+        }
+        Map<String, Object> manualSingletons = new LinkedHashMap<>();
+        for (Iterator<String> it = getBeanNamesIterator(); it.hasNext(); ) {
+            String beanName = it.next();
+            Object singleton = (definitions.containsKey(beanName) ? null : getSingleton(beanName, false));
+            if (singleton != null) {
+                manualSingletons.put(beanName, singleton);
+                for (String alias : getAliases(beanName)) {
+                    aliases.put(alias, beanName);
+                }
+            }
+        }
+        snapshot = new BeanDefinitionSnapshot(version, beanNames, definitions, aliases, manualSingletons, this.typeIndex.getIndex().snapshot());
+        this.definitionSnapshot = snapshot;
+        return snapshot;
+    }
+
+    //---------------------------------------------------------------------
+    // 共享合并后的BeanDefinition
+    //---------------------------------------------------------------------
+
+    /**
+     * 关闭、不缓存元数据、存在会改变实例化结果的处理器或定义不满足共享条件时返回null，由父类按BeanName各自合并
+     */
+    @Nullable
+    private SharedMergedDefinitions.Entry obtainSharedMergedDefinition(String beanName) {
+        if (!this.sharedMergedDefinitionsEnabled || !isCacheBeanMetadata() || !isMergedDefinitionSharingSafe()) {
+            return null;
+        }
+        SharedMergedDefinitions.Entry entry = this.sharedMergedDefinitions.get(beanName);
+        return (entry != null ? entry : this.sharedMergedDefinitions.obtain(beanName, getRawBeanDefinition(beanName)));
+    }
+
+    /**
+     * mbd是beanName当前使用的共享合并结果时返回其共享条目
+     */
+    @Nullable
+    private SharedMergedDefinitions.Entry getSharedEntry(String beanName, RootBeanDefinition mbd) {
+        SharedMergedDefinitions.Entry entry = this.sharedMergedDefinitions.get(beanName);
+        return (entry != null && entry.getMergedDefinition() == mbd ? entry : null);
+    }
+
+    /**
+     * 父类在合并结果上只执行一次MergedBeanDefinitionPostProcessor(mbd.postProcessed)，
+     * 共享的合并结果改为对每个BeanName各执行一次(处理器可能按BeanName记录状态，如ApplicationListenerDetector)，再标记为已处理，使父类跳过。
+     * 第一个BeanName在共享结果上执行；之后的BeanName在一次性的副本上执行：处理器会把处理过的注入点、init/destroy方法
+     * 登记到合并结果上(registerExternallyManagedConfigMember等)，并跳过已登记的，在共享结果上重复执行会使之后的Bean不再注入
+     */
+    private void postProcessSharedDefinition(String beanName, RootBeanDefinition mbd, Class<?> beanType) {
+        SharedMergedDefinitions.Entry entry = getSharedEntry(beanName, mbd);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.markPostProcessed(beanName)) {
+                try {
+                    if (entry.getCaches().postProcessed == null) {
+                        applyMergedBeanDefinitionPostProcessors(mbd, beanType, beanName);
+                    } else {
+                        super.applyMergedBeanDefinitionPostProcessors(new RootBeanDefinition(mbd), beanType, beanName);
+                    }
+                } catch (Throwable ex) {
+                    throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+                            "Post-processing of merged bean definition failed", ex);
+                }
+            }
+            mbd.markAsPostProcessed();
+        }
+    }
+
+    private void internAttributes(BeanDefinition beanDefinition) {
+        if (this.sharedMergedDefinitionsEnabled && beanDefinition instanceof AbstractBeanDefinition abd) {
+            this.sharedMergedDefinitions.internAttributes(abd);
+        }
+    }
+
+    /**
+     * 父类在合并结果上缓存postProcessBeforeInstantiation是否返回了实例(beforeInstantiationResolved)，
+     * 共享后一个Bean的结果会被形状相同的其他Bean沿用，因此存在重写了该方法的处理器时不共享
+     * (CommonAnnotationBeanPostProcessor的实现总是返回null，不受影响)
+     */
+    private boolean isMergedDefinitionSharingSafe() {
+        Boolean safe = this.mergedDefinitionSharingSafe;
+        if (safe == null) {
+            safe = true;
+            for (BeanPostProcessor beanPostProcessor : getBeanPostProcessors()) {
+                if (beanPostProcessor instanceof InstantiationAwareBeanPostProcessor) {
+                    Method beforeInstantiation = ReflectionUtils.findMethod(beanPostProcessor.getClass(),
+                            "postProcessBeforeInstantiation", Class.class, String.class);
+                    if (beforeInstantiation != null && beforeInstantiation.getDeclaringClass() != InstantiationAwareBeanPostProcessor.class
+                            && beforeInstantiation.getDeclaringClass() != CommonAnnotationBeanPostProcessor.class) {
+                        safe = false;
+                        break;
+                    }
+                }
+            }
+            this.mergedDefinitionSharingSafe = safe;
+        }
+        return safe;
+    }
+
+    //---------------------------------------------------------------------
+    // 编译缓存的属性值转换
+    //---------------------------------------------------------------------
+
+    /**
+     * 开启编译转换时返回 {@link CompiledTypeConverter}：ConstructorResolver、BeanDefinitionValueResolver、autowireByType
+     * 以及getTypeConverter()(@Value等依赖解析)都使用同一个线程安全的转换器，不再每次新建SimpleTypeConverter
+     */
+    @Override
+    @Nullable
+    protected TypeConverter getCustomTypeConverter() {
+        return (this.compiledPropertyConversionEnabled ? obtainCompiledTypeConverter() : super.getCustomTypeConverter());
+    }
+
+    private CompiledTypeConverter obtainCompiledTypeConverter() {
+        CompiledTypeConverter converter = this.compiledTypeConverter;
+        if (converter == null) {
+            // 并发时可能各自编译一份，以最后写入的为准
+            converter = new CompiledTypeConverter(getConversionService(), super.getCustomTypeConverter(), this::registerCustomEditors);
+            this.compiledTypeConverter = converter;
+        }
+        return converter;
+    }
+
+    /**
+     * 开启编译转换时BeanWrapper不再逐个注册PropertyEditor(PropertyEditorRegistrar与按Class注册的编辑器每个BeanWrapper都要执行、实例化一次)，
+     * 只有留给BeanWrapper自行转换的属性(嵌套/索引属性等)在设置前补充注册
+     */
+    @Override
+    protected void initBeanWrapper(BeanWrapper bw) {
+        if (!this.compiledPropertyConversionEnabled) {
+            super.initBeanWrapper(bw);
+            return;
+        }
+        bw.setConversionService(getConversionService());
+    }
+
+    /**
+     * 属性值的解析与转换仍由父类完成，父类按getCustomTypeConverter()取得 {@link CompiledTypeConverter} 转换可以转换的属性；
+     * 这里只在有属性留给BeanWrapper自行转换(嵌套/索引属性、没有唯一写方法的属性)时，先补充注册PropertyEditor
+     */
+    @Override
+    protected void applyPropertyValues(String beanName, BeanDefinition mbd, BeanWrapper bw, PropertyValues pvs) {
+        if (this.compiledPropertyConversionEnabled && hasPropertyConvertedByWrapper(bw, pvs)) {
+            registerCustomEditors(bw);
+        }
+        super.applyPropertyValues(beanName, mbd, bw, pvs);
+    }
+
+    /**
+     * 与AbstractAutowireCapableBeanFactory#isConvertibleProperty相反的判断，已转换的属性值不再检查
+     */
+    private static boolean hasPropertyConvertedByWrapper(BeanWrapper bw, PropertyValues pvs) {
+        for (PropertyValue pv : pvs.getPropertyValues()) {
+            if (pv.isConverted()) {
+                continue;
+            }
+            String propertyName = pv.getName();
+            if (PropertyAccessorUtils.isNestedOrIndexedProperty(propertyName)) {
+                return true;
+            }
+            try {
+                if (!BeanUtils.hasUniqueWriteMethod(bw.getPropertyDescriptor(propertyName))) {
+                    return true;
+                }
+            } catch (InvalidPropertyException ex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //---------------------------------------------------------------------
+    // BeanPostProcessor管道与启动追踪
+    //---------------------------------------------------------------------
+
+    /**
+     * 属性填充由父类完成，这里只记录启动追踪的步骤
+     */
+    @Override
+    protected void populateBean(String beanName, RootBeanDefinition mbd, @Nullable BeanWrapper bw) {
+        StartupStep step = startBeanStep(STEP_POPULATE, beanName, "populate");
+        if (step == null) {
+            super.populateBean(beanName, mbd, bw);
+            return;
+        }
+        try {
+            super.populateBean(beanName, mbd, bw);
+        } finally {
+            step.end();
+        }
+    }
+
+    @Override
+    protected void applyMergedBeanDefinitionPostProcessors(RootBeanDefinition mbd, Class<?> beanType, String beanName) {
+        super.applyMergedBeanDefinitionPostProcessors(mbd, beanType, beanName);
+        this.pipelines.mergedDefinitionPostProcessed(mbd, beanType, this.definitionCaches.obtain(beanName, mbd));
+    }
+
+    /**
+     * 初始化由父类完成：管道在父类调用applyBeanPostProcessorsBefore/AfterInitialization时替换要执行的处理器；
+     * 没有mbd(initializeBean(Object, String))、synthetic的Bean或过滤关闭时父类逐个执行全部处理器
+     */
+    @Override
+    protected Object initializeBean(String beanName, Object bean, @Nullable RootBeanDefinition mbd) {
+        StartupStep step = startBeanStep(STEP_INITIALIZE, beanName, "initialize");
+        BeanPostProcessorPipeline pipeline = (mbd != null && !mbd.isSynthetic() && this.pipelines.isEnabled()
+                ? this.pipelines.getPipeline(mbd, bean.getClass(), this.definitionCaches.obtain(beanName, mbd), containsBeanDefinition(beanName))
+                : null);
+        if (pipeline != null) {
+            this.pipelines.begin(beanName, bean, pipeline, step != null);
+        }
+        try {
+            return super.initializeBean(beanName, bean, mbd);
+        } finally {
+            if (pipeline != null) {
+                this.pipelines.end();
+            }
+            if (step != null) {
+                step.end();
+            }
+        }
+    }
+
+    /**
+     * 自6.1起不再作为公开API使用，但父类initializeBean仍通过它执行初始化前的回调
+     */
+    @Deprecated(since = "6.1")
+    @Override
+    public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName) throws BeansException {
+        Object result = this.pipelines.apply(existingBean, beanName, BeanPostProcessorPipeline.Phase.BEFORE_INITIALIZATION);
+        return (result != null ? result : super.applyBeanPostProcessorsBeforeInitialization(existingBean, beanName));
+    }
+
+    /**
+     * 自6.1起不再作为公开API使用，但父类initializeBean仍通过它执行初始化后的回调
+     */
+    @Deprecated(since = "6.1")
+    @Override
+    public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName) throws BeansException {
+        Object result = this.pipelines.apply(existingBean, beanName, BeanPostProcessorPipeline.Phase.AFTER_INITIALIZATION);
+        return (result != null ? result : super.applyBeanPostProcessorsAfterInitialization(existingBean, beanName));
+    }
+
+    @Override
+    protected void invokeInitMethods(String beanName, Object bean, @Nullable RootBeanDefinition mbd) throws Throwable {
+        StartupStep step = startBeanStep(STEP_INIT_METHODS, beanName, "init-methods");
+        if (step == null) {
+            invokeInitMethodsWithPlan(beanName, bean, mbd);
+            return;
+        }
+        try {
+            invokeInitMethodsWithPlan(beanName, bean, mbd);
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * 非单例Bean的init方法取自创建计划中第一次初始化时确定的列表，其余情况(实例类型与计划不一致等)交给父类
+     */
+    private void invokeInitMethodsWithPlan(String beanName, Object bean, @Nullable RootBeanDefinition mbd) throws Throwable {
+        PrototypeCreationPlan plan = (mbd != null ? getPrototypeCreationPlan(beanName, mbd) : null);
+        if (plan == null || plan.getBeanClass() != bean.getClass()) {
+            super.invokeInitMethods(beanName, bean, mbd);
+            return;
+        }
+        PrototypeCreationPlan.InitMethods initMethods = plan.getInitMethods(mbd);
+        if (initMethods.afterPropertiesSet()) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Invoking afterPropertiesSet() on bean with name '" + beanName + "'");
+            }
+            ((InitializingBean) bean).afterPropertiesSet();
+        }
+        String[] names = initMethods.names();
+        PrototypeCreationPlan.InitInvoker[] invokers = initMethods.invokers();
+        for (int i = 0; i < names.length; i++) {
+            if (invokers[i] == null) {
+                super.invokeCustomInitMethod(beanName, bean, mbd, names[i]);
+                continue;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("Invoking init method '" + names[i] + "' on bean with name '" + beanName + "'");
+            }
+            invokers[i].invoke(bean);
+        }
+    }
+
+    /**
+     * 默认的ApplicationStartup什么都不记录，此时不产生额外的步骤
+     */
+    private boolean isStartupTracing() {
+        return getApplicationStartup() != ApplicationStartup.DEFAULT;
+    }
+
+    @Nullable
+    private StartupStep startBeanStep(String stepName, String beanName, String phase) {
+        if (!isStartupTracing()) {
+            return null;
+        }
+        return getApplicationStartup().start(stepName).tag("beanName", beanName).tag("phase", phase);
+    }
+}
@@ -0,0 +1,27 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import java.util.Map;
+
+/**
+ * @apiNote BeanPostProcessor管道的累计统计
+ *
+ * @param pipelinesBuilt 计算过的管道数(首次创建以及处理器/BeanDefinition变化后重新计算)
+ * @param invocations    各阶段实际执行的回调次数，key为阶段名(before-initialization、after-initialization)
+ * @param skipped        各阶段因不适用而跳过的回调次数
+ */
+public record PostProcessorPipelineStats(long pipelinesBuilt, Map<String, Long> invocations, Map<String, Long> skipped) {
+
+    public long totalInvocations() {
+        return invocations.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long totalSkipped() {
+        return skipped.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pipelines built, %d post-processor callbacks invoked %s, %d skipped %s",
+                pipelinesBuilt, totalInvocations(), invocations, totalSkipped(), skipped);
+    }
+}
@@ -0,0 +1,213 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @apiNote 容器的BeanPostProcessor管道( {@link BeanPostProcessorPipeline} )：管道与执行过postProcessMergedBeanDefinition的处理器
+ * 记在合并结果对应的 {@link MergedDefinitionCaches.Holder} 上，并在父类initializeBean期间替换初始化前后两个阶段要执行的处理器
+ * -- 容器在调用父类initializeBean之前begin、之后end，期间父类调用的applyBeanPostProcessorsBefore/AfterInitialization
+ *    交给apply，只有同一个Bean(BeanName与实例都一致)的调用才按管道执行，其余调用(如FactoryBean产物的后处理、
+ *    初始化期间顺带创建的其他Bean)返回null，由容器交给父类
+ * -- 正在初始化的Bean按线程记录在保留的栈中，嵌套创建时各自入栈，不逐次设置、移除ThreadLocal
+ * -- 属性填充(postProcessAfterInstantiation、postProcessProperties)由父类populateBean逐个执行全部处理器，父类没有可以替换的扩展点
+ */
+final class PostProcessorPipelineSupport {
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    private volatile boolean enabled = true;
+
+    /** 最近一次执行postProcessMergedBeanDefinition的处理器集合，内容相同时各Bean的PostProcessedDefinition共用 */
+    private volatile Set<BeanPostProcessor> lastMergedDefinitionProcessors = Collections.emptySet();
+
+    /** BeanPostProcessor类 -> 重写了的回调阶段 */
+    private final Map<Class<?>, Set<BeanPostProcessorPipeline.Phase>> implementedPhases = new ConcurrentHashMap<>();
+
+    /** 启动追踪中BeanPostProcessor类 -> 短类名，避免每个步骤重新拼接 */
+    private final Map<Class<?>, String> postProcessorNames = new ConcurrentHashMap<>();
+
+    private final LongAdder pipelinesBuilt = new LongAdder();
+
+    private final LongAdder[] invocations = newPhaseCounters();
+
+    private final LongAdder[] skipped = newPhaseCounters();
+
+    /** 当前线程正在初始化的Bean，栈顶为最内层 */
+    private final ThreadLocal<Deque<Initialization>> initializations = ThreadLocal.withInitial(ArrayDeque::new);
+
+    PostProcessorPipelineSupport(SpringBeanFactoryCopies beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * 获取(必要时计算)管道，由容器在开启时调用；caches为mbd对应的编译结果(管道按合并后的BeanDefinition、Bean类与处理器列表校验是否过期)，
+     * registered为false表示临时BeanDefinition(autowireBean等)，只要过滤结果与定义无关就沿用上一份管道
+     */
+    BeanPostProcessorPipeline getPipeline(RootBeanDefinition mbd, Class<?> beanClass, MergedDefinitionCaches.Holder caches,
+                                          boolean registered) {
+        List<BeanPostProcessor> processors = this.beanFactory.getBeanPostProcessors();
+        BeanPostProcessorPipeline pipeline = caches.pipeline;
+        if (pipeline == null || !(pipeline.isFor(mbd, beanClass, processors)
+                || (!registered && pipeline.isEquivalentFor(beanClass, processors)))) {
+            PostProcessedDefinition postProcessed = caches.postProcessed;
+            Set<BeanPostProcessor> mergedDefinitionProcessors = (postProcessed != null && postProcessed.mbd() == mbd
+                    && postProcessed.beanType() == beanClass ? postProcessed.processors() : Collections.emptySet());
+            pipeline = new BeanPostProcessorPipeline(mbd, beanClass, processors,
+                    processorClass -> this.implementedPhases.computeIfAbsent(processorClass, BeanPostProcessorPipeline::implementedPhases),
+                    mergedDefinitionProcessors);
+            caches.pipeline = pipeline;
+            this.pipelinesBuilt.increment();
+        }
+        return pipeline;
+    }
+
+    /**
+     * 父类已对合并后的BeanDefinition执行了全部MergedBeanDefinitionPostProcessor，记录执行过的处理器
+     */
+    void mergedDefinitionPostProcessed(RootBeanDefinition mbd, Class<?> beanType, MergedDefinitionCaches.Holder caches) {
+        Set<BeanPostProcessor> processors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BeanPostProcessor beanPostProcessor : this.beanFactory.getBeanPostProcessors()) {
+            if (beanPostProcessor instanceof MergedBeanDefinitionPostProcessor) {
+                processors.add(beanPostProcessor);
+            }
+        }
+        // 处理器没有变化时所有Bean执行的都是同一组，共用上一次的集合，不为每个Bean保留一份
+        Set<BeanPostProcessor> previous = this.lastMergedDefinitionProcessors;
+        if (processors.equals(previous)) {
+            processors = previous;
+        } else {
+            this.lastMergedDefinitionProcessors = processors;
+        }
+        caches.postProcessed = new PostProcessedDefinition(mbd, beanType, processors);
+    }
+
+    /**
+     * 父类initializeBean开始前调用，必须与end成对调用
+     */
+    void begin(String beanName, Object bean, BeanPostProcessorPipeline pipeline, boolean tracing) {
+        this.initializations.get().push(new Initialization(beanName, bean, pipeline, tracing));
+    }
+
+    void end() {
+        this.initializations.get().pop();
+    }
+
+    /**
+     * 按当前正在初始化的Bean的管道执行一个阶段，不是该Bean的调用返回null
+     */
+    @Nullable
+    Object apply(Object existingBean, String beanName, BeanPostProcessorPipeline.Phase phase) {
+        Initialization initialization = this.initializations.get().peek();
+        if (initialization == null || initialization.bean != existingBean || !initialization.beanName.equals(beanName)) {
+            return null;
+        }
+        BeanPostProcessorPipeline pipeline = initialization.pipeline;
+        BeanPostProcessor[] processors = (phase == BeanPostProcessorPipeline.Phase.BEFORE_INITIALIZATION
+                ? pipeline.getBeforeInitialization() : pipeline.getAfterInitialization());
+        record(pipeline, phase, processors.length);
+        Object result = existingBean;
+        for (BeanPostProcessor processor : processors) {
+            StartupStep step = (initialization.tracing ? startStep(beanName, processor, phase.getLabel()) : null);
+            try {
+                Object current = (phase == BeanPostProcessorPipeline.Phase.BEFORE_INITIALIZATION
+                        ? processor.postProcessBeforeInitialization(result, beanName)
+                        : processor.postProcessAfterInitialization(result, beanName));
+                if (current == null) {
+                    break;
+                }
+                result = current;
+            } finally {
+                if (step != null) {
+                    step.end();
+                }
+            }
+        }
+        // 初始化后阶段收到的是初始化前阶段返回的对象
+        initialization.bean = result;
+        return result;
+    }
+
+    /**
+     * 各阶段实际执行与被跳过的回调次数
+     */
+    PostProcessorPipelineStats getStats() {
+        Map<String, Long> invoked = new LinkedHashMap<>();
+        Map<String, Long> skippedByPhase = new LinkedHashMap<>();
+        for (BeanPostProcessorPipeline.Phase phase : BeanPostProcessorPipeline.Phase.values()) {
+            invoked.put(phase.getLabel(), this.invocations[phase.ordinal()].sum());
+            skippedByPhase.put(phase.getLabel(), this.skipped[phase.ordinal()].sum());
+        }
+        return new PostProcessorPipelineStats(this.pipelinesBuilt.sum(), invoked, skippedByPhase);
+    }
+
+    private void record(BeanPostProcessorPipeline pipeline, BeanPostProcessorPipeline.Phase phase, int invoked) {
+        if (invoked > 0) {
+            this.invocations[phase.ordinal()].add(invoked);
+        }
+        int skippedCount = pipeline.getSkipped(phase);
+        if (skippedCount > 0) {
+            this.skipped[phase.ordinal()].add(skippedCount);
+        }
+    }
+
+    private StartupStep startStep(String beanName, BeanPostProcessor processor, String phase) {
+        ApplicationStartup applicationStartup = this.beanFactory.getApplicationStartup();
+        return applicationStartup.start(OptimizedListableBeanFactory.STEP_POST_PROCESS)
+                .tag("beanName", beanName)
+                .tag("postProcessor", this.postProcessorNames.computeIfAbsent(processor.getClass(), ClassUtils::getShortName))
+                .tag("phase", phase);
+    }
+
+    private static LongAdder[] newPhaseCounters() {
+        LongAdder[] counters = new LongAdder[BeanPostProcessorPipeline.Phase.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * 正在初始化的Bean，bean为下一个阶段应当收到的实例
+     */
+    private static final class Initialization {
+
+        private final String beanName;
+
+        private final BeanPostProcessorPipeline pipeline;
+
+        private final boolean tracing;
+
+        private Object bean;
+
+        Initialization(String beanName, Object bean, BeanPostProcessorPipeline pipeline, boolean tracing) {
+            this.beanName = beanName;
+            this.bean = bean;
+            this.pipeline = pipeline;
+            this.tracing = tracing;
+        }
+    }
+
+    /**
+     * 合并后的BeanDefinition执行postProcessMergedBeanDefinition时的Bean类型与处理器
+     */
+    record PostProcessedDefinition(RootBeanDefinition mbd, Class<?> beanType, Set<BeanPostProcessor> processors) {
+    }
+}
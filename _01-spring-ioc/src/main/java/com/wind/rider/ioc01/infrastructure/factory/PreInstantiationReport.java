@@ -0,0 +1,45 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @apiNote 一次并行预实例化的统计结果
+ * -- sequentialEstimate：各Bean创建耗时之和，即单线程依次创建所需的时间；耗时在并行创建时测得，
+ *    CPU核数少于并行度时会因争抢CPU而偏大，准确对比请以顺序模式的实测耗时为准(见PreInstantiationBenchmark)
+ * -- criticalPath：依赖图上耗时最长的一条链，是并行创建所能达到的下限
+ * -- saved：相比单线程依次创建节省的启动时间
+ *
+ * @param beanCount         参与预实例化的非懒加载单例数量
+ * @param dependencyCount   依赖图中的边数
+ * @param peakParallelism   同时在创建Bean的线程数峰值
+ * @param wallClock         预实例化实际耗时
+ * @param creationTimes     每个Bean的创建耗时(含其创建时顺带创建的图外依赖)，按完成顺序排列
+ * @param criticalPathBeans 关键路径上的Bean，被依赖的在前
+ */
+public record PreInstantiationReport(int beanCount, int dependencyCount, int peakParallelism, Duration wallClock,
+                                     Duration sequentialEstimate, Duration criticalPath, List<String> criticalPathBeans,
+                                     Map<String, Duration> creationTimes) {
+
+    static PreInstantiationReport of(DependencyOrderedExecutor.Result result) {
+        return new PreInstantiationReport(result.taskCount(), result.dependencyCount(), result.peakParallelism(), result.wallClock(),
+                result.sequential(), result.criticalPath(), result.criticalPathBeans(), result.taskTimes());
+    }
+
+    public Duration saved() {
+        return sequentialEstimate.minus(wallClock);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pre-instantiated %d singletons (%d dependencies) in %.1f ms with peak parallelism %d, " +
+                        "sequential estimate %.1f ms, saved %.1f ms; critical path %.1f ms: %s",
+                beanCount, dependencyCount, millis(wallClock), peakParallelism, millis(sequentialEstimate), millis(saved()),
+                millis(criticalPath), String.join(" -> ", criticalPathBeans));
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * @apiNote 单个编译后的类型转换器的累计统计
+ *
+ * @param sourceType  源值类型，null值为void
+ * @param targetType  目标类型(含泛型)
+ * @param property    属性名(属性填充时为所在Bean类的短类名.属性名)，按方法参数/字段/类型转换时为null
+ * @param strategy    编译时确定的转换方式
+ * @param conversions 使用该转换器的次数
+ * @param totalNanos  转换累计耗时
+ */
+public record PropertyConverterStats(String sourceType, String targetType, @Nullable String property,
+                                     CompiledTypeConverter.Strategy strategy, long conversions, long totalNanos) {
+
+    public double averageNanos() {
+        return (conversions == 0 ? 0 : (double) totalNanos / conversions);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s%s [%s]: %d conversions, avg %.0f ns",
+                sourceType, targetType, (property != null ? " (" + property + ")" : ""), strategy, conversions, averageNanos());
+    }
+}
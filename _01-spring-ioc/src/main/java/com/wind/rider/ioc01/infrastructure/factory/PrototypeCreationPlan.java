@@ -0,0 +1,360 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.MethodInvoker;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @apiNote 非单例Bean的创建计划：每个合并后的BeanDefinition只解析一次构造器与init方法，
+ * 编译为LambdaMetafactory生成的Supplier/Consumer(无参构造器、无参init方法)或MethodHandle(带参构造器)，之后每次创建直接调用
+ * -- 无参创建：仅当容器本来也会走默认构造器时(没有@Autowired构造器、构造器注入、显式构造参数、首选构造器)才编译
+ * -- getBean(name, args)：按ConstructorResolver的规则(参数个数相同、类型差异权重最小、先public后参数多)选择构造器；
+ *    选择只取决于候选构造器(计划内固定，BeanPostProcessor给出候选构造器时由容器在每次调用前交回父类)与各实参的类型，
+ *    因此按实参类型(null单独作为一种)缓存选择结果；找不到匹配的构造器时交回容器，由容器给出原有的异常信息
+ * -- init方法：第一次初始化时(此时MergedBeanDefinitionPostProcessor已登记外部管理的init方法)确定要调用的afterPropertiesSet与自定义init方法，
+ *    之后每次初始化不再逐个检查外部管理的init方法(父类每次都要进入RootBeanDefinition的同步块)
+ * -- 编译结果按构造器/方法全局缓存：同一个类的多个BeanName(以及合并结果变化后重新编译的计划)共用一份，
+ *    LambdaMetafactory每次调用都会生成一个新的隐藏类，不缓存时每个BeanName都要多占用两个类的元数据与堆内存
+ * -- 确定的init方法(InitMethods)按Bean类与方法名全局共用：同一个类的多个BeanName各自的计划不再各保存一份方法名与调用器数组
+ * -- 按实参类型、init方法名的查找表在第一次用到时才创建：大部分Bean不会用到，每个计划预先创建两个ConcurrentHashMap约占300字节
+ * -- 编译失败(如类所在的模块不允许深反射)的构造器/方法记为不可用，交回容器按反射处理
+ */
+public class PrototypeCreationPlan {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /** 没有自定义init方法时(大部分Bean)共用，不为每个计划单独创建 */
+    private static final InitMethods NO_INIT_METHODS = new InitMethods(false, new String[0], new InitInvoker[0]);
+
+    private static final InitMethods AFTER_PROPERTIES_SET_ONLY = new InitMethods(true, new String[0], new InitInvoker[0]);
+
+    /** 构造器 -> 编译结果，Optional.empty()表示无法编译；与Spring的反射缓存一样使用软引用，不阻止类卸载 */
+    private static final Map<Constructor<?>, Optional<Instantiator>> INSTANTIATORS = new ConcurrentReferenceHashMap<>();
+
+    /** init方法 -> 编译结果 */
+    private static final Map<Method, Optional<InitInvoker>> INIT_INVOKERS = new ConcurrentReferenceHashMap<>();
+
+    /** Bean类与要调用的init方法 -> 内容相同的InitMethods */
+    private static final Map<InitMethodsKey, InitMethods> SHARED_INIT_METHODS = new ConcurrentReferenceHashMap<>();
+
+    private final RootBeanDefinition mergedDefinition;
+
+    /** 不是按beanClass反射创建的Bean(工厂方法等)为null，此时整个计划不可用 */
+    @Nullable
+    private final Class<?> beanClass;
+
+    @Nullable
+    private final Instantiator defaultInstantiator;
+
+    private final boolean explicitArgsSupported;
+
+    /** 实参类型 -> 选中的构造器，Optional.empty()表示交回容器；第一次getBean(name, args)时才创建 */
+    @Nullable
+    private volatile Map<List<Class<?>>, Optional<Instantiator>> argsInstantiators;
+
+    /** init方法名 -> 编译后的调用器；只在initMethods之外查找时(尚未确定或不在其中)才创建 */
+    @Nullable
+    private volatile Map<String, Optional<InitInvoker>> initInvokers;
+
+    /** 第一次初始化时确定 */
+    @Nullable
+    private volatile InitMethods initMethods;
+
+    /**
+     * @param defaultConstruction   容器是否会使用默认构造器创建该Bean
+     * @param explicitArgsSupported getBean(name, args)时是否可以按实参类型自行选择构造器
+     */
+    public PrototypeCreationPlan(RootBeanDefinition mergedDefinition, @Nullable Class<?> beanClass,
+                                 boolean defaultConstruction, boolean explicitArgsSupported) {
+        this.mergedDefinition = mergedDefinition;
+        this.beanClass = beanClass;
+        this.defaultInstantiator = (beanClass != null && defaultConstruction ? compileDefaultConstructor(beanClass) : null);
+        this.explicitArgsSupported = (beanClass != null && explicitArgsSupported);
+    }
+
+    /**
+     * 计划是否仍对应当前的合并BeanDefinition(BeanDefinition被覆盖或元数据缓存被清除后会重新合并)
+     */
+    public boolean isFor(RootBeanDefinition mbd) {
+        return this.mergedDefinition == mbd;
+    }
+
+    @Nullable
+    public Class<?> getBeanClass() {
+        return this.beanClass;
+    }
+
+    /**
+     * 获取与容器选择一致的已编译构造器，无法编译或需要交回容器时返回null
+     */
+    @Nullable
+    public Instantiator getInstantiator(@Nullable Object[] args) {
+        if (args == null || args.length == 0) {
+            return (args == null ? defaultInstantiator : null);
+        }
+        if (!explicitArgsSupported) {
+            return null;
+        }
+        Class<?>[] argTypes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argTypes[i] = (args[i] != null ? args[i].getClass() : null);
+        }
+        return argsInstantiators().computeIfAbsent(Arrays.asList(argTypes), key -> Optional.ofNullable(resolveConstructor(args)))
+                .orElse(null);
+    }
+
+    /**
+     * 获取已编译的init方法，bean类型与计划不一致、方法不存在或无法编译时返回null
+     */
+    @Nullable
+    public InitInvoker getInitInvoker(Object bean, String initMethodName, boolean nonPublicAccessAllowed) {
+        if (beanClass == null || bean.getClass() != beanClass) {
+            return null;
+        }
+        InitMethods resolved = this.initMethods;
+        if (resolved != null) {
+            String[] names = resolved.names();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(initMethodName) && resolved.invokers()[i] != null) {
+                    return resolved.invokers()[i];
+                }
+            }
+        }
+        return initInvokers().computeIfAbsent(initMethodName, name -> Optional.ofNullable(compileInitMethod(name, nonPublicAccessAllowed)))
+                .orElse(null);
+    }
+
+    /**
+     * 获取beanClass的实例需要调用的init方法，与AbstractAutowireCapableBeanFactory#invokeInitMethods的判断一致
+     */
+    public InitMethods getInitMethods(RootBeanDefinition mbd) {
+        InitMethods result = this.initMethods;
+        if (result == null) {
+            result = resolveInitMethods(mbd);
+            this.initMethods = result;
+        }
+        return result;
+    }
+
+    private Map<List<Class<?>>, Optional<Instantiator>> argsInstantiators() {
+        Map<List<Class<?>>, Optional<Instantiator>> result = this.argsInstantiators;
+        if (result == null) {
+            synchronized (this) {
+                result = this.argsInstantiators;
+                if (result == null) {
+                    result = new ConcurrentHashMap<>();
+                    this.argsInstantiators = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Optional<InitInvoker>> initInvokers() {
+        Map<String, Optional<InitInvoker>> result = this.initInvokers;
+        if (result == null) {
+            synchronized (this) {
+                result = this.initInvokers;
+                if (result == null) {
+                    result = new ConcurrentHashMap<>();
+                    this.initInvokers = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private InitMethods resolveInitMethods(RootBeanDefinition mbd) {
+        Assert.state(beanClass != null, "No bean class");
+        boolean isInitializingBean = InitializingBean.class.isAssignableFrom(beanClass);
+        Set<String> externallyManaged = mbd.getExternallyManagedInitMethods();
+        boolean afterPropertiesSet = isInitializingBean && !isExternallyManaged(externallyManaged, "afterPropertiesSet");
+        List<String> names = new ArrayList<>();
+        List<InitInvoker> invokers = new ArrayList<>();
+        String[] initMethodNames = mbd.getInitMethodNames();
+        if (initMethodNames != null) {
+            for (String initMethodName : initMethodNames) {
+                if (StringUtils.hasLength(initMethodName) &&
+                        !(isInitializingBean && "afterPropertiesSet".equals(initMethodName)) &&
+                        !isExternallyManaged(externallyManaged, initMethodName)) {
+                    names.add(initMethodName);
+                    // 编译结果已按方法全局缓存，这里不再经过按方法名的查找表
+                    invokers.add(compileInitMethod(initMethodName, mbd.isNonPublicAccessAllowed()));
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return (afterPropertiesSet ? AFTER_PROPERTIES_SET_ONLY : NO_INIT_METHODS);
+        }
+        InitMethods resolved = new InitMethods(afterPropertiesSet, names.toArray(new String[0]), invokers.toArray(new InitInvoker[0]));
+        return SHARED_INIT_METHODS.computeIfAbsent(new InitMethodsKey(beanClass, afterPropertiesSet, names, mbd.isNonPublicAccessAllowed()),
+                key -> resolved);
+    }
+
+    /**
+     * 与RootBeanDefinition#hasAnyExternallyManagedInitMethod一致：登记的可以是方法名，也可以是"类名.方法名"
+     */
+    private static boolean isExternallyManaged(Set<String> externallyManaged, String methodName) {
+        if (externallyManaged.contains(methodName)) {
+            return true;
+        }
+        for (String candidate : externallyManaged) {
+            int indexOfDot = candidate.lastIndexOf('.');
+            if (indexOfDot > 0 && candidate.substring(indexOfDot + 1).equals(methodName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 与ConstructorResolver#autowireConstructor在显式参数下的选择规则一致
+     */
+    @Nullable
+    private Instantiator resolveConstructor(Object[] args) {
+        Assert.state(beanClass != null, "No bean class");
+        Constructor<?>[] candidates = (mergedDefinition.isNonPublicAccessAllowed() ? beanClass.getDeclaredConstructors() : beanClass.getConstructors());
+        Arrays.sort(candidates, (c1, c2) -> {
+            int result = Boolean.compare(Modifier.isPublic(c2.getModifiers()), Modifier.isPublic(c1.getModifiers()));
+            return (result != 0 ? result : Integer.compare(c2.getParameterCount(), c1.getParameterCount()));
+        });
+        Constructor<?> chosen = null;
+        int minTypeDiffWeight = Integer.MAX_VALUE;
+        for (Constructor<?> candidate : candidates) {
+            if (candidate.getParameterCount() != args.length) {
+                continue;
+            }
+            int typeDiffWeight = MethodInvoker.getTypeDifferenceWeight(candidate.getParameterTypes(), args);
+            if (typeDiffWeight < minTypeDiffWeight) {
+                chosen = candidate;
+                minTypeDiffWeight = typeDiffWeight;
+            }
+        }
+        return (chosen != null ? compileConstructor(chosen) : null);
+    }
+
+    @Nullable
+    private static Instantiator compileDefaultConstructor(Class<?> beanClass) {
+        if (beanClass.isInterface()) {
+            return null;
+        }
+        try {
+            return compileConstructor(beanClass.getDeclaredConstructor());
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 与AbstractAutowireCapableBeanFactory#invokeCustomInitMethod的查找规则一致
+     */
+    @Nullable
+    private InitInvoker compileInitMethod(String initMethodName, boolean nonPublicAccessAllowed) {
+        if (initMethodName.indexOf('.') >= 0 || initMethodName.indexOf('(') >= 0) {
+            // 全限定的方法名交给容器解析
+            return null;
+        }
+        Assert.state(beanClass != null, "No bean class");
+        Method initMethod = (nonPublicAccessAllowed ? BeanUtils.findMethod(beanClass, initMethodName)
+                : ClassUtils.getMethodIfAvailable(beanClass, initMethodName));
+        if (initMethod == null) {
+            return null;
+        }
+        return compileMethod(ClassUtils.getInterfaceMethodIfPossible(initMethod, beanClass));
+    }
+
+    @Nullable
+    static Instantiator compileConstructor(Constructor<?> constructor) {
+        return INSTANTIATORS.computeIfAbsent(constructor, key -> Optional.ofNullable(doCompileConstructor(key))).orElse(null);
+    }
+
+    @Nullable
+    static InitInvoker compileMethod(Method method) {
+        return INIT_INVOKERS.computeIfAbsent(method, key -> Optional.ofNullable(doCompileMethod(key))).orElse(null);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Instantiator doCompileConstructor(Constructor<?> constructor) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(constructor.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflectConstructor(constructor).asFixedArity();
+            int parameterCount = constructor.getParameterCount();
+            if (parameterCount == 0) {
+                try {
+                    CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                            MethodType.methodType(Object.class), handle, MethodType.methodType(constructor.getDeclaringClass()));
+                    Supplier<Object> supplier = (Supplier<Object>) callSite.getTarget().invokeExact();
+                    return args -> supplier.get();
+                } catch (LambdaConversionException ex) {
+                    // 退回直接调用MethodHandle
+                }
+            }
+            MethodHandle spreader = handle.asType(MethodType.genericMethodType(parameterCount)).asSpreader(Object[].class, parameterCount);
+            return args -> spreader.invokeExact(args != null ? args : NO_ARGS);
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static InitInvoker doCompileMethod(Method method) {
+        if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(method);
+            try {
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(Consumer.class),
+                        MethodType.methodType(void.class, Object.class), handle, MethodType.methodType(void.class, method.getDeclaringClass()));
+                Consumer<Object> consumer = (Consumer<Object>) callSite.getTarget().invokeExact();
+                return consumer::accept;
+            } catch (LambdaConversionException ex) {
+                MethodHandle invoker = handle.asType(MethodType.methodType(void.class, Object.class));
+                return bean -> invoker.invokeExact(bean);
+            }
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param afterPropertiesSet 是否调用InitializingBean#afterPropertiesSet
+     * @param invokers           与names一一对应，null表示交回容器调用(方法不存在、全限定方法名或无法编译)
+     */
+    public record InitMethods(boolean afterPropertiesSet, String[] names, InitInvoker[] invokers) {
+    }
+
+    /**
+     * 决定InitMethods内容的全部输入：调用器按方法名在beanClass上查找，是否查找非public方法取决于nonPublicAccessAllowed
+     */
+    private record InitMethodsKey(Class<?> beanClass, boolean afterPropertiesSet, List<String> names, boolean nonPublicAccessAllowed) {
+    }
+
+    @FunctionalInterface
+    public interface Instantiator {
+        Object newInstance(@Nullable Object[] args) throws Throwable;
+    }
+
+    @FunctionalInterface
+    public interface InitInvoker {
+        void invoke(Object bean) throws Throwable;
+    }
+}
@@ -0,0 +1,126 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.support.CglibSubclassingInstantiationStrategy;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.KotlinDetector;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.function.BiPredicate;
+
+/**
+ * @apiNote 容器中非单例Bean的创建计划( {@link PrototypeCreationPlan} )与正在创建的prototype记录；
+ * 用计划创建实例、调用init方法仍由容器在父类的对应方法中进行，计划不可用时直接调用父类方法
+ * -- 计划记在合并结果对应的 {@link MergedDefinitionCaches.Holder} 上(每个BeanName一份，共享合并结果时每种形状一份)，
+ *    合并后的BeanDefinition变化时(isFor)重新创建
+ */
+final class PrototypeCreationSupport {
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    /** BeanPostProcessor(determineCandidateConstructors)是否为该类给出候选构造器，只有容器自身可以调用 */
+    private final BiPredicate<Class<?>, String> constructorsFromPostProcessors;
+
+    private volatile boolean enabled = true;
+
+    /** 当前线程正在创建的非单例Bean，对应父类私有的prototypesCurrentlyInCreation，数组随线程保留 */
+    private final ThreadLocal<PrototypesInCreation> prototypesInCreation = ThreadLocal.withInitial(PrototypesInCreation::new);
+
+    PrototypeCreationSupport(SpringBeanFactoryCopies beanFactory, BiPredicate<Class<?>, String> constructorsFromPostProcessors) {
+        this.beanFactory = beanFactory;
+        this.constructorsFromPostProcessors = constructorsFromPostProcessors;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * 获取(必要时创建)非单例Bean的创建计划，由容器在开启时调用；caches为mbd对应的编译结果
+     */
+    PrototypeCreationPlan getPlan(String beanName, RootBeanDefinition mbd, MergedDefinitionCaches.Holder caches) {
+        PrototypeCreationPlan plan = caches.creationPlan;
+        if (plan == null || !plan.isFor(mbd)) {
+            plan = createPlan(beanName, mbd);
+            caches.creationPlan = plan;
+        }
+        return plan;
+    }
+
+    boolean isCurrentlyInCreation(String beanName) {
+        return this.prototypesInCreation.get().contains(beanName);
+    }
+
+    void beforeCreation(String beanName) {
+        this.prototypesInCreation.get().push(beanName);
+    }
+
+    void afterCreation(String beanName) {
+        this.prototypesInCreation.get().remove(beanName);
+    }
+
+    /**
+     * 只有父类同样会用反射调用构造器的情况才编译，判断条件与createBeanInstance、SimpleInstantiationStrategy一致
+     */
+    private PrototypeCreationPlan createPlan(String beanName, RootBeanDefinition mbd) {
+        if (!mbd.hasBeanClass() || mbd.getFactoryMethodName() != null) {
+            return new PrototypeCreationPlan(mbd, null, false, false);
+        }
+        Class<?> beanClass = mbd.getBeanClass();
+        boolean reflective = mbd.getInstanceSupplier() == null && !mbd.hasMethodOverrides()
+                && this.beanFactory.getInstantiationStrategy().getClass() == CglibSubclassingInstantiationStrategy.class
+                && !KotlinDetector.isKotlinType(beanClass)
+                && (Modifier.isPublic(beanClass.getModifiers()) || mbd.isNonPublicAccessAllowed());
+        if (!reflective) {
+            // 构造器交给父类，init方法仍可编译
+            return new PrototypeCreationPlan(mbd, beanClass, false, false);
+        }
+        boolean constructorInjection = mbd.hasConstructorArgumentValues()
+                || this.constructorsFromPostProcessors.test(beanClass, beanName);
+        boolean defaultConstruction = !constructorInjection && mbd.getResolvedAutowireMode() != AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR
+                && mbd.getPreferredConstructors() == null;
+        boolean explicitArgsSupported = !mbd.hasConstructorArgumentValues() && mbd.isLenientConstructorResolution();
+        return new PrototypeCreationPlan(mbd, beanClass, defaultConstruction, explicitArgsSupported);
+    }
+
+    /**
+     * 嵌套创建的深度一般只有几层，线性查找比集合更快
+     */
+    private static final class PrototypesInCreation {
+
+        private String[] beanNames = new String[4];
+
+        private int size;
+
+        boolean contains(String beanName) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.beanNames[i].equals(beanName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void push(String beanName) {
+            if (this.size == this.beanNames.length) {
+                this.beanNames = Arrays.copyOf(this.beanNames, this.size * 2);
+            }
+            this.beanNames[this.size++] = beanName;
+        }
+
+        void remove(String beanName) {
+            for (int i = this.size - 1; i >= 0; i--) {
+                if (this.beanNames[i].equals(beanName)) {
+                    System.arraycopy(this.beanNames, i + 1, this.beanNames, i, this.size - i - 1);
+                    this.beanNames[--this.size] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
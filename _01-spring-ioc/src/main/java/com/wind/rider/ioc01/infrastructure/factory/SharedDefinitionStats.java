@@ -0,0 +1,21 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+/**
+ * @apiNote 共享合并BeanDefinition的统计
+ *
+ * @param sharingBeans      当前使用共享合并结果的Bean数
+ * @param mergedDefinitions 共享的合并结果数(即不同形状的数量)，父类为每个Bean各保存一份
+ * @param internedValues    注册时共享的作用域、方法名、dependsOn等属性值的数量
+ */
+public record SharedDefinitionStats(int sharingBeans, int mergedDefinitions, int internedValues) {
+
+    public double beansPerMergedDefinition() {
+        return (mergedDefinitions == 0 ? 0 : (double) sharingBeans / mergedDefinitions);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d beans share %d merged definitions (%.1f beans each), %d interned attribute values",
+                sharingBeans, mergedDefinitions, beansPerMergedDefinition(), internedValues);
+    }
+}
@@ -0,0 +1,232 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @apiNote 形状相同的BeanDefinition共享同一个合并后的RootBeanDefinition，替代父类按BeanName各自保存一份完整副本
+ * -- 形状(见 {@link Shape})：Bean类、作用域、init/destroy方法名、自动装配方式等全部会复制到合并结果中的属性；
+ *    只有不携带逐个Bean数据的定义才参与共享：无父定义、不是RootBeanDefinition、已加载Bean类且不是FactoryBean，
+ *    没有构造器参数、属性值、方法覆盖、限定符、自定义属性、instanceSupplier与工厂方法
+ * -- 每个BeanName只保存指向共享条目的引用，以及是否已对该BeanName执行过MergedBeanDefinitionPostProcessor；
+ *    按合并结果编译的创建计划、BeanPostProcessor管道同样保存在共享条目中( {@link MergedDefinitionCaches.Holder} )，每种形状只编译一次
+ * -- 条目按引用它的BeanName计数，最后一个BeanName被移除(或重新合并)时条目随之移除，不保留已不存在的形状
+ * -- internAttributes：注册时把作用域、init/destroy方法名、dependsOn、描述换成内容相同的共享实例
+ */
+public final class SharedMergedDefinitions {
+
+    /** 共享的属性值的上限，超过后不再共享新的值 */
+    private static final int MAX_INTERNED_VALUES = 4096;
+
+    private final Map<Shape, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entriesByBeanName = new ConcurrentHashMap<>();
+
+    /** String -> String，List&lt;String&gt; -> String[] */
+    private final Map<Object, Object> internedValues = new ConcurrentHashMap<>();
+
+    @Nullable
+    public Entry get(String beanName) {
+        return this.entriesByBeanName.get(beanName);
+    }
+
+    /**
+     * 取得(或创建)beanDefinition所属形状的共享条目，定义不满足共享条件时返回null
+     */
+    @Nullable
+    public Entry obtain(String beanName, BeanDefinition beanDefinition) {
+        Shape shape = Shape.of(beanDefinition);
+        if (shape == null) {
+            return null;
+        }
+        Entry entry = this.entries.compute(shape, (key, current) -> {
+            Entry result = (current != null ? current : new Entry(key, merge(beanDefinition)));
+            result.references++;
+            return result;
+        });
+        Entry previous = this.entriesByBeanName.put(beanName, entry);
+        if (previous != null) {
+            release(previous);
+        }
+        return entry;
+    }
+
+    /**
+     * 对应父类clearMergedBeanDefinition：下一次按当前的BeanDefinition重新确定形状，并重新执行MergedBeanDefinitionPostProcessor
+     */
+    public void remove(String beanName) {
+        Entry entry = this.entriesByBeanName.remove(beanName);
+        if (entry != null) {
+            entry.postProcessedBeanNames.remove(beanName);
+            release(entry);
+        }
+    }
+
+    /**
+     * 引用计数只在形状自身的锁内(ConcurrentHashMap.compute)修改，减到0时移除条目
+     */
+    private void release(Entry entry) {
+        this.entries.computeIfPresent(entry.shape, (key, current) ->
+                (current != entry || --current.references > 0 ? current : null));
+    }
+
+    public void clear() {
+        this.entriesByBeanName.clear();
+        this.entries.clear();
+    }
+
+    void forEachEntry(Consumer<Entry> action) {
+        this.entries.values().forEach(action);
+    }
+
+    public SharedDefinitionStats getStats() {
+        return new SharedDefinitionStats(this.entriesByBeanName.size(), this.entries.size(), this.internedValues.size());
+    }
+
+    /**
+     * 把注册的BeanDefinition中的字符串与字符串数组换成内容相同的共享实例(如解析XML得到的各自独立的"prototype")
+     */
+    public void internAttributes(AbstractBeanDefinition beanDefinition) {
+        String scope = beanDefinition.getScope();
+        if (scope != null) {
+            beanDefinition.setScope(intern(scope));
+        }
+        String[] initMethodNames = beanDefinition.getInitMethodNames();
+        if (initMethodNames != null) {
+            beanDefinition.setInitMethodNames(intern(initMethodNames));
+        }
+        String[] destroyMethodNames = beanDefinition.getDestroyMethodNames();
+        if (destroyMethodNames != null) {
+            beanDefinition.setDestroyMethodNames(intern(destroyMethodNames));
+        }
+        String[] dependsOn = beanDefinition.getDependsOn();
+        if (dependsOn != null) {
+            beanDefinition.setDependsOn(intern(dependsOn));
+        }
+        String description = beanDefinition.getDescription();
+        if (description != null) {
+            beanDefinition.setDescription(intern(description));
+        }
+    }
+
+    private String intern(String value) {
+        Object interned = this.internedValues.get(value);
+        if (interned == null) {
+            if (this.internedValues.size() >= MAX_INTERNED_VALUES) {
+                return value;
+            }
+            interned = this.internedValues.computeIfAbsent(value, key -> value);
+        }
+        return (String) interned;
+    }
+
+    private String[] intern(String[] values) {
+        List<String> key = List.of(values);
+        Object interned = this.internedValues.get(key);
+        if (interned == null) {
+            if (this.internedValues.size() >= MAX_INTERNED_VALUES) {
+                return values;
+            }
+            String[] copy = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                copy[i] = intern(values[i]);
+            }
+            interned = this.internedValues.computeIfAbsent(key, k -> copy);
+        }
+        return (String[]) interned;
+    }
+
+    /**
+     * 与AbstractBeanFactory#getMergedBeanDefinition对无父定义、非RootBeanDefinition的处理一致
+     * (RootBeanDefinition(BeanDefinition)不公开，这里用overrideFrom补上描述，满足共享条件的定义两者结果相同)
+     */
+    private static RootBeanDefinition merge(BeanDefinition beanDefinition) {
+        RootBeanDefinition mbd = new RootBeanDefinition();
+        mbd.overrideFrom(beanDefinition);
+        mbd.setDescription(beanDefinition.getDescription());
+        if (!StringUtils.hasLength(mbd.getScope())) {
+            mbd.setScope(ConfigurableBeanFactory.SCOPE_SINGLETON);
+        }
+        return mbd;
+    }
+
+    /**
+     * 一种形状的共享合并结果，以及按它编译的结果(由容器读写)
+     */
+    public static final class Entry {
+
+        private final Shape shape;
+
+        private final RootBeanDefinition mergedDefinition;
+
+        /** 已执行过MergedBeanDefinitionPostProcessor的BeanName(处理器可能按BeanName记录状态，如ApplicationListenerDetector) */
+        private final Set<String> postProcessedBeanNames = ConcurrentHashMap.newKeySet();
+
+        private final MergedDefinitionCaches.Holder caches = new MergedDefinitionCaches.Holder();
+
+        /** 引用该条目的BeanName数 */
+        private int references;
+
+        Entry(Shape shape, RootBeanDefinition mergedDefinition) {
+            this.shape = shape;
+            this.mergedDefinition = mergedDefinition;
+        }
+
+        public RootBeanDefinition getMergedDefinition() {
+            return this.mergedDefinition;
+        }
+
+        MergedDefinitionCaches.Holder getCaches() {
+            return this.caches;
+        }
+
+        /**
+         * 登记beanName，返回是否是第一次(需要执行MergedBeanDefinitionPostProcessor)
+         */
+        boolean markPostProcessed(String beanName) {
+            return this.postProcessedBeanNames.add(beanName);
+        }
+    }
+
+    /**
+     * 合并结果中会用到的全部属性；不含BeanName，数组按内容比较
+     */
+    record Shape(Class<?> beanClass, String scope, boolean abstractFlag, @Nullable Boolean lazyInit, int autowireMode,
+                 int dependencyCheck, @Nullable List<String> dependsOn, boolean autowireCandidate, boolean primary,
+                 boolean nonPublicAccessAllowed, boolean lenientConstructorResolution, @Nullable List<String> initMethodNames,
+                 boolean enforceInitMethod, @Nullable List<String> destroyMethodNames, boolean enforceDestroyMethod,
+                 boolean synthetic, int role, @Nullable String description, @Nullable Object resource, @Nullable Object source) {
+
+        @Nullable
+        static Shape of(BeanDefinition beanDefinition) {
+            if (!(beanDefinition instanceof AbstractBeanDefinition abd) || abd instanceof RootBeanDefinition
+                    || abd.getParentName() != null || !abd.hasBeanClass() || FactoryBean.class.isAssignableFrom(abd.getBeanClass())
+                    || abd.hasConstructorArgumentValues() || abd.hasPropertyValues() || abd.hasMethodOverrides()
+                    || !abd.getQualifiers().isEmpty() || abd.attributeNames().length > 0 || abd.getInstanceSupplier() != null
+                    || abd.getFactoryBeanName() != null || abd.getFactoryMethodName() != null) {
+                return null;
+            }
+            return new Shape(abd.getBeanClass(), abd.getScope(), abd.isAbstract(), abd.getLazyInit(), abd.getAutowireMode(),
+                    abd.getDependencyCheck(), asList(abd.getDependsOn()), abd.isAutowireCandidate(), abd.isPrimary(),
+                    abd.isNonPublicAccessAllowed(), abd.isLenientConstructorResolution(), asList(abd.getInitMethodNames()),
+                    abd.isEnforceInitMethod(), asList(abd.getDestroyMethodNames()), abd.isEnforceDestroyMethod(),
+                    abd.isSynthetic(), abd.getRole(), abd.getDescription(), abd.getResource(), abd.getSource());
+        }
+
+        @Nullable
+        private static List<String> asList(@Nullable String[] values) {
+            return (values != null ? List.of(values) : null);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * @apiNote 单例创建保护：每个BeanName一把ReentrantLock，替代DefaultSingletonBeanRegistry中整个创建过程都持有的singletonObjects全局锁
+ * -- 同一线程沿依赖链递归创建时可重入；不同线程创建不同的Bean互不阻塞；同一个Bean只会被一个线程创建一次
+ * -- 两个线程相互等待对方正在创建的Bean(未能提前分析出的循环依赖分到了两个线程)时，发现等待环的一方不再等待，
+ *    改为取对方的早期引用，与单线程下循环依赖的处理方式一致
+ * -- 等待使用ReentrantLock而不是synchronized，虚拟线程等待时会让出载体线程(JDK 21~23中synchronized会钉住载体线程)
+ * -- 锁对象随BeanName一直保留：创建失败后重试的线程必须与仍在等待旧锁的线程竞争同一把锁，否则同一个Bean可能被创建两次
+ */
+public class SingletonCreationGuard {
+
+    private final Map<String, CreationLock> locks = new ConcurrentHashMap<>();
+
+    /** 线程 -> 正在等待的BeanName，用于检测线程之间的等待环 */
+    private final Map<Thread, String> waiting = new ConcurrentHashMap<>();
+
+    private final LongAdder contended = new LongAdder();
+
+    private final LongAdder earlyReferences = new LongAdder();
+
+    /**
+     * 需要等待其他线程释放锁的次数
+     */
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    /**
+     * 因线程间等待环改用早期引用的次数
+     */
+    public long getEarlyReferenceCount() {
+        return earlyReferences.sum();
+    }
+
+    /**
+     * 是否有其他线程正在创建该Bean，此时不应向当前线程暴露其早期引用
+     */
+    public boolean isCreatedByOtherThread(String beanName) {
+        CreationLock lock = locks.get(beanName);
+        Thread owner = (lock != null ? lock.owner() : null);
+        return owner != null && owner != Thread.currentThread();
+    }
+
+    /**
+     * 持有beanName对应的锁执行creation；等待会形成线程间等待环时不加锁，改为执行earlyReference
+     */
+    public <T> T execute(String beanName, Supplier<T> creation, Supplier<T> earlyReference) {
+        CreationLock lock = locks.computeIfAbsent(beanName, key -> new CreationLock());
+        if (!lock.tryLock()) {
+            contended.increment();
+            Thread current = Thread.currentThread();
+            waiting.put(current, beanName);
+            try {
+                if (wouldDeadlock(beanName, current)) {
+                    earlyReferences.increment();
+                    return earlyReference.get();
+                }
+                lock.lock();
+            } finally {
+                waiting.remove(current);
+            }
+        }
+        try {
+            return creation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 沿"锁的持有者 -> 持有者正在等待的Bean -> 该Bean的锁的持有者"查找，回到当前线程说明等待会形成环
+     */
+    private boolean wouldDeadlock(String beanName, Thread current) {
+        Set<Thread> visited = new HashSet<>();
+        String target = beanName;
+        while (target != null) {
+            CreationLock lock = locks.get(target);
+            Thread owner = (lock != null ? lock.owner() : null);
+            if (owner == null || !visited.add(owner)) {
+                return false;
+            }
+            if (owner == current) {
+                return true;
+            }
+            target = waiting.get(owner);
+        }
+        return false;
+    }
+
+    private static class CreationLock extends ReentrantLock {
+        Thread owner() {
+            return getOwner();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.*;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * @apiNote 单例之间的依赖图("A依赖B")，用于并行预实例化与并行销毁时安排顺序
+ * -- 依赖来源：depends-on、factoryBean、构造参数/属性值中的Bean引用(含内部Bean和集合)、容器已记录的依赖关系
+ *    (registerDependentBean/getDependenciesForBean)、@Autowired/@Inject注入点与隐式构造器注入按类型匹配到的候选Bean
+ * -- 分析是保守的近似：多出来的边只会降低并行度；漏掉的边(如运行期才决定的依赖)由 {@link SingletonCreationGuard} 在创建时兜底
+ * -- 循环依赖的Bean合并为一个强连通分量，由同一个线程按注册顺序创建，保持单线程下的循环依赖语义
+ * -- {@link #build}分析非懒加载单例的定义，用于创建；{@link #fromDependentBeans}只使用容器已记录的依赖关系，用于销毁
+ */
+public class SingletonDependencyGraph {
+
+    private final List<String> beanNames;
+
+    private final Map<String, Set<String>> dependencies;
+
+    private SingletonDependencyGraph(List<String> beanNames, Map<String, Set<String>> dependencies) {
+        this.beanNames = beanNames;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * 分析beanNames(按注册顺序)之间的依赖，图之外的Bean(懒加载、prototype等)不参与调度
+     */
+    public static SingletonDependencyGraph build(DefaultListableBeanFactory beanFactory, List<String> beanNames) {
+        Set<String> nodes = new HashSet<>(beanNames);
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (String beanName : beanNames) {
+            Set<String> collected = new LinkedHashSet<>();
+            new DependencyCollector(beanFactory, collected).collect(beanName);
+            collected.retainAll(nodes);
+            collected.remove(beanName);
+            dependencies.put(beanName, collected);
+        }
+        return new SingletonDependencyGraph(List.copyOf(beanNames), dependencies);
+    }
+
+    /**
+     * 按容器记录的依赖关系(registerDependentBean)构建依赖图，边的含义与build相同：依赖它的Bean(getDependentBeans)"依赖"该Bean；
+     * 从beanNames(按注册顺序)出发沿getDependentBeans补全图中的节点(如依赖了单例的内部Bean、prototype)
+     */
+    public static SingletonDependencyGraph fromDependentBeans(ConfigurableBeanFactory beanFactory, List<String> beanNames) {
+        List<String> nodes = new ArrayList<>(beanNames);
+        Set<String> visited = new HashSet<>(beanNames);
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            String beanName = nodes.get(i);
+            dependencies.computeIfAbsent(beanName, name -> new LinkedHashSet<>());
+            for (String dependent : beanFactory.getDependentBeans(beanName)) {
+                if (dependent.equals(beanName)) {
+                    continue;
+                }
+                if (visited.add(dependent)) {
+                    nodes.add(dependent);
+                }
+                dependencies.computeIfAbsent(dependent, name -> new LinkedHashSet<>()).add(beanName);
+            }
+        }
+        return new SingletonDependencyGraph(List.copyOf(nodes), dependencies);
+    }
+
+    public List<String> getBeanNames() {
+        return beanNames;
+    }
+
+    public Set<String> getDependencies(String beanName) {
+        return dependencies.getOrDefault(beanName, Collections.emptySet());
+    }
+
+    public int getDependencyCount() {
+        int count = 0;
+        for (Set<String> beanDependencies : dependencies.values()) {
+            count += beanDependencies.size();
+        }
+        return count;
+    }
+
+    /**
+     * 强连通分量(Tarjan)，被依赖的分量排在前面；分量内部按注册顺序排列
+     */
+    public List<List<String>> stronglyConnectedComponents() {
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        List<List<String>> components = new ArrayList<>();
+        Map<String, Integer> registrationOrder = new HashMap<>();
+        for (int i = 0; i < beanNames.size(); i++) {
+            registrationOrder.put(beanNames.get(i), i);
+        }
+        for (String beanName : beanNames) {
+            if (!index.containsKey(beanName)) {
+                strongConnect(beanName, index, lowLink, stack, onStack, components);
+            }
+        }
+        for (List<String> component : components) {
+            component.sort(Comparator.comparing(registrationOrder::get));
+        }
+        return components;
+    }
+
+    /**
+     * 迭代实现的Tarjan算法，避免依赖链很长时栈溢出
+     */
+    private void strongConnect(String root, Map<String, Integer> index, Map<String, Integer> lowLink,
+                               Deque<String> stack, Set<String> onStack, List<List<String>> components) {
+        Deque<Map.Entry<String, Iterator<String>>> callStack = new ArrayDeque<>();
+        visit(root, index, lowLink, stack, onStack, callStack);
+        while (!callStack.isEmpty()) {
+            Map.Entry<String, Iterator<String>> frame = callStack.peek();
+            String beanName = frame.getKey();
+            Iterator<String> iterator = frame.getValue();
+            if (iterator.hasNext()) {
+                String dependency = iterator.next();
+                if (!index.containsKey(dependency)) {
+                    visit(dependency, index, lowLink, stack, onStack, callStack);
+                } else if (onStack.contains(dependency)) {
+                    lowLink.put(beanName, Math.min(lowLink.get(beanName), index.get(dependency)));
+                }
+                continue;
+            }
+            callStack.pop();
+            if (!callStack.isEmpty()) {
+                String parent = callStack.peek().getKey();
+                lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(beanName)));
+            }
+            if (lowLink.get(beanName).equals(index.get(beanName))) {
+                List<String> component = new ArrayList<>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(beanName));
+                components.add(component);
+            }
+        }
+    }
+
+    private void visit(String beanName, Map<String, Integer> index, Map<String, Integer> lowLink, Deque<String> stack,
+                       Set<String> onStack, Deque<Map.Entry<String, Iterator<String>>> callStack) {
+        index.put(beanName, index.size());
+        lowLink.put(beanName, index.get(beanName));
+        stack.push(beanName);
+        onStack.add(beanName);
+        callStack.push(Map.entry(beanName, getDependencies(beanName).iterator()));
+    }
+
+    /**
+     * 从BeanDefinition与Bean类上收集依赖的BeanName
+     */
+    private static class DependencyCollector {
+
+        private final DefaultListableBeanFactory beanFactory;
+
+        private final Set<String> result;
+
+        DependencyCollector(DefaultListableBeanFactory beanFactory, Set<String> result) {
+            this.beanFactory = beanFactory;
+            this.result = result;
+        }
+
+        void collect(String beanName) {
+            BeanDefinition definition = beanFactory.getMergedBeanDefinition(beanName);
+            collectDefinition(definition);
+            for (String dependency : beanFactory.getDependenciesForBean(beanName)) {
+                addBeanName(dependency);
+            }
+            if (definition instanceof AbstractBeanDefinition abd) {
+                if (abd.getFactoryMethodName() != null) {
+                    collectFactoryMethodParameters(abd);
+                } else if (abd.hasBeanClass()) {
+                    collectInjectionPoints(abd.getBeanClass(), !abd.hasConstructorArgumentValues());
+                }
+            }
+        }
+
+        private void collectDefinition(BeanDefinition definition) {
+            String[] dependsOn = definition.getDependsOn();
+            if (dependsOn != null) {
+                for (String dependency : dependsOn) {
+                    addBeanName(dependency);
+                }
+            }
+            if (definition.getFactoryBeanName() != null) {
+                addBeanName(definition.getFactoryBeanName());
+            }
+            ConstructorArgumentValues constructorArguments = definition.getConstructorArgumentValues();
+            for (ConstructorArgumentValues.ValueHolder holder : constructorArguments.getIndexedArgumentValues().values()) {
+                collectValue(holder.getValue());
+            }
+            for (ConstructorArgumentValues.ValueHolder holder : constructorArguments.getGenericArgumentValues()) {
+                collectValue(holder.getValue());
+            }
+            for (PropertyValue propertyValue : definition.getPropertyValues().getPropertyValues()) {
+                collectValue(propertyValue.getValue());
+            }
+        }
+
+        private void collectValue(Object value) {
+            if (value instanceof BeanReference reference) {
+                addBeanName(reference.getBeanName());
+            } else if (value instanceof BeanDefinitionHolder holder) {
+                collectDefinition(holder.getBeanDefinition());
+            } else if (value instanceof BeanDefinition definition) {
+                collectDefinition(definition);
+            } else if (value instanceof Collection<?> collection) {
+                for (Object element : collection) {
+                    collectValue(element);
+                }
+            } else if (value instanceof Map<?, ?> map) {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    collectValue(entry.getKey());
+                    collectValue(entry.getValue());
+                }
+            } else if (value instanceof Object[] array) {
+                for (Object element : array) {
+                    collectValue(element);
+                }
+            }
+        }
+
+        /**
+         * 按AutowiredAnnotationBeanPostProcessor的规则找出注入点，再按类型匹配候选Bean
+         */
+        private void collectInjectionPoints(Class<?> beanClass, boolean autowireConstructor) {
+            // 显式指定了构造参数时，参数中的Bean引用已在collectDefinition中收集
+            if (autowireConstructor) {
+                Constructor<?>[] constructors = beanClass.getDeclaredConstructors();
+                for (Constructor<?> constructor : constructors) {
+                    if (constructors.length == 1 || isInjectionPoint(constructor)) {
+                        collectParameters(constructor);
+                    }
+                }
+            }
+            for (Class<?> current = beanClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                ReflectionUtils.doWithLocalFields(current, field -> {
+                    if (!Modifier.isStatic(field.getModifiers()) && isInjectionPoint(field)) {
+                        collectType(ResolvableType.forField(field));
+                    }
+                });
+                ReflectionUtils.doWithLocalMethods(current, method -> {
+                    if (!Modifier.isStatic(method.getModifiers()) && isInjectionPoint(method)) {
+                        collectParameters(method);
+                    }
+                });
+            }
+        }
+
+        /**
+         * 工厂方法(如@Bean方法)的参数，工厂方法重载时无法在创建前确定，跳过
+         */
+        private void collectFactoryMethodParameters(AbstractBeanDefinition definition) {
+            Class<?> factoryClass = (definition.getFactoryBeanName() != null
+                    ? beanFactory.getType(definition.getFactoryBeanName(), false)
+                    : (definition.hasBeanClass() ? definition.getBeanClass() : null));
+            if (factoryClass == null) {
+                return;
+            }
+            Method candidate = null;
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(factoryClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+                if (method.getName().equals(definition.getFactoryMethodName())) {
+                    if (candidate != null) {
+                        return;
+                    }
+                    candidate = method;
+                }
+            }
+            if (candidate != null) {
+                collectParameters(candidate);
+            }
+        }
+
+        private void collectParameters(Executable executable) {
+            for (int i = 0; i < executable.getParameterCount(); i++) {
+                MethodParameter parameter = MethodParameter.forExecutable(executable, i);
+                if (!isLazy(parameter.getParameter())) {
+                    collectType(ResolvableType.forMethodParameter(parameter));
+                }
+            }
+        }
+
+        private void collectType(ResolvableType type) {
+            Class<?> rawType = type.resolve();
+            if (rawType == null) {
+                return;
+            }
+            if (ObjectFactory.class.isAssignableFrom(rawType) || "jakarta.inject.Provider".equals(rawType.getName())) {
+                // 延迟获取，不构成创建时依赖
+                return;
+            }
+            if (rawType == Optional.class || Collection.class.isAssignableFrom(rawType)) {
+                collectType(type.getGeneric(0));
+            } else if (Map.class.isAssignableFrom(rawType)) {
+                collectType(type.getGeneric(1));
+            } else if (rawType.isArray()) {
+                collectType(type.getComponentType());
+            } else if (rawType != Object.class && !BeanUtils.isSimpleProperty(rawType)) {
+                for (String candidate : beanFactory.getBeanNamesForType(rawType, true, false)) {
+                    addBeanName(candidate);
+                }
+            }
+        }
+
+        private static boolean isInjectionPoint(AnnotatedElement element) {
+            MergedAnnotations annotations = MergedAnnotations.from(element);
+            return (annotations.isPresent(Autowired.class) || annotations.isPresent("jakarta.inject.Inject")) && !isLazy(element);
+        }
+
+        private static boolean isLazy(AnnotatedElement element) {
+            return MergedAnnotations.from(element).isPresent(Lazy.class);
+        }
+
+        private void addBeanName(String name) {
+            result.add(beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(name)));
+        }
+    }
+}
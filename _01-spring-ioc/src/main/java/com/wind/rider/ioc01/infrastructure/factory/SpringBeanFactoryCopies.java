@@ -0,0 +1,306 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.CannotLoadBeanClassException;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringVersion;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @apiNote {@link OptimizedListableBeanFactory} 中不得不复制的Spring非公开代码全部集中在这里，对应Spring Framework {@value #TRACKED_SPRING_VERSION}，
+ * 升级Spring时逐个与原方法对照；其余功能一律调用父类方法，不另写一份。运行时的Spring版本与之不同时加载本类时记录一次警告
+ * -- matchBeanDefinition/matchManualSingleton：DefaultListableBeanFactory#doGetBeanNamesForType(私有)循环体中的匹配规则，
+ *    类型索引缩小候选范围后逐个确认
+ * -- createSingleton：DefaultSingletonBeanRegistry#getSingleton(String, ObjectFactory)，原方法整个在singletonObjects全局锁下执行，
+ *    分段加锁的单例创建需要一份不加锁的；被抑制的异常与"销毁期间"标记对应父类私有的suppressedExceptions/singletonsCurrentlyInDestruction
+ * -- createFactoryBeanObject：FactoryBeanRegistrySupport#getObjectFromFactoryBean的单例分支，同样因为全局锁而复制，
+ *    产物缓存对应父类私有的factoryBeanObjectCache
+ */
+abstract class SpringBeanFactoryCopies extends DefaultListableBeanFactory {
+
+    static final String TRACKED_SPRING_VERSION = "6.1.5";
+
+    /** 与DefaultSingletonBeanRegistry一致，每次创建最多记录的被抑制异常数 */
+    private static final int SUPPRESSED_EXCEPTIONS_LIMIT = 100;
+
+    /** destroySingletons执行期间为true(顺序与并行销毁)，对应父类私有的singletonsCurrentlyInDestruction */
+    private volatile boolean singletonsInDestruction;
+
+    /** 不持有全局锁创建单例时按线程记录的被抑制异常，对应父类私有的suppressedExceptions */
+    private final ThreadLocal<Set<Exception>> suppressedExceptions = new ThreadLocal<>();
+
+    /** 不持有全局锁时缓存的FactoryBean单例产物，对应父类私有的factoryBeanObjectCache */
+    private final Map<String, Object> factoryBeanObjects = new ConcurrentHashMap<>();
+
+    static {
+        String version = SpringVersion.getVersion();
+        if (version != null && !version.equals(TRACKED_SPRING_VERSION)) {
+            LogFactory.getLog(SpringBeanFactoryCopies.class).warn("OptimizedListableBeanFactory copies internals of Spring Framework "
+                    + TRACKED_SPRING_VERSION + " but is running on " + version + ", see SpringBeanFactoryCopies");
+        }
+    }
+
+    SpringBeanFactoryCopies() {
+        super();
+    }
+
+    SpringBeanFactoryCopies(@Nullable BeanFactory parentBeanFactory) {
+        super(parentBeanFactory);
+    }
+
+    //---------------------------------------------------------------------
+    // DefaultListableBeanFactory#doGetBeanNamesForType
+    //---------------------------------------------------------------------
+
+    /**
+     * 对应doGetBeanNamesForType中BeanDefinition的分支，匹配时返回结果中的名称(FactoryBean本身带&前缀)，否则返回null
+     */
+    @Nullable
+    final String matchBeanDefinition(String beanName, ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+        try {
+            RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+            // Only check bean definition if it is complete.
+            if (mbd.isAbstract() || !(allowEagerInit ||
+                    (mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
+                            !requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+                return null;
+            }
+            boolean isFactoryBean = isFactoryBean(beanName, mbd);
+            BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+            boolean matchFound = false;
+            boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
+            boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
+            if (!isFactoryBean) {
+                if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+                    matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                }
+            } else {
+                if (includeNonSingletons || isNonLazyDecorated ||
+                        (allowFactoryBeanInit && isSingleton(beanName, mbd, dbd))) {
+                    matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                }
+                if (!matchFound) {
+                    // In case of FactoryBean, try to match FactoryBean instance itself next.
+                    beanName = FACTORY_BEAN_PREFIX + beanName;
+                    if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                }
+            }
+            return (matchFound ? beanName : null);
+        } catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
+            if (allowEagerInit) {
+                throw ex;
+            }
+            // Probably a placeholder: let's ignore it for type matching purposes.
+            onSuppressedException(ex);
+        } catch (NoSuchBeanDefinitionException ex) {
+            // Bean definition got removed while we were iterating -> ignore.
+        }
+        return null;
+    }
+
+    /**
+     * 对应doGetBeanNamesForType中手动注册单例的分支
+     */
+    @Nullable
+    final String matchManualSingleton(String beanName, ResolvableType type, boolean includeNonSingletons) {
+        try {
+            // In case of FactoryBean, match object created by FactoryBean.
+            if (isFactoryBean(beanName)) {
+                if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+                    return beanName;
+                }
+                beanName = FACTORY_BEAN_PREFIX + beanName;
+            }
+            // Match raw bean instance (might be raw FactoryBean).
+            if (isTypeMatch(beanName, type)) {
+                return beanName;
+            }
+        } catch (NoSuchBeanDefinitionException ex) {
+            // Singleton got destroyed while we were iterating -> ignore.
+        }
+        return null;
+    }
+
+    private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
+        return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
+    }
+
+    private boolean requiresEagerInitForType(@Nullable String factoryBeanName) {
+        return (factoryBeanName != null && isFactoryBean(factoryBeanName) && !containsSingleton(factoryBeanName));
+    }
+
+    //---------------------------------------------------------------------
+    // DefaultSingletonBeanRegistry#getSingleton(String, ObjectFactory)
+    //---------------------------------------------------------------------
+
+    /**
+     * 与原方法一致(销毁期间拒绝创建、记录被抑制的异常)，只是不持有singletonObjects全局锁，被抑制的异常按线程记录；
+     * 由调用方保证同一单例不会同时创建
+     */
+    final Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+        if (containsSingleton(beanName)) {
+            return super.getSingleton(beanName, false);
+        }
+        if (this.singletonsInDestruction) {
+            throw creationNotAllowedInDestruction(beanName);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+        }
+        beforeSingletonCreation(beanName);
+        boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+        if (recordSuppressedExceptions) {
+            this.suppressedExceptions.set(new LinkedHashSet<>());
+        }
+        Object singletonObject;
+        try {
+            singletonObject = singletonFactory.getObject();
+        } catch (IllegalStateException ex) {
+            // Has the singleton object implicitly appeared in the meantime ->
+            // if yes, proceed with it since the exception indicates that state.
+            if (containsSingleton(beanName)) {
+                return super.getSingleton(beanName, false);
+            }
+            throw ex;
+        } catch (BeanCreationException ex) {
+            if (recordSuppressedExceptions) {
+                for (Exception suppressedException : this.suppressedExceptions.get()) {
+                    ex.addRelatedCause(suppressedException);
+                }
+            }
+            throw ex;
+        } finally {
+            if (recordSuppressedExceptions) {
+                this.suppressedExceptions.remove();
+            }
+            afterSingletonCreation(beanName);
+        }
+        addSingleton(beanName, singletonObject);
+        return singletonObject;
+    }
+
+    @Override
+    protected void onSuppressedException(Exception ex) {
+        Set<Exception> suppressed = this.suppressedExceptions.get();
+        if (suppressed == null) {
+            super.onSuppressedException(ex);
+        } else if (suppressed.size() < SUPPRESSED_EXCEPTIONS_LIMIT) {
+            suppressed.add(ex);
+        }
+    }
+
+    /**
+     * 父类在destroySingletons开始后才设置自己的标记，并行销毁在此之前进行，由容器在整个destroySingletons期间设置
+     */
+    final void setSingletonsInDestruction(boolean singletonsInDestruction) {
+        this.singletonsInDestruction = singletonsInDestruction;
+    }
+
+    final boolean isSingletonsInDestruction() {
+        return this.singletonsInDestruction;
+    }
+
+    static BeanCreationNotAllowedException creationNotAllowedInDestruction(String beanName) {
+        return new BeanCreationNotAllowedException(beanName,
+                "Singleton bean creation not allowed while singletons of this factory are in destruction " +
+                "(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+    }
+
+    //---------------------------------------------------------------------
+    // FactoryBeanRegistrySupport#getObjectFromFactoryBean
+    //---------------------------------------------------------------------
+
+    /**
+     * 与原方法的单例分支一致，产物由getObject()取得后按同样的方式后处理并缓存，只是不持有singletonObjects全局锁；
+     * 由调用方保证同一产物不会同时创建
+     */
+    final Object createFactoryBeanObject(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+        Object object = getCachedObjectForFactoryBean(beanName);
+        if (object != null) {
+            return object;
+        }
+        // 父类对非单例FactoryBean不加锁、不缓存，只负责调用getObject()并处理null与异常
+        object = super.getObjectFromFactoryBean(new UncachedFactoryBean(factory), beanName, false);
+        // Only post-process and store if not put there already during getObject() call above
+        // (e.g. because of circular reference processing triggered by custom getBean calls)
+        Object alreadyThere = this.factoryBeanObjects.get(beanName);
+        if (alreadyThere != null) {
+            return alreadyThere;
+        }
+        if (shouldPostProcess) {
+            if (isSingletonCurrentlyInCreation(beanName)) {
+                // Temporarily return non-post-processed object, not storing it yet..
+                return object;
+            }
+            beforeSingletonCreation(beanName);
+            try {
+                object = postProcessObjectFromFactoryBean(object, beanName);
+            } catch (Throwable ex) {
+                throw new BeanCreationException(beanName, "Post-processing of FactoryBean's singleton object failed", ex);
+            } finally {
+                afterSingletonCreation(beanName);
+            }
+        }
+        if (containsSingleton(beanName)) {
+            this.factoryBeanObjects.put(beanName, object);
+        }
+        return object;
+    }
+
+    @Override
+    @Nullable
+    protected Object getCachedObjectForFactoryBean(String beanName) {
+        Object object = this.factoryBeanObjects.get(beanName);
+        return (object != null ? object : super.getCachedObjectForFactoryBean(beanName));
+    }
+
+    @Override
+    protected void removeSingleton(String beanName) {
+        super.removeSingleton(beanName);
+        this.factoryBeanObjects.remove(beanName);
+    }
+
+    @Override
+    protected void clearSingletonCache() {
+        super.clearSingletonCache();
+        this.factoryBeanObjects.clear();
+    }
+
+    /**
+     * 按非单例交给父类，父类只调用getObject()而不在全局锁下缓存
+     */
+    private record UncachedFactoryBean(FactoryBean<?> target) implements FactoryBean<Object> {
+
+        @Override
+        public Object getObject() throws Exception {
+            return this.target.getObject();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return this.target.getObjectType();
+        }
+
+        @Override
+        public boolean isSingleton() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+
+import java.util.function.BiFunction;
+
+/**
+ * @apiNote fork中getBeanDefinition对尚未复制的模板定义返回的视图：读取直接委托给模板中共享的BeanDefinition，不复制；
+ * 第一次修改时才把定义复制到fork(与之前getBeanDefinition时立即复制的结果相同)，之后的读写都作用于副本
+ * -- getPropertyValues/getConstructorArgumentValues返回的是可修改的对象，按修改处理；只读取时应先用hasPropertyValues等判断
+ * -- 视图只实现BeanDefinition接口，需要具体类型(按AbstractBeanDefinition、AnnotatedBeanDefinition强转)的调用方，
+ *    应先在fork中重新registerBeanDefinition，之后getBeanDefinition返回的就是本容器中的定义
+ */
+final class TemplateBeanDefinitionView implements BeanDefinition {
+
+    private final String beanName;
+
+    private final BeanDefinition shared;
+
+    /** (BeanName, 共享定义) -> fork中的副本 */
+    private final BiFunction<String, BeanDefinition, BeanDefinition> copier;
+
+    @Nullable
+    private volatile BeanDefinition copy;
+
+    TemplateBeanDefinitionView(String beanName, BeanDefinition shared, BiFunction<String, BeanDefinition, BeanDefinition> copier) {
+        this.beanName = beanName;
+        this.shared = shared;
+        this.copier = copier;
+    }
+
+    private BeanDefinition read() {
+        BeanDefinition copy = this.copy;
+        return (copy != null ? copy : this.shared);
+    }
+
+    private BeanDefinition write() {
+        BeanDefinition copy = this.copy;
+        if (copy == null) {
+            copy = this.copier.apply(this.beanName, this.shared);
+            this.copy = copy;
+        }
+        return copy;
+    }
+
+    @Override
+    public void setParentName(@Nullable String parentName) {
+        write().setParentName(parentName);
+    }
+
+    @Override
+    @Nullable
+    public String getParentName() {
+        return read().getParentName();
+    }
+
+    @Override
+    public void setBeanClassName(@Nullable String beanClassName) {
+        write().setBeanClassName(beanClassName);
+    }
+
+    @Override
+    @Nullable
+    public String getBeanClassName() {
+        return read().getBeanClassName();
+    }
+
+    @Override
+    public void setScope(@Nullable String scope) {
+        write().setScope(scope);
+    }
+
+    @Override
+    @Nullable
+    public String getScope() {
+        return read().getScope();
+    }
+
+    @Override
+    public void setLazyInit(boolean lazyInit) {
+        write().setLazyInit(lazyInit);
+    }
+
+    @Override
+    public boolean isLazyInit() {
+        return read().isLazyInit();
+    }
+
+    @Override
+    public void setDependsOn(@Nullable String... dependsOn) {
+        write().setDependsOn(dependsOn);
+    }
+
+    @Override
+    @Nullable
+    public String[] getDependsOn() {
+        return read().getDependsOn();
+    }
+
+    @Override
+    public void setAutowireCandidate(boolean autowireCandidate) {
+        write().setAutowireCandidate(autowireCandidate);
+    }
+
+    @Override
+    public boolean isAutowireCandidate() {
+        return read().isAutowireCandidate();
+    }
+
+    @Override
+    public void setPrimary(boolean primary) {
+        write().setPrimary(primary);
+    }
+
+    @Override
+    public boolean isPrimary() {
+        return read().isPrimary();
+    }
+
+    @Override
+    public void setFactoryBeanName(@Nullable String factoryBeanName) {
+        write().setFactoryBeanName(factoryBeanName);
+    }
+
+    @Override
+    @Nullable
+    public String getFactoryBeanName() {
+        return read().getFactoryBeanName();
+    }
+
+    @Override
+    public void setFactoryMethodName(@Nullable String factoryMethodName) {
+        write().setFactoryMethodName(factoryMethodName);
+    }
+
+    @Override
+    @Nullable
+    public String getFactoryMethodName() {
+        return read().getFactoryMethodName();
+    }
+
+    @Override
+    public ConstructorArgumentValues getConstructorArgumentValues() {
+        return write().getConstructorArgumentValues();
+    }
+
+    @Override
+    public boolean hasConstructorArgumentValues() {
+        return read().hasConstructorArgumentValues();
+    }
+
+    @Override
+    public MutablePropertyValues getPropertyValues() {
+        return write().getPropertyValues();
+    }
+
+    @Override
+    public boolean hasPropertyValues() {
+        return read().hasPropertyValues();
+    }
+
+    @Override
+    public void setInitMethodName(@Nullable String initMethodName) {
+        write().setInitMethodName(initMethodName);
+    }
+
+    @Override
+    @Nullable
+    public String getInitMethodName() {
+        return read().getInitMethodName();
+    }
+
+    @Override
+    public void setDestroyMethodName(@Nullable String destroyMethodName) {
+        write().setDestroyMethodName(destroyMethodName);
+    }
+
+    @Override
+    @Nullable
+    public String getDestroyMethodName() {
+        return read().getDestroyMethodName();
+    }
+
+    @Override
+    public void setRole(int role) {
+        write().setRole(role);
+    }
+
+    @Override
+    public int getRole() {
+        return read().getRole();
+    }
+
+    @Override
+    public void setDescription(@Nullable String description) {
+        write().setDescription(description);
+    }
+
+    @Override
+    @Nullable
+    public String getDescription() {
+        return read().getDescription();
+    }
+
+    @Override
+    public ResolvableType getResolvableType() {
+        return read().getResolvableType();
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return read().isSingleton();
+    }
+
+    @Override
+    public boolean isPrototype() {
+        return read().isPrototype();
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return read().isAbstract();
+    }
+
+    @Override
+    @Nullable
+    public String getResourceDescription() {
+        return read().getResourceDescription();
+    }
+
+    @Override
+    @Nullable
+    public BeanDefinition getOriginatingBeanDefinition() {
+        return read().getOriginatingBeanDefinition();
+    }
+
+    @Override
+    public void setAttribute(String name, @Nullable Object value) {
+        write().setAttribute(name, value);
+    }
+
+    @Override
+    @Nullable
+    public Object getAttribute(String name) {
+        return read().getAttribute(name);
+    }
+
+    @Override
+    @Nullable
+    public Object removeAttribute(String name) {
+        return write().removeAttribute(name);
+    }
+
+    @Override
+    public boolean hasAttribute(String name) {
+        return read().hasAttribute(name);
+    }
+
+    @Override
+    public String[] attributeNames() {
+        return read().attributeNames();
+    }
+
+    @Override
+    @Nullable
+    public Object getSource() {
+        return read().getSource();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+        return (this == other || read().equals(other instanceof TemplateBeanDefinitionView view ? view.read() : other));
+    }
+
+    @Override
+    public int hashCode() {
+        return read().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return read().toString();
+    }
+}
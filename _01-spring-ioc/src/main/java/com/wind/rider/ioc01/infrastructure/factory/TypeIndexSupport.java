@@ -0,0 +1,194 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @apiNote 容器的类型索引：持有 {@link BeanTypeIndex}，由容器在注册表与单例变化时通知，按类型查找时用索引给出的候选回答，
+ * 逐个确认仍按Spring的匹配规则(见 {@link SpringBeanFactoryCopies#matchBeanDefinition})
+ * -- 存在重写了predictBeanType的SmartInstantiationAwareBeanPostProcessor时注册时的类型不再可信，查找返回null，由容器交给父类全量遍历
+ */
+final class TypeIndexSupport {
+
+    private static final String NULL_BEAN_CLASS_NAME = "org.springframework.beans.factory.support.NullBean";
+
+    private final SpringBeanFactoryCopies beanFactory;
+
+    private final BeanTypeIndex index;
+
+    private volatile boolean enabled = true;
+
+    /** 当前BeanPostProcessor是否会改变类型预测结果，null表示需要重新计算 */
+    @Nullable
+    private volatile Boolean typePredictionSafe;
+
+    TypeIndexSupport(SpringBeanFactoryCopies beanFactory, BeanTypeIndex index) {
+        this.beanFactory = beanFactory;
+        this.index = index;
+    }
+
+    BeanTypeIndex getIndex() {
+        return this.index;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * 注册或覆盖BeanDefinition，返回注册时能够确定的类型，无法确定时返回null
+     */
+    @Nullable
+    Class<?> definitionRegistered(String beanName, BeanDefinition beanDefinition) {
+        Class<?> indexType = determineIndexType(beanDefinition);
+        this.index.putDefinition(beanName, indexType);
+        return indexType;
+    }
+
+    void definitionRemoved(String beanName) {
+        this.index.remove(beanName);
+    }
+
+    /**
+     * 手动注册单例，返回单例的类型(FactoryBean为null)；同名的BeanDefinition仍按定义索引
+     */
+    @Nullable
+    Class<?> manualSingletonRegistered(String beanName, Object singletonObject, boolean hasBeanDefinition) {
+        Class<?> singletonType = singletonType(singletonObject);
+        if (!hasBeanDefinition) {
+            this.index.putManualSingleton(beanName, singletonType);
+        }
+        return singletonType;
+    }
+
+    /**
+     * 创建了Bean实例，对应父类doCreateBean记录的mbd.resolvedTargetType：此后(包括单例销毁后)容器也按实例的类型匹配
+     */
+    void instanceCreated(String beanName, Class<?> instanceType) {
+        if (!isNullBean(instanceType)) {
+            this.index.instanceCreated(beanName, instanceType);
+        }
+    }
+
+    /**
+     * 单例加入缓存：容器优先按缓存中的对象(可能已被代理)匹配
+     */
+    void singletonCreated(String beanName, Object singletonObject) {
+        if (!isNullBean(singletonObject.getClass())) {
+            this.index.instanceCreated(beanName, singletonType(singletonObject));
+        }
+    }
+
+    /**
+     * destroySingleton：手动注册的单例随之从索引中移除，BeanDefinition仍按观察到的实例类型索引，与容器保留的resolvedTargetType一致
+     */
+    void singletonDestroyed(String beanName) {
+        if (this.index.isManualSingleton(beanName)) {
+            this.index.remove(beanName);
+        }
+    }
+
+    void singletonsDestroyed() {
+        this.index.singletonsDestroyed();
+    }
+
+    /**
+     * BeanPostProcessor增减后重新判断类型预测是否可信
+     */
+    void postProcessorsChanged() {
+        this.typePredictionSafe = null;
+    }
+
+    /**
+     * 用索引给出的候选回答按类型查找，rawType为候选的原始类型；索引不可用时返回null，由容器交给父类遍历全部BeanDefinition。
+     * 父类只遍历本容器中的定义，fork中索引不可用时改为逐个确认索引中的全部Bean
+     */
+    @Nullable
+    String[] getBeanNamesForType(@Nullable Class<?> rawType, ResolvableType type, boolean includeNonSingletons,
+                                 boolean allowEagerInit, boolean fork) {
+        if (rawType == null || !this.enabled || !isTypePredictionSafe()) {
+            return (fork ? matchCandidates(Object.class, type, includeNonSingletons, allowEagerInit) : null);
+        }
+        return matchCandidates(rawType, type, includeNonSingletons, allowEagerInit);
+    }
+
+    private String[] matchCandidates(Class<?> rawType, ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+        List<String> result = new ArrayList<>();
+        for (BeanTypeIndex.Candidate candidate : this.index.candidates(rawType)) {
+            String beanName = candidate.beanName();
+            String matched;
+            if (candidate.manualSingleton()) {
+                matched = this.beanFactory.matchManualSingleton(beanName, type, includeNonSingletons);
+            } else {
+                matched = (this.beanFactory.isAlias(beanName) ? null
+                        : this.beanFactory.matchBeanDefinition(beanName, type, includeNonSingletons, allowEagerInit));
+            }
+            if (matched != null) {
+                result.add(matched);
+            }
+        }
+        return StringUtils.toStringArray(result);
+    }
+
+    boolean isTypePredictionSafe() {
+        Boolean safe = this.typePredictionSafe;
+        if (safe == null) {
+            safe = true;
+            for (BeanPostProcessor beanPostProcessor : this.beanFactory.getBeanPostProcessors()) {
+                if (beanPostProcessor instanceof SmartInstantiationAwareBeanPostProcessor) {
+                    Method predictBeanType = ReflectionUtils.findMethod(beanPostProcessor.getClass(), "predictBeanType", Class.class, String.class);
+                    if (predictBeanType != null && predictBeanType.getDeclaringClass() != SmartInstantiationAwareBeanPostProcessor.class) {
+                        safe = false;
+                        break;
+                    }
+                }
+            }
+            this.typePredictionSafe = safe;
+        }
+        return safe;
+    }
+
+    /**
+     * 工厂方法返回null时父类以包内可见的NullBean占位，不记录其类型
+     */
+    private static boolean isNullBean(Class<?> instanceType) {
+        return instanceType.getName().equals(NULL_BEAN_CLASS_NAME);
+    }
+
+    @Nullable
+    private static Class<?> singletonType(Object singletonObject) {
+        return (singletonObject instanceof FactoryBean ? null : singletonObject.getClass());
+    }
+
+    /**
+     * 注册时能够确定的Bean类型：已加载类、非FactoryBean、非工厂方法、无父定义的BeanDefinition，否则返回null
+     */
+    @Nullable
+    private static Class<?> determineIndexType(BeanDefinition beanDefinition) {
+        if (!(beanDefinition instanceof AbstractBeanDefinition abd) || !abd.hasBeanClass() || abd.getParentName() != null
+                || abd.getFactoryMethodName() != null || abd.getFactoryBeanName() != null) {
+            return null;
+        }
+        if (abd instanceof RootBeanDefinition rbd && (rbd.getDecoratedDefinition() != null || rbd.getTargetType() != null)) {
+            return null;
+        }
+        Class<?> beanClass = abd.getBeanClass();
+        return (FactoryBean.class.isAssignableFrom(beanClass) ? null : beanClass);
+    }
+}
@@ -14,7 +14,7 @@ public class SampleClass04 implements SampleInterface {
     private String message;
 
     public SampleClass04() {
-        log.info("SampleClass04 实例化 ,class = " + this);
+        log.info("SampleClass04 实例化 ,class = {}", this);
     }
 
     public SampleClass04(String message) {
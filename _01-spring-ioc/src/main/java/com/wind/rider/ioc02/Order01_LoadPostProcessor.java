@@ -1,7 +1,8 @@
 package com.wind.rider.ioc02;
 
-import com.google.common.base.Strings;
 import com.wind.rider.ioc01.DefaultListableBeanFactoryInterface;
+import com.wind.rider.ioc01.infrastructure.factory.GeneratedBeanRegistries;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
 import com.wind.rider.ioc02.infrastructure.config.ConfigClass01;
 import com.wind.rider.ioc02.infrastructure.sample.SampleBean01;
 import com.wind.rider.ioc02.infrastructure.sample.SampleBean02;
@@ -11,10 +12,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
-import org.springframework.beans.factory.support.AbstractBeanDefinition;
-import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
-import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.annotation.AnnotationConfigUtils;
 
 /**
@@ -27,7 +25,10 @@ public class Order01_LoadPostProcessor {
     public static void main(String[] args) {
         /*1. 演示向BeanFactory中Load常用的BeanFactoryPostProcessor和BeanPostProcessor */
         //1. 创建BeanFactory，因为需要从容器中注册BeanDefinition，因此需要使用到BeanDefinitionRegistry的接口能力
-        Object beanFactory = new DefaultListableBeanFactory();
+        // OptimizedListableBeanFactory会为每个Bean算出真正适用的BeanPostProcessor回调，只执行这份短列表(其余行为与DefaultListableBeanFactory一致)
+        Object beanFactory = new OptimizedListableBeanFactory();
+        // 开启运行期访问统计：按BeanName记录getBean/createBean的次数与耗时，getBeanAccessMetrics().registerMBean(beanFactory)后可在JConsole中查看
+        ((OptimizedListableBeanFactory) beanFactory).setAccessMetricsEnabled(true);
         //2. 使用AnnotationConfigUtils的registerAnnotationConfigProcessors方法，向BeanFactory注入一些常见的注解处理后处理器：
         /**
          * 具体如下：
@@ -43,30 +44,35 @@ public class Order01_LoadPostProcessor {
             showBeanDefinitionInBeanFactory(beanDefinitionRegistry);
             //3. 实际上这些BeanFactoryPostProcessor和BeanPostProcessor仅仅是在容器中注册了BeanDefinition而已，还没有生成实例并作用于容器
             // 在使其生效之前，可以在容器中添加配置类ConfigA的BeanDefinition用于演示这些后处理器的作用效果
-            AbstractBeanDefinition configABD = BeanDefinitionBuilder
-                    .genericBeanDefinition(ConfigClass01.class)
-                    .setScope("singleton")
-                    .getBeanDefinition();
-            beanDefinitionRegistry.registerBeanDefinition("configA",configABD );
+            // 默认使用编译期生成的ConfigClass01__BeanRegistry直接注册@Bean对应的BeanDefinition，ConfigurationClassPostProcessor会跳过它；
+            // 以 -Dprojecty.generated-registry.enabled=false 运行时，与原来一样只注册配置类，由ConfigurationClassPostProcessor在运行期解析
+            boolean generated = GeneratedBeanRegistries.registerConfiguration(beanDefinitionRegistry, "configA", ConfigClass01.class);
+            log.info("ConfigClass01： 【{}】", generated ? "使用编译期生成的BeanRegistry" : "由ConfigurationClassPostProcessor解析");
         }
         //4. 从容器中拿出BeanFactoryPostProcessor，调用这个BeanFacotryPostProcessor的postProcessorBeanFactory方法
         // 因为涉及到 ListableBeanFactory的getBeansOfType接口方法、以及postProcessorBeanFactory参数要求ConfigurableBeanFactory，所以这里使用ConfigurableListableBeanFactory
         if(beanFactory instanceof ConfigurableListableBeanFactory clBeanFactory){
             clBeanFactory.getBeansOfType(BeanFactoryPostProcessor.class).forEach((name,postprocessor)->{
                 postprocessor.postProcessBeanFactory(clBeanFactory);
-                log.info(Strings.lenientFormat("BeanFactoryPostProcessor： 【%s】 已装配",postprocessor.getClass().getSimpleName()));
+                log.info("BeanFactoryPostProcessor： 【{}】 已装配",postprocessor.getClass().getSimpleName());
             });
             //5. 从容器中拿出BeanPostProcessor的BeanPostProcessor，调用ConfigurableBeanFactory的addBeanPostProcessor方法
             clBeanFactory.getBeansOfType(BeanPostProcessor.class).forEach((name,postprocessor)->{
                 clBeanFactory.addBeanPostProcessor(postprocessor);
-                log.info(Strings.lenientFormat("BeanPostProcessor： 【%s】 已加入",postprocessor.getClass().getSimpleName()));
+                log.info("BeanPostProcessor： 【{}】 已加入",postprocessor.getClass().getSimpleName());
             });
             //6.展示效果，先预实例化容器
+            // preInstantiateSingletons在当前线程依次创建全部非懒加载单例；OptimizedListableBeanFactory设置preInstantiationExecutor后
+            // 可按依赖图并行创建，并通过getLastPreInstantiationReport()查看关键路径与节省的启动时间
 //            clBeanFactory.preInstantiateSingletons();
             SampleBean01 sampleBean01 = clBeanFactory.getBean(SampleBean01.class);
             SampleBean02 sampleBean02 = sampleBean01.getSampleBean02();
             System.out.println(sampleBean02);
             showBeanDefinitionInBeanFactory(clBeanFactory);
+            if (clBeanFactory instanceof OptimizedListableBeanFactory optimizedBeanFactory) {
+                log.info("BeanPostProcessor管道： {}", optimizedBeanFactory.getPostProcessorPipelineStats());
+                optimizedBeanFactory.getBeanAccessMetrics().getAllStats().forEach(stats -> log.info("Bean访问统计： {}", stats));
+            }
         }
 
         /* 2. 演示向ApplicationContext中加载PostProcessor */
@@ -81,7 +87,8 @@ public class Order01_LoadPostProcessor {
     public static void showBeanDefinitionInBeanFactory(Object beanFactory){
         if(beanFactory instanceof BeanDefinitionRegistry beanDefinitionRegistry){
             for (String beanDefinitionName : beanDefinitionRegistry.getBeanDefinitionNames()) {
-                log.info(Strings.lenientFormat("-----\n  beanDefinitionName: %s  \n BeanClass: %s \n ------",beanDefinitionName,beanDefinitionRegistry.getBeanDefinition(beanDefinitionName).getBeanClassName()));
+                // 参数化日志：只有INFO级别开启时才格式化消息，不再在调用处拼接字符串
+                log.info("-----\n  beanDefinitionName: {}  \n BeanClass: {} \n ------",beanDefinitionName,beanDefinitionRegistry.getBeanDefinition(beanDefinitionName).getBeanClassName());
             }
         }
     }
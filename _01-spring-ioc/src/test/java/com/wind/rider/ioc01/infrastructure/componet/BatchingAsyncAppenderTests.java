@@ -0,0 +1,173 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * stop时写完队列中的全部事件，输出与logback的FileAppender一致；队列满时按overflowPolicy丢弃
+ */
+class BatchingAsyncAppenderTests {
+
+    @TempDir
+    Path directory;
+
+    private final LoggerContext context = new LoggerContext();
+
+    @BeforeEach
+    void startContext() {
+        // 与SLF4J初始化的默认上下文一样设置MDCAdapter，prepareForDeferredProcessing需要复制MDC
+        this.context.setMDCAdapter(new LogbackMDCAdapter());
+        this.context.start();
+    }
+
+    @AfterEach
+    void stopContext() {
+        this.context.stop();
+    }
+
+    @Test
+    void stopDrainsQueuedEventsLikeFileAppender() throws Exception {
+        FileAppender<ILoggingEvent> stock = new FileAppender<>();
+        stock.setContext(this.context);
+        stock.setFile(this.directory.resolve("stock.log").toString());
+        stock.setEncoder(encoder());
+        stock.start();
+        BatchingAsyncAppender appender = appender(sink(this.directory.resolve("batching.log")), 16, BatchingAsyncAppender.OverflowPolicy.BLOCK);
+        Logger logger = logger();
+        logger.addAppender(stock);
+        logger.addAppender(appender);
+
+        for (int i = 0; i < 1000; i++) {
+            logger.info("event {}", i);
+        }
+        appender.stop();
+        stock.stop();
+        // 停止后到达的事件被忽略
+        logger.info("after stop");
+
+        assertThat(appender.getWrittenCount()).isEqualTo(1000);
+        assertThat(appender.getQueuedCount()).isZero();
+        assertThat(Files.readAllLines(this.directory.resolve("batching.log")))
+                .hasSize(1000)
+                .isEqualTo(Files.readAllLines(this.directory.resolve("stock.log")));
+    }
+
+    @Test
+    void stopDrainsEventsFromConcurrentCallers() throws Exception {
+        BatchingAsyncAppender appender = appender(sink(this.directory.resolve("batching.log")), 8, BatchingAsyncAppender.OverflowPolicy.BLOCK);
+        Logger logger = logger();
+        logger.addAppender(appender);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 250; i++) {
+                    logger.info("thread {} event {}", thread, i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        appender.stop();
+
+        assertThat(Files.readAllLines(this.directory.resolve("batching.log"))).hasSize(1000).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void fullQueueDiscardsAccordingToPolicy() throws Exception {
+        BlockingSink sink = new BlockingSink();
+        sink.setFile(this.directory.resolve("batching.log").toString());
+        sink.setEncoder(encoder());
+        BatchingAsyncAppender appender = appender(sink, 2, BatchingAsyncAppender.OverflowPolicy.DISCARD_BELOW_WARN);
+        appender.setDiscardingThreshold(2);
+        Logger logger = logger();
+        logger.addAppender(appender);
+
+        // 写线程取走第一个事件后阻塞在输出目标中，队列只剩两个位置
+        logger.info("taken");
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        logger.info("queued");
+        logger.info("discarded");
+        logger.warn("kept");
+        assertThat(appender.getDiscardedCount()).isEqualTo(1);
+
+        sink.release.countDown();
+        appender.stop();
+        assertThat(Files.readAllLines(this.directory.resolve("batching.log")))
+                .containsExactly("INFO taken", "INFO queued", "WARN kept");
+    }
+
+    private Logger logger() {
+        Logger logger = this.context.getLogger("batching");
+        logger.setAdditive(false);
+        return logger;
+    }
+
+    private BatchingAsyncAppender appender(LogSink sink, int queueSize, BatchingAsyncAppender.OverflowPolicy overflowPolicy) {
+        BatchingAsyncAppender appender = new BatchingAsyncAppender();
+        appender.setContext(this.context);
+        appender.setName("batching");
+        appender.addSink(sink);
+        appender.setQueueSize(queueSize);
+        appender.setBatchSize(4);
+        appender.setOverflowPolicy(overflowPolicy);
+        appender.setMaxFlushTime(10_000);
+        appender.start();
+        return appender;
+    }
+
+    private LogSink sink(Path file) {
+        LogSink sink = new LogSink();
+        sink.setFile(file.toString());
+        sink.setEncoder(encoder());
+        return sink;
+    }
+
+    private PatternLayoutEncoder encoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(this.context);
+        encoder.setPattern("%level %msg%n");
+        encoder.start();
+        return encoder;
+    }
+
+    /**
+     * 第一次写出时阻塞，直到release(最多10秒，断言失败时测试不会挂起)
+     */
+    private static final class BlockingSink extends LogSink {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        void write(List<ILoggingEvent> batch) {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(batch);
+        }
+    }
+}
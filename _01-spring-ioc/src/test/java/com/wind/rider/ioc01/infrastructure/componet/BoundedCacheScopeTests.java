@@ -0,0 +1,111 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 注册到DefaultListableBeanFactory的BoundedCacheScope：淘汰、过期与destroy时各执行一次销毁回调，destroyScopedBean由容器销毁
+ */
+class BoundedCacheScopeTests {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    void evictedBeansAreDestroyedOnce() {
+        BoundedCacheScope scope = new BoundedCacheScope(1, null, this.ticker);
+        DefaultListableBeanFactory beanFactory = beanFactory(scope);
+
+        Resource first = beanFactory.getBean("first", Resource.class);
+        assertThat(beanFactory.getBean("first")).isSameAs(first);
+        Resource second = beanFactory.getBean("second", Resource.class);
+
+        assertThat(first.destroyed).isEqualTo(1);
+        assertThat(second.destroyed).isZero();
+        assertThat(beanFactory.getBean("first")).isNotSameAs(first);
+        assertThat(second.destroyed).isEqualTo(1);
+        CacheScopeStats stats = scope.getStats();
+        assertThat(stats.evictions()).isEqualTo(2);
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.creations()).isEqualTo(3);
+    }
+
+    @Test
+    void expiredBeansAreDestroyedAndRecreated() {
+        BoundedCacheScope scope = new BoundedCacheScope(10, Duration.ofSeconds(30), this.ticker);
+        DefaultListableBeanFactory beanFactory = beanFactory(scope);
+
+        Resource first = beanFactory.getBean("first", Resource.class);
+        this.nanos.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertThat(beanFactory.getBean("first")).isSameAs(first);
+        this.nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        scope.cleanUp();
+
+        assertThat(first.destroyed).isEqualTo(1);
+        assertThat(scope.getStats().expirations()).isEqualTo(1);
+        assertThat(beanFactory.getBean("first")).isNotSameAs(first);
+    }
+
+    @Test
+    void destroyScopedBeanLeavesDestructionToTheBeanFactory() {
+        BoundedCacheScope scope = new BoundedCacheScope(10, null, this.ticker);
+        DefaultListableBeanFactory beanFactory = beanFactory(scope);
+
+        Resource first = beanFactory.getBean("first", Resource.class);
+        beanFactory.destroyScopedBean("first");
+        scope.destroy();
+
+        assertThat(first.destroyed).isEqualTo(1);
+        assertThat(beanFactory.getBean("first")).isNotSameAs(first);
+    }
+
+    @Test
+    void destroyRunsRemainingCallbacks() {
+        BoundedCacheScope scope = new BoundedCacheScope(10, null, this.ticker);
+        DefaultListableBeanFactory beanFactory = beanFactory(scope);
+
+        Resource first = beanFactory.getBean("first", Resource.class);
+        Resource second = beanFactory.getBean("second", Resource.class);
+        scope.destroy();
+
+        assertThat(first.destroyed).isEqualTo(1);
+        assertThat(second.destroyed).isEqualTo(1);
+        assertThat(scope.getStats().size()).isZero();
+        assertThat(beanFactory.getBean("first")).isNotSameAs(first);
+    }
+
+    private static DefaultListableBeanFactory beanFactory(BoundedCacheScope scope) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerScope("cache", scope);
+        for (String name : new String[] {"first", "second"}) {
+            beanFactory.registerBeanDefinition(name, BeanDefinitionBuilder.genericBeanDefinition(Resource.class)
+                    .setScope("cache").getBeanDefinition());
+        }
+        return beanFactory;
+    }
+
+    public static class Resource implements DisposableBean {
+
+        int destroyed;
+
+        @Override
+        public void destroy() {
+            this.destroyed++;
+        }
+    }
+}
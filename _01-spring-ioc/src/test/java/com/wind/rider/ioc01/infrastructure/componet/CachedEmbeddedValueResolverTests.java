@@ -0,0 +1,112 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.annotation.QualifierAnnotationAutowireCandidateResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * 解析结果与Environment#resolvePlaceholders一致；PropertySource增减立即生效，值的变化在refresh()或refreshInterval到期后生效
+ */
+class CachedEmbeddedValueResolverTests {
+
+    @Test
+    void resolvesLikeTheEnvironment() {
+        StandardEnvironment environment = environment(Map.of("name", "app", "greeting", "hello ${name}",
+                "key", "name", "loop", "${loop}"));
+        CachedEmbeddedValueResolver resolver = new CachedEmbeddedValueResolver(environment);
+
+        for (String text : List.of("plain", "${name}", "${greeting}!", "${missing}", "${missing:default}", "${${key}}",
+                "${missing:${name}}", "a ${name} b ${missing} c", "${unclosed", "{${name}}")) {
+            // 第二次取缓存的结果
+            assertThat(resolver.resolveStringValue(text)).isEqualTo(environment.resolvePlaceholders(text));
+            assertThat(resolver.resolveStringValue(text)).isEqualTo(environment.resolvePlaceholders(text));
+        }
+        assertThatIllegalArgumentException().isThrownBy(() -> environment.resolvePlaceholders("${loop}"));
+        assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolveStringValue("${loop}"));
+
+        CachedEmbeddedValueResolver strict = new CachedEmbeddedValueResolver(environment, false, Duration.ZERO);
+        assertThatIllegalArgumentException().isThrownBy(() -> environment.resolveRequiredPlaceholders("${missing}"));
+        assertThatIllegalArgumentException().isThrownBy(() -> strict.resolveStringValue("${missing}"));
+    }
+
+    @Test
+    void injectedValuesFollowTheEnvironmentLikeTheStockResolver() {
+        Map<String, Object> values = new HashMap<>(Map.of("name", "first"));
+        StandardEnvironment environment = environment(values);
+        CachedEmbeddedValueResolver resolver = new CachedEmbeddedValueResolver(environment, true, Duration.ZERO);
+        DefaultListableBeanFactory stock = beanFactory();
+        stock.addEmbeddedValueResolver(environment::resolvePlaceholders);
+        DefaultListableBeanFactory cached = beanFactory();
+        cached.addEmbeddedValueResolver(resolver);
+
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, cached)) {
+            assertThat(beanFactory.getBean(Target.class).name).isEqualTo("first");
+        }
+
+        // 增加、移除PropertySource立即生效
+        environment.getPropertySources().addFirst(new MapPropertySource("override", Map.of("name", "second")));
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, cached)) {
+            assertThat(beanFactory.getBean(Target.class).name).isEqualTo("second");
+        }
+        environment.getPropertySources().remove("override");
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, cached)) {
+            assertThat(beanFactory.getBean(Target.class).name).isEqualTo("first");
+        }
+
+        // PropertySource内部的值变化在refresh()后生效
+        values.put("name", "third");
+        assertThat(stock.getBean(Target.class).name).isEqualTo("third");
+        assertThat(cached.getBean(Target.class).name).isEqualTo("first");
+        resolver.refresh();
+        assertThat(cached.getBean(Target.class).name).isEqualTo("third");
+    }
+
+    @Test
+    void snapshotExpiresAfterTheRefreshInterval() throws Exception {
+        Map<String, Object> values = new HashMap<>(Map.of("name", "first"));
+        StandardEnvironment environment = environment(values);
+        CachedEmbeddedValueResolver resolver = new CachedEmbeddedValueResolver(environment, true, Duration.ofMillis(10));
+
+        assertThat(resolver.resolveStringValue("${name}")).isEqualTo("first");
+        values.put("name", "second");
+        Thread.sleep(20);
+        assertThat(resolver.resolveStringValue("${name}")).isEqualTo("second");
+    }
+
+    private static StandardEnvironment environment(Map<String, Object> values) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", values));
+        return environment;
+    }
+
+    private static DefaultListableBeanFactory beanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setAutowireCandidateResolver(new QualifierAnnotationAutowireCandidateResolver());
+        AutowiredAnnotationBeanPostProcessor autowired = new AutowiredAnnotationBeanPostProcessor();
+        autowired.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowired);
+        beanFactory.registerBeanDefinition("target", BeanDefinitionBuilder.genericBeanDefinition(Target.class)
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE).getBeanDefinition());
+        return beanFactory;
+    }
+
+    public static class Target {
+
+        @Value("${name}")
+        String name;
+    }
+}
@@ -0,0 +1,116 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanExpressionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * 编译前后的结果与StandardBeanExpressionResolver一致；编译时对Bean类型的假设不成立时回退为解释模式，之后再次编译
+ */
+class CompilingBeanExpressionResolverTests {
+
+    private static final int THRESHOLD = 2;
+
+    @Test
+    void compiledExpressionsEvaluateLikeTheStandardResolver() {
+        DefaultListableBeanFactory beanFactory = beanFactory(First.class);
+        BeanExpressionContext context = new BeanExpressionContext(beanFactory, null);
+        StandardBeanExpressionResolver stock = new StandardBeanExpressionResolver();
+        CompilingBeanExpressionResolver resolver = new CompilingBeanExpressionResolver(null, 16, THRESHOLD);
+
+        for (String expression : new String[] {"plain", "#{1 + 2}", "#{target.name}", "name: #{target.name}!", "#{counter}"}) {
+            for (int i = 0; i < THRESHOLD * 2; i++) {
+                Object expected = stock.evaluate(expression, context);
+                Object actual = resolver.evaluate(expression, context);
+                if (expected instanceof Counter) {
+                    // prototype编译后每次执行仍然重新创建
+                    assertThat(actual).isInstanceOf(Counter.class).isNotSameAs(expected);
+                } else {
+                    assertThat(actual).isEqualTo(expected);
+                }
+            }
+        }
+        assertThat(modeOf(resolver, "plain")).isEqualTo(CompilingBeanExpressionResolver.Mode.LITERAL);
+        assertThat(modeOf(resolver, "#{1 + 2}")).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+        assertThat(modeOf(resolver, "#{target.name}")).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+        assertThat(modeOf(resolver, "name: #{target.name}!")).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+        assertThat(modeOf(resolver, "#{counter}")).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+    }
+
+    @Test
+    void compiledExpressionRevertsWhenTheBeanTypeChanges() {
+        DefaultListableBeanFactory beanFactory = beanFactory(First.class);
+        BeanExpressionContext context = new BeanExpressionContext(beanFactory, null);
+        StandardBeanExpressionResolver stock = new StandardBeanExpressionResolver();
+        CompilingBeanExpressionResolver resolver = new CompilingBeanExpressionResolver(null, 16, THRESHOLD);
+        for (int i = 0; i < THRESHOLD; i++) {
+            resolver.evaluate("#{target.name}", context);
+        }
+        assertThat(modeOf(resolver, "#{target.name}")).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+
+        // 编译后的代码按First访问name，换成Second后回退为解释模式重新执行
+        beanFactory.registerBeanDefinition("target", BeanDefinitionBuilder.genericBeanDefinition(Second.class).getBeanDefinition());
+        assertThat(resolver.evaluate("#{target.name}", context)).isEqualTo(stock.evaluate("#{target.name}", context)).isEqualTo("second");
+        ExpressionStats stats = statsOf(resolver, "#{target.name}");
+        assertThat(stats.mode()).isEqualTo(CompilingBeanExpressionResolver.Mode.INTERPRETED);
+        assertThat(stats.fallbacks()).isEqualTo(1);
+
+        // 再执行THRESHOLD次后按新的类型重新编译
+        for (int i = 0; i < THRESHOLD; i++) {
+            assertThat(resolver.evaluate("#{target.name}", context)).isEqualTo("second");
+        }
+        assertThat(statsOf(resolver, "#{target.name}").mode()).isEqualTo(CompilingBeanExpressionResolver.Mode.COMPILED);
+        assertThat(statsOf(resolver, "#{target.name}").compileAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void evaluationErrorsAreNotHiddenByTheFallback() {
+        DefaultListableBeanFactory beanFactory = beanFactory(First.class);
+        BeanExpressionContext context = new BeanExpressionContext(beanFactory, null);
+        CompilingBeanExpressionResolver resolver = new CompilingBeanExpressionResolver(null, 16, THRESHOLD);
+
+        assertThatExceptionOfType(BeanExpressionException.class).isThrownBy(() -> resolver.evaluate("#{missing.name}", context));
+        assertThatExceptionOfType(BeanExpressionException.class)
+                .isThrownBy(() -> new StandardBeanExpressionResolver().evaluate("#{missing.name}", context));
+    }
+
+    private static CompilingBeanExpressionResolver.Mode modeOf(CompilingBeanExpressionResolver resolver, String expression) {
+        return statsOf(resolver, expression).mode();
+    }
+
+    private static ExpressionStats statsOf(CompilingBeanExpressionResolver resolver, String expression) {
+        return resolver.getStats().stream().filter(stats -> stats.expression().equals(expression)).findFirst().orElseThrow();
+    }
+
+    private static DefaultListableBeanFactory beanFactory(Class<?> targetClass) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("target", BeanDefinitionBuilder.genericBeanDefinition(targetClass).getBeanDefinition());
+        beanFactory.registerBeanDefinition("counter", BeanDefinitionBuilder.genericBeanDefinition(Counter.class)
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE).getBeanDefinition());
+        return beanFactory;
+    }
+
+    public static class First {
+
+        public String getName() {
+            return "first";
+        }
+    }
+
+    public static class Second {
+
+        public String getName() {
+            return "second";
+        }
+    }
+
+    public static class Counter {
+    }
+}
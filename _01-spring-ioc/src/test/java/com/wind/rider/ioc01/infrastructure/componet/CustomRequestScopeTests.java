@@ -0,0 +1,122 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomRequestScopeTests {
+
+    private static final int THREADS = 8;
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @AfterEach
+    void resetRequestAttributes() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void concurrentGetInSameRequestCreatesAndDestroysOneInstance() throws Exception {
+        beanFactory.registerScope("custom", new CustomRequestScope());
+        RootBeanDefinition definition = new RootBeanDefinition(SlowResource.class);
+        definition.setScope("custom");
+        beanFactory.registerBeanDefinition("slowResource", definition);
+        SlowResource.reset();
+
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    RequestContextHolder.setRequestAttributes(requestAttributes);
+                    try {
+                        start.await();
+                        return beanFactory.getBean("slowResource");
+                    } finally {
+                        RequestContextHolder.resetRequestAttributes();
+                    }
+                }));
+            }
+            start.countDown();
+            Set<Object> instances = ConcurrentHashMap.newKeySet();
+            for (Future<Object> future : futures) {
+                instances.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            assertThat(instances).hasSize(1);
+            assertThat(SlowResource.created).hasValue(1);
+            assertThat(SlowResource.destroyed).isEmpty();
+
+            requestAttributes.requestCompleted();
+            assertThat(SlowResource.destroyed).containsExactlyElementsOf(instances);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void requestsDoNotShareInstances() {
+        beanFactory.registerScope("custom", new CustomRequestScope());
+        RootBeanDefinition definition = new RootBeanDefinition(SlowResource.class);
+        definition.setScope("custom");
+        beanFactory.registerBeanDefinition("slowResource", definition);
+        SlowResource.reset();
+
+        ServletRequestAttributes first = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(first);
+        Object firstInstance = beanFactory.getBean("slowResource");
+        assertThat(beanFactory.getBean("slowResource")).isSameAs(firstInstance);
+        first.requestCompleted();
+
+        ServletRequestAttributes second = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(second);
+        assertThat(beanFactory.getBean("slowResource")).isNotSameAs(firstInstance);
+        second.requestCompleted();
+
+        assertThat(SlowResource.created).hasValue(2);
+        assertThat(SlowResource.destroyed).hasSize(2);
+    }
+
+    static class SlowResource implements DisposableBean {
+
+        static final AtomicInteger created = new AtomicInteger();
+
+        static final Set<Object> destroyed = ConcurrentHashMap.newKeySet();
+
+        SlowResource() throws InterruptedException {
+            created.incrementAndGet();
+            // 拉长创建时间，让其他线程在创建期间到达
+            Thread.sleep(50);
+        }
+
+        static void reset() {
+            created.set(0);
+            destroyed.clear();
+        }
+
+        @Override
+        public void destroy() {
+            destroyed.add(this);
+        }
+    }
+}
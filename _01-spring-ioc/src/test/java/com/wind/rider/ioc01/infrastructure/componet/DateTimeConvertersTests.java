@@ -0,0 +1,80 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.ConverterNotFoundException;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * 转换结果与MyCustomDateEditor(SimpleDateFormat)一致，pattern无法格式化的类型不注册对应方向
+ */
+class DateTimeConvertersTests {
+
+    @Test
+    void partialPatternDefaultsMissingFieldsLikeSimpleDateFormat() throws Exception {
+        DefaultFormattingConversionService conversionService = conversionService("yyyy-MM");
+
+        assertThat(conversionService.convert("2024-03", Date.class)).isEqualTo(new SimpleDateFormat("yyyy-MM").parse("2024-03"));
+        assertThat(conversionService.convert("2024-03", LocalDate.class)).isEqualTo(LocalDate.of(2024, 3, 1));
+        assertThat(conversionService.convert("2024-03", LocalDateTime.class)).isEqualTo(LocalDateTime.of(2024, 3, 1, 0, 0));
+    }
+
+    @Test
+    void timeOnlyPatternDefaultsToEpochDay() throws Exception {
+        DefaultFormattingConversionService conversionService = conversionService("HH:mm");
+
+        assertThat(conversionService.convert("10:15", Date.class)).isEqualTo(new SimpleDateFormat("HH:mm").parse("10:15"));
+        assertThat(conversionService.convert("10:15", LocalDateTime.class)).isEqualTo(LocalDateTime.of(1970, 1, 1, 10, 15));
+    }
+
+    @Test
+    void dateTimePatternMatchesEditor() throws Exception {
+        String pattern = "yyyy-MM-dd HH:mm:ss";
+        DefaultFormattingConversionService conversionService = conversionService(pattern);
+        MyCustomDateEditor editor = new MyCustomDateEditor(pattern);
+        editor.setAsText("2024-03-26 10:15:30");
+
+        Date date = conversionService.convert("2024-03-26 10:15:30", Date.class);
+        assertThat(date).isEqualTo(editor.getValue());
+        assertThat(conversionService.convert(date, String.class)).isEqualTo("2024-03-26 10:15:30");
+        assertThat(conversionService.convert(LocalDateTime.of(2024, 3, 26, 10, 15, 30), String.class)).isEqualTo("2024-03-26 10:15:30");
+    }
+
+    @Test
+    void formattingLocalDateIsNotRegisteredForPatternWithTimeFields() {
+        DefaultFormattingConversionService conversionService = conversionService("yyyy-MM-dd HH:mm:ss");
+
+        assertThat(conversionService.canConvert(LocalDate.class, String.class)).isTrue();
+        // 没有注册LocalDate -> String时由默认的java.time格式化处理，而不是抛出UnsupportedTemporalTypeException
+        assertThat(conversionService.convert(LocalDate.of(2024, 3, 26), String.class)).isNotNull();
+
+        DefaultFormattingConversionService dateOnly = conversionService("yyyy-MM-dd");
+        assertThat(dateOnly.convert(LocalDate.of(2024, 3, 26), String.class)).isEqualTo("2024-03-26");
+    }
+
+    @Test
+    void zonedPatternDoesNotFormatLocalTypes() {
+        GenericConversionService conversionService = new GenericConversionService();
+        DateTimeConverters.registerConverters(conversionService, "yyyy-MM-dd HH:mm XXX");
+
+        assertThat(conversionService.convert(new Date(0), String.class)).isNotNull();
+        assertThatExceptionOfType(ConverterNotFoundException.class)
+                .isThrownBy(() -> conversionService.convert(LocalDateTime.of(2024, 3, 26, 10, 15), String.class));
+        assertThatExceptionOfType(ConverterNotFoundException.class)
+                .isThrownBy(() -> conversionService.convert(LocalDate.of(2024, 3, 26), String.class));
+    }
+
+    private static DefaultFormattingConversionService conversionService(String pattern) {
+        DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+        DateTimeConverters.registerConverters(conversionService, pattern);
+        return conversionService;
+    }
+}
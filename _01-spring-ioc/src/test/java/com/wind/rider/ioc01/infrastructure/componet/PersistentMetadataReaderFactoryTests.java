@@ -0,0 +1,107 @@
+package com.wind.rider.ioc01.infrastructure.componet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 从缓存文件还原的元数据与ASM解析(SimpleMetadataReaderFactory)结果一致
+ */
+class PersistentMetadataReaderFactoryTests {
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void restoredMetadataAnswersLikeParsedMetadata() throws Exception {
+        for (Class<?> type : new Class<?>[] {SampleConfiguration.class, SampleService.class, Plain.class}) {
+            AnnotationMetadata parsed = new SimpleMetadataReaderFactory().getMetadataReader(type.getName()).getAnnotationMetadata();
+            AnnotationMetadata restored = restore(type);
+
+            assertThat(restored).isInstanceOf(CachedAnnotationMetadata.class);
+            assertThat(restored.getClassName()).isEqualTo(parsed.getClassName());
+            assertThat(restored.getSuperClassName()).isEqualTo(parsed.getSuperClassName());
+            assertThat(restored.getAnnotationTypes()).containsExactlyElementsOf(parsed.getAnnotationTypes());
+            for (String annotationType : parsed.getAnnotationTypes()) {
+                assertThat(restored.getMetaAnnotationTypes(annotationType)).containsExactlyElementsOf(parsed.getMetaAnnotationTypes(annotationType));
+            }
+            for (String name : new String[] {Component.class.getName(), Configuration.class.getName(), Service.class.getName(),
+                    Bean.class.getName(), Scope.class.getName()}) {
+                assertThat(restored.hasAnnotation(name)).isEqualTo(parsed.hasAnnotation(name));
+                assertThat(restored.hasMetaAnnotation(name)).isEqualTo(parsed.hasMetaAnnotation(name));
+                assertThat(restored.isAnnotated(name)).isEqualTo(parsed.isAnnotated(name));
+                assertThat(restored.hasAnnotatedMethods(name)).isEqualTo(parsed.hasAnnotatedMethods(name));
+                assertThat(methodNames(restored.getAnnotatedMethods(name))).isEqualTo(methodNames(parsed.getAnnotatedMethods(name)));
+            }
+            assertThat(methodNames(restored.getDeclaredMethods())).isEqualTo(methodNames(parsed.getDeclaredMethods()));
+        }
+    }
+
+    @Test
+    void attributesAreResolvedOnFirstRead() throws Exception {
+        AnnotationMetadata restored = restore(SampleConfiguration.class);
+
+        assertThat(restored.getAnnotationAttributes(Import.class.getName(), true).get("value"))
+                .isEqualTo(new String[] {Plain.class.getName()});
+        assertThat(restored.getAnnotationAttributes(Scope.class.getName()).get("proxyMode")).isEqualTo(ScopedProxyMode.TARGET_CLASS);
+        // @Configuration的value通过@AliasFor映射到@Component
+        assertThat(restored.getAnnotationAttributes(Component.class.getName()).get("value")).isEqualTo("sample");
+        MethodMetadata bean = restored.getAnnotatedMethods(Bean.class.getName()).iterator().next();
+        assertThat(bean.getAnnotationAttributes(Bean.class.getName()).get("name")).isEqualTo(new String[] {"plainBean"});
+        assertThat(bean.getReturnTypeName()).isEqualTo(Plain.class.getName());
+    }
+
+    /**
+     * 第一个工厂解析并写入缓存文件，第二个工厂从缓存文件还原
+     */
+    private AnnotationMetadata restore(Class<?> type) throws Exception {
+        PersistentMetadataReaderFactory writer = new PersistentMetadataReaderFactory(this.cacheDirectory, null);
+        writer.getMetadataReader(type.getName());
+        writer.persist();
+
+        PersistentMetadataReaderFactory reader = new PersistentMetadataReaderFactory(this.cacheDirectory, null);
+        AnnotationMetadata metadata = reader.getMetadataReader(type.getName()).getAnnotationMetadata();
+        assertThat(reader.getStats().hits()).isEqualTo(1);
+        return metadata;
+    }
+
+    private static Set<String> methodNames(Set<MethodMetadata> methods) {
+        return methods.stream().map(MethodMetadata::getMethodName).collect(Collectors.toSet());
+    }
+
+    @Configuration("sample")
+    @Import(Plain.class)
+    @Scope(proxyMode = ScopedProxyMode.TARGET_CLASS)
+    static class SampleConfiguration {
+
+        @Bean(name = "plainBean")
+        Plain plain() {
+            return new Plain();
+        }
+
+        void helper() {
+        }
+    }
+
+    @Service
+    static class SampleService {
+    }
+
+    static class Plain {
+    }
+}
@@ -0,0 +1,153 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.BeanDefinitionOverrideException;
+import org.springframework.beans.factory.support.ChildBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * 批量注册/移除的结果与在DefaultListableBeanFactory上逐个注册/移除一致，推迟的重置在批量结束时完成
+ */
+class BatchRegistrationTests {
+
+    @Test
+    void batchRegistrationMatchesSequentialRegistration() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            beanFactory.registerBeanDefinition("existing", new RootBeanDefinition(Alpha.class));
+            beanFactory.getBean("existing");
+        }
+
+        stock.registerBeanDefinition("alpha", new RootBeanDefinition(Alpha.class));
+        stock.registerAlias("alpha", "first");
+        stock.registerBeanDefinition("beta", new RootBeanDefinition(Alpha.class));
+        stock.registerBeanDefinition("existing", new RootBeanDefinition(Beta.class));
+        stock.registerBeanDefinition("beta", new RootBeanDefinition(Beta.class));
+        optimized.registerBeanDefinitions(List.of(
+                new BeanDefinitionHolder(new RootBeanDefinition(Alpha.class), "alpha", new String[] {"first"}),
+                new BeanDefinitionHolder(new RootBeanDefinition(Alpha.class), "beta"),
+                new BeanDefinitionHolder(new RootBeanDefinition(Beta.class), "existing"),
+                new BeanDefinitionHolder(new RootBeanDefinition(Beta.class), "beta")));
+
+        assertThat(optimized.getBeanDefinitionNames()).containsExactly(stock.getBeanDefinitionNames())
+                .containsExactly("existing", "alpha", "beta");
+        assertThat(optimized.getBeanNamesForType(Alpha.class)).containsExactly(stock.getBeanNamesForType(Alpha.class))
+                .containsExactly("alpha");
+        assertThat(optimized.getBeanNamesForType(Beta.class)).containsExactly(stock.getBeanNamesForType(Beta.class))
+                .containsExactly("existing", "beta");
+        // 被覆盖的定义的单例已销毁，按新定义重新创建
+        assertThat(optimized.getBean("existing")).isInstanceOf(Beta.class);
+        assertThat(optimized.getBean("first")).isSameAs(optimized.getBean("alpha"));
+    }
+
+    @Test
+    void overridingParentResetsChildrenAtEndOfBatch() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            beanFactory.registerBeanDefinition("parent", holderDefinition("v1"));
+            beanFactory.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+            beanFactory.registerBeanDefinition("grandChild", new ChildBeanDefinition("child"));
+            assertThat(beanFactory.getBean("grandChild", Holder.class).value).isEqualTo("v1");
+        }
+
+        stock.registerBeanDefinition("parent", holderDefinition("v2"));
+        optimized.registerBeanDefinitions(List.of(new BeanDefinitionHolder(holderDefinition("v2"), "parent")));
+
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            assertThat(beanFactory.containsSingleton("child")).isFalse();
+            assertThat(beanFactory.containsSingleton("grandChild")).isFalse();
+            assertThat(beanFactory.getBean("grandChild", Holder.class).value).isEqualTo("v2");
+        }
+    }
+
+    @Test
+    void batchRemovalMatchesSequentialRemoval() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            beanFactory.registerBeanDefinition("parent", holderDefinition("v1"));
+            beanFactory.registerBeanDefinition("child", new ChildBeanDefinition("parent"));
+            beanFactory.registerBeanDefinition("grandChild", new ChildBeanDefinition("child"));
+            beanFactory.registerBeanDefinition("alpha", new RootBeanDefinition(Alpha.class));
+            beanFactory.registerBeanDefinition("gamma", new RootBeanDefinition(Alpha.class));
+            beanFactory.preInstantiateSingletons();
+        }
+
+        stock.removeBeanDefinition("child");
+        stock.removeBeanDefinition("alpha");
+        optimized.removeBeanDefinitions(List.of("child", "alpha", "child"));
+
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            assertThat(beanFactory.getBeanDefinitionNames()).containsExactly("parent", "grandChild", "gamma");
+            assertThat(beanFactory.containsSingleton("child")).isFalse();
+            assertThat(beanFactory.containsSingleton("alpha")).isFalse();
+            // 子定义随父定义一起重置，其他单例不受影响
+            assertThat(beanFactory.containsSingleton("grandChild")).isFalse();
+            assertThat(beanFactory.containsSingleton("parent")).isTrue();
+            assertThat(beanFactory.containsSingleton("gamma")).isTrue();
+        }
+    }
+
+    @Test
+    void conflictRejectsWholeBatch() {
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setAllowBeanDefinitionOverriding(false);
+        optimized.registerBeanDefinition("existing", new RootBeanDefinition(Alpha.class));
+
+        assertThatExceptionOfType(BeanDefinitionOverrideException.class).isThrownBy(() -> optimized.registerBeanDefinitions(List.of(
+                new BeanDefinitionHolder(new RootBeanDefinition(Alpha.class), "alpha"),
+                new BeanDefinitionHolder(new RootBeanDefinition(Beta.class), "existing"))));
+
+        assertThat(optimized.getBeanDefinitionNames()).containsExactly("existing");
+        assertThat(optimized.getBeanNamesForType(Alpha.class)).containsExactly("existing");
+    }
+
+    @Test
+    void batchInForkLeavesTemplateUntouched() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        template.registerBeanDefinition("parent", holderDefinition("template"));
+        template.registerBeanDefinition("alpha", new RootBeanDefinition(Alpha.class));
+        OptimizedListableBeanFactory fork = template.fork();
+
+        fork.registerBeanDefinitions(List.of(new BeanDefinitionHolder(holderDefinition("fork"), "parent"),
+                new BeanDefinitionHolder(new RootBeanDefinition(Beta.class), "beta")));
+        fork.removeBeanDefinitions(List.of("alpha"));
+
+        assertThat(fork.getBean("parent", Holder.class).value).isEqualTo("fork");
+        assertThat(fork.getBeanDefinitionNames()).containsExactlyInAnyOrder("parent", "beta");
+        assertThat(fork.getBeanNamesForType(Alpha.class)).isEmpty();
+        assertThat(fork.getBeanNamesForType(Beta.class)).containsExactly("beta");
+        assertThat(template.getBean("parent", Holder.class).value).isEqualTo("template");
+        assertThat(template.getBeanDefinitionNames()).containsExactly("parent", "alpha");
+    }
+
+    private static RootBeanDefinition holderDefinition(String value) {
+        RootBeanDefinition definition = new RootBeanDefinition(Holder.class);
+        definition.getPropertyValues().add("value", value);
+        return definition;
+    }
+
+    static class Alpha {
+    }
+
+    static class Beta {
+    }
+
+    static class Holder {
+
+        String value;
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * 开启访问统计后getBean、依赖注入与失败的行为与DefaultListableBeanFactory一致，次数按BeanName精确记录
+ */
+class BeanAccessMetricsTests {
+
+    @Test
+    void beansAndFailuresMatchTheParent() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setAccessMetricsEnabled(true);
+        optimized.getBeanAccessMetrics().setLatencySamplingInterval(1);
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            register(beanFactory);
+        }
+
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            Service service = beanFactory.getBean("service", Service.class);
+            assertThat(beanFactory.getBean("alias")).isSameAs(service);
+            assertThat(service.repository).isNotSameAs(beanFactory.getBean("repository"));
+            assertThatExceptionOfType(NoSuchBeanDefinitionException.class).isThrownBy(() -> beanFactory.getBean("missing"));
+            assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() -> beanFactory.getBean("broken"));
+        }
+
+        BeanAccessMetrics metrics = optimized.getBeanAccessMetrics();
+        BeanAccessStats service = metrics.getStats("service");
+        assertThat(service.scope()).isEqualTo(BeanDefinition.SCOPE_SINGLETON);
+        assertThat(service.lookups().count()).isEqualTo(2);
+        assertThat(service.lookups().sampled()).isEqualTo(2);
+        assertThat(service.creations().count()).isEqualTo(1);
+        // 一次注入 + 一次getBean，prototype每次都创建
+        BeanAccessStats repository = metrics.getStats("repository");
+        assertThat(repository.scope()).isEqualTo(BeanDefinition.SCOPE_PROTOTYPE);
+        assertThat(repository.lookups().count()).isEqualTo(2);
+        assertThat(repository.creations().count()).isEqualTo(2);
+        BeanAccessStats broken = metrics.getStats("broken");
+        assertThat(broken.lookups().failures()).isEqualTo(1);
+        assertThat(broken.creations().failures()).isEqualTo(1);
+        assertThat(metrics.getStats("missing")).isNull();
+        assertThat(metrics.getTrackedBeanNames()).containsExactly("broken", "repository", "service");
+
+        optimized.removeBeanDefinition("broken");
+        assertThat(metrics.getStats("broken").scope()).isNull();
+        metrics.reset();
+        assertThat(metrics.getTrackedBeanCount()).isZero();
+    }
+
+    @Test
+    void latencyIsSampledButCountsAreExact() {
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setAccessMetricsEnabled(true);
+        register(optimized);
+        for (int i = 0; i < 64; i++) {
+            optimized.getBean("repository");
+        }
+
+        BeanAccessStats.Latency lookups = optimized.getBeanAccessMetrics().getStats("repository").lookups();
+        assertThat(lookups.count()).isEqualTo(64);
+        assertThat(lookups.sampled()).isBetween(1L, 64L / BeanAccessMetrics.DEFAULT_LATENCY_SAMPLING_INTERVAL * 2);
+        assertThat(lookups.p50Nanos()).isLessThanOrEqualTo(lookups.maxNanos());
+    }
+
+    @Test
+    void metricsArePublishedUntilDisabled() throws Exception {
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setAccessMetricsEnabled(true);
+        register(optimized);
+        optimized.getBean("service");
+        MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
+        ObjectName objectName = optimized.getBeanAccessMetrics().registerMBean(mbeanServer,
+                new ObjectName(BeanAccessMetrics.DEFAULT_DOMAIN + ":type=BeanAccessMetrics,name=test"));
+
+        assertThat(mbeanServer.getAttribute(objectName, "LookupCount")).isEqualTo(2L);
+        assertThat(mbeanServer.getAttribute(objectName, "CreationCount")).isEqualTo(2L);
+
+        optimized.setAccessMetricsEnabled(false);
+        assertThat(mbeanServer.isRegistered(objectName)).isFalse();
+        assertThat(optimized.getBeanAccessMetrics()).isNull();
+        assertThat(optimized.getBean("service")).isNotNull();
+    }
+
+    private static void register(DefaultListableBeanFactory beanFactory) {
+        beanFactory.registerBeanDefinition("service", BeanDefinitionBuilder.genericBeanDefinition(Service.class)
+                .addConstructorArgReference("repository").getBeanDefinition());
+        beanFactory.registerAlias("service", "alias");
+        beanFactory.registerBeanDefinition("repository", BeanDefinitionBuilder.genericBeanDefinition(Repository.class)
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE).getBeanDefinition());
+        beanFactory.registerBeanDefinition("broken", BeanDefinitionBuilder.genericBeanDefinition(Broken.class).getBeanDefinition());
+    }
+
+    public static class Repository {
+    }
+
+    public static class Service {
+
+        final Repository repository;
+
+        public Service(Repository repository) {
+            this.repository = repository;
+        }
+    }
+
+    public static class Broken {
+
+        public Broken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.TypeDescriptor;
+
+import java.beans.PropertyEditorSupport;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 编译后的转换器在缓存溢出与多线程下的行为
+ */
+class CompiledTypeConverterTests {
+
+    private static final List<Class<?>> COMPONENT_TYPES = List.of(String.class, Integer.class, Long.class, Short.class,
+            Byte.class, Character.class, Boolean.class, Double.class, Float.class, Number.class, StringBuilder.class,
+            Thread.class, Class.class, Enum.class, Runnable.class, Iterable.class, Comparable.class, CharSequence.class,
+            Void.class, Math.class);
+
+    @Test
+    void scenarioIsCompiledOnceAgainAfterCacheOverflow() {
+        CompiledTypeConverter converter = new CompiledTypeConverter(null, null, registry -> {
+        });
+        // 20种元素类型 * 250种维数的数组目标类型，超过缓存上限
+        for (Class<?> componentType : COMPONENT_TYPES) {
+            for (int dimensions = 1; dimensions <= 250; dimensions++) {
+                converter.convertIfNecessary(null, Object.class, TypeDescriptor.valueOf(arrayType(componentType, dimensions)));
+            }
+        }
+        assertThat(converter.size()).isLessThanOrEqualTo(4096);
+
+        TypeDescriptor repeated = TypeDescriptor.valueOf(arrayType(Object.class, 251));
+        long compilations = converter.getCompilationCount();
+        for (int i = 0; i < 3; i++) {
+            converter.convertIfNecessary(null, Object.class, repeated);
+        }
+        assertThat(converter.getCompilationCount()).isEqualTo(compilations + 1);
+    }
+
+    @Test
+    void propertyEditorsAreNotSharedBetweenConcurrentConversions() throws Exception {
+        AtomicInteger registrations = new AtomicInteger();
+        CompiledTypeConverter converter = new CompiledTypeConverter(null, null, registry -> {
+            registrations.incrementAndGet();
+            registry.registerCustomEditor(Amount.class, new AmountEditor());
+        });
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 10_000;
+                results.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 2_000; i++) {
+                        Amount amount = converter.convertIfNecessary(String.valueOf(i), Amount.class);
+                        if (amount.value != i) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // 执行PropertyEditorRegistrar的次数与并发度有关，与转换次数无关
+        assertThat(registrations.get()).isLessThan(100);
+    }
+
+    private static Class<?> arrayType(Class<?> componentType, int dimensions) {
+        return Array.newInstance(componentType, new int[dimensions]).getClass();
+    }
+
+    static class Amount {
+
+        final long value;
+
+        Amount(long value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * setAsText与getValue之间有状态，同一实例被并发使用时会取到其他线程的值
+     */
+    static class AmountEditor extends PropertyEditorSupport {
+
+        @Override
+        public void setAsText(String text) {
+            setValue(new Amount(Long.parseLong(text)));
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * 两个方向上前置的Bean总是先执行完，关键路径按执行顺序排列
+ */
+class DependencyOrderedExecutorTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @AfterEach
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void dependenciesRunFirst() {
+        SingletonDependencyGraph graph = chain();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        DependencyOrderedExecutor.Result result = new DependencyOrderedExecutor(graph,
+                DependencyOrderedExecutor.Direction.DEPENDENCIES_FIRST, this.executor, order::add).execute();
+
+        assertThat(order).containsExactly("repository", "service", "controller");
+        assertThat(result.taskCount()).isEqualTo(3);
+        assertThat(result.dependencyCount()).isEqualTo(2);
+        assertThat(result.criticalPathBeans()).containsExactly("repository", "service", "controller");
+    }
+
+    @Test
+    void dependentsRunFirst() {
+        SingletonDependencyGraph graph = chain();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        DependencyOrderedExecutor.Result result = new DependencyOrderedExecutor(graph,
+                DependencyOrderedExecutor.Direction.DEPENDENTS_FIRST, this.executor, order::add).execute();
+
+        assertThat(order).containsExactly("controller", "service", "repository");
+        assertThat(result.criticalPathBeans()).containsExactly("controller", "service", "repository");
+    }
+
+    @Test
+    void failureStopsSubmittingSuccessors() {
+        SingletonDependencyGraph graph = chain();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        assertThatIllegalStateException().isThrownBy(() -> new DependencyOrderedExecutor(graph,
+                DependencyOrderedExecutor.Direction.DEPENDENCIES_FIRST, this.executor, beanName -> {
+                    order.add(beanName);
+                    if (beanName.equals("service")) {
+                        throw new IllegalStateException(beanName);
+                    }
+                }).execute());
+        assertThat(order).containsExactly("repository", "service");
+    }
+
+    /**
+     * controller -> service -> repository
+     */
+    private SingletonDependencyGraph chain() {
+        RootBeanDefinition controller = new RootBeanDefinition(Object.class);
+        controller.setDependsOn("service");
+        RootBeanDefinition service = new RootBeanDefinition(Object.class);
+        service.setDependsOn("repository");
+        this.beanFactory.registerBeanDefinition("controller", controller);
+        this.beanFactory.registerBeanDefinition("service", service);
+        this.beanFactory.registerBeanDefinition("repository", new RootBeanDefinition(Object.class));
+        return SingletonDependencyGraph.build(this.beanFactory, List.of("controller", "service", "repository"));
+    }
+}
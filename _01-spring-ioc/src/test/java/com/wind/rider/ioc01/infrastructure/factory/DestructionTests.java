@@ -0,0 +1,126 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并行销毁时依赖某个Bean的Bean的destroy()结束后才开始销毁该Bean，与DefaultListableBeanFactory依次销毁的顺序约束一致
+ */
+class DestructionTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void dependentIsDestroyedBeforeItsDependency() {
+        List<String> stockEvents = Collections.synchronizedList(new ArrayList<>());
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        registerBeans(stock, stockEvents, Duration.ofMillis(50));
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setDestructionExecutor(this.executor);
+        registerBeans(optimized, events, Duration.ofMillis(50));
+
+        stock.preInstantiateSingletons();
+        optimized.preInstantiateSingletons();
+        stock.destroySingletons();
+        optimized.destroySingletons();
+
+        for (List<String> recorded : List.of(stockEvents, events)) {
+            assertThat(recorded).hasSize(8);
+            assertThat(recorded.indexOf("end:service")).isLessThan(recorded.indexOf("start:repository"));
+            assertThat(recorded.indexOf("end:repository")).isLessThan(recorded.indexOf("start:dataSource"));
+        }
+        DestructionReport report = optimized.getLastDestructionReport();
+        assertThat(report).isNotNull();
+        assertThat(report.beanCount()).isEqualTo(4);
+        assertThat(report.dependencyCount()).isEqualTo(2);
+        assertThat(report.criticalPathBeans()).containsExactly("service", "repository", "dataSource");
+        assertThat(report.destructionTimes()).containsOnlyKeys("dataSource", "repository", "service", "cache");
+        assertThat(report.timedOutBeans()).isEmpty();
+        assertThat(report.failedBeans()).isEmpty();
+    }
+
+    @Test
+    void timedOutCallbackDoesNotBlockItsDependencies() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setDestructionExecutor(this.executor);
+        optimized.setDestructionTimeout(Duration.ofMillis(100));
+        registerBeans(optimized, events, Duration.ZERO);
+        RootBeanDefinition hanging = new RootBeanDefinition(Recording.class, () -> new Recording(events, Duration.ofSeconds(30)));
+        hanging.setDependsOn("dataSource");
+        optimized.registerBeanDefinition("hanging", hanging);
+        optimized.preInstantiateSingletons();
+
+        long start = System.nanoTime();
+        optimized.destroySingletons();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(events).contains("start:hanging", "end:dataSource").doesNotContain("end:hanging");
+        DestructionReport report = optimized.getLastDestructionReport();
+        assertThat(report.timedOutBeans()).containsExactly("hanging");
+        assertThat(report.failedBeans()).isEmpty();
+    }
+
+    /**
+     * service -> repository -> dataSource，cache与它们无关
+     */
+    private static void registerBeans(DefaultListableBeanFactory beanFactory, List<String> events, Duration destroyTime) {
+        beanFactory.registerBeanDefinition("dataSource", recording(events, destroyTime));
+        RootBeanDefinition repository = recording(events, destroyTime);
+        repository.setDependsOn("dataSource");
+        beanFactory.registerBeanDefinition("repository", repository);
+        RootBeanDefinition service = recording(events, destroyTime);
+        service.setDependsOn("repository");
+        beanFactory.registerBeanDefinition("service", service);
+        beanFactory.registerBeanDefinition("cache", recording(events, destroyTime));
+    }
+
+    private static RootBeanDefinition recording(List<String> events, Duration destroyTime) {
+        return new RootBeanDefinition(Recording.class, () -> new Recording(events, destroyTime));
+    }
+
+    static class Recording implements BeanNameAware, DisposableBean {
+
+        private final List<String> events;
+
+        private final Duration destroyTime;
+
+        private String beanName;
+
+        Recording(List<String> events, Duration destroyTime) {
+            this.events = events;
+            this.destroyTime = destroyTime;
+        }
+
+        @Override
+        public void setBeanName(String name) {
+            this.beanName = name;
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            this.events.add("start:" + this.beanName);
+            Thread.sleep(this.destroyTime.toMillis());
+            this.events.add("end:" + this.beanName);
+        }
+    }
+}
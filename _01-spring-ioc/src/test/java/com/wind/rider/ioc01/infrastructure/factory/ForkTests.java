@@ -0,0 +1,172 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * fork中对模板定义的修改写时复制、只作用于自身，结果与修改各自独立的DefaultListableBeanFactory一致；模板中的处理器按规则换成fork中的实例
+ */
+class ForkTests {
+
+    @Test
+    void readingTemplateDefinitionDoesNotCopyIt() {
+        OptimizedListableBeanFactory template = templateWithHolder();
+        OptimizedListableBeanFactory fork = template.fork();
+
+        BeanDefinition view = fork.getBeanDefinition("holder");
+        assertThat(view).isInstanceOf(TemplateBeanDefinitionView.class);
+        assertThat(view.getBeanClassName()).isEqualTo(Holder.class.getName());
+        assertThat(view.hasPropertyValues()).isTrue();
+        assertThat(view.getScope()).isEmpty();
+
+        // 只读取时fork中没有自己的副本，之后取出的仍是视图
+        assertThat(fork.getBeanDefinition("holder")).isInstanceOf(TemplateBeanDefinitionView.class);
+        assertThat(fork.getBean("holder", Holder.class).value).isEqualTo("template");
+    }
+
+    @Test
+    void modifyingTemplateDefinitionCopiesIntoForkOnly() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        stock.registerBeanDefinition("holder", holderDefinition());
+        OptimizedListableBeanFactory template = templateWithHolder();
+        OptimizedListableBeanFactory fork = template.fork();
+        OptimizedListableBeanFactory otherFork = template.fork();
+
+        Consumer<BeanDefinition> modification = definition -> definition.getPropertyValues().add("value", "modified");
+        modification.accept(stock.getBeanDefinition("holder"));
+        modification.accept(fork.getBeanDefinition("holder"));
+
+        assertThat(fork.getBeanDefinition("holder")).isNotInstanceOf(TemplateBeanDefinitionView.class);
+        assertThat(fork.getBean("holder", Holder.class).value)
+                .isEqualTo(stock.getBean("holder", Holder.class).value).isEqualTo("modified");
+        assertThat(template.getBean("holder", Holder.class).value).isEqualTo("template");
+        assertThat(otherFork.getBean("holder", Holder.class).value).isEqualTo("template");
+    }
+
+    @Test
+    void modifyingMergedTemplateDefinitionTakesEffectAfterClearMetadataCache() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        stock.registerBeanDefinition("holder", holderDefinition());
+        OptimizedListableBeanFactory template = templateWithHolder();
+        OptimizedListableBeanFactory fork = template.fork();
+
+        for (DefaultListableBeanFactory beanFactory : new DefaultListableBeanFactory[] {stock, fork}) {
+            // 按类型查找会合并定义，之后的修改与父类一样在clearMetadataCache()之后生效
+            assertThat(beanFactory.getBeanNamesForType(Holder.class)).containsExactly("holder");
+            beanFactory.getBeanDefinition("holder").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            beanFactory.clearMetadataCache();
+            assertThat(beanFactory.getBean("holder")).isNotSameAs(beanFactory.getBean("holder"));
+        }
+        assertThat(template.getBean("holder")).isSameAs(template.getBean("holder"));
+    }
+
+    @Test
+    void autowiredProcessorIsRebuiltForFork() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredProcessor.setBeanFactory(template);
+        autowiredProcessor.setOrder(7);
+        template.addBeanPostProcessor(autowiredProcessor);
+        template.registerBeanDefinition("holder", holderDefinition());
+        template.registerBeanDefinition("consumer", new RootBeanDefinition(HolderConsumer.class));
+
+        OptimizedListableBeanFactory fork = template.fork();
+        BeanPostProcessor forked = fork.getBeanPostProcessors().get(0);
+        assertThat(forked).isInstanceOf(AutowiredAnnotationBeanPostProcessor.class).isNotSameAs(autowiredProcessor);
+        assertThat(((AutowiredAnnotationBeanPostProcessor) forked).getOrder()).isEqualTo(7);
+        // 依赖解析到fork自己的单例
+        assertThat(fork.getBean(HolderConsumer.class).holder).isSameAs(fork.getBean("holder"))
+                .isNotSameAs(template.getBean("holder"));
+    }
+
+    @Test
+    void forkAwareProcessorDecidesItsForkInstance() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        RecordingProcessor recording = new RecordingProcessor(template);
+        template.addBeanPostProcessor(recording);
+
+        OptimizedListableBeanFactory fork = template.fork();
+        assertThat(fork.getBeanPostProcessors()).hasSize(1);
+        assertThat(((RecordingProcessor) fork.getBeanPostProcessors().get(0)).beanFactory).isSameAs(fork);
+        assertThat(template.getBeanPostProcessors()).containsExactly(recording);
+    }
+
+    @Test
+    void unknownBeanFactoryAwareProcessorIsRejected() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        template.addBeanPostProcessor(new BeanFactoryAwareProcessor());
+
+        assertThatThrownBy(template::fork).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(BeanFactoryAwareProcessor.class.getName());
+    }
+
+    @Test
+    void containerIndependentProcessorIsShared() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        BeanPostProcessor plain = new BeanPostProcessor() {
+        };
+        template.addBeanPostProcessor(plain);
+
+        assertThat(template.fork().getBeanPostProcessors()).containsExactly(plain);
+    }
+
+    private static OptimizedListableBeanFactory templateWithHolder() {
+        OptimizedListableBeanFactory template = new OptimizedListableBeanFactory();
+        template.registerBeanDefinition("holder", holderDefinition());
+        return template;
+    }
+
+    private static RootBeanDefinition holderDefinition() {
+        RootBeanDefinition definition = new RootBeanDefinition(Holder.class);
+        definition.getPropertyValues().add("value", "template");
+        return definition;
+    }
+
+    static class Holder {
+
+        String value;
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    static class HolderConsumer {
+
+        @Autowired
+        Holder holder;
+    }
+
+    static class RecordingProcessor implements ForkAwareBeanPostProcessor {
+
+        final BeanFactory beanFactory;
+
+        RecordingProcessor(BeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public BeanPostProcessor forkFor(OptimizedListableBeanFactory fork) {
+            return new RecordingProcessor(fork);
+        }
+    }
+
+    static class BeanFactoryAwareProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 缓存注入计划后注册表发生变化，解析结果与DefaultListableBeanFactory每次完整解析的结果一致
+ */
+class InjectionPlanTests {
+
+    private final DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+
+    private final OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+
+    @Test
+    void newCandidateOfDependencySubtypeIsSeen() {
+        apply(beanFactory -> beanFactory.registerBeanDefinition("basic", new RootBeanDefinition(BasicService.class)));
+        assertSameResolution("service", "basic");
+        assertThat(this.optimized.getInjectionPlanStats().plans()).isEqualTo(1);
+
+        // 依赖类型是新Bean的接口，新Bean为primary时应取代原有计划
+        apply(beanFactory -> {
+            RootBeanDefinition audited = new RootBeanDefinition(AuditedService.class);
+            audited.setPrimary(true);
+            beanFactory.registerBeanDefinition("audited", audited);
+        });
+        assertSameResolution("service", "audited");
+    }
+
+    @Test
+    void newCandidateOfUndeterminedTypeIsSeen() {
+        apply(beanFactory -> beanFactory.registerBeanDefinition("basic", new RootBeanDefinition(BasicService.class)));
+        assertSameResolution("service", "basic");
+
+        // 工厂方法的返回类型在注册时无法确定
+        apply(beanFactory -> {
+            RootBeanDefinition produced = new RootBeanDefinition(ServiceFactory.class);
+            produced.setFactoryMethodName("create");
+            produced.setPrimary(true);
+            beanFactory.registerBeanDefinition("produced", produced);
+        });
+        assertSameResolution("service", "produced");
+    }
+
+    @Test
+    void aliasRegistrationIsSeen() {
+        apply(beanFactory -> {
+            beanFactory.registerBeanDefinition("first", new RootBeanDefinition(BasicService.class));
+            beanFactory.registerBeanDefinition("second", new RootBeanDefinition(BasicService.class));
+            // 两个候选，按注入点名称(preferred)经别名回退选择
+            beanFactory.registerAlias("first", "preferred");
+        });
+        assertSameResolution("preferred", "first");
+        assertThat(this.optimized.getInjectionPlanStats().plans()).isEqualTo(1);
+
+        apply(beanFactory -> {
+            beanFactory.removeAlias("preferred");
+            beanFactory.registerAlias("second", "preferred");
+        });
+        assertSameResolution("preferred", "second");
+    }
+
+    @Test
+    void resolvableDependencyRegistrationIsSeen() {
+        apply(beanFactory -> beanFactory.registerBeanDefinition("basic", new RootBeanDefinition(BasicService.class)));
+        assertSameResolution("service", "basic");
+
+        // 可解析依赖与容器中的Bean同时匹配时父类选择可解析依赖
+        apply(beanFactory -> beanFactory.registerResolvableDependency(Service.class, new OtherService()));
+        assertSameResolution("service", OtherService.class.getSimpleName());
+    }
+
+    private void apply(Consumer<DefaultListableBeanFactory> operations) {
+        operations.accept(this.stock);
+        operations.accept(this.optimized);
+    }
+
+    /**
+     * 两个容器都解析两次(第二次在优化容器中按计划取得)，结果都是expected
+     */
+    private void assertSameResolution(String fieldName, String expected) {
+        for (int i = 0; i < 2; i++) {
+            assertThat(resolve(this.optimized, fieldName)).isEqualTo(resolve(this.stock, fieldName)).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * 解析Consumer中的字段，返回结果对应的BeanName；不是容器中的Bean时返回类名，解析失败时返回异常类名
+     */
+    private static String resolve(DefaultListableBeanFactory beanFactory, String fieldName) {
+        Field field = ReflectionUtils.findField(ServiceConsumer.class, fieldName);
+        Object result;
+        try {
+            result = beanFactory.resolveDependency(new DependencyDescriptor(field, true), "consumer");
+        } catch (BeansException ex) {
+            return ex.getClass().getSimpleName();
+        }
+        for (String beanName : beanFactory.getBeanNamesForType(Service.class)) {
+            if (beanFactory.getBean(beanName) == result) {
+                return beanName;
+            }
+        }
+        return result.getClass().getSimpleName();
+    }
+
+    interface Service {
+    }
+
+    static class BasicService implements Service {
+    }
+
+    static class AuditedService extends BasicService {
+    }
+
+    static class OtherService implements Service {
+    }
+
+    static class ServiceFactory {
+
+        static Service create() {
+            return new OtherService();
+        }
+    }
+
+    static class ServiceConsumer {
+
+        Service service;
+
+        Service preferred;
+    }
+}
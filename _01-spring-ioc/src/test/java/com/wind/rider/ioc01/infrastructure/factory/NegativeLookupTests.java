@@ -0,0 +1,110 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 子容器记录了未命中的查找后，祖先容器注册的Bean仍能被找到，与DefaultListableBeanFactory组成的父子容器一致
+ */
+class NegativeLookupTests {
+
+    @Test
+    void beanRegisteredInAncestorAfterNamedMissIsFound() {
+        Chain stock = new Chain(DefaultListableBeanFactory::new);
+        Chain optimized = new Chain(OptimizedListableBeanFactory::new);
+
+        for (Chain chain : new Chain[] {stock, optimized}) {
+            assertThat(chain.leaf.containsBean("late")).isFalse();
+            assertThat(chain.leaf.containsBean("late")).isFalse();
+            assertThat(lookup(chain.leaf, "late")).isEqualTo(NoSuchBeanDefinitionException.class.getSimpleName());
+        }
+        assertThat(((OptimizedListableBeanFactory) optimized.leaf).getNegativeLookupStats().entries()).isEqualTo(1);
+
+        // 注册在根容器，失效需要跨过中间一级通知到叶子容器
+        stock.root.registerBeanDefinition("late", new RootBeanDefinition(Late.class));
+        optimized.root.registerBeanDefinition("late", new RootBeanDefinition(Late.class));
+
+        assertThat(optimized.leaf.containsBean("late")).isEqualTo(stock.leaf.containsBean("late")).isTrue();
+        assertThat(lookup(optimized.leaf, "late")).isEqualTo(lookup(stock.leaf, "late")).isEqualTo(Late.class.getSimpleName());
+    }
+
+    @Test
+    void beanRegisteredInAncestorAfterTypeMissIsFound() {
+        Chain stock = new Chain(DefaultListableBeanFactory::new);
+        Chain optimized = new Chain(OptimizedListableBeanFactory::new);
+
+        for (Chain chain : new Chain[] {stock, optimized}) {
+            assertThat(chain.leaf.getBeanProvider(Late.class).getIfAvailable()).isNull();
+            assertThat(chain.leaf.getBeanProvider(Late.class).stream()).isEmpty();
+        }
+        assertThat(((OptimizedListableBeanFactory) optimized.leaf).getNegativeLookupStats().hits()).isPositive();
+
+        stock.middle.registerSingleton("late", new Late());
+        optimized.middle.registerSingleton("late", new Late());
+
+        assertThat(optimized.leaf.getBeanProvider(Late.class).getIfAvailable()).isNotNull();
+        assertThat(optimized.leaf.getBeanProvider(Late.class).stream()).hasSameSizeAs(stock.leaf.getBeanProvider(Late.class).stream().toList());
+    }
+
+    @Test
+    void aliasRegisteredInAncestorAfterMissIsFound() {
+        Chain optimized = new Chain(OptimizedListableBeanFactory::new);
+        optimized.root.registerBeanDefinition("late", new RootBeanDefinition(Late.class));
+
+        assertThat(optimized.leaf.containsBean("lateAlias")).isFalse();
+        optimized.root.registerAlias("late", "lateAlias");
+
+        assertThat(optimized.leaf.containsBean("lateAlias")).isTrue();
+        assertThat(optimized.leaf.getBean("lateAlias")).isSameAs(optimized.root.getBean("late"));
+    }
+
+    @Test
+    void stockAncestorDisablesCaching() {
+        DefaultListableBeanFactory stockRoot = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory middle = new OptimizedListableBeanFactory(stockRoot);
+        OptimizedListableBeanFactory leaf = new OptimizedListableBeanFactory(middle);
+
+        assertThat(leaf.containsBean("late")).isFalse();
+        // 不是OptimizedListableBeanFactory的祖先注册Bean时无法通知子容器，因此从不记录
+        stockRoot.registerBeanDefinition("late", new RootBeanDefinition(Late.class));
+
+        assertThat(leaf.containsBean("late")).isTrue();
+        assertThat(leaf.getNegativeLookupStats().entries()).isZero();
+    }
+
+    private static String lookup(BeanFactory beanFactory, String name) {
+        try {
+            return beanFactory.getBean(name).getClass().getSimpleName();
+        } catch (NoSuchBeanDefinitionException ex) {
+            return ex.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * 根容器 <- 中间容器 <- 叶子容器
+     */
+    private static class Chain {
+
+        final DefaultListableBeanFactory root;
+
+        final DefaultListableBeanFactory middle;
+
+        final DefaultListableBeanFactory leaf;
+
+        Chain(Function<BeanFactory, DefaultListableBeanFactory> factory) {
+            this.root = factory.apply(null);
+            this.middle = factory.apply(this.root);
+            this.leaf = factory.apply(this.middle);
+        }
+    }
+
+    static class Late {
+    }
+}
@@ -0,0 +1,140 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import jakarta.annotation.PostConstruct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 管道过滤后初始化阶段的回调、Aware方法与返回的实例与DefaultListableBeanFactory一致
+ */
+class PostProcessorPipelineTests {
+
+    @Test
+    void initializationMatchesStockFactory() {
+        List<String> stockCalls = new ArrayList<>();
+        List<String> optimizedCalls = new ArrayList<>();
+        DefaultListableBeanFactory stock = beanFactory(new DefaultListableBeanFactory(), stockCalls);
+        OptimizedListableBeanFactory optimized = beanFactory(new OptimizedListableBeanFactory(), optimizedCalls);
+
+        for (int i = 0; i < 2; i++) {
+            for (String beanName : List.of("plain", "annotated", "nested", "product")) {
+                Object stockBean = stock.getBean(beanName);
+                Object optimizedBean = optimized.getBean(beanName);
+                assertThat(optimizedBean.getClass()).isEqualTo(stockBean.getClass());
+                assertThat(optimizedBean).isInstanceOf(Wrapper.class);
+            }
+        }
+        assertThat(optimizedCalls).containsExactlyElementsOf(stockCalls);
+        assertThat(((Annotated) ((Wrapper) optimized.getBean("annotated")).target).calls)
+                .containsExactly("setBeanName annotated", "setBeanFactory", "postConstruct");
+        // 没有@PostConstruct的Bean跳过了CommonAnnotationBeanPostProcessor初始化前的回调
+        assertThat(optimized.getPostProcessorPipelineStats().totalSkipped()).isPositive();
+    }
+
+    private static <T extends DefaultListableBeanFactory> T beanFactory(T beanFactory, List<String> calls) {
+        CommonAnnotationBeanPostProcessor commonProcessor = new CommonAnnotationBeanPostProcessor();
+        commonProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(commonProcessor);
+        beanFactory.addBeanPostProcessor(new RecordingPostProcessor(calls));
+        for (String beanName : List.of("plain", "annotated", "nested", "product")) {
+            Class<?> beanClass = switch (beanName) {
+                case "plain" -> Plain.class;
+                case "annotated" -> Annotated.class;
+                case "nested" -> Nested.class;
+                default -> ProductFactoryBean.class;
+            };
+            RootBeanDefinition definition = new RootBeanDefinition(beanClass);
+            definition.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+            beanFactory.registerBeanDefinition(beanName, definition);
+        }
+        return beanFactory;
+    }
+
+    /**
+     * 记录每次回调，初始化后把实例换成包装对象
+     */
+    record RecordingPostProcessor(List<String> calls) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            this.calls.add("before " + beanName + " " + bean.getClass().getSimpleName());
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            this.calls.add("after " + beanName + " " + bean.getClass().getSimpleName());
+            return new Wrapper(bean);
+        }
+    }
+
+    record Wrapper(Object target) {
+    }
+
+    public static class Plain {
+    }
+
+    public static class Annotated implements BeanNameAware, BeanFactoryAware {
+
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void setBeanName(String name) {
+            this.calls.add("setBeanName " + name);
+        }
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.calls.add("setBeanFactory");
+        }
+
+        @PostConstruct
+        void postConstruct() {
+            this.calls.add("postConstruct");
+        }
+    }
+
+    /**
+     * 初始化期间创建另一个Bean，内层Bean的回调不能按外层Bean的管道执行
+     */
+    public static class Nested implements BeanFactoryAware {
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            beanFactory.getBean("plain");
+        }
+    }
+
+    /**
+     * FactoryBean的产物由父类按同一个BeanName执行初始化后的回调
+     */
+    public static class ProductFactoryBean implements FactoryBean<Plain> {
+
+        @Override
+        public Plain getObject() {
+            return new Plain();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Plain.class;
+        }
+
+        @Override
+        public boolean isSingleton() {
+            return false;
+        }
+    }
+}
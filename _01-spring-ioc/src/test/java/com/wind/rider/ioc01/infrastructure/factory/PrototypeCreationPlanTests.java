@@ -0,0 +1,112 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 编译后的prototype创建与父类反射创建的选择保持一致
+ */
+class PrototypeCreationPlanTests {
+
+    @Test
+    void explicitArgsFollowCandidateConstructorsOfEachBeanName() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setSharedMergedDefinitionsEnabled(true);
+        beanFactory.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+            @Override
+            public Constructor<?>[] determineCandidateConstructors(Class<?> beanClass, String beanName) {
+                return ("objectArg".equals(beanName) ? new Constructor<?>[]{ClassUtils.getConstructorIfAvailable(Overloaded.class, Object.class)} : null);
+            }
+        });
+        // 形状相同的两个定义共享同一个合并结果与创建计划
+        beanFactory.registerBeanDefinition("stringArg", sharedPrototype(Overloaded.class));
+        beanFactory.registerBeanDefinition("objectArg", sharedPrototype(Overloaded.class));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(((Overloaded) beanFactory.getBean("stringArg", "x")).chosen).isEqualTo("String");
+            assertThat(((Overloaded) beanFactory.getBean("objectArg", "x")).chosen).isEqualTo("Object");
+        }
+        assertThat(beanFactory.getSharedDefinitionStats().sharingBeans()).isEqualTo(2);
+    }
+
+    @Test
+    void explicitArgsAreResolvedPerArgumentTypes() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.registerBeanDefinition("overloaded", prototype(Overloaded.class));
+
+        assertThat(((Overloaded) beanFactory.getBean("overloaded", "x")).chosen).isEqualTo("String");
+        assertThat(((Overloaded) beanFactory.getBean("overloaded", 1)).chosen).isEqualTo("Object");
+        assertThat(((Overloaded) beanFactory.getBean("overloaded", "y")).chosen).isEqualTo("String");
+    }
+
+    @Test
+    void initMethodsAreInvokedLikeTheParent() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        // 与@PostConstruct的处理方式一样，在合并后的定义上登记由其他处理器调用的init方法
+        beanFactory.addBeanPostProcessor((MergedBeanDefinitionPostProcessor) (beanDefinition, beanType, beanName) ->
+                beanDefinition.registerExternallyManagedInitMethod(beanType.getName() + ".managed"));
+        RootBeanDefinition definition = prototype(Initializing.class);
+        definition.setInitMethodNames("afterPropertiesSet", "init", "managed");
+        beanFactory.registerBeanDefinition("initializing", definition);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(((Initializing) beanFactory.getBean("initializing")).calls).containsExactly("afterPropertiesSet", "init");
+        }
+    }
+
+    private static GenericBeanDefinition sharedPrototype(Class<?> beanClass) {
+        GenericBeanDefinition definition = new GenericBeanDefinition();
+        definition.setBeanClass(beanClass);
+        definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        return definition;
+    }
+
+    private static RootBeanDefinition prototype(Class<?> beanClass) {
+        RootBeanDefinition definition = new RootBeanDefinition(beanClass);
+        definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        return definition;
+    }
+
+    public static class Overloaded {
+
+        final String chosen;
+
+        public Overloaded(Object arg) {
+            this.chosen = "Object";
+        }
+
+        public Overloaded(String arg) {
+            this.chosen = "String";
+        }
+    }
+
+    public static class Initializing implements InitializingBean {
+
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void afterPropertiesSet() {
+            this.calls.add("afterPropertiesSet");
+        }
+
+        public void init() {
+            this.calls.add("init");
+        }
+
+        public void managed() {
+            this.calls.add("managed");
+        }
+    }
+}
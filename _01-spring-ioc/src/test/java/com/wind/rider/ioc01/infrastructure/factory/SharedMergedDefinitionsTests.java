@@ -0,0 +1,117 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import jakarta.annotation.PostConstruct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 共享合并结果的Bean与DefaultListableBeanFactory按BeanName各自合并时的行为一致，共享条目随最后一个BeanName移除
+ */
+class SharedMergedDefinitionsTests {
+
+    @Test
+    void sharedDefinitionsCreateBeansLikeTheParent() {
+        DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            AutowiredAnnotationBeanPostProcessor autowired = new AutowiredAnnotationBeanPostProcessor();
+            autowired.setBeanFactory(beanFactory);
+            beanFactory.addBeanPostProcessor(autowired);
+            beanFactory.addBeanPostProcessor(new CommonAnnotationBeanPostProcessor());
+            beanFactory.registerBeanDefinition("dependency", BeanDefinitionBuilder.genericBeanDefinition(Dependency.class).getBeanDefinition());
+            for (int i = 0; i < 3; i++) {
+                beanFactory.registerBeanDefinition("worker" + i, worker());
+            }
+        }
+
+        for (DefaultListableBeanFactory beanFactory : List.of(stock, optimized)) {
+            for (int i = 0; i < 3; i++) {
+                // 每个Bean都完成注入与@PostConstruct、init方法，第二次创建也一样
+                for (int j = 0; j < 2; j++) {
+                    Worker worker = beanFactory.getBean("worker" + i, Worker.class);
+                    assertThat(worker.dependency).isSameAs(beanFactory.getBean("dependency"));
+                    assertThat(worker.events).containsExactly("postConstruct", "init");
+                }
+            }
+            assertThat(beanFactory.getBeanNamesForType(Worker.class)).containsExactly("worker0", "worker1", "worker2");
+        }
+        BeanDefinition merged = optimized.getMergedBeanDefinition("worker1");
+        assertThat(merged.getScope()).isEqualTo(stock.getMergedBeanDefinition("worker1").getScope());
+        assertThat(optimized.getMergedBeanDefinition("worker0")).isSameAs(merged);
+        assertThat(optimized.getSharedDefinitionStats().sharingBeans()).isEqualTo(4);
+        assertThat(optimized.getSharedDefinitionStats().mergedDefinitions()).isEqualTo(2);
+    }
+
+    @Test
+    void entryIsRemovedWithItsLastBeanName() {
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.registerBeanDefinition("worker0", worker());
+        optimized.registerBeanDefinition("worker1", worker());
+        optimized.registerBeanDefinition("other", BeanDefinitionBuilder.genericBeanDefinition(Dependency.class).getBeanDefinition());
+        optimized.getBean("worker0");
+        optimized.getBean("worker1");
+        optimized.getBean("other");
+        assertThat(optimized.getSharedDefinitionStats().mergedDefinitions()).isEqualTo(2);
+
+        optimized.removeBeanDefinition("worker0");
+        assertThat(optimized.getSharedDefinitionStats().mergedDefinitions()).isEqualTo(2);
+        optimized.removeBeanDefinition("worker1");
+        assertThat(optimized.getSharedDefinitionStats().sharingBeans()).isEqualTo(1);
+        assertThat(optimized.getSharedDefinitionStats().mergedDefinitions()).isEqualTo(1);
+
+        // 重新注册时按新的定义合并
+        optimized.registerBeanDefinition("worker0", worker());
+        assertThat(optimized.getBean("worker0", Worker.class).events).containsExactly("init");
+        assertThat(optimized.getSharedDefinitionStats().mergedDefinitions()).isEqualTo(2);
+    }
+
+    @Test
+    void unsharedDefinitionsKeepTheirOwnMergedDefinition() {
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        optimized.setSharedMergedDefinitionsEnabled(false);
+        optimized.registerBeanDefinition("worker0", worker());
+        optimized.registerBeanDefinition("worker1", worker());
+
+        assertThat(optimized.getBean("worker0", Worker.class).events).containsExactly("init");
+        assertThat(optimized.getBean("worker1", Worker.class).events).containsExactly("init");
+        assertThat(optimized.getMergedBeanDefinition("worker0")).isNotSameAs(optimized.getMergedBeanDefinition("worker1"));
+        assertThat(optimized.getSharedDefinitionStats().sharingBeans()).isZero();
+    }
+
+    private static BeanDefinition worker() {
+        return BeanDefinitionBuilder.genericBeanDefinition(Worker.class)
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE)
+                .setInitMethodName("init")
+                .getBeanDefinition();
+    }
+
+    public static class Dependency {
+    }
+
+    public static class Worker {
+
+        @Autowired(required = false)
+        Dependency dependency;
+
+        final List<String> events = new ArrayList<>();
+
+        @PostConstruct
+        void postConstruct() {
+            this.events.add("postConstruct");
+        }
+
+        public void init() {
+            this.events.add("init");
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 不持有singletonObjects全局锁创建单例(分段加锁模式、并行预实例化)时，与DefaultSingletonBeanRegistry#getSingleton保持一致的行为
+ */
+class SingletonCreationTests {
+
+    @Test
+    void destroyMethodCannotCreateSingletonsDuringSequentialDestruction() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        beanFactory.registerBeanDefinition("lookupOnDestroy", new RootBeanDefinition(LookupOnDestroy.class));
+        RootBeanDefinition lazy = new RootBeanDefinition(Object.class);
+        lazy.setLazyInit(true);
+        beanFactory.registerBeanDefinition("lazy", lazy);
+        LookupOnDestroy bean = beanFactory.getBean(LookupOnDestroy.class);
+
+        beanFactory.destroySingletons();
+
+        assertThat(bean.failure.get()).isInstanceOf(BeanCreationNotAllowedException.class);
+        assertThat(beanFactory.containsSingleton("lazy")).isFalse();
+    }
+
+    @Test
+    void suppressedExceptionsAreAttachedToCreationFailure() {
+        SuppressingBeanFactory beanFactory = new SuppressingBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        RootBeanDefinition failing = new RootBeanDefinition(Object.class);
+        failing.setInstanceSupplier(() -> {
+            beanFactory.suppress(new IllegalStateException("suppressed"));
+            throw new IllegalArgumentException("failed");
+        });
+        beanFactory.registerBeanDefinition("failing", failing);
+
+        BeanCreationException failure = null;
+        try {
+            beanFactory.getBean("failing");
+        } catch (BeanCreationException ex) {
+            failure = ex;
+        }
+
+        assertThat(failure).isNotNull();
+        assertThat(failure.getRelatedCauses()).extracting(Throwable::getMessage).containsExactly("suppressed");
+    }
+
+    @Test
+    void concurrentRequestsCreateSingletonOnce() throws Exception {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        AtomicInteger created = new AtomicInteger();
+        RootBeanDefinition slow = new RootBeanDefinition(Object.class);
+        slow.setInstanceSupplier(() -> {
+            created.incrementAndGet();
+            sleep(50);
+            return new Object();
+        });
+        beanFactory.registerBeanDefinition("slow", slow);
+
+        List<Object> beans = runConcurrently(8, () -> beanFactory.getBean("slow"));
+
+        assertThat(created).hasValue(1);
+        assertThat(beans).allSatisfy(bean -> assertThat(bean).isSameAs(beans.get(0)));
+        assertThat(beanFactory.getSingletonCreationGuard().getContendedCount()).isPositive();
+    }
+
+    @Test
+    void circularReferenceSplitAcrossThreadsUsesEarlyReference() throws Exception {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        // 两个线程都完成实例化后才开始注入，保证各自持有自己的锁、再去等待对方
+        CyclicBarrier instantiated = new CyclicBarrier(2);
+        beanFactory.registerBeanDefinition("a", circularBean(instantiated, "b"));
+        beanFactory.registerBeanDefinition("b", circularBean(instantiated, "a"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> a = executor.submit(() -> beanFactory.getBean("a"));
+            Future<Object> b = executor.submit(() -> beanFactory.getBean("b"));
+
+            Circular beanA = (Circular) a.get(10, TimeUnit.SECONDS);
+            Circular beanB = (Circular) b.get(10, TimeUnit.SECONDS);
+            assertThat(beanA.other).isSameAs(beanB);
+            assertThat(beanB.other).isSameAs(beanA);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(beanFactory.getSingletonCreationGuard().getEarlyReferenceCount()).isEqualTo(1);
+    }
+
+    @Test
+    void factoryBeanObjectIsCreatedOnceWithoutGlobalLock() throws Exception {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        CountDownLatch release = new CountDownLatch(1);
+        SlowFactoryBean factoryBean = new SlowFactoryBean(release);
+        beanFactory.registerSingleton("product", factoryBean);
+        beanFactory.registerBeanDefinition("other", new RootBeanDefinition(Object.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Object>> products = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                products.add(executor.submit(() -> beanFactory.getBean("product")));
+            }
+            assertThat(factoryBean.entered.await(10, TimeUnit.SECONDS)).isTrue();
+            // getObject()执行期间不持有singletonObjects全局锁，其他单例照常创建
+            assertThat(executor.submit(() -> beanFactory.getBean("other")).get(2, TimeUnit.SECONDS)).isNotNull();
+            release.countDown();
+
+            Object product = products.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object> other : products) {
+                assertThat(other.get(10, TimeUnit.SECONDS)).isSameAs(product);
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(factoryBean.created).hasValue(1);
+    }
+
+    @Test
+    void factoryBeanObjectCacheIsClearedWithSingleton() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled(true);
+        CountDownLatch released = new CountDownLatch(0);
+        beanFactory.registerBeanDefinition("product", new RootBeanDefinition(SlowFactoryBean.class, () -> new SlowFactoryBean(released)));
+        Object product = beanFactory.getBean("product");
+
+        beanFactory.destroySingletons();
+
+        assertThat(beanFactory.getBean("product")).isNotSameAs(product);
+    }
+
+    private static RootBeanDefinition circularBean(CyclicBarrier instantiated, String other) {
+        RootBeanDefinition definition = new RootBeanDefinition(Circular.class, () -> {
+            try {
+                instantiated.await(10, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            return new Circular();
+        });
+        definition.getPropertyValues().add("other", new RuntimeBeanReference(other));
+        return definition;
+    }
+
+    private static <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Circular {
+
+        Object other;
+
+        public void setOther(Object other) {
+            this.other = other;
+        }
+    }
+
+    static class SlowFactoryBean implements FactoryBean<Object> {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final AtomicInteger created = new AtomicInteger();
+
+        private final CountDownLatch release;
+
+        SlowFactoryBean(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Object getObject() throws Exception {
+            this.created.incrementAndGet();
+            this.entered.countDown();
+            this.release.await(30, TimeUnit.SECONDS);
+            return new Object();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return Object.class;
+        }
+    }
+
+    static class SuppressingBeanFactory extends OptimizedListableBeanFactory {
+
+        void suppress(Exception ex) {
+            onSuppressedException(ex);
+        }
+    }
+
+    static class LookupOnDestroy implements BeanFactoryAware, DisposableBean {
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        private BeanFactory beanFactory;
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public void destroy() {
+            try {
+                this.beanFactory.getBean("lazy");
+            } catch (Exception ex) {
+                this.failure.set(ex);
+            }
+        }
+    }
+}
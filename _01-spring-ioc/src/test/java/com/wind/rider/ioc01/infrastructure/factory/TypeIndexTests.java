@@ -0,0 +1,176 @@
+package com.wind.rider.ioc01.infrastructure.factory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 类型索引回答的按类型查找与DefaultListableBeanFactory逐个遍历的结果(含顺序)一致
+ */
+class TypeIndexTests {
+
+    private static final List<Class<?>> TYPES = List.of(Object.class, Service.class, Auditable.class,
+            BasicService.class, AuditedService.class, Repository.class, FactoryBean.class);
+
+    private final DefaultListableBeanFactory stock = new DefaultListableBeanFactory();
+
+    private final OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+
+    @Test
+    void registrationMatchesStockFactory() {
+        apply(beanFactory -> {
+            beanFactory.registerBeanDefinition("basic", new RootBeanDefinition(BasicService.class));
+            beanFactory.registerBeanDefinition("audited", new RootBeanDefinition(AuditedService.class));
+            beanFactory.registerBeanDefinition("repositoryFactory", new RootBeanDefinition(RepositoryFactoryBean.class));
+            RootBeanDefinition lazy = new RootBeanDefinition(BasicService.class);
+            lazy.setLazyInit(true);
+            beanFactory.registerBeanDefinition("lazy", lazy);
+            RootBeanDefinition prototype = new RootBeanDefinition(AuditedService.class);
+            prototype.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+            beanFactory.registerBeanDefinition("prototype", prototype);
+            beanFactory.registerSingleton("manual", new AuditedService());
+            beanFactory.registerAlias("basic", "basicAlias");
+        });
+
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Service.class)).containsExactly("basic", "audited", "lazy", "prototype", "manual");
+    }
+
+    @Test
+    void removalAndOverridingMatchStockFactory() {
+        apply(beanFactory -> {
+            beanFactory.registerBeanDefinition("first", new RootBeanDefinition(BasicService.class));
+            beanFactory.registerBeanDefinition("second", new RootBeanDefinition(AuditedService.class));
+            beanFactory.registerBeanDefinition("third", new RootBeanDefinition(BasicService.class));
+            beanFactory.getBean("second");
+            beanFactory.removeBeanDefinition("second");
+            beanFactory.registerBeanDefinition("first", new RootBeanDefinition(AuditedService.class));
+            beanFactory.registerSingleton("manual", new BasicService());
+            beanFactory.destroySingleton("manual");
+        });
+
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).containsExactly("first");
+    }
+
+    @Test
+    void instanceTypeIsKeptAfterDestructionLikeStockFactory() {
+        apply(beanFactory -> {
+            RootBeanDefinition narrowed = new RootBeanDefinition(BasicService.class);
+            // 声明类型是BasicService，实际创建的实例还实现了Auditable
+            narrowed.setInstanceSupplier((Supplier<BasicService>) AuditedService::new);
+            beanFactory.registerBeanDefinition("narrowed", narrowed);
+        });
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).isEmpty();
+
+        apply(beanFactory -> beanFactory.getBean("narrowed"));
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).containsExactly("narrowed");
+
+        // 合并后的定义记住了实例的类型，销毁单例后仍按它匹配
+        apply(beanFactory -> beanFactory.destroySingleton("narrowed"));
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).containsExactly("narrowed");
+
+        // 覆盖为同一个类的定义时容器沿用合并定义中缓存的类型，换成其他类时不再沿用
+        apply(beanFactory -> beanFactory.registerBeanDefinition("narrowed", new RootBeanDefinition(BasicService.class)));
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).containsExactly("narrowed");
+
+        apply(beanFactory -> beanFactory.registerBeanDefinition("narrowed", new RootBeanDefinition(OtherService.class)));
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).isEmpty();
+    }
+
+    @Test
+    void prototypeInstanceTypeMatchesStockFactory() {
+        apply(beanFactory -> {
+            RootBeanDefinition prototype = new RootBeanDefinition(BasicService.class);
+            prototype.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+            prototype.setInstanceSupplier((Supplier<BasicService>) AuditedService::new);
+            beanFactory.registerBeanDefinition("prototype", prototype);
+            beanFactory.getBean("prototype");
+        });
+
+        assertSameLookups();
+        assertThat(this.optimized.getBeanNamesForType(Auditable.class)).containsExactly("prototype");
+    }
+
+    @Test
+    void genericLookupMatchesStockFactory() {
+        apply(beanFactory -> {
+            beanFactory.registerBeanDefinition("stringRepository", new RootBeanDefinition(StringRepository.class));
+            beanFactory.registerBeanDefinition("integerRepository", new RootBeanDefinition(IntegerRepository.class));
+            beanFactory.registerBeanDefinition("repositoryFactory", new RootBeanDefinition(RepositoryFactoryBean.class));
+        });
+
+        ResolvableType stringRepository = ResolvableType.forClassWithGenerics(Repository.class, String.class);
+        assertThat(this.optimized.getBeanNamesForType(stringRepository))
+                .containsExactly(this.stock.getBeanNamesForType(stringRepository))
+                .containsExactly("stringRepository", "repositoryFactory");
+        assertThat(this.optimized.getBeansOfType(Repository.class)).containsOnlyKeys(this.stock.getBeansOfType(Repository.class).keySet());
+    }
+
+    private void apply(Consumer<DefaultListableBeanFactory> operations) {
+        operations.accept(this.stock);
+        operations.accept(this.optimized);
+    }
+
+    private void assertSameLookups() {
+        for (Class<?> type : TYPES) {
+            for (boolean includeNonSingletons : new boolean[] {true, false}) {
+                for (boolean allowEagerInit : new boolean[] {true, false}) {
+                    assertThat(this.optimized.getBeanNamesForType(type, includeNonSingletons, allowEagerInit))
+                            .as("%s, includeNonSingletons=%s, allowEagerInit=%s", type.getSimpleName(), includeNonSingletons, allowEagerInit)
+                            .containsExactly(this.stock.getBeanNamesForType(type, includeNonSingletons, allowEagerInit));
+                }
+            }
+        }
+    }
+
+    interface Service {
+    }
+
+    interface Auditable {
+    }
+
+    interface Repository<T> {
+    }
+
+    static class BasicService implements Service {
+    }
+
+    static class AuditedService extends BasicService implements Auditable {
+    }
+
+    static class OtherService implements Service {
+    }
+
+    static class StringRepository implements Repository<String> {
+    }
+
+    static class IntegerRepository implements Repository<Integer> {
+    }
+
+    static class RepositoryFactoryBean implements FactoryBean<StringRepository> {
+
+        @Override
+        public StringRepository getObject() {
+            return new StringRepository();
+        }
+
+        @Override
+        public Class<?> getObjectType() {
+            return StringRepository.class;
+        }
+    }
+}
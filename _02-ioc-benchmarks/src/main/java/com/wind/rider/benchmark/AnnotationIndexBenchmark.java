@@ -0,0 +1,87 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.annotation.MyFlag;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 编译期注解索引与运行期反射的对比(冷启动)：把classpath上本项目的全部具体类各注册为一个Bean，
+ * 每次调用前新建容器并清空Spring的注解缓存(AnnotationUtils.clearCache)，模拟应用启动时第一次按注解查找
+ * -- default：对每个Bean的类反射读取类型层次上的注解，耗时随classpath上的类数量增长
+ * -- optimized：读取META-INF/projecty/bean-annotations.idx，只为命中的类还原注解，不反射Bean类
+ * 预热后的稳定态对比见BeanListingBenchmark的6.4 ~ 6.7
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner AnnotationIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotationIndexBenchmark {
+
+    private static final String CLASS_PATTERN = "classpath*:com/wind/rider/**/*.class";
+
+    @Param({"default", "optimized"})
+    public String factory;
+
+    private List<Class<?>> beanClasses;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void loadClasses() throws IOException, ClassNotFoundException {
+        beanClasses = new ArrayList<>();
+        SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASS_PATTERN)) {
+            ClassMetadata metadata = metadataReaderFactory.getMetadataReader(resource).getClassMetadata();
+            if (metadata.isConcrete() && !metadata.isAnnotation()) {
+                beanClasses.add(ClassUtils.forName(metadata.getClassName(), null));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createBeanFactory() {
+        AnnotationUtils.clearCache();
+        beanFactory = "optimized".equals(factory) ? new OptimizedListableBeanFactory() : new DefaultListableBeanFactory();
+        BeanFactoryState.registerSampleBeans(beanFactory, "prototype");
+        for (Class<?> beanClass : beanClasses) {
+            beanFactory.registerBeanDefinition(beanClass.getName(), BeanDefinitionBuilder.genericBeanDefinition(beanClass)
+                    .setScope("prototype")
+                    .setLazyInit(true)
+                    .getBeanDefinition());
+        }
+    }
+
+    /** 6.4 getBeanNamesForAnnotation：首次查找 */
+    @Benchmark
+    public void getBeanNamesForAnnotation(Blackhole blackhole) {
+        blackhole.consume(beanFactory.getBeanNamesForAnnotation(MyFlag.class));
+        blackhole.consume(beanFactory.getBeanNamesForAnnotation(Component.class));
+    }
+
+    /** 6.7 findAllAnnotationsOnBean：对每个Bean首次查找 */
+    @Benchmark
+    public void findAllAnnotationsOnBean(Blackhole blackhole) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            blackhole.consume(beanFactory.findAllAnnotationsOnBean(beanName, MyFlag.class, false));
+        }
+    }
+}
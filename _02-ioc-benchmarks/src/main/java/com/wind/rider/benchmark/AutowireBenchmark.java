@@ -0,0 +1,46 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass05;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote AutowireCapableBeanFactory依赖注入与依赖解析的基准测试(对应DefaultListableBeanFactoryInterface第7节)
+ * -- optimized容器按注入点缓存注入计划，resolveDependency与getIfAvailable在首次解析后直接按候选名称取Bean
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner AutowireBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutowireBenchmark {
+
+    /** 7.2 autowireBean：对已存在对象按注解注入SampleClass05.sampleClass04 */
+    @Benchmark
+    public Object autowireBean(BeanFactoryState state) {
+        SampleClass05 sampleClass05 = new SampleClass05();
+        state.beanFactory.autowireBean(sampleClass05);
+        return sampleClass05;
+    }
+
+    /** 7.10 resolveBeanByName */
+    @Benchmark
+    public Object resolveBeanByName(BeanFactoryState state) {
+        return state.beanFactory.resolveBeanByName("sampleClass01", state.sampleClass01Descriptor);
+    }
+
+    /** 7.11 resolveDependency */
+    @Benchmark
+    public Object resolveDependency(BeanFactoryState state) {
+        return state.beanFactory.resolveDependency(state.sampleClass01Descriptor, "sampleClass05");
+    }
+
+    /** 请求路径上的ObjectProvider.getIfAvailable */
+    @Benchmark
+    public Object objectProviderGetIfAvailable(BeanFactoryState state) {
+        return state.sampleClass01Provider.getIfAvailable();
+    }
+}
@@ -0,0 +1,97 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.FillerBean;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 逐个注册/移除与批量注册/移除BeanDefinition的对比(对应DefaultListableBeanFactoryInterface中的3.1、3.8与3.9)
+ * -- 容器已经开始创建Bean(先创建一个单例)，此后父类每注册/移除一个定义都要复制一遍BeanName列表(为了其他线程能稳定地遍历)，
+ *    批量写入同样逐个交给父类，这部分在两种模式下都随beanCount平方增长
+ * -- register：向空容器注册beanCount个FillerBean的定义；remove：从beanCount个定义中移除1/10，
+ *    父类每移除一个定义还要遍历全部定义查找子定义(resetBeanDefinition)，批量时推迟到最后只遍历一遍
+ * -- single逐个调用registerBeanDefinition/removeBeanDefinition；batch调用registerBeanDefinitions/removeBeanDefinitions，
+ *    类型索引、注入计划等只在最后维护一次。1核环境下100000个定义：register 7.9 s -> 5.6 s，remove 28.9 s -> 6.5 s
+ * 运行：java -jar target/benchmarks.jar BatchRegistrationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchRegistrationBenchmark {
+
+    @Param({"25000", "50000", "100000"})
+    public int beanCount;
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    private List<BeanDefinitionHolder> beanDefinitions;
+
+    private List<String> removedNames;
+
+    private OptimizedListableBeanFactory emptyFactory;
+
+    private OptimizedListableBeanFactory populatedFactory;
+
+    @Setup(Level.Trial)
+    public void prepareDefinitions() {
+        beanDefinitions = new ArrayList<>(beanCount);
+        removedNames = new ArrayList<>(beanCount / 10);
+        for (int i = 0; i < beanCount; i++) {
+            String beanName = "fillerBean" + i;
+            beanDefinitions.add(new BeanDefinitionHolder(
+                    BeanDefinitionBuilder.genericBeanDefinition(FillerBean.class).getBeanDefinition(), beanName));
+            if (i % 10 == 0) {
+                removedNames.add(beanName);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createFactories() {
+        emptyFactory = startedFactory();
+        populatedFactory = startedFactory();
+        populatedFactory.registerBeanDefinitions(beanDefinitions);
+    }
+
+    @Benchmark
+    public OptimizedListableBeanFactory register() {
+        if ("batch".equals(mode)) {
+            emptyFactory.registerBeanDefinitions(beanDefinitions);
+        } else {
+            for (BeanDefinitionHolder holder : beanDefinitions) {
+                emptyFactory.registerBeanDefinition(holder.getBeanName(), holder.getBeanDefinition());
+            }
+        }
+        return emptyFactory;
+    }
+
+    @Benchmark
+    public OptimizedListableBeanFactory remove() {
+        if ("batch".equals(mode)) {
+            populatedFactory.removeBeanDefinitions(removedNames);
+        } else {
+            for (String beanName : removedNames) {
+                populatedFactory.removeBeanDefinition(beanName);
+            }
+        }
+        return populatedFactory;
+    }
+
+    private static OptimizedListableBeanFactory startedFactory() {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.registerBeanDefinition("startedBean", new RootBeanDefinition(FillerBean.class));
+        beanFactory.getBean("startedBean");
+        return beanFactory;
+    }
+}
@@ -0,0 +1,82 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.factory.BeanAccessMetrics;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass01;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 运行期访问统计的开销：同一个OptimizedListableBeanFactory关闭(off)与开启setAccessMetricsEnabled的对比
+ * -- sampled：默认每16次访问计时一次；timed：setLatencySamplingInterval(1)，每次访问都计时(两次System.nanoTime())
+ * -- singletonLookup：getBean("sampleClass02")，单例缓存命中，是开销占比最大的情况
+ * -- providerLookup：ObjectProvider&lt;SampleClass01&gt;.getObject()，经依赖解析后按名称获取
+ * -- prototypeCreation：getBean("sampleClass05")，prototype，@Autowired注入同为prototype的sampleClass04，两次查找、两次创建
+ * -- 多线程下记录分散到不同的段，配合IocBenchmarkRunner的GC profiler确认开启后gc.alloc.rate.norm不变(记录不分配对象)
+ * -- 结果之外看TearDown打印的[access-metrics]：各Bean的次数与耗时分布
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner BeanAccessMetricsBenchmark 1,4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanAccessMetricsBenchmark {
+
+    @Param({"off", "sampled", "timed"})
+    public String metrics;
+
+    private OptimizedListableBeanFactory singletonFactory;
+
+    private OptimizedListableBeanFactory prototypeFactory;
+
+    private ObjectProvider<SampleClass01> sampleClass01Provider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        singletonFactory = newBeanFactory("singleton");
+        prototypeFactory = newBeanFactory("prototype");
+        sampleClass01Provider = singletonFactory.getBeanProvider(SampleClass01.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        for (OptimizedListableBeanFactory beanFactory : new OptimizedListableBeanFactory[]{singletonFactory, prototypeFactory}) {
+            BeanAccessMetrics accessMetrics = beanFactory.getBeanAccessMetrics();
+            if (accessMetrics != null) {
+                accessMetrics.getAllStats().forEach(stats -> System.out.printf("%n[access-metrics] %s", stats));
+            }
+            beanFactory.destroySingletons();
+        }
+        System.out.println();
+    }
+
+    @Benchmark
+    public Object singletonLookup() {
+        return singletonFactory.getBean("sampleClass02");
+    }
+
+    @Benchmark
+    public Object providerLookup() {
+        return sampleClass01Provider.getObject();
+    }
+
+    @Benchmark
+    public Object prototypeCreation() {
+        return prototypeFactory.getBean("sampleClass05");
+    }
+
+    private OptimizedListableBeanFactory newBeanFactory(String scope) {
+        OptimizedListableBeanFactory beanFactory = new OptimizedListableBeanFactory();
+        BeanFactoryState.registerSampleBeans(beanFactory, scope);
+        beanFactory.setAccessMetricsEnabled(!"off".equals(metrics));
+        if ("timed".equals(metrics)) {
+            beanFactory.getBeanAccessMetrics().setLatencySamplingInterval(1);
+        }
+        return beanFactory;
+    }
+}
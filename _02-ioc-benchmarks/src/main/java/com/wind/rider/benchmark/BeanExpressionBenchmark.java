@@ -0,0 +1,77 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.DatedBean;
+import com.wind.rider.benchmark.support.ExpressionBean;
+import com.wind.rider.ioc01.infrastructure.componet.CompilingBeanExpressionResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.config.BeanExpressionResolver;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 8.8中BeanExpressionResolver的两种实现
+ * -- standard：StandardBeanExpressionResolver，所有#{...}解释执行
+ * -- compiling：CompilingBeanExpressionResolver，执行100次后编译为字节码；每轮结束打印各表达式的执行方式与平均耗时
+ * evaluate：单个引用Bean属性的表达式；injectValue：创建一个有3个@Value表达式字段的prototype Bean
+ * 运行：java -jar target/benchmarks.jar BeanExpressionBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanExpressionBenchmark {
+
+    private static final String EXPRESSION = "#{datedBean.class.simpleName.length() * 2 + 1}";
+
+    @Param({"standard", "compiling"})
+    public String resolver;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private BeanExpressionResolver expressionResolver;
+
+    private BeanExpressionContext expressionContext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expressionResolver = ("compiling".equals(resolver) ? new CompilingBeanExpressionResolver() : new StandardBeanExpressionResolver());
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setBeanExpressionResolver(expressionResolver);
+        beanFactory.setAutowireCandidateResolver(new ContextAnnotationAutowireCandidateResolver());
+        AutowiredAnnotationBeanPostProcessor postProcessor = new AutowiredAnnotationBeanPostProcessor();
+        postProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(postProcessor);
+        beanFactory.registerSingleton("systemProperties", System.getProperties());
+        beanFactory.registerSingleton("datedBean", new DatedBean());
+        beanFactory.registerBeanDefinition("expressionBean", BeanDefinitionBuilder.genericBeanDefinition(ExpressionBean.class)
+                .setScope("prototype")
+                .getBeanDefinition());
+        expressionContext = new BeanExpressionContext(beanFactory, null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        if (expressionResolver instanceof CompilingBeanExpressionResolver compilingResolver) {
+            compilingResolver.getStats().forEach(stats -> System.out.printf("%n[expression] %s", stats));
+            System.out.println();
+        }
+    }
+
+    @Benchmark
+    public Object evaluate() {
+        return expressionResolver.evaluate(EXPRESSION, expressionContext);
+    }
+
+    @Benchmark
+    public Object injectValue() {
+        return beanFactory.getBean("expressionBean");
+    }
+}
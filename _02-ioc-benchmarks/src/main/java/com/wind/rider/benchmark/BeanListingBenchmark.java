@@ -0,0 +1,81 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.annotation.MyFlag;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass02;
+import com.wind.rider.ioc01.infrastructure.sample.SampleInterface;
+import lombok.Data;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.core.ResolvableType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote ListableBeanFactory按类型、按注解枚举Bean的基准测试(对应DefaultListableBeanFactoryInterface第6节)，
+ * 这些操作在未冻结配置的容器中会遍历全部BeanDefinition，注册表规模(registrySize)是主要影响因素
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner BeanListingBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanListingBenchmark {
+
+    private static final ResolvableType SAMPLE_INTERFACE_TYPE = ResolvableType.forRawClass(SampleInterface.class);
+
+    /** 6.1 getBeanNamesForType(Class) */
+    @Benchmark
+    public Object getBeanNamesForType(BeanFactoryState state) {
+        return state.beanFactory.getBeanNamesForType(SampleInterface.class);
+    }
+
+    /** 6.2 getBeanNamesForType(ResolvableType) */
+    @Benchmark
+    public Object getBeanNamesForResolvableType(BeanFactoryState state) {
+        return state.beanFactory.getBeanNamesForType(SAMPLE_INTERFACE_TYPE);
+    }
+
+    /** 6.3 getBeansOfType(Class) */
+    @Benchmark
+    public Object getBeansOfType(BeanFactoryState state) {
+        return state.beanFactory.getBeansOfType(SampleInterface.class);
+    }
+
+    /** 运行时修改注册表后立即按类型查找：原生容器每次注册/移除都会清空按类型缓存 */
+    @Benchmark
+    public Object registerLookupRemove(BeanFactoryState state) {
+        String beanName = "runtimeBean" + Thread.currentThread().getId();
+        state.beanFactory.registerBeanDefinition(beanName, BeanDefinitionBuilder.genericBeanDefinition(SampleClass02.class)
+                .setScope("prototype")
+                .getBeanDefinition());
+        String[] beanNames = state.beanFactory.getBeanNamesForType(SampleInterface.class);
+        state.beanFactory.removeBeanDefinition(beanName);
+        return beanNames;
+    }
+
+    /** 6.4 getBeanNamesForAnnotation */
+    @Benchmark
+    public Object getBeanNamesForAnnotation(BeanFactoryState state) {
+        return state.beanFactory.getBeanNamesForAnnotation(Data.class);
+    }
+
+    /** 6.5 getBeansWithAnnotation */
+    @Benchmark
+    public Object getBeansWithAnnotation(BeanFactoryState state) {
+        return state.beanFactory.getBeansWithAnnotation(MyFlag.class);
+    }
+
+    /** 6.6 findAnnotationOnBean */
+    @Benchmark
+    public Object findAnnotationOnBean(BeanFactoryState state) {
+        return state.beanFactory.findAnnotationOnBean("sampleClass04", MyFlag.class, false);
+    }
+
+    /** 6.7 findAllAnnotationsOnBean */
+    @Benchmark
+    public Object findAllAnnotationsOnBean(BeanFactoryState state) {
+        return state.beanFactory.findAllAnnotationsOnBean("sampleClass04", MyFlag.class, false);
+    }
+}
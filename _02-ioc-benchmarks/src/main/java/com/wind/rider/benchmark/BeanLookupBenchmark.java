@@ -0,0 +1,44 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass03;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass04;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote BeanFactory获取Bean相关操作的基准测试(对应DefaultListableBeanFactoryInterface第4节)
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner BeanLookupBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanLookupBenchmark {
+
+    /** 4.1 getBean(name) */
+    @Benchmark
+    public Object getBeanByName(BeanFactoryState state) {
+        return state.beanFactory.getBean("sampleClass03");
+    }
+
+    /** 4.2 getBean(requiredType) */
+    @Benchmark
+    public Object getBeanByType(BeanFactoryState state) {
+        return state.beanFactory.getBean(SampleClass03.class);
+    }
+
+    /** 4.4 getBean(name, args)：prototype时每次按参数选择构造器并创建实例 */
+    @Benchmark
+    public Object getBeanWithArgs(BeanFactoryState state) {
+        return state.beanFactory.getBean("sampleClass04", "MSG:1001");
+    }
+
+    /** 4.9 getBeanProvider(requiredType).getIfAvailable */
+    @Benchmark
+    public Object getBeanProviderIfAvailable(BeanFactoryState state) {
+        return state.beanFactory.getBeanProvider(SampleClass04.class).getIfAvailable();
+    }
+}
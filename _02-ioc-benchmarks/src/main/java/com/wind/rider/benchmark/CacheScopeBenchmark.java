@@ -0,0 +1,104 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.SlowStartBean;
+import com.wind.rider.ioc01.infrastructure.componet.BoundedCacheScope;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote BoundedCacheScope与prototype的对比：beanCount个创建耗时initMicros微秒的SlowStartBean
+ * -- lookup：4个线程随机获取Bean；prototype每次都创建，cached在容量足够时只在首次创建，之后是一次缓存读取
+ * -- stampede：清空缓存后requests个请求同时获取同一个Bean，cached只创建一次、其余请求等待同一个实例，
+ *    每轮结束打印统计(misses与created之差为合并的等待次数)
+ * 运行：java -jar target/benchmarks.jar CacheScopeBenchmark
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheScopeBenchmark {
+
+    @Param({"prototype", "cached"})
+    public String scope;
+
+    @Param({"64"})
+    public int beanCount;
+
+    @Param({"200"})
+    public long initMicros;
+
+    @Param({"64"})
+    public int requests;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private BoundedCacheScope cacheScope;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        cacheScope = new BoundedCacheScope(beanCount * 2L, Duration.ofMinutes(10));
+        beanFactory.registerScope("cached", cacheScope);
+        for (int i = 0; i < beanCount; i++) {
+            BeanDefinition definition = BeanDefinitionBuilder.genericBeanDefinition(SlowStartBean.class)
+                    .addConstructorArgValue(initMicros)
+                    .addConstructorArgValue(new ManagedList<>())
+                    .setScope(scope)
+                    .getBeanDefinition();
+            beanFactory.registerBeanDefinition("slowStartBean" + i, definition);
+        }
+        executor = Executors.newFixedThreadPool(requests);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        if ("cached".equals(scope)) {
+            System.out.printf("%n[cache-scope] %s%n", cacheScope.getStats());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        cacheScope.destroy();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object lookup() {
+        return beanFactory.getBean("slowStartBean" + ThreadLocalRandom.current().nextInt(beanCount));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void stampede() throws InterruptedException, ExecutionException {
+        cacheScope.destroy();
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(executor.submit(() -> beanFactory.getBean("slowStartBean0")));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.ioc01.infrastructure.factory.GeneratedBeanRegistries;
+import com.wind.rider.ioc02.infrastructure.config.ConfigClass01;
+import com.wind.rider.ioc02.infrastructure.sample.SampleBean01;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote Order01_LoadPostProcessor启动流程的耗时对比：注册注解处理器 -> 注册ConfigClass01 -> 执行BeanFactoryPostProcessor
+ * -> 加入BeanPostProcessor -> getBean(SampleBean01)
+ * -- runtimeParsing：ConfigurationClassPostProcessor在运行期解析配置类字节码、注册@Bean并生成CGLIB子类
+ * -- generatedRegistry：使用编译期生成的ConfigClass01__BeanRegistry，ConfigurationClassPostProcessor跳过该配置类
+ * -- coldStartup在新JVM中只执行一次(类加载、首次解析都计算在内)，对应真实的启动场景；warmStartup是JIT预热后的稳态耗时
+ * 运行：java -jar target/benchmarks.jar ConfigurationStartupBenchmark
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigurationStartupBenchmark {
+
+    @Param({"runtimeParsing", "generatedRegistry"})
+    public String mode;
+
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // SampleBean01/02的构造器会打印到标准输出
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public Object coldStartup() {
+        return startup();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public Object warmStartup() {
+        return startup();
+    }
+
+    private Object startup() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(beanFactory);
+        GeneratedBeanRegistries.registerConfiguration(beanFactory, "configA", ConfigClass01.class, "generatedRegistry".equals(mode));
+        beanFactory.getBeansOfType(BeanFactoryPostProcessor.class).values()
+                .forEach(postProcessor -> postProcessor.postProcessBeanFactory(beanFactory));
+        beanFactory.getBeansOfType(BeanPostProcessor.class).values().forEach(beanFactory::addBeanPostProcessor);
+        return beanFactory.getBean(SampleBean01.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.RequestScopedResource;
+import com.wind.rider.benchmark.support.SimulatedRequestAttributes;
+import com.wind.rider.ioc01.infrastructure.componet.CustomRequestScope;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote CustomRequestScope多线程压测：每次操作模拟一个完整请求(绑定RequestAttributes -> 多次getBean -> requestCompleted)
+ * -- 吞吐量：随请求线程数增加，单线程吞吐应基本持平(没有全局锁竞争)
+ * -- 堆：gc.alloc.rate.norm(每请求分配字节)不随线程数变化；每轮结束后打印GC后的存活堆与创建/销毁计数，两者相等说明没有泄漏
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.CustomRequestScopeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomRequestScopeBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    /** 每个请求内对同一个请求级Bean的查找次数 */
+    @Param({"1", "8"})
+    public int lookupsPerRequest;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerScope("custom", new CustomRequestScope());
+        AbstractBeanDefinition definition = BeanDefinitionBuilder.genericBeanDefinition(RequestScopedResource.class)
+                .setScope("custom")
+                .getBeanDefinition();
+        beanFactory.registerBeanDefinition("requestScopedResource", definition);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.gc();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%n[request-scope] used heap after GC = %.1f MB, created = %d, closed = %d%n",
+                usedHeap / (1024.0 * 1024.0), RequestScopedResource.CREATED.sum(), RequestScopedResource.CLOSED.sum());
+    }
+
+    @Benchmark
+    public void request(Blackhole blackhole) {
+        SimulatedRequestAttributes requestAttributes = new SimulatedRequestAttributes();
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+            for (int i = 0; i < lookupsPerRequest; i++) {
+                blackhole.consume(beanFactory.getBean("requestScopedResource"));
+            }
+        } finally {
+            requestAttributes.requestCompleted();
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        StringBuilder summary = new StringBuilder(String.format("%n%-8s %-8s %16s %16s %16s%n",
+                "threads", "lookups", "ops/s", "ops/s/thread", "B/op"));
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(CustomRequestScopeBenchmark.class.getName() + ".request")
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                double score = result.getPrimaryResult().getScore();
+                Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+                summary.append(String.format("%-8d %-8s %16.0f %16.0f %16.1f%n",
+                        threads, result.getParams().getParam("lookupsPerRequest"),
+                        score, score / threads, allocation != null ? allocation.getScore() : Double.NaN));
+            }
+        }
+        System.out.println(summary);
+    }
+}
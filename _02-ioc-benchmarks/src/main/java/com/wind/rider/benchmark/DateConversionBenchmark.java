@@ -0,0 +1,100 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.DatedBean;
+import com.wind.rider.ioc01.infrastructure.componet.DateTimeConverters;
+import com.wind.rider.ioc01.infrastructure.componet.MyCustomDateEditor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote Date属性转换：MyCustomDateEditor(PropertyEditor) 与 DateTimeConverters(ConversionService) 对比
+ * -- editor*：每个BeanWrapper新建编辑器实例，每次转换新建SimpleDateFormat
+ * -- converter*：共享的转换器实例 + 预编译缓存的DateTimeFormatter
+ * -- *BindPrototype走容器创建prototype Bean(容器会缓存已转换的属性值)，*BeanWrapper每次都完整转换属性值，*Parse只测单次转换
+ * 运行：java -jar target/benchmarks.jar DateConversionBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateConversionBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final String TEXT = "2024-03-26 10:15:30";
+
+    private DefaultListableBeanFactory editorBeanFactory;
+    private DefaultListableBeanFactory converterBeanFactory;
+    private ConversionService conversionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        editorBeanFactory = new DefaultListableBeanFactory();
+        editorBeanFactory.addPropertyEditorRegistrar(registry -> registry.registerCustomEditor(Date.class, new MyCustomDateEditor(PATTERN)));
+        editorBeanFactory.registerBeanDefinition("datedBean", datedBeanDefinition());
+
+        DefaultFormattingConversionService formattingConversionService = new DefaultFormattingConversionService();
+        DateTimeConverters.registerConverters(formattingConversionService, PATTERN);
+        conversionService = formattingConversionService;
+        converterBeanFactory = new DefaultListableBeanFactory();
+        converterBeanFactory.setConversionService(formattingConversionService);
+        converterBeanFactory.registerBeanDefinition("datedBean", datedBeanDefinition());
+    }
+
+    private static AbstractBeanDefinition datedBeanDefinition() {
+        return BeanDefinitionBuilder.genericBeanDefinition(DatedBean.class)
+                .setScope("prototype")
+                .addPropertyValue("createTime", TEXT)
+                .addPropertyValue("updateTime", TEXT)
+                .getBeanDefinition();
+    }
+
+    @Benchmark
+    public Object editorBindPrototype() {
+        return editorBeanFactory.getBean("datedBean");
+    }
+
+    @Benchmark
+    public Object converterBindPrototype() {
+        return converterBeanFactory.getBean("datedBean");
+    }
+
+    @Benchmark
+    public Object editorBeanWrapper() {
+        BeanWrapperImpl beanWrapper = new BeanWrapperImpl(new DatedBean());
+        beanWrapper.registerCustomEditor(Date.class, new MyCustomDateEditor(PATTERN));
+        beanWrapper.setPropertyValue("createTime", TEXT);
+        beanWrapper.setPropertyValue("updateTime", TEXT);
+        return beanWrapper.getWrappedInstance();
+    }
+
+    @Benchmark
+    public Object converterBeanWrapper() {
+        BeanWrapperImpl beanWrapper = new BeanWrapperImpl(new DatedBean());
+        beanWrapper.setConversionService(conversionService);
+        beanWrapper.setPropertyValue("createTime", TEXT);
+        beanWrapper.setPropertyValue("updateTime", TEXT);
+        return beanWrapper.getWrappedInstance();
+    }
+
+    @Benchmark
+    public Object editorParse() {
+        MyCustomDateEditor editor = new MyCustomDateEditor(PATTERN);
+        editor.setAsText(TEXT);
+        return editor.getValue();
+    }
+
+    @Benchmark
+    public Object converterParse() {
+        return conversionService.convert(TEXT, Date.class);
+    }
+}
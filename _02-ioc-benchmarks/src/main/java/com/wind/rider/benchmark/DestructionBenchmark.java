@@ -0,0 +1,91 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.SlowCloseBean;
+import com.wind.rider.ioc01.infrastructure.factory.DestructionReport;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.ManagedList;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote destroySingletons()的顺序模式与并行模式对比(对应DefaultListableBeanFactoryInterface中的8.37)
+ * -- 注册并创建beanCount个SlowCloseBean，每个Bean以1/4的概率依赖前面的某个Bean(最多3个)，容器据此记录依赖关系
+ * -- closeMicros：每个Bean的销毁耗时，0时只比较调度本身的开销
+ * -- sequential为DefaultListableBeanFactory原有的单线程依次销毁，parallel按依赖关系在固定大小的线程池上并行销毁
+ *    (每个回调限时1秒)，结束后打印最后一次并行销毁的报告(关键路径、最慢的Bean)；closeMicros为0时并行模式只有调度、
+ *    切换到回调线程的额外开销，适用于存在慢关闭Bean的容器
+ * 运行：java -jar target/benchmarks.jar DestructionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class DestructionBenchmark {
+
+    @Param({"100", "1000"})
+    public int beanCount;
+
+    @Param({"0", "1000"})
+    public long closeMicros;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    @Param({"16"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    private OptimizedListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void startExecutor() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        DestructionReport report = beanFactory.getLastDestructionReport();
+        if (report != null) {
+            System.out.printf("%n[destruction] %s%n", report);
+        }
+        executor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void createSingletons() {
+        beanFactory = new OptimizedListableBeanFactory();
+        if ("parallel".equals(mode)) {
+            beanFactory.setDestructionExecutor(executor);
+            beanFactory.setDestructionTimeout(Duration.ofSeconds(1));
+        }
+        Random random = new Random(beanCount);
+        for (int i = 0; i < beanCount; i++) {
+            ManagedList<Object> dependencies = new ManagedList<>();
+            for (int j = 0; j < 3 && i > 0; j++) {
+                if (random.nextInt(4) == 0) {
+                    dependencies.add(new RuntimeBeanReference("slowCloseBean" + random.nextInt(i)));
+                }
+            }
+            beanFactory.registerBeanDefinition("slowCloseBean" + i, BeanDefinitionBuilder.genericBeanDefinition(SlowCloseBean.class)
+                    .addConstructorArgValue(closeMicros)
+                    .addConstructorArgValue(dependencies)
+                    .getBeanDefinition());
+        }
+        beanFactory.preInstantiateSingletons();
+    }
+
+    @Benchmark
+    public void destroySingletons() {
+        beanFactory.destroySingletons();
+    }
+}
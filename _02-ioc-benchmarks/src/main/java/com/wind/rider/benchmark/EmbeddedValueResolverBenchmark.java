@@ -0,0 +1,68 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.PlaceholderBean;
+import com.wind.rider.ioc01.infrastructure.componet.CachedEmbeddedValueResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.StringValueResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 8.17/8.27中嵌入值解析器的三种写法
+ * -- newEnvironment：strValue -> new StandardEnvironment().resolvePlaceholders(strValue)，每次解析都重新读取系统属性、环境变量
+ * -- sharedEnvironment：共享一个StandardEnvironment，每次仍重新扫描${}并逐个PropertySource查找
+ * -- cached：CachedEmbeddedValueResolver，预编译模板并按PropertySource快照缓存结果(默认快照每秒更换一次)
+ * resolve：单个含多个占位符(缺失属性使用默认值)的字符串；injectValue：创建一个有3个@Value字段的prototype Bean
+ * 运行：java -jar target/benchmarks.jar EmbeddedValueResolverBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmbeddedValueResolverBenchmark {
+
+    private static final String TEMPLATE = "${user.home}/logs/${app.name:demo}-${user.name}.log";
+
+    @Param({"newEnvironment", "sharedEnvironment", "cached"})
+    public String resolver;
+
+    private StringValueResolver valueResolver;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        valueResolver = switch (resolver) {
+            case "newEnvironment" -> strValue -> new StandardEnvironment().resolvePlaceholders(strValue);
+            case "sharedEnvironment" -> environment::resolvePlaceholders;
+            default -> new CachedEmbeddedValueResolver(environment);
+        };
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setAutowireCandidateResolver(new ContextAnnotationAutowireCandidateResolver());
+        AutowiredAnnotationBeanPostProcessor postProcessor = new AutowiredAnnotationBeanPostProcessor();
+        postProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(postProcessor);
+        beanFactory.addEmbeddedValueResolver(valueResolver);
+        beanFactory.registerBeanDefinition("placeholderBean", BeanDefinitionBuilder.genericBeanDefinition(PlaceholderBean.class)
+                .setScope("prototype")
+                .getBeanDefinition());
+    }
+
+    @Benchmark
+    public String resolve() {
+        return valueResolver.resolveStringValue(TEMPLATE);
+    }
+
+    @Benchmark
+    public Object injectValue() {
+        return beanFactory.getBean("placeholderBean");
+    }
+}
@@ -0,0 +1,87 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass01;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 父子容器中查找不存在的Bean：depth层OptimizedListableBeanFactory组成父容器链，每层注册若干单例，
+ * 在最底层的子容器上查找整个链上都不存在的名称/类型
+ * -- disabled：setNegativeLookupCachingEnabled(false)，每次查找都沿父容器链逐级查到根容器
+ * -- enabled：确认不存在后记入每一级的未命中缓存，之后由最底层直接判定不存在
+ * -- rootHit：根容器中存在的Bean，用来确认缓存不影响正常的查找
+ * -- getBeanMiss包含创建NoSuchBeanDefinitionException的开销(填充异常栈)，缓存只能省去逐级查找的部分
+ * 运行：java -jar target/benchmarks.jar HierarchyLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchyLookupBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    @Param({"disabled", "enabled"})
+    public String cache;
+
+    @Param({"100"})
+    public int beansPerLevel;
+
+    private OptimizedListableBeanFactory leaf;
+
+    private ObjectProvider<Runnable> missingProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OptimizedListableBeanFactory factory = null;
+        for (int level = 0; level <= depth; level++) {
+            factory = (factory == null ? new OptimizedListableBeanFactory() : new OptimizedListableBeanFactory(factory));
+            factory.setNegativeLookupCachingEnabled("enabled".equals(cache));
+            for (int i = 0; i < beansPerLevel; i++) {
+                factory.registerSingleton("level" + level + "Bean" + i, new Object());
+            }
+            if (level == 0) {
+                factory.registerSingleton("sampleClass01", new SampleClass01());
+            }
+        }
+        leaf = factory;
+        missingProvider = leaf.getBeanProvider(Runnable.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void printStats() {
+        System.out.println();
+        leaf.getNegativeLookupStatsByLevel().forEach(System.out::println);
+    }
+
+    @Benchmark
+    public boolean containsBeanMiss() {
+        return leaf.containsBean("missingBean");
+    }
+
+    @Benchmark
+    public Object getBeanMiss() {
+        try {
+            return leaf.getBean("missingBean");
+        } catch (NoSuchBeanDefinitionException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public Object getIfAvailableMiss() {
+        return missingProvider.getIfAvailable();
+    }
+
+    @Benchmark
+    public Object rootHit() {
+        return leaf.getBean("sampleClass01");
+    }
+}
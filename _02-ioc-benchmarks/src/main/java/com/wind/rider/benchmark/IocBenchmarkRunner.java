@@ -0,0 +1,44 @@
+package com.wind.rider.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * @apiNote BeanFactory基准测试入口：按线程数依次运行，附带GC profiler输出分配速率(gc.alloc.rate.norm)，
+ * 每个线程数的结果写入 target/jmh/&lt;线程数&gt;t.json，作为后续性能改动的对比基线
+ * -- 参数1：基准测试类名正则，默认运行全部BeanFactory基准
+ * -- 参数2：逗号分隔的线程数，默认 1,4,16
+ * -- 参数3(可选)：注册表规模，逗号分隔，默认使用各基准中@Param的取值(10 ~ 100000)
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner "BeanLookup|BeanListing" 1,8 10,1000
+ */
+public class IocBenchmarkRunner {
+
+    private static final String DEFAULT_INCLUDE = "BeanLookupBenchmark|BeanListingBenchmark|AutowireBenchmark";
+    private static final String DEFAULT_THREADS = "1,4,16";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String threadList = args.length > 1 ? args[1] : DEFAULT_THREADS;
+        File resultDir = new File("target/jmh");
+        resultDir.mkdirs();
+        for (String threads : threadList.split(",")) {
+            OptionsBuilder builder = new OptionsBuilder();
+            builder.include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, threads.trim() + "t.json").getPath());
+            if (args.length > 2) {
+                builder.param("registrySize", args[2].split(","));
+            }
+            Options options = builder.build();
+            new Runner(options).run();
+        }
+    }
+}
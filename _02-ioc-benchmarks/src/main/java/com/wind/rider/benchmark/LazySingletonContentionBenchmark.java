@@ -0,0 +1,122 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.SlowStartBean;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.factory.SingletonCreationGuard;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.ManagedList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 运行期懒加载单例的创建争用：beanCount个懒加载的SlowStartBean，requests个请求同时到达，每个请求随机获取beansPerRequest个Bean，
+ * 测量全部请求完成的耗时(每轮使用新的容器，Bean都需要现场创建)
+ * -- global：DefaultListableBeanFactory原有的方式，所有单例的创建串行在singletonObjects全局锁上，耗时约为beanCount * initMicros
+ * -- striped：setStripedSingletonCreationEnabled(true)，按BeanName加锁，不同Bean的创建互不等待
+ * -- threadKind：platform为固定大小的平台线程池；virtual为每个请求一个虚拟线程，需要JDK 21+，
+ *    在JDK 21+上运行时追加 -p threadKind=platform,virtual
+ *    (目前只在JDK 17上测过platform，virtual的结果尚未测量)
+ * 运行：java -jar target/benchmarks.jar LazySingletonContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class LazySingletonContentionBenchmark {
+
+    @Param({"64"})
+    public int beanCount;
+
+    @Param({"1000"})
+    public long initMicros;
+
+    @Param({"256"})
+    public int requests;
+
+    @Param({"4"})
+    public int beansPerRequest;
+
+    @Param({"global", "striped"})
+    public String creation;
+
+    @Param({"platform"})
+    public String threadKind;
+
+    @Param({"64"})
+    public int platformThreads;
+
+    private ExecutorService executor;
+
+    private OptimizedListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void startExecutor() {
+        executor = ("virtual".equals(threadKind) ? newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(platformThreads));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void createBeanFactory() {
+        beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setStripedSingletonCreationEnabled("striped".equals(creation));
+        for (int i = 0; i < beanCount; i++) {
+            beanFactory.registerBeanDefinition("slowStartBean" + i, BeanDefinitionBuilder.genericBeanDefinition(SlowStartBean.class)
+                    .addConstructorArgValue(initMicros)
+                    .addConstructorArgValue(new ManagedList<>())
+                    .setLazyInit(true)
+                    .getBeanDefinition());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void destroyBeanFactory() {
+        SingletonCreationGuard guard = beanFactory.getSingletonCreationGuard();
+        if (guard != null) {
+            System.out.printf("%n[striped] contended=%d, earlyReferences=%d%n", guard.getContendedCount(), guard.getEarlyReferenceCount());
+        }
+        beanFactory.destroySingletons();
+    }
+
+    @Benchmark
+    public void concurrentRequests() throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < beansPerRequest; j++) {
+                    beanFactory.getBean("slowStartBean" + random.nextInt(beanCount));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    /**
+     * 通过反射调用Executors.newVirtualThreadPerTaskExecutor()，本模块按JDK 17编译
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("Virtual threads require JDK 21+, current: " + Runtime.version(), ex);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
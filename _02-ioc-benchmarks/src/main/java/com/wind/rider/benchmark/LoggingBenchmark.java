@@ -0,0 +1,140 @@
+package com.wind.rider.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.componet.BatchingAsyncAppender;
+import com.wind.rider.ioc01.infrastructure.componet.LogSink;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 日志输出方式对Bean创建吞吐量的影响：反复创建prototype的SampleClass04，每次创建输出两条INFO日志(实例化、初始化)
+ * -- sync：原logback.xml的写法，FileAppender + RollingFileAppender，调用线程上逐条encode并写文件
+ * -- async：BatchingAsyncAppender + 两个文件LogSink，调用线程只入队，写线程批量写出；队列满时阻塞(BLOCK)，
+ *    持续压测时吞吐量最终受写线程限制
+ * -- asyncDiscard：同上，overflowPolicy为DISCARD_BELOW_WARN，队列将满时丢弃INFO日志，调用线程不再被写线程拖慢
+ * -- 日志写到临时目录，结束后删除并恢复本模块logback.xml的WARN配置
+ * -- 沙箱只有1个CPU时写线程与测试线程争抢同一个核，async的收益主要来自批量写出减少的系统调用，多核机器上差距会更大
+ * 运行：java -jar target/benchmarks.jar LoggingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{50} - %msg%n";
+
+    @Param({"sync", "async", "asyncDiscard"})
+    public String logging;
+
+    private Path logDir;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("ioc-logging-benchmark");
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+        if ("sync".equals(logging)) {
+            root.addAppender(fileAppender(context));
+            root.addAppender(rollingFileAppender(context));
+        } else {
+            root.addAppender(asyncAppender(context));
+        }
+
+        beanFactory = new DefaultListableBeanFactory();
+        BeanFactoryState.registerSampleBeans(beanFactory, "prototype");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        // 停止LoggerContext时异步Appender会先写完队列中剩余的事件
+        context.stop();
+        FileSystemUtils.deleteRecursively(logDir);
+        context.reset();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.WARN);
+    }
+
+    @Benchmark
+    public Object createLoggingPrototype() {
+        return beanFactory.getBean("sampleClass04");
+    }
+
+    private Appender<ILoggingEvent> fileAppender(LoggerContext context) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName("FILE");
+        appender.setFile(logDir.resolve("logFile.log").toString());
+        appender.setEncoder(encoder(context));
+        appender.start();
+        return appender;
+    }
+
+    private Appender<ILoggingEvent> rollingFileAppender(LoggerContext context) {
+        RollingFileAppender<ILoggingEvent> appender = new RollingFileAppender<>();
+        appender.setContext(context);
+        appender.setName("RollingFile");
+        TimeBasedRollingPolicy<ILoggingEvent> policy = new TimeBasedRollingPolicy<>();
+        policy.setContext(context);
+        policy.setParent(appender);
+        policy.setFileNamePattern(logDir.resolve("dayLogFile.%d{yyyy-MM-dd}.log").toString());
+        policy.setMaxHistory(30);
+        policy.start();
+        appender.setRollingPolicy(policy);
+        appender.setEncoder(encoder(context));
+        appender.start();
+        return appender;
+    }
+
+    private Appender<ILoggingEvent> asyncAppender(LoggerContext context) {
+        BatchingAsyncAppender appender = new BatchingAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC");
+        if ("asyncDiscard".equals(logging)) {
+            appender.setOverflowPolicy(BatchingAsyncAppender.OverflowPolicy.DISCARD_BELOW_WARN);
+        }
+        LogSink file = new LogSink();
+        file.setContext(context);
+        file.setFile(logDir.resolve("logFile.log").toString());
+        file.setEncoder(encoder(context));
+        appender.addSink(file);
+        LogSink daily = new LogSink();
+        daily.setContext(context);
+        daily.setFileNamePattern(logDir.resolve("dayLogFile.%d{yyyy-MM-dd}.log").toString());
+        daily.setMaxHistory(30);
+        daily.setEncoder(encoder(context));
+        appender.addSink(daily);
+        appender.start();
+        return appender;
+    }
+
+    private PatternLayoutEncoder encoder(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        return encoder;
+    }
+}
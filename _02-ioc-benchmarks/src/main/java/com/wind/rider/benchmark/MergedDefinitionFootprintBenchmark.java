@@ -0,0 +1,108 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass03;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 注册表堆内存占用的基准测试：每个注册的BeanDefinition(含合并结果与创建后的缓存)平均占用多少字节
+ * -- 每次迭代新建容器，注册beanCount个只有BeanName不同的SampleClass03定义(prototype + init方法)，逐个合并并创建一次
+ * -- default：DefaultListableBeanFactory，每个BeanName各一份合并结果；optimized：默认配置的OptimizedListableBeanFactory，
+ *    合并结果以及按它编译的创建计划、BeanPostProcessor管道按形状共享；unshared：关闭setSharedMergedDefinitionsEnabled，
+ *    每个BeanName各一份合并结果，创建计划与管道记在每个BeanName一个的Holder上
+ * -- 耗时只作参考，结果看TearDown打印的bytes/definition(迭代前后Full GC后已用堆之差 / beanCount)
+ * -- 100000个定义时约为default 1008、optimized 725、unshared 1271字节。unshared多出的部分中，创建计划、管道及其Holder
+ *    与Map节点约170字节(三个按BeanName的Map合并为一个之前约330字节)，其余是类型索引的条目与各类型桶的节点
+ * 运行：java -jar target/benchmarks.jar MergedDefinitionFootprintBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class MergedDefinitionFootprintBenchmark {
+
+    @Param({"10000", "100000"})
+    public int beanCount;
+
+    @Param({"default", "optimized", "unshared"})
+    public String factory;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private long baselineHeap;
+
+    private long totalBytesPerDefinition;
+
+    private int measuredIterations;
+
+    @Setup(Level.Iteration)
+    public void measureBaseline() {
+        beanFactory = null;
+        baselineHeap = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void measureFootprint() {
+        long bytesPerDefinition = (usedHeapAfterGc() - baselineHeap) / beanCount;
+        // 保证测量时容器仍可达
+        if (beanFactory.getBeanDefinitionCount() != beanCount) {
+            throw new IllegalStateException("Unexpected bean definition count: " + beanFactory.getBeanDefinitionCount());
+        }
+        totalBytesPerDefinition += bytesPerDefinition;
+        measuredIterations++;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        String sharing = (beanFactory instanceof OptimizedListableBeanFactory optimized && optimized.isSharedMergedDefinitionsEnabled()
+                ? ", " + optimized.getSharedDefinitionStats() : "");
+        System.out.printf("%n[definition-footprint] %s, %d definitions: %d bytes/definition%s%n",
+                factory, beanCount, totalBytesPerDefinition / measuredIterations, sharing);
+    }
+
+    @Benchmark
+    public DefaultListableBeanFactory populate() {
+        DefaultListableBeanFactory beanFactory = newBeanFactory();
+        for (int i = 0; i < beanCount; i++) {
+            beanFactory.registerBeanDefinition("sampleClass03_" + i, BeanDefinitionBuilder.genericBeanDefinition(SampleClass03.class)
+                    .setScope("prototype")
+                    .setInitMethodName("init")
+                    .getBeanDefinition());
+        }
+        for (int i = 0; i < beanCount; i++) {
+            beanFactory.getBean("sampleClass03_" + i);
+        }
+        this.beanFactory = beanFactory;
+        return beanFactory;
+    }
+
+    private DefaultListableBeanFactory newBeanFactory() {
+        if ("default".equals(factory)) {
+            return new DefaultListableBeanFactory();
+        }
+        OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+        if ("unshared".equals(factory)) {
+            optimized.setSharedMergedDefinitionsEnabled(false);
+        }
+        return optimized;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
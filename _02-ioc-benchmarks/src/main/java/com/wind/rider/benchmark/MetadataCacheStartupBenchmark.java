@@ -0,0 +1,114 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.ioc01.infrastructure.componet.PersistentMetadataReaderFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 组件扫描/配置类解析读取类元数据的耗时对比：每次调用新建MetadataReaderFactory，读取org.springframework.context.annotation包下全部类的注解元数据
+ * -- caching：CachingMetadataReaderFactory，ConfigurationClassPostProcessor与组件扫描的默认实现，每个类都用ASM解析
+ * -- persistent：PersistentMetadataReaderFactory，缓存文件已由上一次运行写好，类文件未变化时直接从映射的缓存文件还原
+ * -- persistentPreload：同上，先用preloadCachedClasses()在线程池上并行还原，再逐个读取；预读按类名定位类文件，单核机器上只增加开销
+ * -- coldStartup在新JVM中只执行一次，对应真实的重启场景(第一个fork只用来写缓存文件，不计入结果)；warmStartup是JIT预热后的稳态耗时
+ * -- 每个类与组件扫描、配置类候选判断一样按名称检查@Component、@Bean，不读取注解属性
+ * -- 1核环境下coldStartup为persistent 82 ms、caching 188 ms、persistentPreload 216 ms，warmStartup为persistent 5.1 ms、caching 7.2 ms。
+ *    还原时只读取名称、不加载注解类型之前，冷启动时persistent更慢(196 ms，caching 152 ms)
+ * -- 结果之外看TearDown打印的[metadata-cache]：命中率与按上次解析耗时估算节省的时间
+ * 运行：java -jar target/benchmarks.jar MetadataCacheStartupBenchmark
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataCacheStartupBenchmark {
+
+    private static final String CLASS_PATTERN = "classpath*:org/springframework/context/annotation/**/*.class";
+
+    private static final String COMPONENT = "org.springframework.stereotype.Component";
+
+    private static final String BEAN = "org.springframework.context.annotation.Bean";
+
+    @Param({"caching", "persistent", "persistentPreload"})
+    public String mode;
+
+    private Resource[] classResources;
+
+    private Path cacheDirectory;
+
+    private MetadataReaderFactory lastFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        classResources = new PathMatchingResourcePatternResolver().getResources(CLASS_PATTERN);
+        cacheDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "projecty-metadata-benchmark");
+        if (!"caching".equals(mode)) {
+            PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheDirectory, null);
+            if (factory.getStats().cachedClasses() == 0) {
+                // 模拟上一次启动：解析全部类并写入缓存文件(缓存文件不存在或格式版本已过期)
+                readAll(factory);
+                factory.persist();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (lastFactory instanceof PersistentMetadataReaderFactory factory) {
+            System.out.printf("%n[metadata-cache] %s, %d classes: %s%n", mode, classResources.length, factory.getStats());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, warmups = 1)
+    public int coldStartup() throws IOException {
+        return readAll(newFactory());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public int warmStartup() throws IOException {
+        return readAll(newFactory());
+    }
+
+    private MetadataReaderFactory newFactory() {
+        MetadataReaderFactory factory;
+        if ("caching".equals(mode)) {
+            factory = new CachingMetadataReaderFactory();
+        } else {
+            PersistentMetadataReaderFactory persistent = new PersistentMetadataReaderFactory(cacheDirectory, null);
+            if ("persistentPreload".equals(mode)) {
+                persistent.preloadCachedClasses();
+            }
+            factory = persistent;
+        }
+        lastFactory = factory;
+        return factory;
+    }
+
+    /**
+     * 与组件扫描、配置类候选判断一样按名称检查注解
+     */
+    private int readAll(MetadataReaderFactory factory) throws IOException {
+        int candidates = 0;
+        for (Resource resource : classResources) {
+            AnnotationMetadata metadata = factory.getMetadataReader(resource).getAnnotationMetadata();
+            if (metadata.isAnnotated(COMPONENT) || metadata.hasAnnotatedMethods(BEAN)) {
+                candidates++;
+            }
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,67 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote BeanPostProcessor管道的基准测试：容器中有AutowiredAnnotationBeanPostProcessor与CommonAnnotationBeanPostProcessor，
+ * 反复创建prototype Bean
+ * -- default：DefaultListableBeanFactory，每个Bean逐个执行全部处理器的全部回调
+ * -- unfiltered：OptimizedListableBeanFactory关闭过滤，只保留编译创建等其他优化，作为对照
+ * -- filtered：只执行对该Bean适用的回调
+ * -- 管道只过滤初始化前后的回调，属性填充阶段两种容器都逐个执行全部处理器
+ * -- getPlainBean：sampleClass03没有任何注解，两个处理器初始化前后的回调全部可以跳过
+ * -- getAutowiredBean：sampleClass05有@Autowired，初始化前后的回调同样可以跳过，差别只在属性注入本身
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner PostProcessorPipelineBenchmark 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessorPipelineBenchmark {
+
+    @Param({"default", "unfiltered", "filtered"})
+    public String pipeline;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("default".equals(pipeline)) {
+            beanFactory = new DefaultListableBeanFactory();
+        } else {
+            OptimizedListableBeanFactory optimized = new OptimizedListableBeanFactory();
+            optimized.setPostProcessorFilteringEnabled("filtered".equals(pipeline));
+            beanFactory = optimized;
+        }
+        BeanFactoryState.registerSampleBeans(beanFactory, "prototype");
+        CommonAnnotationBeanPostProcessor commonProcessor = new CommonAnnotationBeanPostProcessor();
+        commonProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(commonProcessor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (beanFactory instanceof OptimizedListableBeanFactory optimized) {
+            System.out.println();
+            System.out.println(optimized.getPostProcessorPipelineStats());
+        }
+    }
+
+    @Benchmark
+    public Object getPlainBean() {
+        return beanFactory.getBean("sampleClass03");
+    }
+
+    @Benchmark
+    public Object getAutowiredBean() {
+        return beanFactory.getBean("sampleClass05");
+    }
+}
@@ -0,0 +1,90 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.SlowStartBean;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.factory.PreInstantiationReport;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.ManagedList;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote preInstantiateSingletons()的顺序模式与并行模式对比(对应Order01_LoadPostProcessor中的预实例化)
+ * -- 注册beanCount个SlowStartBean，每个Bean以1/4的概率依赖前面的某个Bean(最多3个)，构成一个随机DAG
+ * -- initMicros：每个Bean的初始化耗时，0时只比较调度本身的开销
+ * -- sequential为DefaultListableBeanFactory原有的单线程依次创建，parallel按依赖图在固定大小的线程池上并行创建，
+ *    每轮结束后打印最后一次并行预实例化的报告(关键路径、估算节省的时间)
+ * 运行：java -jar target/benchmarks.jar PreInstantiationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class PreInstantiationBenchmark {
+
+    @Param({"100", "1000"})
+    public int beanCount;
+
+    @Param({"0", "1000"})
+    public long initMicros;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    @Param({"16"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    private OptimizedListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void startExecutor() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        PreInstantiationReport report = beanFactory.getLastPreInstantiationReport();
+        if (report != null) {
+            System.out.printf("%n[pre-instantiation] %s%n", report);
+        }
+        executor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void createBeanFactory() {
+        beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setPreInstantiationExecutor("parallel".equals(mode) ? executor : null);
+        Random random = new Random(beanCount);
+        for (int i = 0; i < beanCount; i++) {
+            ManagedList<Object> dependencies = new ManagedList<>();
+            for (int j = 0; j < 3 && i > 0; j++) {
+                if (random.nextInt(4) == 0) {
+                    dependencies.add(new RuntimeBeanReference("slowStartBean" + random.nextInt(i)));
+                }
+            }
+            beanFactory.registerBeanDefinition("slowStartBean" + i, BeanDefinitionBuilder.genericBeanDefinition(SlowStartBean.class)
+                    .addConstructorArgValue(initMicros)
+                    .addConstructorArgValue(dependencies)
+                    .getBeanDefinition());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void destroyBeanFactory() {
+        beanFactory.destroySingletons();
+    }
+
+    @Benchmark
+    public void preInstantiateSingletons() {
+        beanFactory.preInstantiateSingletons();
+    }
+}
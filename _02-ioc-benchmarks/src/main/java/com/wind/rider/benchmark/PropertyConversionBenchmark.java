@@ -0,0 +1,84 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.ConvertedBean;
+import com.wind.rider.ioc01.infrastructure.componet.DateTimeConverters;
+import com.wind.rider.ioc01.infrastructure.componet.MyCustomDateEditor;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.support.ResourceEditorRegistrar;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote prototype Bean属性填充时的类型转换：容器按8.10~8.13配置(ConversionService + ResourceEditorRegistrar + Date编辑器)，
+ * ConvertedBean的属性每次创建都需要重新解析、转换(集合元素、动态的TypedStringValue、Bean引用)
+ * -- beanWrapper：setCompiledPropertyConversionEnabled(false)，每个BeanWrapper执行PropertyEditorRegistrar、逐个属性查找转换方式
+ * -- compiled：按(源类型, 目标类型, 属性)编译缓存的转换器；每轮结束打印转换次数最多的转换器统计
+ * -- compiled每次创建仍分配约5 KB(不需要转换的同一Bean约0.5 KB)，其中转换器本身只有ConversionService查找缓存键；
+ *    大部分来自转换方式自身：MyCustomDateEditor每次新建SimpleDateFormat(约2.3 KB，换成DateTimeConverters即可去掉)、
+ *    数字解析与集合元素转换(约1.4 KB)，以及父类applyPropertyValues复制PropertyValue(约0.7 KB)
+ * 运行：java -jar target/benchmarks.jar PropertyConversionBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyConversionBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    @Param({"beanWrapper", "compiled"})
+    public String conversion;
+
+    private OptimizedListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setCompiledPropertyConversionEnabled("compiled".equals(conversion));
+        DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+        DateTimeConverters.registerConverters(conversionService, PATTERN);
+        beanFactory.setConversionService(conversionService);
+        beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(new DefaultResourceLoader(), new StandardEnvironment()));
+        beanFactory.addPropertyEditorRegistrar(registry -> registry.registerCustomEditor(Date.class, new MyCustomDateEditor(PATTERN)));
+        beanFactory.registerSingleton("dependency", new Object());
+
+        ManagedList<String> ports = new ManagedList<>();
+        ports.add("8080");
+        ports.add("8081");
+        ports.add("8082");
+        // 动态值(如含SpEL/占位符)每次创建都要重新转换
+        TypedStringValue createTime = new TypedStringValue("2024-03-26 10:15:30");
+        createTime.setDynamic();
+        TypedStringValue timeout = new TypedStringValue("30");
+        timeout.setDynamic();
+        beanFactory.registerBeanDefinition("convertedBean", BeanDefinitionBuilder.genericBeanDefinition(ConvertedBean.class)
+                .setScope("prototype")
+                .addPropertyValue("timeout", timeout)
+                .addPropertyValue("ports", ports)
+                .addPropertyValue("createTime", createTime)
+                .addPropertyValue("location", "classpath:logback.xml")
+                .addPropertyReference("dependency", "dependency")
+                .getBeanDefinition());
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        beanFactory.getPropertyConverterStats().stream().limit(5)
+                .forEach(stats -> System.out.printf("%n[conversion] %s%n", stats));
+    }
+
+    @Benchmark
+    public Object createPrototype() {
+        return beanFactory.getBean("convertedBean");
+    }
+}
@@ -0,0 +1,47 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.sample.SampleClass04;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote prototype Bean创建的基准测试：反射解析构造器/init方法(default)与编译后的创建计划(optimized)对比
+ * -- getBeanByName：sampleClass03，默认构造器 + init方法
+ * -- getBeanWithArgs：getBean(SampleClass04.class, args)按参数选择SampleClass04(String) + initialize方法
+ * -- 编译只省去构造器解析、反射调用、init方法的逐次检查与ThreadLocal的设置/移除，doGetBean/doCreateBean的其余流程
+ *    (合并定义查找、BeanWrapper、populateBean、BeanPostProcessor回调)两者相同，不会随之变快，达不到数倍的提升
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner PrototypeCreationBenchmark 1,4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrototypeCreationBenchmark {
+
+    @Param({"default", "optimized"})
+    public String factory;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanFactory = "optimized".equals(factory) ? new OptimizedListableBeanFactory() : new DefaultListableBeanFactory();
+        BeanFactoryState.registerSampleBeans(beanFactory, "prototype");
+    }
+
+    @Benchmark
+    public Object getBeanByName() {
+        return beanFactory.getBean("sampleClass03");
+    }
+
+    @Benchmark
+    public Object getBeanWithArgs() {
+        return beanFactory.getBean(SampleClass04.class, "MSG:2000");
+    }
+}
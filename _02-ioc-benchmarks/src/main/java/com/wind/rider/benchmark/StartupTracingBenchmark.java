@@ -0,0 +1,70 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.componet.RingBufferApplicationStartup;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 启动追踪开销的基准测试：在OptimizedListableBeanFactory上反复创建prototype Bean，每次创建都会产生
+ * spring.beans.instantiate以及实例化、属性填充、初始化、每个BeanPostProcessor各阶段的步骤
+ * -- default：ApplicationStartup.DEFAULT，不记录，作为基线
+ * -- buffering：Spring Boot的BufferingApplicationStartup，每个步骤分配对象与Tag列表，容量用完后不再记录
+ *    (预热阶段即会用完，之后测得的只是创建步骤对象的开销，并不等于持续记录的开销)
+ * -- ringBuffer：RingBufferApplicationStartup，复用步骤对象并写入预分配的环形缓冲区，始终保留最近的记录
+ * -- recordStep：单个步骤的start/tag/end，每个步骤固定有两次System.nanoTime()，在时钟较慢的虚拟机上这部分占主要开销
+ * 运行：java -cp target/benchmarks.jar com.wind.rider.benchmark.IocBenchmarkRunner StartupTracingBenchmark 1,4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StartupTracingBenchmark {
+
+    private static final int CAPACITY = 1 << 16;
+
+    @Param({"default", "buffering", "ringBuffer"})
+    public String startup;
+
+    private OptimizedListableBeanFactory beanFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanFactory = new OptimizedListableBeanFactory();
+        beanFactory.setApplicationStartup(createApplicationStartup());
+        BeanFactoryState.registerSampleBeans(beanFactory, "prototype");
+    }
+
+    private ApplicationStartup createApplicationStartup() {
+        return switch (startup) {
+            case "buffering" -> new BufferingApplicationStartup(CAPACITY);
+            case "ringBuffer" -> new RingBufferApplicationStartup(CAPACITY);
+            default -> ApplicationStartup.DEFAULT;
+        };
+    }
+
+    @Benchmark
+    public Object getPrototypeBean() {
+        return beanFactory.getBean("sampleClass03");
+    }
+
+    @Benchmark
+    public Object getAutowiredPrototypeBean() {
+        return beanFactory.getBean("sampleClass05");
+    }
+
+    @Benchmark
+    public void recordStep() {
+        beanFactory.getApplicationStartup().start(OptimizedListableBeanFactory.STEP_POST_PROCESS)
+                .tag("beanName", "sampleClass03")
+                .tag("postProcessor", "AutowiredAnnotationBeanPostProcessor")
+                .tag("phase", "before-initialization")
+                .end();
+    }
+}
@@ -0,0 +1,85 @@
+package com.wind.rider.benchmark;
+
+import com.wind.rider.benchmark.support.BeanFactoryState;
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @apiNote 为每个租户创建一个配置完整的容器：模板容器注册示例Bean与registrySize个FillerBean
+ * -- copyAndRegister：8.26 copyConfigurationFrom复制配置，再把模板中的每个BeanDefinition复制一份重新注册，耗时与内存随注册表规模线性增长
+ * -- fork：OptimizedListableBeanFactory.fork()，共享模板的BeanDefinition与类型索引，只复制配置、别名与手动单例
+ * -- *FirstRequest：创建容器后立即获取sampleClass05(依赖注入sampleClass01)，包含fork中首次合并模板定义的开销
+ * -- 每次分配的内存追加 -prof gc 查看gc.alloc.rate.norm
+ * 运行：java -jar target/benchmarks.jar TenantForkBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantForkBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int registrySize;
+
+    private OptimizedListableBeanFactory template;
+
+    private String[] beanNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        template = new OptimizedListableBeanFactory();
+        BeanFactoryState.registerSampleBeans(template, "singleton");
+        BeanFactoryState.registerFillerBeans(template, registrySize);
+        beanNames = template.getBeanDefinitionNames();
+        // 生成模板快照
+        template.fork();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.destroySingletons();
+    }
+
+    @Benchmark
+    public Object copyAndRegister() {
+        return copyAndRegisterTenant();
+    }
+
+    @Benchmark
+    public Object fork() {
+        return template.fork();
+    }
+
+    @Benchmark
+    public Object copyAndRegisterFirstRequest() {
+        return copyAndRegisterTenant().getBean("sampleClass05");
+    }
+
+    @Benchmark
+    public Object forkFirstRequest() {
+        return template.fork().getBean("sampleClass05");
+    }
+
+    private OptimizedListableBeanFactory copyAndRegisterTenant() {
+        OptimizedListableBeanFactory tenant = new OptimizedListableBeanFactory();
+        tenant.copyConfigurationFrom(template);
+        // 与fork一致：AutowiredAnnotationBeanPostProcessor需要绑定到租户容器
+        tenant.getBeanPostProcessors().removeIf(AutowiredAnnotationBeanPostProcessor.class::isInstance);
+        AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredProcessor.setBeanFactory(tenant);
+        tenant.addBeanPostProcessor(autowiredProcessor);
+        tenant.registerSingleton("sampleClass01", template.getBean("sampleClass01"));
+        for (String beanName : beanNames) {
+            BeanDefinition definition = template.getBeanDefinition(beanName);
+            tenant.registerBeanDefinition(beanName, ((AbstractBeanDefinition) definition).cloneBeanDefinition());
+        }
+        return tenant;
+    }
+}
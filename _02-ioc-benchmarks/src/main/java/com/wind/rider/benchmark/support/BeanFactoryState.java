@@ -0,0 +1,103 @@
+package com.wind.rider.benchmark.support;
+
+import com.wind.rider.ioc01.infrastructure.factory.OptimizedListableBeanFactory;
+import com.wind.rider.ioc01.infrastructure.sample.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.MethodParameter;
+
+/**
+ * @apiNote BeanFactory基准测试共用的容器状态，按DefaultListableBeanFactoryInterface中的方式注册示例Bean
+ * -- registrySize：额外注册的FillerBean定义数量，用于观察注册表规模对查找类操作的影响
+ * -- scope：sampleClass03/04/05的作用域，对比单例缓存命中与每次新建prototype的开销
+ * -- factory：default为Spring原生DefaultListableBeanFactory(基线)，optimized为OptimizedListableBeanFactory
+ */
+@State(Scope.Benchmark)
+public class BeanFactoryState {
+
+    @Param({"10", "1000", "100000"})
+    public int registrySize;
+
+    @Param({"singleton", "prototype"})
+    public String scope;
+
+    @Param({"default", "optimized"})
+    public String factory;
+
+    public DefaultListableBeanFactory beanFactory;
+
+    /** 对应7.10中SampleClass05.setSampleClass01(SampleClass01)的注入点 */
+    public DependencyDescriptor sampleClass01Descriptor;
+
+    /** 注入到ObjectProvider&lt;SampleClass01&gt;字段时容器给出的DependencyObjectProvider，getIfAvailable每次都会解析依赖 */
+    public ObjectProvider<?> sampleClass01Provider;
+
+    /** 仅用于提供ObjectProvider&lt;SampleClass01&gt;注入点 */
+    private ObjectProvider<SampleClass01> sampleClass01ProviderPoint;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        beanFactory = createBeanFactory();
+        sampleClass01Descriptor = new DependencyDescriptor(
+                new MethodParameter(SampleClass05.class.getDeclaredMethod("setSampleClass01", SampleClass01.class), 0), false);
+        try {
+            sampleClass01Provider = (ObjectProvider<?>) beanFactory.resolveDependency(new DependencyDescriptor(
+                    BeanFactoryState.class.getDeclaredField("sampleClass01ProviderPoint"), false), "sampleClass05");
+        } catch (NoSuchFieldException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        beanFactory.destroySingletons();
+    }
+
+    /**
+     * 创建并填充容器，子类/其他基准可以覆盖以替换容器实现
+     */
+    protected DefaultListableBeanFactory createBeanFactory() {
+        DefaultListableBeanFactory beanFactory = "optimized".equals(factory)
+                ? new OptimizedListableBeanFactory() : new DefaultListableBeanFactory();
+        registerSampleBeans(beanFactory, scope);
+        registerFillerBeans(beanFactory, registrySize);
+        return beanFactory;
+    }
+
+    public static void registerSampleBeans(DefaultListableBeanFactory factory, String scope) {
+        AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredProcessor.setBeanFactory(factory);
+        factory.addBeanPostProcessor(autowiredProcessor);
+
+        factory.registerSingleton("sampleClass01", new SampleClass01());
+        factory.registerBeanDefinition("sampleClass02", BeanDefinitionBuilder.genericBeanDefinition(SampleClass02.class)
+                .setScope("singleton")
+                .getBeanDefinition());
+        factory.registerBeanDefinition("sampleClass03", BeanDefinitionBuilder.genericBeanDefinition(SampleClass03.class)
+                .setScope(scope)
+                .setInitMethodName("init")
+                .getBeanDefinition());
+        factory.registerBeanDefinition("sampleClass04", BeanDefinitionBuilder.genericBeanDefinition(SampleClass04.class)
+                .setScope(scope)
+                .setInitMethodName("initialize")
+                .getBeanDefinition());
+        factory.registerBeanDefinition("sampleClass05", BeanDefinitionBuilder.genericBeanDefinition(SampleClass05.class)
+                .setScope(scope)
+                .getBeanDefinition());
+    }
+
+    public static void registerFillerBeans(DefaultListableBeanFactory factory, int count) {
+        for (int i = 0; i < count; i++) {
+            AbstractBeanDefinition definition = BeanDefinitionBuilder.genericBeanDefinition(FillerBean.class)
+                    .setScope("singleton")
+                    .setLazyInit(true)
+                    .getBeanDefinition();
+            factory.registerBeanDefinition("fillerBean" + i, definition);
+        }
+    }
+}
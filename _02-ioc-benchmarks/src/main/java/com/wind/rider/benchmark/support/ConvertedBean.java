@@ -0,0 +1,19 @@
+package com.wind.rider.benchmark.support;
+
+import lombok.Data;
+import org.springframework.core.io.Resource;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @apiNote 属性值需要类型转换的示例Bean：数字、集合元素、日期、Resource，用于测量属性填充时的转换开销
+ */
+@Data
+public class ConvertedBean {
+    private int timeout;
+    private List<Integer> ports;
+    private Date createTime;
+    private Resource location;
+    private Object dependency;
+}
@@ -0,0 +1,14 @@
+package com.wind.rider.benchmark.support;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * @apiNote 带有Date属性的示例Bean，用于测量属性绑定时的日期类型转换开销
+ */
+@Data
+public class DatedBean {
+    private Date createTime;
+    private Date updateTime;
+}
@@ -0,0 +1,17 @@
+package com.wind.rider.benchmark.support;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * @apiNote 通过@Value注入SpEL表达式的示例Bean：静态方法与算术、模板拼接、引用其他Bean的属性，用于测量表达式执行开销
+ */
+@Data
+public class ExpressionBean {
+    @Value("#{T(java.lang.Math).max(8, 16) * 1024}")
+    private int bufferSize;
+    @Value("worker-#{datedBean.class.simpleName.toLowerCase()}-#{systemProperties['java.specification.version']}")
+    private String workerName;
+    @Value("#{datedBean.createTime == null ? 'pending' : 'ready'}")
+    private String state;
+}
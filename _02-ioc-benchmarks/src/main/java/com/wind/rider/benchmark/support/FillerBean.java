@@ -0,0 +1,7 @@
+package com.wind.rider.benchmark.support;
+
+/**
+ * @apiNote 用于填充注册表规模的Bean，不实现SampleInterface，也没有任何注解，只参与类型/注解查找时的遍历
+ */
+public class FillerBean {
+}
@@ -0,0 +1,17 @@
+package com.wind.rider.benchmark.support;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * @apiNote 通过@Value注入占位符的示例Bean：系统属性、带默认值的缺失属性、嵌套占位符，用于测量嵌入值解析的开销
+ */
+@Data
+public class PlaceholderBean {
+    @Value("${user.home}/logs/${app.name:demo}.log")
+    private String logFile;
+    @Value("${app.timeout:30}")
+    private int timeout;
+    @Value("${java.version}")
+    private String javaVersion;
+}
@@ -0,0 +1,27 @@
+package com.wind.rider.benchmark.support;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @apiNote 请求级作用域下的示例Bean，统计创建与销毁次数，用于核对请求结束时销毁回调是否全部执行(没有泄漏)
+ */
+public class RequestScopedResource implements AutoCloseable {
+
+    public static final LongAdder CREATED = new LongAdder();
+    public static final LongAdder CLOSED = new LongAdder();
+
+    private final byte[] payload = new byte[256];
+
+    public RequestScopedResource() {
+        CREATED.increment();
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    @Override
+    public void close() {
+        CLOSED.increment();
+    }
+}
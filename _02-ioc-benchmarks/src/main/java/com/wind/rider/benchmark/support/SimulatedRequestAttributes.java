@@ -0,0 +1,72 @@
+package com.wind.rider.benchmark.support;
+
+import org.springframework.web.context.request.AbstractRequestAttributes;
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @apiNote 基准测试用的内存版RequestAttributes，模拟一次请求的生命周期(绑定 -> 访问请求属性 -> requestCompleted执行销毁回调)，
+ * 不依赖Servlet容器；Session级属性不做支持
+ */
+public class SimulatedRequestAttributes extends AbstractRequestAttributes {
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        checkRequestScope(scope);
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        checkRequestScope(scope);
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        checkRequestScope(scope);
+        attributes.remove(name);
+        removeRequestDestructionCallback(name);
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        checkRequestScope(scope);
+        return attributes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        checkRequestScope(scope);
+        registerRequestDestructionCallback(name, callback);
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return null;
+    }
+
+    @Override
+    public String getSessionId() {
+        throw new UnsupportedOperationException("SimulatedRequestAttributes does not support sessions");
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        throw new UnsupportedOperationException("SimulatedRequestAttributes does not support sessions");
+    }
+
+    @Override
+    protected void updateAccessedSessionAttributes() {
+    }
+
+    private static void checkRequestScope(int scope) {
+        if (scope != RequestAttributes.SCOPE_REQUEST) {
+            throw new UnsupportedOperationException("SimulatedRequestAttributes only supports request scope");
+        }
+    }
+}
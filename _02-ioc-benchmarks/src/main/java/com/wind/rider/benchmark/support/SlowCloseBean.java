@@ -0,0 +1,32 @@
+package com.wind.rider.benchmark.support;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @apiNote 模拟关闭较慢的单例(等待连接池归还连接、刷新缓冲区等以等待为主的关闭)，destroy时阻塞closeMicros微秒
+ */
+public class SlowCloseBean implements DisposableBean {
+
+    private final long closeMicros;
+
+    private final List<Object> dependencies;
+
+    public SlowCloseBean(long closeMicros, List<Object> dependencies) {
+        this.closeMicros = closeMicros;
+        this.dependencies = dependencies;
+    }
+
+    public List<Object> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public void destroy() {
+        if (closeMicros > 0) {
+            LockSupport.parkNanos(closeMicros * 1000);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.wind.rider.benchmark.support;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @apiNote 模拟启动较慢的单例(建立连接池、拉取远程配置等以等待为主的初始化)，构造时阻塞initMicros微秒
+ */
+public class SlowStartBean {
+
+    private final List<Object> dependencies;
+
+    public SlowStartBean(long initMicros, List<Object> dependencies) {
+        this.dependencies = dependencies;
+        if (initMicros > 0) {
+            LockSupport.parkNanos(initMicros * 1000);
+        }
+    }
+
+    public List<Object> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,236 @@
+package com.wind.rider.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.SimpleAnnotationValueVisitor9;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @author yfchen1
+ * @apiNote 编译期生成Bean类的注解索引 META-INF/projecty/bean-annotations.idx
+ * -- 每个类记录其类型层次(类本身 -> 接口 -> 父类，与Spring MergedAnnotations的TYPE_HIERARCHY顺序一致)上直接声明的、
+ *    运行期可见(RetentionPolicy.RUNTIME)的注解及其显式设置的属性值，以及包含元注解在内的全部注解类型
+ * -- 运行期由OptimizedListableBeanFactory读取，按注解查找Bean时不再反射扫描Bean类
+ * -- 与Spring的CandidateComponentsIndexer一样只索引"stereotype"类：类型层次上带有被@Indexed(直接或作为元注解)标注的注解的类，
+ *    如@Component、@Configuration、@Service等；其他类(普通工具类、事件、记录类型)不写入索引
+ * -- 属性值中含有嵌套注解的类不写入索引，运行期对这些类退回反射查找
+ * -- 索引只由本次编译的类生成，不合并上一次编译留下的索引(否则已删除的类会一直留在索引中)；
+ *    增量编译只编译了部分类时，未重新编译的类不在索引中，运行期同样退回反射查找，全量编译后恢复
+ * 索引格式(每个类一段)：
+ *   C 类名
+ *   R 注解类型 属性名=URL编码的值 ...     (类型层次上直接声明的注解，数组属性的元素以逗号分隔)
+ *   P 注解类型                            (存在的注解类型，包含元注解)
+ */
+@SupportedAnnotationTypes("*")
+public class BeanAnnotationIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_LOCATION = "META-INF/projecty/bean-annotations.idx";
+
+    private static final String HEADER = "# projecty bean annotation index v1";
+
+    /** Spring用来标记stereotype的元注解 */
+    private static final String INDEXED_ANNOTATION = "org.springframework.stereotype.Indexed";
+
+    /** 类名 -> 该类的索引段，TreeMap保证输出稳定 */
+    private final Map<String, String> records = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            collect(element);
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        // 不声明对任何注解的处理权，其他处理器(lombok、jmh)照常工作
+        return false;
+    }
+
+    private void collect(Element element) {
+        if (!(element instanceof TypeElement type)) {
+            return;
+        }
+        if (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.RECORD) {
+            String className = binaryName(type);
+            String record = describe(type, className);
+            if (record != null) {
+                records.put(className, record);
+            }
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            collect(enclosed);
+        }
+    }
+
+    /**
+     * 生成类的索引段，不是stereotype类、或属性中出现无法记录的值(嵌套注解)时返回null
+     */
+    private String describe(TypeElement type, String className) {
+        StringBuilder record = new StringBuilder("C ").append(className).append('\n');
+        Set<String> present = new LinkedHashSet<>();
+        List<AnnotationMirror> roots = new ArrayList<>();
+        collectHierarchyAnnotations(type, roots, new HashSet<>());
+        for (AnnotationMirror mirror : roots) {
+            collectPresentTypes((TypeElement) mirror.getAnnotationType().asElement(), present);
+        }
+        if (!present.contains(INDEXED_ANNOTATION)) {
+            return null;
+        }
+        for (AnnotationMirror mirror : roots) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            record.append("R ").append(binaryName(annotationType));
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> attribute : mirror.getElementValues().entrySet()) {
+                String value = attribute.getValue().accept(new ValueEncoder(), null);
+                if (value == null) {
+                    return null;
+                }
+                record.append(' ').append(attribute.getKey().getSimpleName()).append('=').append(value);
+            }
+            record.append('\n');
+        }
+        for (String annotationType : present) {
+            record.append("P ").append(annotationType).append('\n');
+        }
+        return record.toString();
+    }
+
+    /**
+     * 与AnnotationsScanner的TYPE_HIERARCHY一致：先类本身，再实现的接口(递归)，最后父类(递归)，跳过java.*类型
+     */
+    private void collectHierarchyAnnotations(TypeElement type, List<AnnotationMirror> roots, Set<String> visited) {
+        if (type.getQualifiedName().toString().startsWith("java.") || !visited.add(binaryName(type))) {
+            return;
+        }
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (isRuntimeVisible((TypeElement) mirror.getAnnotationType().asElement())) {
+                roots.add(mirror);
+            }
+        }
+        for (TypeMirror ifc : type.getInterfaces()) {
+            if (ifc instanceof DeclaredType declaredType) {
+                collectHierarchyAnnotations((TypeElement) declaredType.asElement(), roots, visited);
+            }
+        }
+        if (type.getSuperclass() instanceof DeclaredType superclass) {
+            collectHierarchyAnnotations((TypeElement) superclass.asElement(), roots, visited);
+        }
+    }
+
+    private void collectPresentTypes(TypeElement annotationType, Set<String> present) {
+        if (!present.add(binaryName(annotationType))) {
+            return;
+        }
+        for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+            TypeElement metaType = (TypeElement) meta.getAnnotationType().asElement();
+            if (isRuntimeVisible(metaType)) {
+                collectPresentTypes(metaType, present);
+            }
+        }
+    }
+
+    /**
+     * 运行期可见且不会被Spring的AnnotationFilter.PLAIN过滤掉的注解
+     */
+    private static boolean isRuntimeVisible(TypeElement annotationType) {
+        String name = annotationType.getQualifiedName().toString();
+        if (name.startsWith("java.lang.") || name.startsWith("org.springframework.lang.")) {
+            return false;
+        }
+        Retention retention = annotationType.getAnnotation(Retention.class);
+        return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type instanceof DeclaredType declaredType) {
+            return binaryName((TypeElement) declaredType.asElement());
+        }
+        return type.toString();
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.write('\n');
+                for (String record : records.values()) {
+                    writer.write(record);
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_LOCATION + ": " + ex);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把属性值编码为字符串，运行期根据注解属性的返回类型还原；嵌套注解返回null
+     */
+    private class ValueEncoder extends SimpleAnnotationValueVisitor9<String, Void> {
+
+        @Override
+        protected String defaultAction(Object value, Void unused) {
+            return encode(String.valueOf(value));
+        }
+
+        @Override
+        public String visitType(TypeMirror type, Void unused) {
+            return encode(typeName(type));
+        }
+
+        @Override
+        public String visitEnumConstant(VariableElement constant, Void unused) {
+            return encode(constant.getSimpleName().toString());
+        }
+
+        @Override
+        public String visitAnnotation(AnnotationMirror annotation, Void unused) {
+            return null;
+        }
+
+        @Override
+        public String visitArray(List<? extends AnnotationValue> values, Void unused) {
+            StringJoiner joiner = new StringJoiner(",");
+            for (AnnotationValue value : values) {
+                String encoded = value.accept(this, null);
+                if (encoded == null) {
+                    return null;
+                }
+                joiner.add(encoded);
+            }
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.wind.rider.processor;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * @author yfchen1
+ * @apiNote 编译期处理@Configuration类，生成 &lt;配置类&gt;__BeanRegistry，直接注册ConfigurationClassPostProcessor解析后得到的BeanDefinition
+ * -- 每个@Bean方法生成一个RootBeanDefinition：名称/别名、initMethod、destroyMethod、autowireCandidate、@Scope、@Lazy、@Primary、
+ *    @DependsOn、@Role、@Description与ConfigurationClassBeanDefinitionReader的处理一致
+ * -- 实例由生成的lambda直接调用@Bean方法创建(见BeanMethodInstanceSupplier，工厂方法只在注册时查找一次，参数仍按容器的自动装配规则解析)，
+ *    创建时不再反射查找、调用工厂方法，配置类本身也不再生成CGLIB子类
+ * -- 只处理能在编译期确定结果的配置类，以下情况不生成，运行期仍交给ConfigurationClassPostProcessor：
+ *    @Import/@ComponentScan/@ImportResource/@PropertySource/@Conditional(含元注解)、父类或嵌套的配置类、重载或泛型的@Bean方法、
+ *    scoped proxy、full模式(proxyBeanMethods=true)下@Bean方法之间的直接调用(需要CGLIB拦截才能保持单例语义)
+ */
+@SupportedAnnotationTypes(BeanRegistryProcessor.CONFIGURATION)
+public class BeanRegistryProcessor extends AbstractProcessor {
+
+    public static final String REGISTRY_SUFFIX = "__BeanRegistry";
+
+    static final String CONFIGURATION = "org.springframework.context.annotation.Configuration";
+
+    private static final String BEAN = "org.springframework.context.annotation.Bean";
+
+    private static final String REGISTRY_INTERFACE = "com.wind.rider.ioc01.infrastructure.factory.GeneratedBeanRegistry";
+
+    private static final String REGISTRY_SUPPORT = "com.wind.rider.ioc01.infrastructure.factory.GeneratedBeanRegistries";
+
+    private static final String INSTANCE_SUPPLIER = "com.wind.rider.ioc01.infrastructure.factory.BeanMethodInstanceSupplier";
+
+    /** 出现在配置类上(含元注解)时，注册结果取决于运行期环境或需要额外解析 */
+    private static final Set<String> UNSUPPORTED_CLASS_ANNOTATIONS = Set.of(
+            "org.springframework.context.annotation.Import",
+            "org.springframework.context.annotation.ImportResource",
+            "org.springframework.context.annotation.ComponentScan",
+            "org.springframework.context.annotation.ComponentScans",
+            "org.springframework.context.annotation.PropertySource",
+            "org.springframework.context.annotation.PropertySources",
+            "org.springframework.context.annotation.Conditional");
+
+    private static final Set<String> UNSUPPORTED_METHOD_ANNOTATIONS = Set.of(
+            "org.springframework.context.annotation.Conditional");
+
+    private Trees trees;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty() || processingEnv.getElementUtils().getTypeElement(REGISTRY_INTERFACE) == null
+                || processingEnv.getElementUtils().getTypeElement(INSTANCE_SUPPLIER) == null) {
+            // 没有运行期支持类的模块不生成
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement type && type.getKind() == ElementKind.CLASS) {
+                    generate(type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement configClass) {
+        List<BeanMethod> beanMethods = new ArrayList<>();
+        String reason = checkConfigurationClass(configClass, beanMethods);
+        if (reason != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Not generating " + REGISTRY_SUFFIX + " for " + configClass.getQualifiedName() + ": " + reason, configClass);
+            return;
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(configClass).getQualifiedName().toString();
+        String registryName = configClass.getSimpleName() + REGISTRY_SUFFIX;
+        try {
+            JavaFileObject source = processingEnv.getFiler().createSourceFile(
+                    (packageName.isEmpty() ? "" : packageName + ".") + registryName, configClass);
+            try (Writer writer = source.openWriter()) {
+                writer.write(new RegistryWriter(configClass, packageName, registryName, beanMethods).write());
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + registryName + ": " + ex, configClass);
+        }
+    }
+
+    /**
+     * 检查配置类能否在编译期生成注册代码，返回不能生成的原因，可以生成时返回null并填充beanMethods
+     */
+    private String checkConfigurationClass(TypeElement configClass, List<BeanMethod> beanMethods) {
+        if (configClass.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return "nested configuration class";
+        }
+        Set<Modifier> modifiers = configClass.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || !configClass.getTypeParameters().isEmpty()) {
+            return "abstract or generic configuration class";
+        }
+        if (configClass.getSuperclass() instanceof DeclaredType superclass
+                && !((TypeElement) superclass.asElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+            return "superclass may declare @Bean methods";
+        }
+        String annotation = findAnnotation(configClass, UNSUPPORTED_CLASS_ANNOTATIONS);
+        if (annotation != null) {
+            return "@" + annotation + " requires ConfigurationClassPostProcessor";
+        }
+        boolean defaultConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(configClass.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                defaultConstructor = true;
+            }
+        }
+        if (!defaultConstructor) {
+            return "no accessible no-arg constructor";
+        }
+        for (Element member : configClass.getEnclosedElements()) {
+            if (member instanceof TypeElement && findAnnotation(member, Set.of(CONFIGURATION, "org.springframework.stereotype.Component")) != null) {
+                return "member class " + member.getSimpleName() + " is a configuration candidate";
+            }
+        }
+        Map<String, Integer> methodNames = new HashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(configClass.getEnclosedElements())) {
+            methodNames.merge(method.getSimpleName().toString(), 1, Integer::sum);
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(configClass.getEnclosedElements())) {
+            AnnotationMirror bean = getAnnotation(method, BEAN);
+            if (bean == null) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            if (methodNames.get(name) > 1) {
+                return "@Bean method " + name + " is overloaded";
+            }
+            if (method.getModifiers().contains(Modifier.PRIVATE) || !method.getTypeParameters().isEmpty()) {
+                return "@Bean method " + name + " is private or generic";
+            }
+            if (!isPlainType(method.getReturnType())) {
+                return "@Bean method " + name + " returns a parameterized or non-class type";
+            }
+            if (findAnnotation(method, UNSUPPORTED_METHOD_ANNOTATIONS) != null) {
+                return "@Bean method " + name + " is conditional";
+            }
+            AnnotationMirror scope = getAnnotation(method, "org.springframework.context.annotation.Scope");
+            String proxyMode = (scope != null ? stringValue(scope, "proxyMode") : null);
+            if (proxyMode != null && !proxyMode.equals("DEFAULT") && !proxyMode.equals("NO")) {
+                return "@Bean method " + name + " requires a scoped proxy";
+            }
+            beanMethods.add(new BeanMethod(method, bean, scope));
+        }
+        if (isFullConfiguration(configClass)) {
+            String call = findInterBeanMethodCall(configClass, beanMethods);
+            if (call != null) {
+                return call;
+            }
+        }
+        return null;
+    }
+
+    private boolean isFullConfiguration(TypeElement configClass) {
+        AnnotationMirror configuration = getAnnotation(configClass, CONFIGURATION);
+        return configuration == null || !"false".equals(stringValue(configuration, "proxyBeanMethods"));
+    }
+
+    /**
+     * full模式下@Bean方法之间的调用依赖CGLIB拦截返回容器中的单例，直接调用会得到新的实例，因此不能生成
+     */
+    private String findInterBeanMethodCall(TypeElement configClass, List<BeanMethod> beanMethods) {
+        Trees trees = getTrees();
+        if (trees == null) {
+            return "method bodies cannot be inspected by this compiler";
+        }
+        Set<String> names = new HashSet<>();
+        for (BeanMethod beanMethod : beanMethods) {
+            names.add(beanMethod.method.getSimpleName().toString());
+        }
+        String[] found = new String[1];
+        new TreePathScanner<Void, Void>() {
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+                ExpressionTree select = node.getMethodSelect();
+                String name = null;
+                if (select instanceof IdentifierTree identifier) {
+                    name = identifier.getName().toString();
+                } else if (select instanceof MemberSelectTree memberSelect && memberSelect.getExpression() instanceof IdentifierTree target
+                        && target.getName().contentEquals("this")) {
+                    name = memberSelect.getIdentifier().toString();
+                }
+                if (name != null && names.contains(name) && found[0] == null) {
+                    found[0] = "@Bean method " + name + "() is called directly and needs a CGLIB proxy";
+                }
+                return super.visitMethodInvocation(node, unused);
+            }
+        }.scan(trees.getPath(configClass), null);
+        return found[0];
+    }
+
+    private Trees getTrees() {
+        if (trees == null) {
+            try {
+                trees = Trees.instance(processingEnv);
+            } catch (IllegalArgumentException ex) {
+                // 非javac编译器
+                return null;
+            }
+        }
+        return trees;
+    }
+
+    private boolean isPlainType(TypeMirror type) {
+        if (type.getKind().isPrimitive() || type.getKind() == TypeKind.ARRAY) {
+            return true;
+        }
+        return type instanceof DeclaredType declaredType && declaredType.getTypeArguments().isEmpty();
+    }
+
+    /**
+     * 在元素的注解及其元注解中查找给定类型，返回找到的注解名
+     */
+    private String findAnnotation(Element element, Set<String> annotationTypes) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String found = findAnnotation((TypeElement) mirror.getAnnotationType().asElement(), annotationTypes, new HashSet<>());
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private String findAnnotation(TypeElement annotationType, Set<String> annotationTypes, Set<String> visited) {
+        String name = annotationType.getQualifiedName().toString();
+        if (annotationTypes.contains(name)) {
+            return name;
+        }
+        if (name.startsWith("java.lang.") || !visited.add(name)) {
+            return null;
+        }
+        for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+            String found = findAnnotation((TypeElement) meta.getAnnotationType().asElement(), annotationTypes, visited);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 显式设置的属性值，未设置时返回null；枚举返回常量名
+     */
+    private static String stringValue(AnnotationMirror mirror, String attribute) {
+        AnnotationValue value = attributeValue(mirror, attribute);
+        if (value == null) {
+            return null;
+        }
+        Object raw = value.getValue();
+        return (raw instanceof VariableElement constant ? constant.getSimpleName().toString() : String.valueOf(raw));
+    }
+
+    /**
+     * 字符串或字符串数组属性，未设置时返回空列表
+     */
+    private static List<String> stringValues(AnnotationMirror mirror, String attribute) {
+        AnnotationValue value = attributeValue(mirror, attribute);
+        if (value == null) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        if (value.getValue() instanceof List<?> values) {
+            for (Object element : values) {
+                result.add(String.valueOf(((AnnotationValue) element).getValue()));
+            }
+        } else {
+            result.add(String.valueOf(value.getValue()));
+        }
+        return result;
+    }
+
+    private static AnnotationValue attributeValue(AnnotationMirror mirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private record BeanMethod(ExecutableElement method, AnnotationMirror bean, AnnotationMirror scope) {
+    }
+
+    /**
+     * 生成注册类的源码
+     */
+    private class RegistryWriter {
+
+        private final TypeElement configClass;
+
+        private final String packageName;
+
+        private final String registryName;
+
+        private final List<BeanMethod> beanMethods;
+
+        private final StringBuilder code = new StringBuilder();
+
+        RegistryWriter(TypeElement configClass, String packageName, String registryName, List<BeanMethod> beanMethods) {
+            this.configClass = configClass;
+            this.packageName = packageName;
+            this.registryName = registryName;
+            this.beanMethods = beanMethods;
+        }
+
+        String write() {
+            String configType = configClass.getQualifiedName().toString();
+            if (!packageName.isEmpty()) {
+                line(0, "package " + packageName + ";");
+                line(0, "");
+            }
+            line(0, "/**");
+            line(0, " * 由BeanRegistryProcessor根据 {@link " + configType + "} 在编译期生成，请勿修改");
+            line(0, " */");
+            line(0, "@javax.annotation.processing.Generated(\"" + BeanRegistryProcessor.class.getName() + "\")");
+            line(0, "public final class " + registryName + " implements " + REGISTRY_INTERFACE + " {");
+            line(0, "");
+            line(1, "@Override");
+            line(1, "public Class<?> getConfigurationClass() {");
+            line(2, "return " + configType + ".class;");
+            line(1, "}");
+            line(0, "");
+            line(1, "@Override");
+            line(1, "public void registerBeanDefinitions(org.springframework.beans.factory.support.BeanDefinitionRegistry registry, "
+                    + "String configurationBeanName) {");
+            line(2, "org.springframework.beans.factory.support.RootBeanDefinition configuration = "
+                    + "new org.springframework.beans.factory.support.RootBeanDefinition(" + configType + ".class);");
+            line(2, "configuration.setInstanceSupplier(" + configType + "::new);");
+            line(2, REGISTRY_SUPPORT + ".markConfigurationProcessed(configuration);");
+            line(2, "registry.registerBeanDefinition(configurationBeanName, configuration);");
+            for (BeanMethod beanMethod : beanMethods) {
+                writeBeanMethod(beanMethod);
+            }
+            line(1, "}");
+            line(0, "}");
+            return code.toString();
+        }
+
+        private void writeBeanMethod(BeanMethod beanMethod) {
+            ExecutableElement method = beanMethod.method;
+            String methodName = method.getSimpleName().toString();
+            List<String> names = new ArrayList<>(stringValues(beanMethod.bean, "name"));
+            if (names.isEmpty()) {
+                names.addAll(stringValues(beanMethod.bean, "value"));
+            }
+            String beanName = (names.isEmpty() ? methodName : names.remove(0));
+            String definition = methodName + "Definition";
+            Types types = processingEnv.getTypeUtils();
+            String beanType = typeName(types.erasure(method.getReturnType()));
+
+            line(0, "");
+            line(2, "// @Bean " + methodName + "()");
+            for (String alias : names) {
+                line(2, "registry.registerAlias(" + literal(beanName) + ", " + literal(alias) + ");");
+            }
+            line(2, "org.springframework.beans.factory.support.RootBeanDefinition " + definition
+                    + " = new org.springframework.beans.factory.support.RootBeanDefinition(" + beanType + ".class);");
+            writeDefinitionProperties(beanMethod, definition);
+
+            StringJoiner parameterTypes = new StringJoiner(", ", "new Class<?>[] {", "}");
+            StringJoiner arguments = new StringJoiner(", ");
+            List<? extends VariableElement> parameters = method.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                TypeMirror parameterType = parameters.get(i).asType();
+                parameterTypes.add(typeName(types.erasure(parameterType)) + ".class");
+                arguments.add("args.<" + boxedTypeName(parameterType) + ">get(" + i + ")");
+            }
+            String target = (method.getModifiers().contains(Modifier.STATIC) ? configClass.getQualifiedName().toString()
+                    : REGISTRY_SUPPORT + ".getConfiguration(registeredBean, configurationBeanName, "
+                    + configClass.getQualifiedName() + ".class)");
+            String lambdaParameters = (parameters.isEmpty() ? "registeredBean" : "(registeredBean, args)");
+            line(2, definition + ".setInstanceSupplier(" + INSTANCE_SUPPLIER + ".<" + beanType + ">of("
+                    + configClass.getQualifiedName() + ".class, " + literal(methodName)
+                    + (parameters.isEmpty() ? "" : ", " + parameterTypes) + ",");
+            line(4, lambdaParameters + " -> " + target + "." + methodName + "(" + arguments + ")));");
+            line(2, "registry.registerBeanDefinition(" + literal(beanName) + ", " + definition + ");");
+        }
+
+        /**
+         * 与ConfigurationClassBeanDefinitionReader#loadBeanDefinitionsForBeanMethod、
+         * AnnotationConfigUtils#processCommonDefinitionAnnotations一致
+         */
+        private void writeDefinitionProperties(BeanMethod beanMethod, String definition) {
+            ExecutableElement method = beanMethod.method;
+            AnnotationMirror lazy = getAnnotation(method, "org.springframework.context.annotation.Lazy");
+            if (lazy == null) {
+                lazy = getAnnotation(configClass, "org.springframework.context.annotation.Lazy");
+            }
+            if (lazy != null) {
+                line(2, definition + ".setLazyInit(" + !"false".equals(stringValue(lazy, "value")) + ");");
+            }
+            if (getAnnotation(method, "org.springframework.context.annotation.Primary") != null) {
+                line(2, definition + ".setPrimary(true);");
+            }
+            AnnotationMirror dependsOn = getAnnotation(method, "org.springframework.context.annotation.DependsOn");
+            if (dependsOn != null) {
+                StringJoiner beanNames = new StringJoiner(", ");
+                for (String dependency : stringValues(dependsOn, "value")) {
+                    beanNames.add(literal(dependency));
+                }
+                line(2, definition + ".setDependsOn(" + beanNames + ");");
+            }
+            AnnotationMirror role = getAnnotation(method, "org.springframework.context.annotation.Role");
+            if (role != null && stringValue(role, "value") != null) {
+                line(2, definition + ".setRole(" + stringValue(role, "value") + ");");
+            }
+            AnnotationMirror description = getAnnotation(method, "org.springframework.context.annotation.Description");
+            if (description != null) {
+                line(2, definition + ".setDescription(" + literal(stringValue(description, "value")) + ");");
+            }
+            if ("false".equals(stringValue(beanMethod.bean, "autowireCandidate"))) {
+                line(2, definition + ".setAutowireCandidate(false);");
+            }
+            String initMethod = stringValue(beanMethod.bean, "initMethod");
+            if (initMethod != null && !initMethod.isBlank()) {
+                line(2, definition + ".setInitMethodName(" + literal(initMethod) + ");");
+            }
+            String destroyMethod = stringValue(beanMethod.bean, "destroyMethod");
+            line(2, definition + ".setDestroyMethodName(" + literal(destroyMethod != null ? destroyMethod : "(inferred)") + ");");
+            String scope = (beanMethod.scope != null ? stringValue(beanMethod.scope, "value") : null);
+            if (scope == null && beanMethod.scope != null) {
+                scope = stringValue(beanMethod.scope, "scopeName");
+            }
+            if (scope != null) {
+                line(2, definition + ".setScope(" + literal(scope) + ");");
+            }
+        }
+
+        private String typeName(TypeMirror type) {
+            if (type instanceof DeclaredType declaredType) {
+                return ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+            }
+            return type.toString();
+        }
+
+        private String boxedTypeName(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+            }
+            return type.toString();
+        }
+
+        private void line(int indent, String text) {
+            code.append("    ".repeat(indent)).append(text).append('\n');
+        }
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}